@@ -0,0 +1,124 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+
+import java.util.List;
+
+/**
+ * 一台设备的自适应轮询倍数，该设备所有信号分组共用
+ * <p>
+ * 连接错误（EW_SOCKET、EW_HANDLE）每次失败倍数翻倍，第一次成功即恢复；
+ * 块计数超过 idle-after 不变后每次程序分组轮询倍数翻倍；块计数变化或报警状态变化时立即恢复为 1。
+ * 实际倍数取两者中较大的一个
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:30
+ */
+final class AdaptivePollRate {
+
+    private final boolean enabled;
+    private final long idleAfterMillis;
+    private final int maxIdleFactor;
+    private final int maxErrorFactor;
+
+    private int idleFactor = 1;
+    private int errorFactor = 1;
+    private double lastBlockCount = Double.NaN;
+    private double lastAlarm = Double.NaN;
+    private long blockChangedAt;
+    private String reason = "启动";
+    private long changedAt;
+
+    AdaptivePollRate(FanucProperties.Adaptive config) {
+        this.enabled = config.isEnabled();
+        this.idleAfterMillis = config.getIdleAfter().toMillis();
+        this.maxIdleFactor = Math.max(1, config.getMaxIdleFactor());
+        this.maxErrorFactor = Math.max(1, config.getMaxErrorFactor());
+    }
+
+    synchronized int factor() {
+        return enabled ? Math.max(idleFactor, errorFactor) : 1;
+    }
+
+    /**
+     * 根据一次轮询的结果调整倍数
+     *
+     * @param errorCode 连接级错误码，成功为 EW_OK
+     * @param readings  本次读取的信号值
+     * @param now       当前时间（毫秒）
+     * @return 倍数是否变小（需要提前执行已排定的轮询）
+     */
+    synchronized boolean update(short errorCode, List<SignalReading> readings, long now) {
+        if (!enabled) {
+            return false;
+        }
+        int before = factor();
+        if (errorCode == FocasErrorCode.EW_SOCKET || errorCode == FocasErrorCode.EW_HANDLE) {
+            if (errorFactor < maxErrorFactor) {
+                errorFactor = Math.min(errorFactor * 2, maxErrorFactor);
+                changed("连接错误 " + errorCode, now);
+            }
+            return false;
+        }
+        if (errorCode == FocasErrorCode.EW_OK && errorFactor > 1) {
+            errorFactor = 1;
+            changed("连接恢复", now);
+        }
+        for (SignalReading reading : readings) {
+            if (!reading.isSuccess()) {
+                continue;
+            }
+            switch (reading.getSignal()) {
+                case "blkcount" -> onBlockCount(reading.getValue(), now);
+                case "alarm" -> {
+                    if (!Double.isNaN(lastAlarm) && reading.getValue() != lastAlarm) {
+                        active("报警状态变化", now);
+                    }
+                    lastAlarm = reading.getValue();
+                }
+                default -> {
+                }
+            }
+        }
+        return factor() < before;
+    }
+
+    private void onBlockCount(double blockCount, long now) {
+        if (Double.isNaN(lastBlockCount)) {
+            blockChangedAt = now;
+        } else if (blockCount != lastBlockCount) {
+            active("块计数变化", now);
+        } else if (now - blockChangedAt >= idleAfterMillis && idleFactor < maxIdleFactor) {
+            idleFactor = Math.min(idleFactor * 2, maxIdleFactor);
+            changed("块计数 " + (now - blockChangedAt) / 1000 + "s 未变化", now);
+        }
+        lastBlockCount = blockCount;
+    }
+
+    private void active(String why, long now) {
+        blockChangedAt = now;
+        if (idleFactor > 1) {
+            idleFactor = 1;
+            changed(why, now);
+        }
+    }
+
+    private void changed(String why, long now) {
+        reason = why;
+        changedAt = now;
+    }
+
+    synchronized PollRate snapshot(String machineId) {
+        PollRate rate = new PollRate();
+        rate.setMachineId(machineId);
+        rate.setFactor(factor());
+        rate.setIdleFactor(idleFactor);
+        rate.setErrorFactor(errorFactor);
+        rate.setState(errorFactor > 1 ? PollRateState.ERROR : idleFactor > 1 ? PollRateState.IDLE : PollRateState.RUNNING);
+        rate.setReason(reason);
+        rate.setChangedAt(changedAt);
+        return rate;
+    }
+}
@@ -0,0 +1,64 @@
+package com.wfql.springbootdemo.collect;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 采集管道：轮询结果先更新 {@link MachineStateStore}，再经 {@link DeltaFilter} 去掉未变化的值后，
+ * 依次分发给各个 {@link ReadingSink}
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 13:55
+ */
+@Slf4j
+@Component
+public class CollectorPipeline {
+
+    private final ObjectProvider<ReadingSink> sinkProvider;
+
+    private final DeltaFilter deltaFilter;
+
+    private final MachineStateStore stateStore;
+
+    private volatile List<ReadingSink> sinks;
+
+    public CollectorPipeline(ObjectProvider<ReadingSink> sinkProvider, DeltaFilter deltaFilter,
+                             MachineStateStore stateStore) {
+        this.sinkProvider = sinkProvider;
+        this.deltaFilter = deltaFilter;
+        this.stateStore = stateStore;
+    }
+
+    public void publish(List<SignalReading> readings) {
+        stateStore.update(readings);
+        readings = deltaFilter.filter(readings);
+        if (readings.isEmpty()) {
+            return;
+        }
+        for (ReadingSink sink : sinks()) {
+            try {
+                sink.accept(readings);
+            } catch (RuntimeException e) {
+                log.warn("采集结果处理失败: {}", sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    public DeltaFilter getDeltaFilter() {
+        return deltaFilter;
+    }
+
+    private List<ReadingSink> sinks() {
+        List<ReadingSink> list = sinks;
+        if (list == null) {
+            // 首次发布时再解析，避免与下游 Bean 循环依赖
+            list = sinkProvider.orderedStream().toList();
+            sinks = list;
+        }
+        return list;
+    }
+}
@@ -0,0 +1,174 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 变化过滤：只把与上一次下发值不同的信号交给下游
+ * <p>
+ * 每台设备一张最近下发值表，信号名映射到槽位，值、文本、错误代码和下发时间按槽位存放在基本类型数组中。
+ * 数值与上一次下发值之差不超过死区（宏变量默认 fanuc.delta.macro-deadband，可按信号名单独配置）时视为未变化；
+ * 与上一次下发值而不是上一次读取值比较，缓慢漂移累计超过死区后仍会下发。
+ * 未变化的信号超过 heartbeat 仍会下发一次，下游据此确认设备仍在采集
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 20:40
+ */
+@Component
+public class DeltaFilter {
+
+    private static final String MACRO_PREFIX = "macro:";
+
+    private final boolean enabled;
+    private final double macroDeadband;
+    private final Map<String, Double> deadbands;
+    private final long heartbeatMillis;
+
+    private final Map<String, MachineTable> tables = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public DeltaFilter(FanucProperties properties) {
+        FanucProperties.Delta config = properties.getDelta();
+        if (config.getMacroDeadband() < 0 || config.getDeadbands().values().stream().anyMatch(d -> d < 0)) {
+            throw new IllegalArgumentException("fanuc.delta 死区不能为负数");
+        }
+        this.enabled = config.isEnabled();
+        this.macroDeadband = config.getMacroDeadband();
+        this.deadbands = Map.copyOf(config.getDeadbands());
+        this.heartbeatMillis = config.getHeartbeat().toMillis();
+    }
+
+    /**
+     * 过滤同一台设备的一批信号值
+     *
+     * @return 需要下发的信号值；全部变化时返回 readings 本身
+     */
+    public List<SignalReading> filter(List<SignalReading> readings) {
+        received.add(readings.size());
+        if (!enabled || readings.isEmpty()) {
+            return readings;
+        }
+        MachineTable table = tables.computeIfAbsent(readings.get(0).getMachineId(), k -> new MachineTable());
+        List<SignalReading> changed = null;
+        synchronized (table) {
+            for (int i = 0; i < readings.size(); i++) {
+                SignalReading reading = readings.get(i);
+                boolean emit = table.update(reading, this);
+                if (!emit && changed == null) {
+                    // 第一次出现未变化的值时才复制前面已确定下发的部分
+                    changed = new ArrayList<>(readings.subList(0, i));
+                } else if (emit && changed != null) {
+                    changed.add(reading);
+                }
+            }
+        }
+        if (changed == null) {
+            return readings;
+        }
+        suppressed.add(readings.size() - changed.size());
+        return changed;
+    }
+
+    /**
+     * 清除一台设备的最近值，之后的每个信号都会再下发一次
+     */
+    public void reset(String machineId) {
+        tables.remove(machineId);
+    }
+
+    /**
+     * 收到的信号值总数
+     */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * 被过滤掉的信号值总数
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    double deadband(String signal) {
+        Double configured = deadbands.get(signal);
+        if (configured != null) {
+            return configured;
+        }
+        return signal.startsWith(MACRO_PREFIX) ? macroDeadband : 0;
+    }
+
+    /**
+     * 一台设备的最近下发值，按槽位存放
+     */
+    private static final class MachineTable {
+        private final Map<String, Integer> slots = new HashMap<>();
+        private double[] values = new double[16];
+        private String[] texts = new String[16];
+        private short[] errorCodes = new short[16];
+        private long[] emittedAt = new long[16];
+        private double[] deadbands = new double[16];
+
+        /**
+         * 与最近下发值比较，需要下发时更新并返回 true
+         */
+        boolean update(SignalReading reading, DeltaFilter filter) {
+            Integer slot = slots.get(reading.getSignal());
+            if (slot == null) {
+                slot = slots.size();
+                grow(slot + 1);
+                slots.put(reading.getSignal(), slot);
+                deadbands[slot] = filter.deadband(reading.getSignal());
+                store(slot, reading);
+                return true;
+            }
+            int s = slot;
+            boolean same = reading.getErrorCode() == errorCodes[s]
+                    && (reading.getText() != null
+                    ? reading.getText().equals(texts[s])
+                    : texts[s] == null && withinDeadband(reading.getValue(), values[s], deadbands[s]));
+            if (same && (filter.heartbeatMillis <= 0 || reading.getTimestamp() - emittedAt[s] < filter.heartbeatMillis)) {
+                return false;
+            }
+            store(s, reading);
+            return true;
+        }
+
+        private void store(int slot, SignalReading reading) {
+            values[slot] = reading.getValue();
+            texts[slot] = reading.getText();
+            errorCodes[slot] = reading.getErrorCode();
+            emittedAt[slot] = reading.getTimestamp();
+        }
+
+        private static boolean withinDeadband(double value, double last, double deadband) {
+            if (Double.isNaN(value) || Double.isNaN(last)) {
+                // 空宏变量为 NaN，只有两次都为空才算未变化
+                return Double.isNaN(value) && Double.isNaN(last);
+            }
+            return deadband == 0 ? value == last : Math.abs(value - last) <= deadband;
+        }
+
+        private void grow(int size) {
+            if (size <= values.length) {
+                return;
+            }
+            int capacity = Math.max(size, values.length * 2);
+            values = Arrays.copyOf(values, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            errorCodes = Arrays.copyOf(errorCodes, capacity);
+            emittedAt = Arrays.copyOf(emittedAt, capacity);
+            deadbands = Arrays.copyOf(deadbands, capacity);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.DeviceDriver;
+import com.wfql.springbootdemo.driver.DriverException;
+import com.wfql.springbootdemo.driver.DriverRegistry;
+import com.wfql.springbootdemo.driver.DriverSession;
+import com.wfql.springbootdemo.driver.FanucDriver;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多设备定时轮询
+ * <p>
+ * 每台设备的每个信号分组是一个独立任务，按分组间隔由定时线程投递到 {@link DeviceTaskExecutor}（共享线程池或虚拟线程），
+ * 任务经 {@link DriverRegistry} 找到设备的驱动，打开一次会话读取该分组的全部标签；
+ * 任一空闲线程都可以取走任何设备的任务，不会出现部分线程空闲、部分线程积压的情况；
+ * 各任务的首次执行时间在间隔内错开，避免所有设备同时到期；上一次尚未完成的任务本轮跳过并计数。
+ * 每次执行后按 {@link AdaptivePollRate} 的倍数排定下一次：关机、报警或空闲的设备放慢，
+ * 块计数或报警变化时立即恢复，并把该设备已排得较远的其他分组提前
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 14:40
+ */
+@Slf4j
+@Component
+public class DevicePollScheduler {
+
+    private final FanucProperties properties;
+    private final DriverRegistry driverRegistry;
+    private final CollectorPipeline pipeline;
+    private final DeviceTaskExecutor executor;
+
+    private final List<PollTask> tasks = new CopyOnWriteArrayList<>();
+    private final Map<String, AdaptivePollRate> rates = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService timer;
+
+    public DevicePollScheduler(FanucProperties properties,
+                               DriverRegistry driverRegistry,
+                               CollectorPipeline pipeline,
+                               DeviceTaskExecutor executor) {
+        this.properties = properties;
+        this.driverRegistry = driverRegistry;
+        this.pipeline = pipeline;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        FanucProperties.Poll poll = properties.getPoll();
+        if (!poll.isEnabled() || properties.getDevices().isEmpty() || timer != null) {
+            log.info("FANUC 定时轮询未启用，设备数: {}", properties.getDevices().size());
+            return;
+        }
+        ScheduledExecutorService current = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fanuc-poll-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = current;
+        DeviceDriver driver = driverRegistry.get(FanucDriver.PROTOCOL);
+        for (FanucProperties.Device device : properties.getDevices()) {
+            AdaptivePollRate rate = rates.computeIfAbsent(device.getId(), k -> new AdaptivePollRate(poll.getAdaptive()));
+            for (SignalGroup group : SignalGroup.values()) {
+                if ((group == SignalGroup.MACRO && device.getMacros().isEmpty())
+                        || (group == SignalGroup.PARAMETER && device.getParameters().isEmpty())) {
+                    continue;
+                }
+                long interval = group.interval(poll).toNanos();
+                PollTask task = new PollTask(device, driver, group, interval, rate);
+                tasks.add(task);
+                // 首次执行时间在一个间隔内按设备错开
+                long offset = Math.floorMod((device.getId() + group).hashCode(), interval);
+                long due = System.nanoTime() + offset;
+                // 排定工作交给定时线程，future 和 nextDueNanos 只在定时线程中读写
+                current.execute(() -> {
+                    task.nextDueNanos = due;
+                    task.future = current.schedule(() -> tick(task), due - System.nanoTime(), TimeUnit.NANOSECONDS);
+                });
+            }
+        }
+        log.info("FANUC 定时轮询已启动，设备数: {}，任务数: {}", properties.getDevices().size(), tasks.size());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * 由定时线程调用：投递本次轮询并按当前倍数排定下一次
+     */
+    private void tick(PollTask task) {
+        dispatch(task);
+        ScheduledExecutorService current = timer;
+        if (current == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        // 以上一次的计划时间为基准，保持与固定频率相同的节拍；定时线程落后时从当前时间算起
+        long next = Math.max(task.nextDueNanos + task.currentIntervalNanos(), now);
+        task.nextDueNanos = next;
+        try {
+            task.future = current.schedule(() -> tick(task), next - now, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 已停止
+        }
+    }
+
+    /**
+     * 倍数变小后，把该设备排得比新间隔还远的任务提前；在定时线程中执行，与 tick 不会并发
+     */
+    private void speedUp(ScheduledExecutorService current, AdaptivePollRate rate) {
+        long now = System.nanoTime();
+        for (PollTask task : tasks) {
+            if (task.rate != rate) {
+                continue;
+            }
+            long target = now + task.currentIntervalNanos();
+            if (task.nextDueNanos > target && task.future.cancel(false)) {
+                task.nextDueNanos = target;
+                task.future = current.schedule(() -> tick(task), target - now, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 由定时线程调用，只负责投递，不执行 FOCAS 调用
+     */
+    private void dispatch(PollTask task) {
+        if (!task.inFlight.compareAndSet(false, true)) {
+            task.skipped.increment();
+            return;
+        }
+        try {
+            executor.execute(task.device.getId(), () -> poll(task));
+        } catch (TaskRejectedException e) {
+            task.inFlight.set(false);
+            task.skipped.increment();
+        }
+    }
+
+    private void poll(PollTask task) {
+        try {
+            pollOnce(task);
+        } finally {
+            // 发布之后才放行下一轮，否则下一轮可能先发布，较旧的读数覆盖较新的读数
+            task.inFlight.set(false);
+        }
+    }
+
+    private void pollOnce(PollTask task) {
+        long start = System.nanoTime();
+        task.markStart(start);
+        FanucProperties.Device device = task.device;
+        List<SignalReading> readings = new ArrayList<>();
+        short errorCode = FocasErrorCode.EW_OK;
+        try (DriverSession session = task.driver.open(device.getId())) {
+            errorCode = session.read(task.tags, System.currentTimeMillis(), readings);
+        } catch (DriverException e) {
+            errorCode = e.getErrorCode();
+            if (task.group == SignalGroup.ALARM) {
+                readings.add(SignalReading.of(device.getId(), "online", 0, System.currentTimeMillis()));
+            }
+            log.debug("设备 {} 轮询 {} 失败: {}", device.getId(), task.group, e.getMessage());
+        } catch (RuntimeException e) {
+            errorCode = FocasErrorCode.EW_UNEXP;
+            log.warn("设备 {} 轮询 {} 异常", device.getId(), task.group, e);
+        } finally {
+            task.finish(System.nanoTime() - start, errorCode);
+        }
+        if (task.rate.update(errorCode, readings, System.currentTimeMillis())) {
+            ScheduledExecutorService current = timer;
+            if (current != null) {
+                try {
+                    current.execute(() -> speedUp(current, task.rate));
+                } catch (RejectedExecutionException ignored) {
+                    // 已停止
+                }
+            }
+        }
+        pipeline.publish(readings);
+    }
+
+    /**
+     * 轮询统计：线程池状态以及每个任务的实际/目标频率
+     */
+    public PollReport getReport() {
+        long now = System.nanoTime();
+        List<PollStats> stats = new ArrayList<>(tasks.size());
+        int saturated = 0;
+        for (PollTask task : tasks) {
+            PollStats s = task.snapshot(now);
+            if (s.getRatio() < 0.9) {
+                saturated++;
+            }
+            stats.add(s);
+        }
+        PollReport report = new PollReport();
+        report.setMode(executor.getMode());
+        report.setPoolSize(executor.getPoolSize());
+        report.setActiveCount(executor.getActiveCount());
+        report.setQueueSize(executor.getQueueSize());
+        report.setSaturatedTasks(saturated);
+        report.setReadings(pipeline.getDeltaFilter().getReceived());
+        report.setSuppressedReadings(pipeline.getDeltaFilter().getSuppressed());
+        report.setTasks(stats);
+        return report;
+    }
+
+    /**
+     * 每台设备当前的轮询倍数和各分组间隔
+     */
+    public List<PollRate> getRates() {
+        List<PollRate> list = new ArrayList<>();
+        for (FanucProperties.Device device : properties.getDevices()) {
+            AdaptivePollRate rate = rates.get(device.getId());
+            if (rate == null) {
+                continue;
+            }
+            PollRate snapshot = rate.snapshot(device.getId());
+            Map<SignalGroup, Long> intervals = new EnumMap<>(SignalGroup.class);
+            double callsPerSecond = 0;
+            for (PollTask task : tasks) {
+                if (task.rate == rate) {
+                    long interval = task.intervalNanos * snapshot.getFactor();
+                    intervals.put(task.group, TimeUnit.NANOSECONDS.toMillis(interval));
+                    callsPerSecond += 1e9 / interval;
+                }
+            }
+            snapshot.setIntervalMillis(intervals);
+            snapshot.setCallsPerSecond(callsPerSecond);
+            list.add(snapshot);
+        }
+        return list;
+    }
+
+    /**
+     * 一台设备的一个信号分组
+     */
+    private static final class PollTask {
+        /**
+         * 实际周期的指数滑动平均系数
+         */
+        private static final double ALPHA = 0.2;
+
+        final FanucProperties.Device device;
+        final DeviceDriver driver;
+        final SignalGroup group;
+        final List<TagAddress> tags;
+        final long intervalNanos;
+        final AdaptivePollRate rate;
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        final LongAdder skipped = new LongAdder();
+
+        // 以下两个字段只在定时线程中读写
+        long nextDueNanos;
+        ScheduledFuture<?> future;
+
+        // 以下字段只在持有 inFlight 的线程中写入
+        private volatile long lastStartNanos;
+        private volatile double avgPeriodNanos;
+        private volatile long completed;
+        private volatile long failed;
+        private volatile long totalDurationNanos;
+        private volatile short lastErrorCode;
+
+        PollTask(FanucProperties.Device device, DeviceDriver driver, SignalGroup group, long intervalNanos,
+                 AdaptivePollRate rate) {
+            this.device = device;
+            this.driver = driver;
+            this.group = group;
+            this.tags = group.tags(device);
+            this.intervalNanos = intervalNanos;
+            this.rate = rate;
+        }
+
+        long currentIntervalNanos() {
+            return intervalNanos * rate.factor();
+        }
+
+        void markStart(long now) {
+            long last = lastStartNanos;
+            if (last != 0) {
+                long period = now - last;
+                avgPeriodNanos = avgPeriodNanos == 0 ? period : avgPeriodNanos + ALPHA * (period - avgPeriodNanos);
+            }
+            lastStartNanos = now;
+        }
+
+        void finish(long durationNanos, short errorCode) {
+            completed++;
+            totalDurationNanos += durationNanos;
+            if (errorCode != FocasErrorCode.EW_OK) {
+                failed++;
+                lastErrorCode = errorCode;
+            }
+        }
+
+        PollStats snapshot(long now) {
+            PollStats stats = new PollStats();
+            long interval = currentIntervalNanos();
+            double target = 1e9 / interval;
+            double period = avgPeriodNanos;
+            long last = lastStartNanos;
+            // 长时间没有执行时，以距上次执行的时间作为周期，避免显示过时的频率
+            if (last != 0 && now - last > period) {
+                period = now - last;
+            }
+            double achieved = period > 0 ? 1e9 / period : 0;
+            long done = completed;
+            stats.setMachineId(device.getId());
+            stats.setGroup(group);
+            stats.setIntervalMillis(TimeUnit.NANOSECONDS.toMillis(interval));
+            stats.setTargetRate(target);
+            stats.setAchievedRate(achieved);
+            stats.setRatio(achieved / target);
+            stats.setCompleted(done);
+            stats.setSkipped(skipped.sum());
+            stats.setFailed(failed);
+            stats.setAvgDurationMillis(done == 0 ? 0 : totalDurationNanos / (double) done / 1_000_000);
+            stats.setLastErrorCode(lastErrorCode);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 设备读取任务执行器
+ * <p>
+ * FOCAS 调用在整个网络往返期间阻塞调用线程。platform 模式使用 fanucThreadPoolExecutor 固定线程池，
+ * 并发数即线程数；virtual 模式每个任务一个虚拟线程，阻塞时不占用系统线程，
+ * 单台设备的并发由信号量限制，排队的任务停在虚拟线程上而不是线程池队列里
+ * <p>
+ * 注意：native 后端通过 JNA 调用 DLL，本地调用期间虚拟线程会占住载体线程（pinned），
+ * 此时并发上限约为 CPU 核数，virtual 模式的收益主要体现在模拟后端或 OPC UA 等纯 Java 的 I/O 上
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 15:20
+ */
+@Slf4j
+@Component
+public class DeviceTaskExecutor {
+
+    @Getter
+    private final FanucProperties.ExecutorMode mode;
+    private final int maxConcurrentPerDevice;
+    private final ThreadPoolTaskExecutor platformExecutor;
+    private final SimpleAsyncTaskExecutor virtualExecutor;
+
+    private final Map<String, Semaphore> devicePermits = new ConcurrentHashMap<>();
+    private final AtomicInteger virtualInFlight = new AtomicInteger();
+    private final AtomicInteger virtualWaiting = new AtomicInteger();
+
+    public DeviceTaskExecutor(FanucProperties properties,
+                              @Qualifier("fanucThreadPoolExecutor") ThreadPoolTaskExecutor platformExecutor,
+                              @Qualifier("fanucVirtualThreadExecutor") SimpleAsyncTaskExecutor virtualExecutor) {
+        FanucProperties.Executor config = properties.getExecutor();
+        if (config.getMaxConcurrentPerDevice() < 1) {
+            throw new IllegalArgumentException("fanuc.executor.max-concurrent-per-device must be >= 1");
+        }
+        this.mode = config.getMode();
+        this.maxConcurrentPerDevice = config.getMaxConcurrentPerDevice();
+        this.platformExecutor = platformExecutor;
+        // 队列满时必须拒绝：CallerRunsPolicy 会让提交方（轮询定时线程、HTTP 请求线程）自己执行阻塞的 FOCAS 调用
+        platformExecutor.getThreadPoolExecutor().setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        this.virtualExecutor = virtualExecutor;
+        log.info("FANUC 设备读取执行方式: {}", mode);
+    }
+
+    /**
+     * 提交一台设备的读取任务
+     *
+     * @param deviceId 设备编号，virtual 模式下按其限制并发
+     * @param task     读取任务
+     * @throws TaskRejectedException 执行器拒绝任务（platform 模式线程池队列已满），任务不会在调用线程中执行
+     */
+    public void execute(String deviceId, Runnable task) {
+        if (mode == FanucProperties.ExecutorMode.PLATFORM) {
+            platformExecutor.execute(task);
+            return;
+        }
+        Semaphore permits = devicePermits.computeIfAbsent(deviceId, k -> new Semaphore(maxConcurrentPerDevice, true));
+        virtualInFlight.incrementAndGet();
+        try {
+            virtualExecutor.execute(() -> runWithPermit(permits, task));
+        } catch (RuntimeException e) {
+            virtualInFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runWithPermit(Semaphore permits, Runnable task) {
+        try {
+            virtualWaiting.incrementAndGet();
+            try {
+                permits.acquire();
+            } finally {
+                virtualWaiting.decrementAndGet();
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            virtualInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * platform 模式为线程数，virtual 模式为已创建且未结束的虚拟线程数
+     */
+    public int getPoolSize() {
+        return mode == FanucProperties.ExecutorMode.PLATFORM
+                ? platformExecutor.getThreadPoolExecutor().getPoolSize()
+                : virtualInFlight.get();
+    }
+
+    public int getActiveCount() {
+        return mode == FanucProperties.ExecutorMode.PLATFORM
+                ? platformExecutor.getThreadPoolExecutor().getActiveCount()
+                : virtualInFlight.get() - virtualWaiting.get();
+    }
+
+    /**
+     * platform 模式为线程池队列长度，virtual 模式为等待设备许可的任务数
+     */
+    public int getQueueSize() {
+        if (mode == FanucProperties.ExecutorMode.PLATFORM) {
+            ThreadPoolExecutor pool = platformExecutor.getThreadPoolExecutor();
+            return pool.getQueue().size();
+        }
+        return virtualWaiting.get();
+    }
+}
@@ -0,0 +1,208 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 一组 FANUC 标签编译后的读取计划，不可变，可在多个线程间共享
+ * <p>
+ * 同类标签归并为一次读取：alarm/online 一次 cnc_alarm2，prgnum/mainprgnum 一次 cnc_rdprgnum，
+ * exeprg、blkcount 只在请求时各读一次；宏变量排序去重后合并为连续区间，相邻两段之间空隙内的变量一并读取的代价
+ * 低于多一次调用往返时合并为一次 cnc_rdmacror，否则分开读取，只含一个变量的区间用 cnc_rdmacro 单个读取；
+ * 参数逐个读取，同一参数的 param:N 与 param:N/axis=i 只读一次，带 /axis= 时只输出请求的轴
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:10
+ */
+@Getter
+public final class FanucReadPlan {
+
+    private final boolean alarm;
+
+    /**
+     * 读取 prgnum/mainprgnum（cnc_rdprgnum）
+     */
+    private final boolean programNumber;
+
+    /**
+     * 读取 exeprg（cnc_exeprgname）
+     */
+    private final boolean execProgram;
+
+    /**
+     * 读取 blkcount（cnc_rdblkcount）
+     */
+    private final boolean blockCount;
+
+    /**
+     * 排序去重后的宏变量号
+     */
+    private final int[] macroNumbers;
+
+    /**
+     * 合并后的宏变量区间 {起始号, 结束号}
+     */
+    private final int[][] macroRanges;
+
+    /**
+     * 排序去重后的参数号
+     */
+    private final int[] parameters;
+
+    /**
+     * 与 {@link #parameters} 一一对应，请求的轴号（升序）；为空表示请求了整个参数，轴型参数输出全部轴
+     */
+    private final int[][] parameterAxes;
+
+    /**
+     * 无法读取的标签 信号 -> 错误码（EW_FUNC 不认识的标签，EW_NUMBER 编号或轴号不合法，EW_ATTRIB 宏变量带轴号）
+     */
+    private final Map<String, Short> rejected;
+
+    /**
+     * 按标签逐个读取需要的调用数
+     */
+    private final int naiveCalls;
+
+    /**
+     * 按计划读取需要的调用数
+     */
+    private final int nativeCalls;
+
+    private FanucReadPlan(boolean alarm, boolean programNumber, boolean execProgram, boolean blockCount,
+                          int[] macroNumbers, int[][] macroRanges, int[] parameters, int[][] parameterAxes,
+                          Map<String, Short> rejected, int naiveCalls) {
+        this.alarm = alarm;
+        this.programNumber = programNumber;
+        this.execProgram = execProgram;
+        this.blockCount = blockCount;
+        this.macroNumbers = macroNumbers;
+        this.macroRanges = macroRanges;
+        this.parameters = parameters;
+        this.parameterAxes = parameterAxes;
+        this.rejected = Collections.unmodifiableMap(rejected);
+        this.naiveCalls = naiveCalls;
+        this.nativeCalls = (alarm ? 1 : 0) + (programNumber ? 1 : 0) + (execProgram ? 1 : 0) + (blockCount ? 1 : 0)
+                + macroRanges.length + parameters.length;
+    }
+
+    /**
+     * 编译一组标签
+     *
+     * @param tags              标签，不要求排序、可以重复
+     * @param callCost          一次调用的往返耗时
+     * @param macroVariableCost 区间读取中每多读一个宏变量增加的耗时
+     */
+    public static FanucReadPlan compile(List<TagAddress> tags, Duration callCost, Duration macroVariableCost) {
+        boolean alarm = false;
+        boolean programNumber = false;
+        boolean execProgram = false;
+        boolean blockCount = false;
+        TreeSet<Integer> macros = new TreeSet<>();
+        // 参数号 -> 请求的轴号，null 表示请求了整个参数
+        TreeMap<Integer, TreeSet<Integer>> parameters = new TreeMap<>();
+        Map<String, Short> rejected = new LinkedHashMap<>();
+        int naiveCalls = 0;
+        for (TagAddress tag : tags) {
+            switch (tag.getKind()) {
+                case "alarm", "online" -> {
+                    alarm = true;
+                    naiveCalls++;
+                }
+                case "prgnum", "mainprgnum" -> {
+                    programNumber = true;
+                    naiveCalls++;
+                }
+                case "exeprg" -> {
+                    execProgram = true;
+                    naiveCalls++;
+                }
+                case "blkcount" -> {
+                    blockCount = true;
+                    naiveCalls++;
+                }
+                case "macro", "param" -> {
+                    if (tag.getNumber() < 0 || tag.getNumber() > Short.MAX_VALUE || tag.getAxis() < 0) {
+                        rejected.put(tag.getSignal(), FocasErrorCode.EW_NUMBER);
+                    } else if ("macro".equals(tag.getKind())) {
+                        if (tag.getAxis() > 0) {
+                            rejected.put(tag.getSignal(), FocasErrorCode.EW_ATTRIB);
+                        } else {
+                            macros.add(tag.getNumber());
+                            naiveCalls++;
+                        }
+                    } else {
+                        addParameter(parameters, tag.getNumber(), tag.getAxis());
+                        naiveCalls++;
+                    }
+                }
+                default -> rejected.put(tag.getSignal(), FocasErrorCode.EW_FUNC);
+            }
+        }
+        int[] macroNumbers = macros.stream().mapToInt(Integer::intValue).toArray();
+        int[] parameterNumbers = parameters.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int[][] parameterAxes = parameters.values().stream()
+                .map(axes -> axes == null ? new int[0] : axes.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        return new FanucReadPlan(alarm, programNumber, execProgram, blockCount, macroNumbers,
+                mergeRanges(macroNumbers, callCost, macroVariableCost), parameterNumbers, parameterAxes,
+                rejected, naiveCalls);
+    }
+
+    /**
+     * 整个参数的请求覆盖单轴请求：整个参数已包含全部轴
+     */
+    private static void addParameter(TreeMap<Integer, TreeSet<Integer>> parameters, int number, int axis) {
+        if (axis == 0) {
+            parameters.put(number, null);
+        } else if (!parameters.containsKey(number)) {
+            parameters.put(number, new TreeSet<>(List.of(axis)));
+        } else if (parameters.get(number) != null) {
+            parameters.get(number).add(axis);
+        }
+    }
+
+    /**
+     * 把已排序去重的宏变量号合并为区间：并入上一个区间要多读空隙内的变量，另起区间要多一次调用，
+     * 取代价低的一种；单个区间不超过 {@link FanucReadDevices#MACRO_RANGE_MAX} 个变量
+     */
+    static int[][] mergeRanges(int[] sorted, Duration callCost, Duration macroVariableCost) {
+        long callNanos = callCost.toNanos();
+        long variableNanos = macroVariableCost.toNanos();
+        List<int[]> ranges = new ArrayList<>();
+        for (int number : sorted) {
+            int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && (long) (number - last[1] - 1) * variableNanos < callNanos
+                    && number - last[0] < FanucReadDevices.MACRO_RANGE_MAX) {
+                last[1] = number;
+            } else {
+                ranges.add(new int[]{number, number});
+            }
+        }
+        return ranges.toArray(new int[0][]);
+    }
+
+    /**
+     * 与逐个读取相比节省的调用数，计划比逐个读取调用更多时为负数
+     */
+    public int getSavedCalls() {
+        return naiveCalls - nativeCalls;
+    }
+
+    public boolean isEmpty() {
+        return !alarm && !programNumber && !execProgram && !blockCount
+                && macroNumbers.length == 0 && parameters.length == 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.TagAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 编译并缓存 {@link FanucReadPlan}
+ * <p>
+ * 计划按标签集合缓存（与顺序、重复无关），同一组标签反复读取时不重新编译，只有订阅的标签集合变化时才会重新规划
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:15
+ */
+@Component
+@RequiredArgsConstructor
+public class FanucReadPlanCompiler {
+
+    private final FanucProperties properties;
+
+    private final Map<Set<TagAddress>, FanucReadPlan> plans = new ConcurrentHashMap<>();
+
+    private final LongAdder compiled = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder nativeCalls = new LongAdder();
+    private final LongAdder savedCalls = new LongAdder();
+
+    /**
+     * 取得一组标签的读取计划，已编译过的标签集合直接返回缓存
+     */
+    public FanucReadPlan compile(List<TagAddress> tags) {
+        Set<TagAddress> key = Set.copyOf(tags);
+        FanucReadPlan plan = plans.get(key);
+        if (plan != null) {
+            cacheHits.increment();
+            return plan;
+        }
+        if (plans.size() >= properties.getReadPlan().getMaxCachedPlans()) {
+            // 临时查询的标签组合很多时避免无限增长，常驻的轮询计划由调用方自己持有
+            plans.clear();
+        }
+        return plans.computeIfAbsent(key, k -> {
+            compiled.increment();
+            FanucProperties.ReadPlan config = properties.getReadPlan();
+            return FanucReadPlan.compile(tags, config.getCallCost(), config.getMacroVariableCost());
+        });
+    }
+
+    /**
+     * 记录一次按计划读取
+     */
+    public void recordExecution(FanucReadPlan plan) {
+        executions.increment();
+        nativeCalls.add(plan.getNativeCalls());
+        savedCalls.add(plan.getSavedCalls());
+    }
+
+    public ReadPlanStats getStats() {
+        ReadPlanStats stats = new ReadPlanStats();
+        stats.setCachedPlans(plans.size());
+        stats.setCompiled(compiled.sum());
+        stats.setCacheHits(cacheHits.sum());
+        stats.setExecutions(executions.sum());
+        stats.setNativeCalls(nativeCalls.sum());
+        stats.setSavedCalls(savedCalls.sum());
+        return stats;
+    }
+}
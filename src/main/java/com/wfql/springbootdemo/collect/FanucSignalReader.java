@@ -0,0 +1,259 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasBuffers;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按标签读取一台 FANUC 设备，并转换为 {@link SignalReading}
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 14:05
+ */
+@Component
+@RequiredArgsConstructor
+public class FanucSignalReader {
+
+    /**
+     * 单轴/无轴参数数据块长度：4 + 最大8字节（实数型 REALPRM）
+     */
+    private static final short PARAM_LENGTH = 4 + 8;
+
+    /**
+     * 全部轴参数数据块长度：4 + 8字节 * MAX_AXIS
+     */
+    private static final short PARAM_ALL_AXES_LENGTH = 4 + 8 * FocasBuffers.MAX_AXIS;
+
+    private final FanucReadDevices fanucReadDevices;
+
+    private final FanucReadPlanCompiler planCompiler;
+
+    /**
+     * 不支持 cnc_rdmacror 的设备，逐个读取
+     */
+    private final Set<String> singleMacroDevices = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已确认为轴型参数的 设备编号/参数号，避免每次先按无轴读取失败再重试
+     */
+    private final Map<String, Boolean> axisParameters = new ConcurrentHashMap<>();
+
+    /**
+     * 读取任意一组标签（fanuc:alarm、fanuc:blkcount、fanuc:macro:500、fanuc:param:1320 等）
+     * <p>
+     * 按 {@link FanucReadPlan} 归并后读取：报警附带 online，prgnum 附带 mainprgnum，程序类标签只读请求到的调用，
+     * 宏变量合并为区间读取；param:N 对轴型参数输出全部轴，param:N/axis=i 只输出请求的轴，
+     * 对无轴参数带轴号输出 EW_ATTRIB、轴号超出设备轴数输出 EW_NUMBER；不认识的标签输出 EW_FUNC，编号不合法输出 EW_NUMBER
+     *
+     * @return 连接级错误码（EW_SOCKET 等），无连接错误时返回 EW_OK
+     */
+    public short read(FocasConnection connection, FanucProperties.Device device, List<TagAddress> tags,
+                      long timestamp, List<SignalReading> out) {
+        return read(connection, device, planCompiler.compile(tags), timestamp, out);
+    }
+
+    /**
+     * 按已编译的计划读取，轮询等反复读取同一组标签的调用方持有计划，避免每次查找缓存
+     *
+     * @return 连接级错误码（EW_SOCKET 等），无连接错误时返回 EW_OK
+     */
+    public short read(FocasConnection connection, FanucProperties.Device device, FanucReadPlan plan,
+                      long timestamp, List<SignalReading> out) {
+        String machineId = device.getId();
+        plan.getRejected().forEach((signal, code) -> out.add(SignalReading.error(machineId, signal, code, timestamp)));
+        planCompiler.recordExecution(plan);
+        if (plan.isAlarm() && !connection.isBroken()) {
+            readAlarm(connection, device, timestamp, out);
+        }
+        if ((plan.isProgramNumber() || plan.isExecProgram() || plan.isBlockCount()) && !connection.isBroken()) {
+            readProgram(connection, device, plan.isProgramNumber(), plan.isExecProgram(), plan.isBlockCount(),
+                    timestamp, out);
+        }
+        if (plan.getMacroNumbers().length > 0 && !connection.isBroken()) {
+            readMacros(connection, device, plan, timestamp, out);
+        }
+        int[] parameters = plan.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (connection.isBroken()) {
+                break;
+            }
+            readParameter(connection, device, parameters[i], plan.getParameterAxes()[i], timestamp, out);
+        }
+        return connection.isBroken() ? lastErrorCode(out) : FocasErrorCode.EW_OK;
+    }
+
+    private void readAlarm(FocasConnection connection, FanucProperties.Device device, long timestamp,
+                           List<SignalReading> out) {
+        String machineId = device.getId();
+        FocasBuffers buffers = connection.getBuffers();
+        short result = connection.check(fanucReadDevices.readAlarmStatus(connection.getHandle(), buffers));
+        if (result != FocasErrorCode.EW_OK) {
+            out.add(SignalReading.error(machineId, "alarm", result, timestamp));
+            return;
+        }
+        out.add(SignalReading.of(machineId, "online", 1, timestamp));
+        out.add(SignalReading.of(machineId, "alarm", buffers.getAlarmStatus(), timestamp));
+    }
+
+    /**
+     * 依次读取程序号、执行中程序名、程序段计数，任一失败后不再继续
+     */
+    private void readProgram(FocasConnection connection, FanucProperties.Device device, boolean programNumber,
+                             boolean execProgram, boolean blockCount, long timestamp, List<SignalReading> out) {
+        String machineId = device.getId();
+        short handle = connection.getHandle();
+        FocasBuffers buffers = connection.getBuffers();
+        if (programNumber) {
+            short result = connection.check(fanucReadDevices.readProgramNumber(handle, buffers));
+            if (result != FocasErrorCode.EW_OK) {
+                out.add(SignalReading.error(machineId, "prgnum", result, timestamp));
+                return;
+            }
+            out.add(SignalReading.of(machineId, "prgnum", buffers.getProgramNumber(), timestamp));
+            out.add(SignalReading.of(machineId, "mainprgnum", buffers.getMainProgramNumber(), timestamp));
+        }
+
+        if (execProgram) {
+            short result = connection.check(fanucReadDevices.readCurrentExecProgram(handle, buffers));
+            if (result != FocasErrorCode.EW_OK) {
+                out.add(SignalReading.error(machineId, "exeprg", result, timestamp));
+                return;
+            }
+            out.add(SignalReading.text(machineId, "exeprg", buffers.getExecProgramName(), timestamp));
+        }
+
+        if (blockCount) {
+            short result = connection.check(fanucReadDevices.readBlockCount(handle, buffers));
+            if (result != FocasErrorCode.EW_OK) {
+                out.add(SignalReading.error(machineId, "blkcount", result, timestamp));
+                return;
+            }
+            out.add(SignalReading.of(machineId, "blkcount", buffers.getBlockCount(), timestamp));
+        }
+    }
+
+    private void readMacros(FocasConnection connection, FanucProperties.Device device, FanucReadPlan plan,
+                            long timestamp, List<SignalReading> out) {
+        String machineId = device.getId();
+        FocasBuffers buffers = connection.getBuffers();
+        int[] numbers = plan.getMacroNumbers();
+        int next = 0;
+        for (int[] range : plan.getMacroRanges()) {
+            int from = next;
+            while (next < numbers.length && numbers[next] <= range[1]) {
+                next++;
+            }
+            if (range[0] < range[1] && !singleMacroDevices.contains(machineId)) {
+                double[] values = buffers.getMacroValues();
+                short result = fanucReadDevices.readMacroRange(connection.getHandle(), range[0], range[1], values, 0, buffers);
+                if (result == FocasErrorCode.EW_FUNC || result == FocasErrorCode.EW_NOOPT) {
+                    // 控制器不支持范围读取，以后该设备都逐个读取
+                    singleMacroDevices.add(machineId);
+                } else if (result != FocasErrorCode.EW_NUMBER) {
+                    connection.check(result);
+                    for (int i = from; i < next; i++) {
+                        String signal = "macro:" + numbers[i];
+                        out.add(result == FocasErrorCode.EW_OK
+                                ? SignalReading.of(machineId, signal, values[numbers[i] - range[0]], timestamp)
+                                : SignalReading.error(machineId, signal, result, timestamp));
+                    }
+                    if (connection.isBroken()) {
+                        return;
+                    }
+                    continue;
+                }
+                // EW_NUMBER：区间内含不存在的变量，只有这个区间逐个读取，其余区间照常范围读取
+            }
+            for (int i = from; i < next; i++) {
+                short result = connection.check(
+                        fanucReadDevices.readMacroVariable(connection.getHandle(), (short) numbers[i], buffers));
+                String signal = "macro:" + numbers[i];
+                out.add(result == FocasErrorCode.EW_OK
+                        ? SignalReading.of(machineId, signal, buffers.getMacroValue(), timestamp)
+                        : SignalReading.error(machineId, signal, result, timestamp));
+                if (connection.isBroken()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取一个参数
+     *
+     * @param axes 请求的轴号，为空时无轴参数输出 param:N，轴型参数输出全部轴
+     */
+    private void readParameter(FocasConnection connection, FanucProperties.Device device, int number, int[] axes,
+                               long timestamp, List<SignalReading> out) {
+        String machineId = device.getId();
+        String key = machineId + "/" + number;
+        boolean axis = axisParameters.getOrDefault(key, false);
+
+        FocasBuffers buffers = connection.getBuffers();
+        short handle = connection.getHandle();
+        short result = axis
+                ? fanucReadDevices.readParameter(handle, (short) number, FanucReadDevices.ALL_AXES, PARAM_ALL_AXES_LENGTH, buffers)
+                : fanucReadDevices.readParameter(handle, (short) number, (short) 0, PARAM_LENGTH, buffers);
+        if (!axis && result == FocasErrorCode.EW_ATTRIB) {
+            // 无轴读取返回属性错误，说明是轴型参数
+            axisParameters.put(key, true);
+            axis = true;
+            result = fanucReadDevices.readParameter(handle, (short) number, FanucReadDevices.ALL_AXES,
+                    PARAM_ALL_AXES_LENGTH, buffers);
+        }
+        connection.check(result);
+        if (result != FocasErrorCode.EW_OK) {
+            if (axes.length == 0) {
+                out.add(SignalReading.error(machineId, "param:" + number, result, timestamp));
+            }
+            for (int requested : axes) {
+                out.add(SignalReading.error(machineId, "param:" + number + "/axis=" + requested, result, timestamp));
+            }
+            return;
+        }
+        if (!axis) {
+            if (axes.length == 0) {
+                out.add(SignalReading.of(machineId, "param:" + number, buffers.getParamValue(0), timestamp));
+            }
+            // 无轴参数不能按轴读取
+            for (int requested : axes) {
+                out.add(SignalReading.error(machineId, "param:" + number + "/axis=" + requested,
+                        FocasErrorCode.EW_ATTRIB, timestamp));
+            }
+            return;
+        }
+        int count = Math.min(device.getAxes(), buffers.getParamCount());
+        if (axes.length == 0) {
+            for (int i = 0; i < count; i++) {
+                out.add(SignalReading.of(machineId, "param:" + number + "/axis=" + (i + 1), buffers.getParamValue(i), timestamp));
+            }
+            return;
+        }
+        for (int requested : axes) {
+            String signal = "param:" + number + "/axis=" + requested;
+            out.add(requested <= count
+                    ? SignalReading.of(machineId, signal, buffers.getParamValue(requested - 1), timestamp)
+                    : SignalReading.error(machineId, signal, FocasErrorCode.EW_NUMBER, timestamp));
+        }
+    }
+
+    private static short lastErrorCode(List<SignalReading> out) {
+        for (int i = out.size() - 1; i >= 0; i--) {
+            if (!out.get(i).isSuccess()) {
+                return out.get(i).getErrorCode();
+            }
+        }
+        return FocasErrorCode.EW_SOCKET;
+    }
+}
@@ -0,0 +1,122 @@
+package com.wfql.springbootdemo.collect;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一台设备的最新状态，不可变；每次采集生成新对象整体替换，读取方拿到的始终是一致的快照
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 22:45
+ */
+@Getter
+public final class MachineState {
+
+    private final String machineId;
+
+    /**
+     * 是否在线，尚未轮询到报警分组时为 null
+     */
+    private final Boolean online;
+
+    /**
+     * 报警状态
+     */
+    private final SignalValue alarm;
+
+    /**
+     * 运行中的程序号
+     */
+    private final SignalValue programNumber;
+
+    /**
+     * 主程序号
+     */
+    private final SignalValue mainProgramNumber;
+
+    /**
+     * 执行中的程序名
+     */
+    private final SignalValue execProgram;
+
+    /**
+     * 程序段计数
+     */
+    private final SignalValue blockCount;
+
+    /**
+     * 宏变量号 -> 最新值
+     */
+    private final Map<Integer, SignalValue> macros;
+
+    /**
+     * 最近一次采集时间（毫秒）
+     */
+    private final long updatedAt;
+
+    private MachineState(String machineId, Boolean online, SignalValue alarm, SignalValue programNumber,
+                         SignalValue mainProgramNumber, SignalValue execProgram, SignalValue blockCount,
+                         Map<Integer, SignalValue> macros, long updatedAt) {
+        this.machineId = machineId;
+        this.online = online;
+        this.alarm = alarm;
+        this.programNumber = programNumber;
+        this.mainProgramNumber = mainProgramNumber;
+        this.execProgram = execProgram;
+        this.blockCount = blockCount;
+        this.macros = macros;
+        this.updatedAt = updatedAt;
+    }
+
+    static MachineState empty(String machineId) {
+        return new MachineState(machineId, null, null, null, null, null, null, Collections.emptyMap(), 0);
+    }
+
+    /**
+     * 合并同一台设备的一批信号值，返回新的状态；没有可缓存的信号时返回自身
+     */
+    MachineState merge(List<SignalReading> readings) {
+        Boolean online = this.online;
+        SignalValue alarm = this.alarm;
+        SignalValue programNumber = this.programNumber;
+        SignalValue mainProgramNumber = this.mainProgramNumber;
+        SignalValue execProgram = this.execProgram;
+        SignalValue blockCount = this.blockCount;
+        TreeMap<Integer, SignalValue> macros = null;
+        long updatedAt = this.updatedAt;
+        boolean changed = false;
+        for (SignalReading reading : readings) {
+            String signal = reading.getSignal();
+            SignalValue value = SignalValue.of(reading);
+            switch (signal) {
+                case "online" -> online = reading.isSuccess() && reading.getValue() != 0;
+                case "alarm" -> alarm = value;
+                case "prgnum" -> programNumber = value;
+                case "mainprgnum" -> mainProgramNumber = value;
+                case "exeprg" -> execProgram = value;
+                case "blkcount" -> blockCount = value;
+                default -> {
+                    if (!signal.startsWith("macro:")) {
+                        continue;
+                    }
+                    if (macros == null) {
+                        macros = new TreeMap<>(this.macros);
+                    }
+                    macros.put(Integer.parseInt(signal, 6, signal.length(), 10), value);
+                }
+            }
+            changed = true;
+            updatedAt = Math.max(updatedAt, reading.getTimestamp());
+        }
+        if (!changed) {
+            return this;
+        }
+        return new MachineState(machineId, online, alarm, programNumber, mainProgramNumber, execProgram, blockCount,
+                macros == null ? this.macros : Collections.unmodifiableMap(macros), updatedAt);
+    }
+}
@@ -0,0 +1,60 @@
+package com.wfql.springbootdemo.collect;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每台设备的最新值缓存，供看板等读取，不触发任何 FOCAS 调用
+ * <p>
+ * 由 {@link CollectorPipeline} 在变化过滤之前更新，因此每个信号的时间戳都是最近一次实际读取的时间。
+ * 每台设备对应一个不可变的 {@link MachineState}，更新时整体替换，读取只是一次哈希表查找
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 22:45
+ */
+@Component
+public class MachineStateStore {
+
+    private final Map<String, MachineState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 合并同一台设备的一批信号值
+     */
+    public void update(List<SignalReading> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        states.compute(readings.get(0).getMachineId(), (machineId, state) -> {
+            MachineState current = state != null ? state : MachineState.empty(machineId);
+            MachineState merged = current.merge(readings);
+            // 没有可缓存的信号（如只有参数）时不新建空状态
+            return merged == current ? state : merged;
+        });
+    }
+
+    /**
+     * 一台设备的最新状态，尚未采集到时返回 null
+     */
+    public MachineState get(String machineId) {
+        return states.get(machineId);
+    }
+
+    /**
+     * 全部设备的最新状态，按设备编号排序
+     */
+    public List<MachineState> getAll() {
+        List<MachineState> list = new ArrayList<>(states.values());
+        list.sort(Comparator.comparing(MachineState::getMachineId));
+        return list;
+    }
+
+    public void remove(String machineId) {
+        states.remove(machineId);
+    }
+}
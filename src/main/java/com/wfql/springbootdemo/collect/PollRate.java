@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.collect;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 单台设备当前的自适应轮询速率
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:30
+ */
+@Data
+public class PollRate {
+    private String machineId;
+    private PollRateState state;                 // RUNNING / IDLE / ERROR
+    private int factor;                          // 当前间隔放大倍数，1 为配置的间隔
+    private int idleFactor;                      // 空闲放大倍数
+    private int errorFactor;                     // 连接错误放大倍数
+    private Map<SignalGroup, Long> intervalMillis; // 各分组当前的轮询间隔（毫秒）
+    private double callsPerSecond;               // 按当前间隔每秒的轮询次数（所有分组合计）
+    private String reason;                       // 最近一次调整的原因
+    private long changedAt;                      // 最近一次调整的时间（毫秒）
+}
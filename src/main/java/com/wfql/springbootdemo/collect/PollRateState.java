@@ -0,0 +1,26 @@
+package com.wfql.springbootdemo.collect;
+
+/**
+ * 自适应轮询判断的设备状态
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:30
+ */
+public enum PollRateState {
+
+    /**
+     * 块计数在变化或报警刚变化，按配置的间隔轮询
+     */
+    RUNNING,
+
+    /**
+     * 块计数长时间不变，间隔放大
+     */
+    IDLE,
+
+    /**
+     * 连接错误，间隔放大
+     */
+    ERROR
+}
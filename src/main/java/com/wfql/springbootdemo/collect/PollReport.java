@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 轮询总体情况：采集线程池状态和各设备的实际/目标频率
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 14:32
+ */
+@Data
+public class PollReport {
+    private FanucProperties.ExecutorMode mode; // 执行方式
+    private int poolSize;           // 采集线程数（虚拟线程模式为存活的虚拟线程数）
+    private int activeCount;        // 正在执行的任务数
+    private int queueSize;          // 排队中的任务数（虚拟线程模式为等待设备许可的任务数）
+    private int saturatedTasks;     // 实际频率低于目标90%的任务数
+    private long readings;          // 采集到的信号值总数
+    private long suppressedReadings; // 未变化而未下发的信号值数
+    private List<PollStats> tasks;
+}
@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.collect;
+
+import lombok.Data;
+
+/**
+ * 单台设备单个信号分组的轮询统计
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 14:30
+ */
+@Data
+public class PollStats {
+    private String machineId;
+    private SignalGroup group;
+    private long intervalMillis;     // 当前轮询间隔（毫秒），含自适应倍数
+    private double targetRate;       // 目标轮询频率（次/秒），含自适应倍数
+    private double achievedRate;     // 实际轮询频率（次/秒）
+    private double ratio;            // 实际/目标，明显小于1说明采集已饱和
+    private long completed;          // 完成次数
+    private long skipped;            // 上一次尚未完成或线程池队列已满而跳过的次数
+    private long failed;             // 连接失败或连接级错误次数
+    private double avgDurationMillis; // 平均单次耗时（毫秒）
+    private short lastErrorCode;     // 最近一次错误代码
+}
@@ -0,0 +1,20 @@
+package com.wfql.springbootdemo.collect;
+
+import lombok.Data;
+
+/**
+ * 标签读取计划的编译与执行统计
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:15
+ */
+@Data
+public class ReadPlanStats {
+    private int cachedPlans;        // 当前缓存的计划数
+    private long compiled;          // 编译次数（标签集合变化或缓存清空后）
+    private long cacheHits;         // 命中缓存的次数
+    private long executions;        // 按计划读取的次数
+    private long nativeCalls;       // 按计划读取发出的调用数
+    private long savedCalls;        // 与逐个读取相比节省的调用数，为负表示计划比逐个读取调用更多
+}
@@ -0,0 +1,22 @@
+package com.wfql.springbootdemo.collect;
+
+import java.util.List;
+
+/**
+ * 采集结果的下游处理环节（缓存、入库、推送等）
+ * <p>
+ * 实现类注册为 Spring Bean 即可接入 {@link CollectorPipeline}，可用 @Order 控制顺序
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 13:50
+ */
+public interface ReadingSink {
+
+    /**
+     * 处理同一台设备一次轮询得到的一批信号值，不应长时间阻塞采集线程
+     *
+     * @param readings 信号值列表，调用方不会再修改
+     */
+    void accept(List<SignalReading> readings);
+}
@@ -0,0 +1,63 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.FanucDriver;
+import com.wfql.springbootdemo.driver.TagAddress;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 信号分组，每组有独立的轮询间隔
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 13:40
+ */
+public enum SignalGroup {
+
+    /**
+     * 报警状态（cnc_alarm2）和在线状态
+     */
+    ALARM,
+
+    /**
+     * 程序号、执行程序名、块计数
+     */
+    PROGRAM,
+
+    /**
+     * 宏变量
+     */
+    MACRO,
+
+    /**
+     * 参数
+     */
+    PARAMETER;
+
+    public Duration interval(FanucProperties.Poll poll) {
+        return switch (this) {
+            case ALARM -> poll.getAlarmInterval();
+            case PROGRAM -> poll.getProgramInterval();
+            case MACRO -> poll.getMacroInterval();
+            case PARAMETER -> poll.getParameterInterval();
+        };
+    }
+
+    /**
+     * 该分组在一台设备上要读取的标签（prgnum 附带输出 mainprgnum，alarm 附带输出 online）
+     */
+    public List<TagAddress> tags(FanucProperties.Device device) {
+        return switch (this) {
+            case ALARM -> List.of(tag("alarm"));
+            case PROGRAM -> List.of(tag("prgnum"), tag("exeprg"), tag("blkcount"));
+            case MACRO -> device.getMacros().stream().map(n -> tag("macro:" + n)).toList();
+            case PARAMETER -> device.getParameters().stream().map(n -> tag("param:" + n)).toList();
+        };
+    }
+
+    private static TagAddress tag(String signal) {
+        return TagAddress.of(FanucDriver.PROTOCOL, signal);
+    }
+}
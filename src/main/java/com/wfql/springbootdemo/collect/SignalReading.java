@@ -0,0 +1,57 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.Getter;
+
+/**
+ * 一次采集得到的信号值
+ * <p>
+ * 数值型信号使用 value，文本型信号（如执行程序名）使用 text；
+ * 信号名约定：alarm、online、prgnum、mainprgnum、exeprg、blkcount、macro:500、param:1320、param:1320/axis=2
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 13:45
+ */
+@Getter
+public final class SignalReading {
+
+    private final String machineId;
+    private final String signal;
+    private final double value;
+    private final String text;
+    private final long timestamp;
+    private final short errorCode;
+
+    private SignalReading(String machineId, String signal, double value, String text, long timestamp, short errorCode) {
+        this.machineId = machineId;
+        this.signal = signal;
+        this.value = value;
+        this.text = text;
+        this.timestamp = timestamp;
+        this.errorCode = errorCode;
+    }
+
+    public static SignalReading of(String machineId, String signal, double value, long timestamp) {
+        return new SignalReading(machineId, signal, value, null, timestamp, FocasErrorCode.EW_OK);
+    }
+
+    public static SignalReading text(String machineId, String signal, String text, long timestamp) {
+        return new SignalReading(machineId, signal, Double.NaN, text, timestamp, FocasErrorCode.EW_OK);
+    }
+
+    public static SignalReading error(String machineId, String signal, short errorCode, long timestamp) {
+        return new SignalReading(machineId, signal, Double.NaN, null, timestamp, errorCode);
+    }
+
+    public boolean isSuccess() {
+        return errorCode == FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalReading{machineId='" + machineId + "', signal='" + signal + "', " +
+                (isSuccess() ? (text != null ? "text='" + text + "'" : "value=" + value) : "errorCode=" + errorCode) +
+                ", timestamp=" + timestamp + "}";
+    }
+}
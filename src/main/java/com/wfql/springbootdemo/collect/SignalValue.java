@@ -0,0 +1,49 @@
+package com.wfql.springbootdemo.collect;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * 一个信号的最新值及其采集时间
+ *
+ * @Package com.wfql.springbootdemo.collect
+ * @Author guoqing.ling
+ * @Date 2026/10/17 22:45
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class SignalValue {
+
+    /**
+     * 数值，文本型信号、空宏变量或读取失败时为 null
+     */
+    private final Double value;
+
+    /**
+     * 文本值（如执行程序名）
+     */
+    private final String text;
+
+    /**
+     * FOCAS 错误代码，成功为 0
+     */
+    private final short errorCode;
+
+    /**
+     * 采集时间（毫秒）
+     */
+    private final long timestamp;
+
+    private SignalValue(Double value, String text, short errorCode, long timestamp) {
+        this.value = value;
+        this.text = text;
+        this.errorCode = errorCode;
+        this.timestamp = timestamp;
+    }
+
+    static SignalValue of(SignalReading reading) {
+        Double value = reading.isSuccess() && reading.getText() == null && !Double.isNaN(reading.getValue())
+                ? reading.getValue() : null;
+        return new SignalValue(value, reading.getText(), reading.getErrorCode(), reading.getTimestamp());
+    }
+}
@@ -0,0 +1,98 @@
+package com.wfql.springbootdemo.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 流式输出的 {@link ResponseResult}：data 数组的元素在产生时逐个写出，不在内存中组装整个结果
+ * <p>
+ * 输出与 ResponseResult 的 JSON 字段相同，只是 data 在前，code/status/message 在最后写出：
+ * <pre>{"data":[{...},{...}],"code":200,"status":true,"message":"操作成功"}</pre>
+ * 生产过程中抛出异常时，已写出的元素保留，结尾为 "code":500,"status":false 和异常信息，
+ * 调用方按字段名解析即可，与非流式接口兼容。内存占用只有 Jackson 和响应的缓冲区
+ *
+ * @Package com.wfql.springbootdemo.common
+ * @Author guoqing.ling
+ * @Date 2026/10/18 3:00
+ */
+@Slf4j
+public final class StreamingResponseResult {
+
+    private StreamingResponseResult() {
+    }
+
+    /**
+     * 逐个写出 data 数组的元素
+     */
+    public interface ItemWriter {
+
+        /**
+         * 写出一个元素，写入响应失败（客户端断开等）时抛出 {@link UncheckedIOException}
+         */
+        void write(Object item);
+
+        /**
+         * 把已写出的元素立即发送给客户端，不调用时由响应缓冲区写满后发送
+         */
+        void flush();
+    }
+
+    /**
+     * @param objectMapper 序列化元素使用的 ObjectMapper，与普通接口保持一致的格式
+     * @param producer     在响应线程中执行，通过 ItemWriter 写出元素
+     */
+    public static StreamingResponseBody of(ObjectMapper objectMapper, Consumer<ItemWriter> producer) {
+        // 默认每个 writeValue 之后都会 flush，流式输出时由缓冲区决定发送时机
+        ObjectWriter itemWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("data");
+            HttpStatusEnum result = HttpStatusEnum.SUCCESS;
+            String message = result.getMessage();
+            try {
+                producer.accept(new ItemWriter() {
+                    @Override
+                    public void write(Object item) {
+                        try {
+                            itemWriter.writeValue(generator, item);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public void flush() {
+                        try {
+                            generator.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // 响应已无法写入，不再输出结尾
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                log.warn("流式输出中断", e);
+                result = HttpStatusEnum.ERROR;
+                message = e.getMessage() != null ? e.getMessage() : result.getMessage();
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("code", result.getCode());
+            generator.writeBooleanField("status", result == HttpStatusEnum.SUCCESS);
+            generator.writeStringField("message", message);
+            generator.writeEndObject();
+            generator.close();
+        };
+    }
+}
@@ -0,0 +1,557 @@
+package com.wfql.springbootdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FANUC 采集相关配置
+ *
+ * @Package com.wfql.springbootdemo.config
+ * @Author guoqing.ling
+ * @Date 2026/10/17 9:40
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fanuc")
+public class FanucProperties {
+
+    /**
+     * FOCAS 后端：native 调用 Fwlib64.dll（仅 Windows），simulated 使用内置CNC模拟器
+     */
+    private String backend = "native";
+
+    /**
+     * 连接池配置
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * CNC模拟器配置，fanuc.backend=simulated 时生效
+     */
+    private Simulator simulator = new Simulator();
+
+    /**
+     * 采集设备清单
+     */
+    private List<Device> devices = new ArrayList<>();
+
+    /**
+     * 轮询配置
+     */
+    private Poll poll = new Poll();
+
+    /**
+     * 设备读取任务的执行方式
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * 参数快照与比对配置
+     */
+    private ParamSnapshot paramSnapshot = new ParamSnapshot();
+
+    /**
+     * 变化过滤配置
+     */
+    private Delta delta = new Delta();
+
+    /**
+     * 采集结果入库配置
+     */
+    private Persist persist = new Persist();
+
+    /**
+     * 程序批量下发配置
+     */
+    private Rollout rollout = new Rollout();
+
+    /**
+     * 状态推送（SSE）配置
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * FOCAS 调用指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 标签读取计划
+     */
+    private ReadPlan readPlan = new ReadPlan();
+
+    /**
+     * 多设备快照
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    @Data
+    public static class Device {
+
+        /**
+         * 设备编号，未配置时使用 IP:端口
+         */
+        private String id;
+
+        private String ip;
+
+        private int port = 8193;
+
+        /**
+         * 所属产线/单元
+         */
+        private String cell;
+
+        /**
+         * 控制轴数，轴型参数按该数量拆分
+         */
+        private int axes = 3;
+
+        /**
+         * 需要采集的宏变量号
+         */
+        private List<Integer> macros = new ArrayList<>();
+
+        /**
+         * 需要采集的参数号
+         */
+        private List<Integer> parameters = new ArrayList<>();
+
+        public String getId() {
+            return id != null ? id : ip + ":" + port;
+        }
+    }
+
+    @Data
+    public static class Poll {
+
+        /**
+         * 是否启动定时轮询
+         */
+        private boolean enabled = true;
+
+        /**
+         * 报警状态（cnc_alarm2）轮询间隔
+         */
+        private Duration alarmInterval = Duration.ofMillis(200);
+
+        /**
+         * 程序号、执行程序名、块计数轮询间隔
+         */
+        private Duration programInterval = Duration.ofSeconds(1);
+
+        /**
+         * 宏变量轮询间隔
+         */
+        private Duration macroInterval = Duration.ofSeconds(1);
+
+        /**
+         * 参数轮询间隔
+         */
+        private Duration parameterInterval = Duration.ofSeconds(60);
+
+        /**
+         * 驱动订阅（fanuc 标签的 DriverSession.subscribe）的读取间隔，FOCAS 没有服务器推送，由驱动定时读取后回调
+         */
+        private Duration subscribeInterval = Duration.ofSeconds(1);
+
+        /**
+         * 按设备状态自适应调整轮询间隔
+         */
+        private Adaptive adaptive = new Adaptive();
+    }
+
+    @Data
+    public static class Adaptive {
+
+        /**
+         * 是否启用；关闭时始终按上面配置的间隔轮询
+         */
+        private boolean enabled = true;
+
+        /**
+         * 块计数超过该时间没有变化视为空闲，之后每次程序分组轮询间隔翻倍
+         */
+        private Duration idleAfter = Duration.ofSeconds(30);
+
+        /**
+         * 空闲时间隔最多放大的倍数
+         */
+        private int maxIdleFactor = 8;
+
+        /**
+         * 连接错误（EW_SOCKET、EW_HANDLE）时每次失败间隔翻倍，最多放大的倍数
+         */
+        private int maxErrorFactor = 32;
+    }
+
+    @Data
+    public static class Executor {
+
+        /**
+         * platform：fanucThreadPoolExecutor 固定线程池；virtual：每个读取任务一个虚拟线程
+         */
+        private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+        /**
+         * 虚拟线程模式下单台设备同时执行的读取任务数，超出的任务在虚拟线程中排队等待
+         */
+        private int maxConcurrentPerDevice = 2;
+    }
+
+    @Data
+    public static class ParamSnapshot {
+
+        /**
+         * 快照文件目录，每台设备一个子目录
+         */
+        private String dir = "data/param-snapshots";
+
+        /**
+         * 读取的参数号范围，格式为 起始-结束（包含结束）
+         */
+        private List<String> ranges = new ArrayList<>(List.of("0-29999"));
+
+        /**
+         * 每台设备保留的快照个数，超出时删除最旧的
+         */
+        private int keep = 30;
+    }
+
+    @Data
+    public static class Delta {
+
+        /**
+         * 是否只下发变化的信号值
+         */
+        private boolean enabled = true;
+
+        /**
+         * 宏变量的默认死区（绝对值），变化不超过该值时不下发
+         */
+        private double macroDeadband = 0;
+
+        /**
+         * 按信号名单独配置的死区，如 macro:500: 0.01
+         */
+        private Map<String, Double> deadbands = new HashMap<>();
+
+        /**
+         * 未变化的信号超过该时间仍下发一次，0 表示不下发
+         */
+        private Duration heartbeat = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Persist {
+
+        /**
+         * 是否写入 master 数据源（表 FANUC_SIGNAL_READING）
+         */
+        private boolean enabled = false;
+
+        /**
+         * queue: 内存队列，数据库长时间不可用时丢弃；spool: 先写本地预写日志再回放
+         */
+        private PersistMode mode = PersistMode.QUEUE;
+
+        /**
+         * spool 模式的预写日志配置
+         */
+        private Spool spool = new Spool();
+
+        /**
+         * 待写入队列容量（信号值条数）
+         */
+        private int queueCapacity = 200_000;
+
+        /**
+         * 每批写入条数，一批一个事务
+         */
+        private int batchSize = 1000;
+
+        /**
+         * 不足一批时，距本批第一条超过该时间也写入
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 队列满时采集线程最多等待的时间，超时丢弃
+         */
+        private Duration offerTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 单批写入失败后的重试次数（queue 模式）
+         */
+        private int maxRetries = 5;
+
+        /**
+         * 历史导出（/fanuc/history/export）单次允许的最大时间跨度
+         */
+        private Duration exportMaxRange = Duration.ofDays(31);
+    }
+
+    @Data
+    public static class Spool {
+
+        /**
+         * 段文件目录
+         */
+        private String dir = "data/spool";
+
+        /**
+         * 单个段文件大小
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 全部段文件的磁盘空间上限，超出时丢弃最旧的段
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(4);
+
+        /**
+         * 当前段刷盘间隔（进程崩溃不丢数据，断电最多丢失该时间内的数据）
+         */
+        private Duration syncInterval = Duration.ofSeconds(1);
+    }
+
+    public enum PersistMode {
+        QUEUE,
+        SPOOL
+    }
+
+    @Data
+    public static class Rollout {
+
+        /**
+         * 同时下发的设备数上限，请求中未指定时使用
+         */
+        private int maxConcurrency = 16;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 合并推送的周期，周期内同一设备的多次变化只推送一次最新状态
+         */
+        private Duration frameInterval = Duration.ofMillis(200);
+
+        /**
+         * 一帧发送超过该时间仍未完成的订阅者视为慢消费者，直接断开
+         */
+        private Duration sendTimeout = Duration.ofSeconds(5);
+
+        /**
+         * 没有变化时发送心跳注释的间隔，防止代理断开空闲连接
+         */
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        /**
+         * 同时在线的订阅者上限
+         */
+        private int maxSubscribers = 500;
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 是否记录 FOCAS 调用耗时与错误代码
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每台设备的调用耗时是否也输出直方图；关闭时只输出次数、总耗时和最大耗时，直方图只按函数输出
+         */
+        private boolean machineHistogram = false;
+
+        /**
+         * 直方图桶的下限
+         */
+        private Duration minExpected = Duration.ofNanos(100_000);
+
+        /**
+         * 直方图桶的上限，应覆盖连接超时
+         */
+        private Duration maxExpected = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class ReadPlan {
+
+        /**
+         * 一次 FOCAS 调用的往返耗时，与空隙内多读变量的耗时比较，决定宏变量是否合并为一次区间读取
+         */
+        private Duration callCost = Duration.ofMillis(2);
+
+        /**
+         * cnc_rdmacror 区间内每多读一个宏变量增加的耗时
+         */
+        private Duration macroVariableCost = Duration.ofNanos(200_000);
+
+        /**
+         * 缓存的读取计划个数上限（按标签集合），超过后清空重新编译
+         */
+        private int maxCachedPlans = 1024;
+    }
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 请求未指定 timeoutMillis 时的截止时间，到达后返回已完成的设备，其余标记为 TIMEOUT
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+
+        /**
+         * 请求可指定的最大截止时间
+         */
+        private Duration maxTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 单次请求的设备数上限
+         */
+        private int maxMachines = 500;
+    }
+
+    public enum ExecutorMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 每台CNC（IP:端口）最多持有的库句柄数
+         */
+        private int maxPerMachine = 2;
+
+        /**
+         * cnc_allclibhndl3 的超时秒数
+         */
+        private int connectTimeoutSeconds = 10;
+
+        /**
+         * 借用句柄时的最长等待时间
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        /**
+         * 空闲句柄超过该时间后被释放
+         */
+        private Duration idleTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 空闲句柄超过该时间未使用，借出前先做一次健康检查
+         */
+        private Duration validateAfterIdle = Duration.ofSeconds(30);
+
+        /**
+         * 空闲回收任务的执行间隔
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        /**
+         * 按CNC熔断配置
+         */
+        private Breaker breaker = new Breaker();
+    }
+
+    @Data
+    public static class Breaker {
+
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 连续失败（连接失败或使用中句柄失效）达到该次数后熔断
+         */
+        private int failureThreshold = 2;
+
+        /**
+         * 熔断后第一次放行探测前的等待时间，探测失败后翻倍
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 探测失败后等待时间的上限
+         */
+        private Duration maxOpenDuration = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Simulator {
+
+        /**
+         * 随机数种子，相同种子生成相同的机床初始状态
+         */
+        private long seed = 20260117L;
+
+        /**
+         * 每次 FOCAS 调用的基础延迟（模拟网络往返）
+         */
+        private Duration latency = Duration.ofMillis(2);
+
+        /**
+         * 在基础延迟上叠加的随机抖动上限
+         */
+        private Duration latencyJitter = Duration.ofMillis(1);
+
+        /**
+         * 建立连接（cnc_allclibhndl3）的延迟
+         */
+        private Duration connectLatency = Duration.ofMillis(20);
+
+        /**
+         * 离线机床连接时阻塞的时间，最长不超过调用方传入的超时秒数
+         */
+        private Duration offlineConnectDelay = Duration.ZERO;
+
+        /**
+         * 离线机床比例（0~1），离线机床连接返回 EW_SOCKET
+         */
+        private double offlineRate = 0;
+
+        /**
+         * 每次调用随机断线（返回 EW_SOCKET 并使句柄失效）的概率
+         */
+        private double socketErrorRate = 0;
+
+        /**
+         * 每次读取报警时报警状态变化的概率
+         */
+        private double alarmRate = 0.001;
+
+        /**
+         * 单台CNC允许的最大连接数，超出时连接返回 EW_SOCKET
+         */
+        private int maxConnectionsPerMachine = 5;
+
+        /**
+         * 模拟 JNA 本地调用：延迟期间占住虚拟线程的载体线程（pinned），用于评估虚拟线程模式在真实 DLL 下的表现
+         */
+        private boolean pinCarrier = false;
+
+        /**
+         * 单次 cnc_download3 最多接收的字节数，超出部分由调用方继续发送
+         */
+        private int downloadChunkLimit = 4096;
+
+        /**
+         * 每次 cnc_download3 返回 EW_BUFFER（CNC接收缓冲区满）的概率
+         */
+        private double downloadBufferFullRate = 0;
+    }
+}
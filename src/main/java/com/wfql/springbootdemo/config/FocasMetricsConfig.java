@@ -0,0 +1,46 @@
+package com.wfql.springbootdemo.config;
+
+import com.wfql.springbootdemo.fanuc.backend.FocasBackend;
+import com.wfql.springbootdemo.fanuc.metrics.FocasMetrics;
+import com.wfql.springbootdemo.fanuc.metrics.MeteredFocasBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * FOCAS 调用指标（fanuc.metrics.enabled，默认开启）
+ * <p>
+ * 把容器中的 FocasBackend 替换为 {@link MeteredFocasBackend}，指标通过 /actuator/prometheus 暴露
+ *
+ * @Package com.wfql.springbootdemo.config
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:55
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fanuc.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FocasMetricsConfig {
+
+    @Bean
+    public FocasMetrics focasMetrics(MeterRegistry registry, FanucProperties properties) {
+        return new FocasMetrics(registry, properties);
+    }
+
+    /**
+     * BeanPostProcessor 需为 static，且通过 ObjectProvider 延迟获取依赖，避免提前初始化其它 Bean
+     */
+    @Bean
+    public static BeanPostProcessor meteredFocasBackendPostProcessor(ObjectProvider<FocasMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof FocasBackend backend && !(bean instanceof MeteredFocasBackend)) {
+                    return new MeteredFocasBackend(backend, metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
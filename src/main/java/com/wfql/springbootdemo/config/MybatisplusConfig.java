@@ -9,8 +9,6 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.LocalDateTime;
-
 /**
  * mybatisplus 配置类
  *
@@ -37,26 +35,23 @@ public class MybatisplusConfig implements MetaObjectHandler {
     }
 
     /**
-     * 自动插入通用数据
+     * 自动插入通用数据（updateTime、createTime、updatetime、createtime、datatime、addtime）
+     * <p>
+     * 字段按实体类预先解析并缓存，见 {@link TimestampFill}；批量插入前已整批填充的行在这里直接跳过
      */
     @Override
     public void insertFill(MetaObject metaObject) {
-        this.strictInsertFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
-        this.strictInsertFill(metaObject, "createTime", LocalDateTime.class, LocalDateTime.now());
-        this.strictInsertFill(metaObject, "updatetime", LocalDateTime.class, LocalDateTime.now());
-        this.strictInsertFill(metaObject, "createtime", LocalDateTime.class, LocalDateTime.now());
-        this.strictInsertFill(metaObject, "datatime", LocalDateTime.class, LocalDateTime.now());
-        this.strictInsertFill(metaObject, "addtime", LocalDateTime.class, LocalDateTime.now());
+        Object entity = metaObject.getOriginalObject();
+        TimestampFill.of(entity.getClass()).fillInsert(entity);
     }
 
     /**
-     * 自动更新通用数据
+     * 自动更新通用数据（updateTime、updatetime、datatime）
      */
     @Override
     public void updateFill(MetaObject metaObject) {
-        this.strictUpdateFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
-        this.strictUpdateFill(metaObject, "updatetime", LocalDateTime.class, LocalDateTime.now());
-        this.strictUpdateFill(metaObject, "datatime", LocalDateTime.class, LocalDateTime.now());
+        Object entity = metaObject.getOriginalObject();
+        TimestampFill.of(entity.getClass()).fillUpdate(entity);
     }
 
 }
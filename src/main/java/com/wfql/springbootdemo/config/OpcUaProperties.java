@@ -0,0 +1,130 @@
+package com.wfql.springbootdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OPC UA 采集相关配置
+ *
+ * @Package com.wfql.springbootdemo.config
+ * @Author guoqing.ling
+ * @Date 2026/10/18 0:10
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "opcua")
+public class OpcUaProperties {
+
+    /**
+     * 是否启用 OPC UA 订阅采集
+     */
+    private boolean enabled = false;
+
+    /**
+     * 单次服务请求（连接、创建订阅、创建监控项）的超时时间
+     */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 服务器推送通知的周期，周期内的变化合并在一次通知中，端点未配置时使用
+     */
+    private Duration publishingInterval = Duration.ofMillis(500);
+
+    /**
+     * 服务器端采样周期，节点未配置时使用
+     */
+    private Duration samplingInterval = Duration.ofMillis(250);
+
+    /**
+     * 每个监控项在服务器端缓存的值个数，两次推送之间的多次变化都会保留
+     */
+    private int queueSize = 10;
+
+    /**
+     * 一次 CreateMonitoredItems 请求包含的节点数上限，节点较多时分批创建
+     */
+    private int maxItemsPerRequest = 500;
+
+    /**
+     * 首次连接失败后的重试间隔，连续失败后翻倍
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+
+    /**
+     * 重试间隔的上限
+     */
+    private Duration maxReconnectDelay = Duration.ofMinutes(1);
+
+    /**
+     * 采集的 OPC UA 服务器
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 设备编号，作为采集结果的 machineId，未配置时使用 url
+         */
+        private String id;
+
+        /**
+         * 服务器地址，如 opc.tcp://10.1.13.200:4840
+         */
+        private String url;
+
+        /**
+         * 所属产线/单元
+         */
+        private String cell;
+
+        /**
+         * 用户名，未配置时匿名登录
+         */
+        private String username;
+
+        private String password;
+
+        /**
+         * 该服务器的推送周期，未配置时使用全局配置
+         */
+        private Duration publishingInterval;
+
+        /**
+         * 订阅的节点
+         */
+        private List<Node> nodes = new ArrayList<>();
+
+        public String getId() {
+            return id != null ? id : url;
+        }
+    }
+
+    @Data
+    public static class Node {
+
+        /**
+         * 节点 ID，如 ns=2;s=Robot1.Speed
+         */
+        private String nodeId;
+
+        /**
+         * 信号名，可使用 alarm、blkcount 等与 FANUC 采集一致的名称，未配置时使用 opcua:节点ID
+         */
+        private String signal;
+
+        /**
+         * 该节点的采样周期，未配置时使用全局配置
+         */
+        private Duration samplingInterval;
+
+        public String getSignal() {
+            return signal != null ? signal : "opcua:" + nodeId;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.wfql.springbootdemo.config;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 通用时间字段填充，替代逐行 strictInsertFill 的 MetaObject 反射查找
+ * <p>
+ * 每个实体类第一次使用时解析一次需要填充的字段（名称在下列集合中、类型为 LocalDateTime、
+ * 且 @TableField 的 fill 包含 INSERT/UPDATE，与 strictInsertFill/strictUpdateFill 的判断一致），
+ * 编译成 VarHandle 后按类缓存；与 strict 填充一样只填充为 null 的字段。
+ * 批量插入前调用 {@link #fillInsert(Collection)}，整批共用一个时间，之后逐行的 insertFill 发现字段已有值直接跳过
+ *
+ * @Package com.wfql.springbootdemo.config
+ * @Author guoqing.ling
+ * @Date 2026/10/17 22:20
+ */
+public final class TimestampFill {
+
+    private static final Set<String> INSERT_FIELDS =
+            Set.of("updateTime", "createTime", "updatetime", "createtime", "datatime", "addtime");
+    private static final Set<String> UPDATE_FIELDS = Set.of("updateTime", "updatetime", "datatime");
+
+    private static final ClassValue<TimestampFill> CACHE = new ClassValue<>() {
+        @Override
+        protected TimestampFill computeValue(Class<?> type) {
+            return new TimestampFill(type);
+        }
+    };
+
+    private final VarHandle[] insertHandles;
+    private final VarHandle[] updateHandles;
+
+    private TimestampFill(Class<?> type) {
+        List<VarHandle> insert = new ArrayList<>();
+        List<VarHandle> update = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                TableField annotation = field.getAnnotation(TableField.class);
+                if (annotation == null || field.getType() != LocalDateTime.class
+                        || Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+                FieldFill fill = annotation.fill();
+                boolean onInsert = INSERT_FIELDS.contains(field.getName())
+                        && (fill == FieldFill.INSERT || fill == FieldFill.INSERT_UPDATE);
+                boolean onUpdate = UPDATE_FIELDS.contains(field.getName())
+                        && (fill == FieldFill.UPDATE || fill == FieldFill.INSERT_UPDATE);
+                if (!onInsert && !onUpdate) {
+                    continue;
+                }
+                VarHandle handle = varHandle(c, field);
+                if (onInsert) {
+                    insert.add(handle);
+                }
+                if (onUpdate) {
+                    update.add(handle);
+                }
+            }
+        }
+        this.insertHandles = insert.toArray(VarHandle[]::new);
+        this.updateHandles = update.toArray(VarHandle[]::new);
+    }
+
+    /**
+     * 实体类的填充器，按类缓存
+     */
+    public static TimestampFill of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * 批量插入前整批填充，共用一个时间
+     */
+    public static void fillInsert(Collection<?> entities) {
+        LocalDateTime now = null;
+        Class<?> lastType = null;
+        TimestampFill fill = null;
+        for (Object entity : entities) {
+            if (entity.getClass() != lastType) {
+                lastType = entity.getClass();
+                fill = of(lastType);
+            }
+            if (fill.insertHandles.length == 0) {
+                continue;
+            }
+            if (now == null) {
+                now = LocalDateTime.now();
+            }
+            fill.fill(fill.insertHandles, entity, now);
+        }
+    }
+
+    public boolean hasInsertFill() {
+        return insertHandles.length > 0;
+    }
+
+    /**
+     * 填充一个实体的插入时间字段，只有存在为 null 的字段时才取当前时间
+     */
+    public void fillInsert(Object entity) {
+        fillIfNull(insertHandles, entity);
+    }
+
+    /**
+     * 填充一个实体的更新时间字段
+     */
+    public void fillUpdate(Object entity) {
+        fillIfNull(updateHandles, entity);
+    }
+
+    private void fillIfNull(VarHandle[] handles, Object entity) {
+        for (VarHandle handle : handles) {
+            if (handle.get(entity) == null) {
+                fill(handles, entity, LocalDateTime.now());
+                return;
+            }
+        }
+    }
+
+    private void fill(VarHandle[] handles, Object entity, LocalDateTime now) {
+        for (VarHandle handle : handles) {
+            if (handle.get(entity) == null) {
+                handle.set(entity, now);
+            }
+        }
+    }
+
+    private static VarHandle varHandle(Class<?> owner, Field field) {
+        try {
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup()).unreflectVarHandle(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问实体类字段: " + owner.getName() + "." + field.getName(), e);
+        }
+    }
+}
@@ -1,11 +1,63 @@
 package com.wfql.springbootdemo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wfql.springbootdemo.collect.DevicePollScheduler;
+import com.wfql.springbootdemo.collect.FanucReadPlanCompiler;
+import com.wfql.springbootdemo.collect.MachineState;
+import com.wfql.springbootdemo.collect.MachineStateStore;
+import com.wfql.springbootdemo.collect.PollRate;
+import com.wfql.springbootdemo.collect.PollReport;
+import com.wfql.springbootdemo.collect.ReadPlanStats;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.common.ResponseResult;
+import com.wfql.springbootdemo.common.StreamingResponseResult;
+import com.wfql.springbootdemo.driver.DriverRegistry;
+import com.wfql.springbootdemo.driver.TagAddress;
 import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.param.ParameterAuditResult;
+import com.wfql.springbootdemo.fanuc.param.ParameterDiff;
+import com.wfql.springbootdemo.fanuc.param.ParameterSnapshotException;
+import com.wfql.springbootdemo.fanuc.param.ParameterSnapshotService;
+import com.wfql.springbootdemo.fanuc.pool.BreakerStats;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import com.wfql.springbootdemo.fanuc.pool.PoolStats;
+import com.wfql.springbootdemo.fanuc.program.ProgramRolloutReport;
+import com.wfql.springbootdemo.fanuc.program.ProgramRolloutRequest;
+import com.wfql.springbootdemo.fanuc.program.ProgramRolloutService;
+import com.wfql.springbootdemo.opcua.OpcUaCollector;
+import com.wfql.springbootdemo.opcua.OpcUaStats;
+import com.wfql.springbootdemo.persist.PersistStats;
+import com.wfql.springbootdemo.persist.ReadingHistoryExporter;
+import com.wfql.springbootdemo.persist.ReadingPersistenceSink;
+import com.wfql.springbootdemo.persist.SpoolStats;
+import com.wfql.springbootdemo.persist.SpoolingReadingSink;
+import com.wfql.springbootdemo.snapshot.SnapshotReport;
+import com.wfql.springbootdemo.snapshot.SnapshotRequest;
+import com.wfql.springbootdemo.snapshot.SnapshotService;
+import com.wfql.springbootdemo.stream.StateStreamHub;
+import com.wfql.springbootdemo.stream.StreamStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @Package com.wfql.springbootdemo.controller
@@ -20,8 +72,256 @@ public class FanucController {
 
     private final FanucReadDevices fanucReadDevices;
 
+    private final FocasConnectionPool focasConnectionPool;
+
+    private final DevicePollScheduler devicePollScheduler;
+
+    private final MachineStateStore machineStateStore;
+
+    private final StateStreamHub stateStreamHub;
+
+    private final ParameterSnapshotService parameterSnapshotService;
+
+    private final ProgramRolloutService programRolloutService;
+
+    private final ObjectProvider<ReadingPersistenceSink> readingPersistenceSink;
+
+    private final ObjectProvider<SpoolingReadingSink> spoolingReadingSink;
+
+    private final ObjectProvider<OpcUaCollector> opcUaCollector;
+
+    private final DriverRegistry driverRegistry;
+
+    private final FanucReadPlanCompiler fanucReadPlanCompiler;
+
+    private final SnapshotService snapshotService;
+
+    private final ReadingHistoryExporter readingHistoryExporter;
+
+    private final ObjectMapper objectMapper;
+
     @GetMapping("/conect")
     public void  conect() {
         fanucReadDevices.readDevice();
     }
+
+    /**
+     * 连接池统计（句柄数、借用等待时间等）
+     */
+    @GetMapping("/pool/stats")
+    public ResponseResult<Map<String, PoolStats>> poolStats() {
+        return ResponseResult.success(focasConnectionPool.getStats());
+    }
+
+    /**
+     * 各CNC的熔断状态（CLOSED/OPEN/HALF_OPEN、连续失败次数、距下次探测的时间）
+     */
+    @GetMapping("/pool/breakers")
+    public ResponseResult<Map<String, BreakerStats>> poolBreakers() {
+        return ResponseResult.success(focasConnectionPool.getBreakers());
+    }
+
+    /**
+     * 轮询统计（实际/目标频率、跳过次数、线程池队列）
+     */
+    @GetMapping("/poll/stats")
+    public ResponseResult<PollReport> pollStats() {
+        return ResponseResult.success(devicePollScheduler.getReport());
+    }
+
+    /**
+     * 每台设备当前的自适应轮询速率（倍数、各分组间隔、调整原因）
+     */
+    @GetMapping("/poll/rates")
+    public ResponseResult<List<PollRate>> pollRates() {
+        return ResponseResult.success(devicePollScheduler.getRates());
+    }
+
+    /**
+     * 全部设备的最新状态（报警、程序号、执行程序、程序段、宏变量），读取采集缓存，不访问设备
+     */
+    @GetMapping("/state")
+    public ResponseResult<List<MachineState>> machineStates() {
+        return ResponseResult.success(machineStateStore.getAll());
+    }
+
+    /**
+     * 一台设备的最新状态，读取采集缓存，不访问设备
+     */
+    @GetMapping("/state/{deviceId}")
+    public ResponseResult<MachineState> machineState(@PathVariable String deviceId) {
+        MachineState state = machineStateStore.get(deviceId);
+        return state != null ? ResponseResult.success(state) : ResponseResult.fail("设备尚未采集到数据");
+    }
+
+    /**
+     * 直接读取一台设备的一组标签（如 tag=fanuc:macro:500&tag=fanuc:param:1320&tag=fanuc:alarm），同类标签合并读取
+     */
+    @GetMapping("/tags/{deviceId}")
+    public ResponseResult<List<SignalReading>> readTags(@PathVariable String deviceId, @RequestParam List<String> tag) {
+        List<SignalReading> readings = new ArrayList<>();
+        try {
+            driverRegistry.read(deviceId, TagAddress.parseAll(tag), System.currentTimeMillis(), readings);
+        } catch (IllegalArgumentException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+        return ResponseResult.success(readings);
+    }
+
+    /**
+     * 并行读取多台设备的同一组标签，在截止时间内返回已完成的设备，每台设备带各自的状态（OK/PARTIAL/FAILED/TIMEOUT）
+     */
+    @PostMapping("/snapshot")
+    public ResponseResult<SnapshotReport> snapshot(@RequestBody SnapshotRequest request) {
+        try {
+            return ResponseResult.success(snapshotService.snapshot(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 与 /snapshot 相同，但每台设备完成时立即输出，data 为按完成顺序排列的设备结果，code/status/message 在最后
+     */
+    @PostMapping("/snapshot/stream")
+    public ResponseEntity<StreamingResponseBody> streamSnapshot(@RequestBody SnapshotRequest request) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(
+                StreamingResponseResult.of(objectMapper, writer -> snapshotService.snapshot(request, snapshot -> {
+                    writer.write(snapshot);
+                    writer.flush();
+                })));
+    }
+
+    /**
+     * 按时间范围导出已入库的信号值（如 from=2026-10-01T00:00:00&to=2026-10-02T00:00:00&machineId=M01），
+     * 逐行流式输出，data 为记录数组，code/status/message 在最后；时间范围不合法时 data 为空、status 为 false
+     */
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(required = false) String machineId,
+            @RequestParam(required = false) String signal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(
+                StreamingResponseResult.of(objectMapper, writer ->
+                        readingHistoryExporter.export(machineId, signal, from, to, writer::write)));
+    }
+
+    /**
+     * 标签读取计划统计：编译次数、缓存命中、按计划读取节省的 FOCAS 调用数
+     */
+    @GetMapping("/read-plan/stats")
+    public ResponseResult<ReadPlanStats> readPlanStats() {
+        return ResponseResult.success(fanucReadPlanCompiler.getStats());
+    }
+
+    /**
+     * 订阅设备状态变化（SSE）：首帧为订阅范围内的全量状态，之后每个推送周期只发送有变化的设备。
+     * machineIds 和 cells 都不指定时订阅全部设备
+     */
+    @GetMapping(value = "/state/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStates(@RequestParam(required = false) List<String> machineIds,
+                                   @RequestParam(required = false) List<String> cells) {
+        try {
+            return stateStreamHub.subscribe(machineIds, cells);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * 状态推送统计（订阅者数、帧数、断开的慢消费者）
+     */
+    @GetMapping("/state/stream/stats")
+    public ResponseResult<StreamStats> streamStats() {
+        return ResponseResult.success(stateStreamHub.getStats());
+    }
+
+    /**
+     * 入库统计（队列、写入速率、丢弃条数），仅 fanuc.persist.mode=queue 时可用
+     */
+    @GetMapping("/persist/stats")
+    public ResponseResult<PersistStats> persistStats() {
+        ReadingPersistenceSink sink = readingPersistenceSink.getIfAvailable();
+        return sink != null ? ResponseResult.success(sink.getStats()) : ResponseResult.fail("未启用入库");
+    }
+
+    /**
+     * 预写日志统计（待回放条数、磁盘占用、数据库是否可用），仅 fanuc.persist.mode=spool 时可用
+     */
+    @GetMapping("/persist/spool/stats")
+    public ResponseResult<SpoolStats> spoolStats() {
+        SpoolingReadingSink sink = spoolingReadingSink.getIfAvailable();
+        return sink != null ? ResponseResult.success(sink.getStats()) : ResponseResult.fail("未启用预写日志");
+    }
+
+    /**
+     * OPC UA 订阅统计（会话状态、监控项数、通知数），仅 opcua.enabled=true 时可用
+     */
+    @GetMapping("/opcua/stats")
+    public ResponseResult<List<OpcUaStats>> opcUaStats() {
+        OpcUaCollector collector = opcUaCollector.getIfAvailable();
+        return collector != null ? ResponseResult.success(collector.getStats()) : ResponseResult.fail("未启用 OPC UA 采集");
+    }
+
+    /**
+     * 巡检全部设备的参数：读取快照并与上一次快照比对
+     */
+    @PostMapping("/param/audit")
+    public ResponseResult<List<ParameterAuditResult>> auditParameters() {
+        return ResponseResult.success(parameterSnapshotService.auditAll());
+    }
+
+    /**
+     * 巡检一台设备的参数
+     */
+    @PostMapping("/param/audit/{deviceId}")
+    public ResponseResult<ParameterDiff> auditParameters(@PathVariable String deviceId) {
+        try {
+            return ResponseResult.success(parameterSnapshotService.audit(deviceId));
+        } catch (IllegalArgumentException | ParameterSnapshotException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 设备已保存的参数快照时间列表
+     */
+    @GetMapping("/param/snapshots/{deviceId}")
+    public ResponseResult<List<Long>> parameterSnapshots(@PathVariable String deviceId) {
+        try {
+            return ResponseResult.success(parameterSnapshotService.listSnapshots(deviceId));
+        } catch (IllegalArgumentException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 比对设备已保存的两次参数快照
+     */
+    @GetMapping("/param/diff/{deviceId}")
+    public ResponseResult<ParameterDiff> parameterDiff(@PathVariable String deviceId,
+                                                       @RequestParam long from, @RequestParam long to) {
+        try {
+            return parameterSnapshotService.diff(deviceId, from, to)
+                    .map(ResponseResult::success)
+                    .orElseGet(() -> ResponseResult.fail("快照不存在"));
+        } catch (IllegalArgumentException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 把同一个NC程序并发下发到多台设备，返回每台设备的结果
+     */
+    @PostMapping("/program/rollout")
+    public ResponseResult<ProgramRolloutReport> rolloutProgram(@RequestBody ProgramRolloutRequest request) {
+        try {
+            return ResponseResult.success(programRolloutService.rollout(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseResult.fail(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package com.wfql.springbootdemo.driver;
+
+/**
+ * 设备驱动：一种协议（FANUC FOCAS、OPC UA 等）的连接与读写入口
+ * <p>
+ * 调度、批量读取、缓存等通用逻辑只依赖该接口和 {@link DriverSession}，新增协议时实现这两个接口，
+ * 并注册为 Spring Bean，由 {@link DriverRegistry} 按标签地址的协议名分发
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:05
+ */
+public interface DeviceDriver {
+
+    /**
+     * 标签地址中的协议名，如 fanuc
+     */
+    String getProtocol();
+
+    /**
+     * 设备是否由该驱动管理（已在对应协议的配置中登记）
+     */
+    boolean hasMachine(String machineId);
+
+    /**
+     * 打开设备会话，用完必须关闭
+     *
+     * @param machineId 设备编号
+     * @return 会话
+     * @throws DriverException          连接失败
+     * @throws IllegalArgumentException 设备未配置
+     */
+    DriverSession open(String machineId);
+}
@@ -0,0 +1,27 @@
+package com.wfql.springbootdemo.driver;
+
+import lombok.Getter;
+
+/**
+ * 打开设备会话失败
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:05
+ */
+@Getter
+public class DriverException extends RuntimeException {
+
+    private final String machineId;
+
+    /**
+     * 对应的 FOCAS 错误码，其他协议按含义映射（连接失败为 EW_SOCKET）
+     */
+    private final short errorCode;
+
+    public DriverException(String machineId, short errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.machineId = machineId;
+        this.errorCode = errorCode;
+    }
+}
@@ -0,0 +1,90 @@
+package com.wfql.springbootdemo.driver;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按协议名查找 {@link DeviceDriver}，并按 驱动 + 设备 批量读取标签
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:10
+ */
+@Component
+public class DriverRegistry {
+
+    private final Map<String, DeviceDriver> drivers = new LinkedHashMap<>();
+
+    public DriverRegistry(List<DeviceDriver> drivers) {
+        for (DeviceDriver driver : drivers) {
+            DeviceDriver previous = this.drivers.putIfAbsent(driver.getProtocol(), driver);
+            if (previous != null) {
+                throw new IllegalStateException("协议 " + driver.getProtocol() + " 注册了多个驱动: "
+                        + previous.getClass().getSimpleName() + ", " + driver.getClass().getSimpleName());
+            }
+        }
+    }
+
+    public Set<String> getProtocols() {
+        return drivers.keySet();
+    }
+
+    /**
+     * @throws IllegalArgumentException 没有该协议的驱动
+     */
+    public DeviceDriver get(String protocol) {
+        DeviceDriver driver = drivers.get(protocol);
+        if (driver == null) {
+            throw new IllegalArgumentException("不支持的协议: " + protocol + "，可用: " + drivers.keySet());
+        }
+        return driver;
+    }
+
+    /**
+     * 读取一台设备的一批标签：按协议分组，每个协议打开一次会话、调用一次 {@link DriverSession#read}
+     *
+     * @param machineId 设备编号
+     * @param tags      标签，可混合多个协议
+     * @param timestamp 本次采集时间戳
+     * @param out       输出的信号值；打开会话失败时每个标签输出一个错误值，没有驱动的协议输出 EW_FUNC
+     * @return 最后一个连接级错误码，全部成功时返回 EW_OK
+     */
+    public short read(String machineId, List<TagAddress> tags, long timestamp, List<SignalReading> out) {
+        Map<String, List<TagAddress>> byProtocol = new LinkedHashMap<>();
+        for (TagAddress tag : tags) {
+            byProtocol.computeIfAbsent(tag.getProtocol(), k -> new ArrayList<>()).add(tag);
+        }
+        short result = FocasErrorCode.EW_OK;
+        for (Map.Entry<String, List<TagAddress>> entry : byProtocol.entrySet()) {
+            DeviceDriver driver = drivers.get(entry.getKey());
+            if (driver == null) {
+                addErrors(machineId, entry.getValue(), FocasErrorCode.EW_FUNC, timestamp, out);
+                continue;
+            }
+            try (DriverSession session = driver.open(machineId)) {
+                short code = session.read(entry.getValue(), timestamp, out);
+                if (code != FocasErrorCode.EW_OK) {
+                    result = code;
+                }
+            } catch (DriverException e) {
+                addErrors(machineId, entry.getValue(), e.getErrorCode(), timestamp, out);
+                result = e.getErrorCode();
+            }
+        }
+        return result;
+    }
+
+    private static void addErrors(String machineId, List<TagAddress> tags, short errorCode, long timestamp,
+                                  List<SignalReading> out) {
+        for (TagAddress tag : tags) {
+            out.add(SignalReading.error(machineId, tag.getSignal(), errorCode, timestamp));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.wfql.springbootdemo.driver;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 一台设备的驱动会话，同一时间只能由一个线程使用
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:05
+ */
+public interface DriverSession extends AutoCloseable {
+
+    String getMachineId();
+
+    /**
+     * 读取一批标签，驱动负责把同类标签合并为尽量少的底层调用
+     *
+     * @param tags      本协议的标签
+     * @param timestamp 本次采集时间戳
+     * @param out       输出的信号值，单个标签读取失败时输出错误值；部分标签（如报警）会附带输出关联信号（online）
+     * @return 连接级错误码（EW_SOCKET 等），无连接错误时返回 EW_OK
+     */
+    short read(List<TagAddress> tags, long timestamp, List<SignalReading> out);
+
+    /**
+     * 写入一个数值型标签
+     *
+     * @return 错误代码，不支持写入的标签返回 EW_FUNC
+     */
+    short write(TagAddress tag, double value);
+
+    /**
+     * 订阅标签：服务器推送的协议（OPC UA）在值变化时回调，轮询型协议（FANUC）由驱动定时读取后回调；
+     * 订阅不依赖本会话，关闭会话后仍然有效，需要关闭返回的句柄才会停止
+     *
+     * @return 取消订阅的句柄
+     */
+    default AutoCloseable subscribe(List<TagAddress> tags, Consumer<List<SignalReading>> listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " 不支持订阅，请定时读取");
+    }
+
+    /**
+     * 释放会话（归还连接）
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,160 @@
+package com.wfql.springbootdemo.driver;
+
+import com.wfql.springbootdemo.collect.FanucSignalReader;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import com.wfql.springbootdemo.fanuc.pool.FocasPoolException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * FANUC FOCAS 驱动（协议名 fanuc），设备取自 fanuc.devices
+ * <p>
+ * 会话即从连接池借出的句柄；读取交给 {@link FanucSignalReader} 按标签类型合并调用，写入目前支持宏变量（fanuc:macro:N）。
+ * FOCAS 没有服务器推送，订阅由一个虚拟线程按 fanuc.poll.subscribe-interval 定时读取后回调，每次读取单独借用句柄
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:15
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FanucDriver implements DeviceDriver {
+
+    public static final String PROTOCOL = "fanuc";
+
+    private final FanucProperties properties;
+
+    private final FocasConnectionPool connectionPool;
+
+    private final FanucSignalReader signalReader;
+
+    private final FanucReadDevices fanucReadDevices;
+
+    @Override
+    public String getProtocol() {
+        return PROTOCOL;
+    }
+
+    @Override
+    public boolean hasMachine(String machineId) {
+        return findDevice(machineId) != null;
+    }
+
+    @Override
+    public DriverSession open(String machineId) {
+        FanucProperties.Device device = findDevice(machineId);
+        if (device == null) {
+            throw new IllegalArgumentException("未配置的设备: " + machineId);
+        }
+        try {
+            return new FanucSession(device, connectionPool.borrow(device.getIp(), device.getPort()));
+        } catch (FocasPoolException e) {
+            short code = e.getErrorCode() != FocasErrorCode.EW_OK ? e.getErrorCode() : FocasErrorCode.EW_BUSY;
+            throw new DriverException(machineId, code, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定时读取一组标签并回调，直到返回的句柄被关闭；连接失败时每个标签回调一个错误值
+     */
+    private AutoCloseable subscribe(String machineId, List<TagAddress> tags, Consumer<List<SignalReading>> listener) {
+        AtomicBoolean closed = new AtomicBoolean();
+        Thread thread = Thread.ofVirtual().name("fanuc-subscribe-" + machineId).start(() -> {
+            long intervalNanos = properties.getPoll().getSubscribeInterval().toNanos();
+            while (!closed.get()) {
+                long start = System.nanoTime();
+                long timestamp = System.currentTimeMillis();
+                List<SignalReading> readings = new ArrayList<>();
+                try (DriverSession session = open(machineId)) {
+                    session.read(tags, timestamp, readings);
+                } catch (DriverException e) {
+                    for (TagAddress tag : tags) {
+                        readings.add(SignalReading.error(machineId, tag.getSignal(), e.getErrorCode(), timestamp));
+                    }
+                }
+                if (closed.get()) {
+                    return;
+                }
+                try {
+                    listener.accept(readings);
+                } catch (RuntimeException e) {
+                    log.warn("设备 {} 订阅回调异常", machineId, e);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(intervalNanos - (System.nanoTime() - start));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        return () -> {
+            closed.set(true);
+            thread.interrupt();
+        };
+    }
+
+    private FanucProperties.Device findDevice(String machineId) {
+        for (FanucProperties.Device device : properties.getDevices()) {
+            if (device.getId().equals(machineId)) {
+                return device;
+            }
+        }
+        return null;
+    }
+
+    private final class FanucSession implements DriverSession {
+
+        private final FanucProperties.Device device;
+        private final FocasConnection connection;
+
+        FanucSession(FanucProperties.Device device, FocasConnection connection) {
+            this.device = device;
+            this.connection = connection;
+        }
+
+        @Override
+        public String getMachineId() {
+            return device.getId();
+        }
+
+        @Override
+        public short read(List<TagAddress> tags, long timestamp, List<SignalReading> out) {
+            return signalReader.read(connection, device, tags, timestamp, out);
+        }
+
+        @Override
+        public short write(TagAddress tag, double value) {
+            if (!"macro".equals(tag.getKind()) || tag.getNumber() < 1 || tag.getNumber() > Short.MAX_VALUE) {
+                return FocasErrorCode.EW_FUNC;
+            }
+            return connection.check(
+                    fanucReadDevices.writeMacroVariable(connection.getHandle(), (short) tag.getNumber(), value));
+        }
+
+        /**
+         * 按 fanuc.poll.subscribe-interval 定时读取，订阅不占用本会话的句柄，关闭会话后订阅继续
+         */
+        @Override
+        public AutoCloseable subscribe(List<TagAddress> tags, Consumer<List<SignalReading>> listener) {
+            return FanucDriver.this.subscribe(device.getId(), List.copyOf(tags), listener);
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+        }
+    }
+}
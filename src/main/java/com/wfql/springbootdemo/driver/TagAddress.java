@@ -0,0 +1,92 @@
+package com.wfql.springbootdemo.driver;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 标签地址：协议:信号，如 fanuc:macro:500、fanuc:param:1320/axis=2、fanuc:alarm
+ * <p>
+ * 信号部分（path）与 {@link com.wfql.springbootdemo.collect.SignalReading} 的信号名一致；
+ * 协议名统一为小写；按 类型:编号/axis=轴号 解析出 kind、number、axis，供驱动分组读取，不符合该格式的部分分别为整个信号、-1、0
+ *
+ * @Package com.wfql.springbootdemo.driver
+ * @Author guoqing.ling
+ * @Date 2026/10/18 1:00
+ */
+@Getter
+public final class TagAddress {
+
+    private static final String AXIS = "/axis=";
+
+    private final String protocol;
+    private final String path;
+    private final String kind;
+    private final int number;
+    private final int axis;
+
+    private TagAddress(String protocol, String path) {
+        // 协议名不区分大小写，统一在这里转成小写，of 和 parse 得到的地址可以直接比较
+        this.protocol = protocol.trim().toLowerCase(Locale.ROOT);
+        this.path = path;
+        int axisAt = path.indexOf(AXIS);
+        String base = axisAt >= 0 ? path.substring(0, axisAt) : path;
+        this.axis = axisAt >= 0 ? parseInt(path.substring(axisAt + AXIS.length())) : 0;
+        int colon = base.indexOf(':');
+        this.kind = colon >= 0 ? base.substring(0, colon) : base;
+        this.number = colon >= 0 ? parseInt(base.substring(colon + 1)) : -1;
+    }
+
+    public static TagAddress of(String protocol, String path) {
+        if (protocol == null || protocol.isBlank() || path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("标签地址格式错误: " + protocol + ":" + path);
+        }
+        return new TagAddress(protocol, path);
+    }
+
+    /**
+     * 解析 协议:信号 格式的地址
+     */
+    public static TagAddress parse(String address) {
+        int colon = address == null ? -1 : address.indexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            throw new IllegalArgumentException("标签地址格式错误: " + address);
+        }
+        return new TagAddress(address.substring(0, colon), address.substring(colon + 1).trim());
+    }
+
+    public static List<TagAddress> parseAll(List<String> addresses) {
+        return addresses.stream().map(TagAddress::parse).toList();
+    }
+
+    /**
+     * 采集结果中的信号名
+     */
+    public String getSignal() {
+        return path;
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TagAddress other && protocol.equals(other.protocol) && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * protocol.hashCode() + path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return protocol + ":" + path;
+    }
+}
@@ -0,0 +1,58 @@
+package com.wfql.springbootdemo.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * FANUC 信号值记录，表结构见 db/fanuc_signal_reading.sql
+ *
+ * @Package com.wfql.springbootdemo.entity
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:00
+ */
+@Data
+@TableName("FANUC_SIGNAL_READING")
+public class FanucSignalRecord {
+
+    /**
+     * 雪花ID，由应用生成，批量插入不依赖序列
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    private String machineId;
+
+    private String signal;
+
+    /**
+     * 数值，文本型信号或读取失败时为 null
+     */
+    private Double numValue;
+
+    /**
+     * 文本值（如执行程序名）
+     */
+    private String textValue;
+
+    /**
+     * FOCAS 错误代码，成功为 0
+     */
+    private Short errorCode;
+
+    /**
+     * 采集时间
+     */
+    private LocalDateTime readTime;
+
+    /**
+     * 入库时间，同一批共用一个值（见 TimestampFill）
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
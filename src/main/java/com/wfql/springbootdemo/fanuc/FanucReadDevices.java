@@ -6,6 +6,9 @@ import com.sun.jna.Structure;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.ShortByReference;
 import com.sun.jna.win32.StdCallLibrary;
+import com.wfql.springbootdemo.fanuc.backend.FocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -13,9 +16,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * @Package com.wfql.springbootdemo.fanuc
@@ -26,14 +42,32 @@ import java.util.List;
 @Component
 public class FanucReadDevices {
 
+    private final FocasBackend focasBackend;
+
+    @Autowired
+    private FocasConnectionPool connectionPool;
+
+    @Autowired
+    public FanucReadDevices(FocasBackend focasBackend) {
+        this.focasBackend = focasBackend;
+    }
+
     public void readDevice() {
-        ShortByReference handle = new ShortByReference();
-        short result = DLibrary.INSTANCE.cnc_allclibhndl3("10.1.13.152", (short) 8193, 10, handle);
-        System.out.println(handle.getValue());
-        System.out.println(handle);
-        System.out.println(result);
-        DownloadStartInfo downloadStartInfo = startDownloadWithError(handle.getValue(), DownloadDataType.NC_PROGRAM);
-        System.out.println(downloadStartInfo);
+        // 句柄从连接池借出，用完归还，不再每次重新连接
+        try (FocasConnection connection = connectionPool.borrow("10.1.13.152", 8193)) {
+            log.debug("句柄: {}", connection.getHandle());
+            DownloadStartInfo downloadStartInfo = startDownloadWithError(connection.getHandle(), DownloadDataType.NC_PROGRAM);
+            connection.check(downloadStartInfo.getErrorCode());
+            log.debug("{}", downloadStartInfo);
+            if (downloadStartInfo.isSuccess()) {
+                // 归还前结束下载过程，否则CNC保持在下载状态，下一个借用该句柄的调用返回 EW_BUSY；结束失败时丢弃该句柄
+                DownloadEndInfo end = endDownloadWithError(connection.getHandle());
+                connection.check(end.getErrorCode());
+                if (!end.isSuccess()) {
+                    connection.markBroken(end.getErrorCode());
+                }
+            }
+        }
     }
 
     /**
@@ -189,6 +223,61 @@ public class FanucReadDevices {
     // 定义常量
     public static final short ALL_AXES = -1; // 全部轴
 
+    /**
+     * IODBMR 结构体 - 连续宏变量数据（cnc_rdmacror）
+     * <p>
+     * typedef struct  iodbmr {
+     * short   datano_s ;  // start custom macro variable number
+     * short   dummy ;     // (not used)
+     * short   datano_e ;  // end custom macro variable number
+     * struct {
+     * long    mcr_val ;   // value of custom macro variable
+     * short   dec_val ;   // number of places of decimals
+     * } data[N] ;
+     * } IODBMR ;
+     * <p>
+     * data 按 4 字节对齐：头部 8 字节，每个变量 8 字节（mcr_val 4 + dec_val 2 + 填充 2），
+     * 变量个数可变，因此直接按偏移读写 Memory，不定义 Structure
+     */
+    public static final int IODBMR_HEADER = 8;
+    public static final int IODBMR_ENTRY = 8;
+
+    /**
+     * 单次 cnc_rdmacror 读取的最大变量数，超出时分段读取
+     */
+    public static final int MACRO_RANGE_MAX = 100;
+
+    /**
+     * cnc_rdparar 的数据块 - 连续存放的 IODBPSD 记录
+     * <p>
+     * 每条记录为 datano(2) type(2) data，不做对齐填充；type 高字节为数据类型，低字节为轴信息：
+     * 0 无轴（1 个值），-1 全部轴（最大控制轴数个值），1~m 单轴（1 个值）。
+     * 单次调用的数据块长度，放不下的参数在下一次调用中读取
+     */
+    public static final int PARAM_RANGE_LENGTH = 4096;
+
+    /**
+     * ODBSYS 结构体 - CNC系统信息（cnc_sysinfo）
+     * <p>
+     * typedef struct  odbsys {
+     * short   addinfo ;     // additional information
+     * short   max_axis ;    // maximum controlled axes
+     * char    cnc_type[2] ; // cnc type ("15", "16", "30" ...)
+     * char    mt_type[2] ;  // M/T/TT (" M", " T", "MM", "TT")
+     * char    series[4] ;   // series number (ASCII)
+     * char    version[4] ;  // version number (ASCII)
+     * char    axes[2] ;     // current controlled axes (ASCII)
+     * } ODBSYS ;
+     * <p>
+     * 字符数组不以 0 结尾，直接按偏移读取 Memory
+     */
+    public static final int ODBSYS_LENGTH = 18;
+
+    /**
+     * 10 的负幂，用于把 mcr_val 按 dec_val 缩放
+     */
+    private static final double[] NEG_POW10 = {1, 1e-1, 1e-2, 1e-3, 1e-4, 1e-5, 1e-6, 1e-7, 1e-8, 1e-9};
+
     /**
      * ODBM 结构体 - 自定义宏变量数据结构
      * 用于读取和写入自定义宏变量
@@ -287,157 +376,11 @@ public class FanucReadDevices {
         }
     }
 
-    public interface DLibrary extends StdCallLibrary {
+    /**
+     * Fwlib64.dll 的 JNA 映射，函数声明见 {@link FocasBackend}
+     */
+    public interface DLibrary extends StdCallLibrary, FocasBackend {
         DLibrary INSTANCE = (DLibrary) Native.loadLibrary(DLL_PATH, DLibrary.class);
-
-        /**
-         * 分配库句柄并连接到指定IP地址或主机名的CNC
-         *
-         * @param ipaddr   CNC的IP地址或主机名字符串 (例如: "192.168.0.1" 或 "CNC-1.FACTORY")
-         * @param port     FOCAS1/Ethernet 或 FOCAS2/Ethernet (TCP) 功能的端口号 (unsigned short)
-         * @param timeout  超时秒数。如果指定0，则忽略超时处理，库函数将无限等待 (long, Windows上为32位)
-         * @param FlibHndl 输出参数，用于存储库句柄的指针 (unsigned short *)
-         * @return 返回状态码，0表示成功，非0表示失败
-         */
-        short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl);
-
-        /**
-         * 读取当前选择为主程序的文件信息
-         *
-         * @param FlibHndl  库句柄 (unsigned short)
-         * @param file_path 输出参数，用于存储文件路径的缓冲区指针 (char *)，需要分配244字节
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_pdf_rdmain(short FlibHndl, Memory file_path);
-
-        /**
-         * 读取块计数器的值
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param prog_bc  输出参数，用于存储块计数器值的指针 (long *)，在Windows上long为32位
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rdblkcount(short FlibHndl, IntByReference prog_bc);
-
-        /**
-         * 读取正在CNC上执行的NC程序内容
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param length   输入/输出参数，输入时指定要读取的字符数，输出时返回实际读取的字符数 (unsigned short *)
-         * @param blknum   输出参数，用于存储读取的块数 (short *)
-         * @param data     输出参数，用于存储执行中的NC程序的字符串缓冲区 (char *)
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rdexecprog(short FlibHndl, ShortByReference length, ShortByReference blknum, Memory data);
-
-        /**
-         * 读取 PMC 数据信息（关于各种 PMC 的属性、PMC 地址的有效范围等）
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param adr_type PMC地址类型：0,... 参考 pmc_rdpmcrng 函数表；-1 表示所有地址信息
-         * @param pmcif    输出参数，指向 ODBPMCINF 结构体的指针，用于存储 PMC 数据信息
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short pmc_rdpmcinfo(short FlibHndl, short adr_type, ODBPMCINF pmcif);
-
-        /**
-         * 读取 DNC 下载程序的诊断数据
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param dgndt    输出参数，指向 ODBDNCDGN 结构体的指针，用于返回诊断数据
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rddncdgndt(short FlibHndl, ODBDNCDGN dgndt);
-
-        /**
-         * 读取指定参数号和轴的参数值
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param number   参数号 (short)
-         * @param axis     轴号 (short): 0表示无轴, 1到m表示单轴, ALL_AXES(-1)表示全部轴
-         * @param length   数据块长度 (short): (4+(参数字节大小)*(轴数))
-         * @param param    输出参数，指向IODBPSD结构体的指针，包含参数值
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rdparam(short FlibHndl, short number, short axis, short length, IODBPSD param);
-
-        /**
-         * 读取指定编号的自定义宏变量值
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param number   宏变量号 (short)
-         * @param length   数据块长度 (short): ODBM结构体大小=10
-         * @param macro    输出参数，指向ODBM结构体的指针，包含宏变量值
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rdmacro(short FlibHndl, short number, short length, ODBM macro);
-
-        /**
-         * 读取CNC中当前选中的程序号（模态O号）
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param prgnum   输出参数，指向ODBPRO结构体的指针，包含程序号信息
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_rdprgnum(short FlibHndl, ODBPRO prgnum);
-
-        /**
-         * 读取CNC的报警状态
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param alarm    输出参数，指向存储报警状态的变量地址
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_alarm2(short FlibHndl, IntByReference alarm);
-
-        /**
-         * 读取CNC当前执行程序的完整路径名
-         * 当CNC停止时，获取执行程序的名称
-         * 程序名称存储在"exeprg.name"中，最大32字符字符串格式
-         * <p>
-         * O号码程序的情况：
-         * exeprg.name:  'O'和数字以ASCII码形式存储，例如"O123"
-         * exeprg.o_num: O号码以二进制格式存储，例如123
-         * <p>
-         * 非O号码程序的情况：
-         * exeprg.name:  程序名以ASCII码形式存储，例如"ABC"
-         * exeprg.o_num: 0以二进制格式存储
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param exeprg   输出参数，指向ODBEXEPRG结构体的指针，包含当前执行程序信息
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_exeprgname(short FlibHndl, ODBEXEPRG exeprg);
-
-        /**
-         * 通知开始上传NC数据（NC程序、刀具偏置等）到数据窗口库内部逻辑
-         * （此函数必须在cnc_download3之前执行）
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param type     数据类型 (0:NC程序, 1:刀具偏置数据, 2:参数, 3:螺距误差补偿数据, 4:自定义宏变量, 5:工件零点偏置数据, 18:旋转台动态夹具偏置)
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_dwnstart3(short FlibHndl, short type);
-
-        /**
-         * 下载NC数据（NC程序、刀具偏置等）到CNC
-         * （此函数必须在cnc_dwnstart3之后执行）
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @param data     指向要下载的数据缓冲区的指针
-         * @param length   要下载的数据长度
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_download3(short FlibHndl, Memory data, int length);
-
-        /**
-         * 结束NC数据下载过程
-         * （此函数必须在下载完成后执行，用于结束cnc_dwnstart3开启的下载过程）
-         *
-         * @param FlibHndl 库句柄 (unsigned short)
-         * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
-         */
-        short cnc_dwnend3(short FlibHndl);
     }
 
     /**
@@ -480,7 +423,7 @@ public class FanucReadDevices {
         Memory filePathBuffer = new Memory(244);
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_pdf_rdmain(handle, filePathBuffer);
+        short result = focasBackend.cnc_pdf_rdmain(handle, filePathBuffer);
 
         if (result == 0) {
             // 成功：从缓冲区读取字符串（C字符串以NULL结尾）
@@ -504,7 +447,7 @@ public class FanucReadDevices {
         Memory filePathBuffer = new Memory(244);
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_pdf_rdmain(handle, filePathBuffer);
+        short result = focasBackend.cnc_pdf_rdmain(handle, filePathBuffer);
 
         ProgramFileInfo info = new ProgramFileInfo();
         info.setErrorCode(result);
@@ -555,7 +498,7 @@ public class FanucReadDevices {
         IntByReference blockCountRef = new IntByReference();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdblkcount(handle, blockCountRef);
+        short result = focasBackend.cnc_rdblkcount(handle, blockCountRef);
 
         if (result == 0) {
             // 成功：获取块计数器值（注意：Windows上的long是32位，所以使用int）
@@ -579,7 +522,7 @@ public class FanucReadDevices {
         IntByReference blockCountRef = new IntByReference();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdblkcount(handle, blockCountRef);
+        short result = focasBackend.cnc_rdblkcount(handle, blockCountRef);
 
         BlockCountInfo info = new BlockCountInfo();
         info.setErrorCode(result);
@@ -637,7 +580,7 @@ public class FanucReadDevices {
         Memory dataBuffer = new Memory(maxLength + 1);
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdexecprog(handle, lengthRef, blknumRef, dataBuffer);
+        short result = focasBackend.cnc_rdexecprog(handle, lengthRef, blknumRef, dataBuffer);
 
         if (result == 0) {
             // 成功：获取实际读取的字符数和块数
@@ -678,7 +621,7 @@ public class FanucReadDevices {
         Memory dataBuffer = new Memory(maxLength + 1);
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdexecprog(handle, lengthRef, blknumRef, dataBuffer);
+        short result = focasBackend.cnc_rdexecprog(handle, lengthRef, blknumRef, dataBuffer);
 
         ExecProgramInfo info = new ExecProgramInfo();
         info.setErrorCode(result);
@@ -738,7 +681,7 @@ public class FanucReadDevices {
     public DncDiagInfo readDncDiag(short handle) {
         ODBDNCDGN nativeData = new ODBDNCDGN();
 
-        short result = DLibrary.INSTANCE.cnc_rddncdgndt(handle, nativeData);
+        short result = focasBackend.cnc_rddncdgndt(handle, nativeData);
         if (result != 0) {
             System.err.println("读取 DNC 诊断数据失败，错误代码: " + result);
             return null;
@@ -757,7 +700,7 @@ public class FanucReadDevices {
     public DncDiagInfo readDncDiagWithError(short handle) {
         ODBDNCDGN nativeData = new ODBDNCDGN();
 
-        short result = DLibrary.INSTANCE.cnc_rddncdgndt(handle, nativeData);
+        short result = focasBackend.cnc_rddncdgndt(handle, nativeData);
         nativeData.read();
 
         DncDiagInfo info = mapDncDiagInfo(nativeData, result);
@@ -856,7 +799,7 @@ public class FanucReadDevices {
 //            pmcInfo.allocateMemory();
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.pmc_rdpmcinfo(handle, adrType, pmcInfo);
+            short result = focasBackend.pmc_rdpmcinfo(handle, adrType, pmcInfo);
 
             if (result == 0) {
                 // 成功：读取结构体数据
@@ -902,7 +845,7 @@ public class FanucReadDevices {
 //            pmcInfo.allocateMemory();
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.pmc_rdpmcinfo(handle, adrType, pmcInfo);
+            short result = focasBackend.pmc_rdpmcinfo(handle, adrType, pmcInfo);
 
             PmcInfo info = new PmcInfo();
             info.setErrorCode(result);
@@ -981,25 +924,15 @@ public class FanucReadDevices {
     public ParameterInfo readParameter(short handle, short number, short axis, short length) {
         // 创建 IODBPSD 结构体实例
         IODBPSD param = new IODBPSD();
+        // 结果直接从本地内存解析，不需要调用后把整个 u 复制到 Java 字段
+        param.setAutoRead(false);
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdparam(handle, number, axis, length, param);
+        short result = focasBackend.cnc_rdparam(handle, number, axis, length, param);
 
         if (result == 0) {
-            // 成功：读取结构体数据
-            param.read();
-
             ParameterInfo info = new ParameterInfo();
-            info.setParamNumber(param.datano & 0xFFFF); // 转换为无符号整数
-
-            // 解析类型信息：高字节为类型，低字节为轴
-            short typeInfo = param.type;
-            short paramType = (short) ((typeInfo >> 8) & 0xFF); // 高字节
-            short paramAxis = (short) (typeInfo & 0xFF);       // 低字节
-
-            info.setParamType(paramType);
-            info.setAxis(paramAxis);
-            info.setData(parseParameterData(param, paramType, paramAxis));
+            fillParameterInfo(info, param, axis, length);
             info.setSuccess(true);
 
             // 清理内存
@@ -1027,27 +960,17 @@ public class FanucReadDevices {
         try {
             // 创建 IODBPSD 结构体实例
             param = new IODBPSD();
+            // 结果直接从本地内存解析，不需要调用后把整个 u 复制到 Java 字段
+            param.setAutoRead(false);
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.cnc_rdparam(handle, number, axis, length, param);
+            short result = focasBackend.cnc_rdparam(handle, number, axis, length, param);
 
             ParameterInfo info = new ParameterInfo();
             info.setErrorCode(result);
 
             if (result == 0) {
-                // 成功：读取结构体数据
-                param.read();
-
-                info.setParamNumber(param.datano & 0xFFFF); // 转换为无符号整数
-
-                // 解析类型信息：高字节为类型，低字节为轴
-                short typeInfo = param.type;
-                short paramType = (short) ((typeInfo >> 8) & 0xFF); // 高字节
-                short paramAxis = (short) (typeInfo & 0xFF);       // 低字节
-
-                info.setParamType(paramType);
-                info.setAxis(paramAxis);
-                info.setData(parseParameterData(param, paramType, paramAxis));
+                fillParameterInfo(info, param, axis, length);
                 info.setSuccess(true);
             } else {
                 // 失败
@@ -1076,80 +999,76 @@ public class FanucReadDevices {
     }
 
     /**
-     * 解析参数数据，根据参数类型和轴信息
+     * 从 IODBPSD 本地内存填充参数信息
      *
-     * @param param     结构体参数
-     * @param paramType 参数类型
-     * @param paramAxis 轴信息
-     * @return 解析后的参数数据
-     */
-    private Object parseParameterData(IODBPSD param, short paramType, short paramAxis) {
-        // 参数类型:
-        // 0: bit type
-        // 1: byte type
-        // 2: word type
-        // 3: 2-word type
-        // 4: real type (only Series 15i)
-
-        switch (paramType) {
-            case 0: // bit type
-            case 1: // byte type
-                if (paramAxis == 0 || paramAxis == 1) {
-                    // 单个字节数据
-                    return param.u[0];
-                } else {
-                    // 多轴数据
-                    byte[] bytes = new byte[256];
-                    System.arraycopy(param.u, 0, bytes, 0, 256);
-                    return bytes;
-                }
-            case 2: // word type
-                if (paramAxis == 0 || paramAxis == 1) {
-                    // 单个短整型数据
-                    return (short) ((param.u[1] & 0xFF) << 8 | (param.u[0] & 0xFF));
-                } else {
-                    // 多轴数据
-                    short[] shorts = new short[128]; // 假设最多128个轴
-                    for (int i = 0; i < shorts.length && (i * 2 + 1) < param.u.length; i++) {
-                        shorts[i] = (short) ((param.u[i * 2 + 1] & 0xFF) << 8 | (param.u[i * 2] & 0xFF));
-                    }
-                    return shorts;
-                }
-            case 3: // 2-word type
-                if (paramAxis == 0 || paramAxis == 1) {
-                    // 单个整型数据
-                    return (param.u[3] & 0xFF) << 24 | (param.u[2] & 0xFF) << 16 |
-                            (param.u[1] & 0xFF) << 8 | (param.u[0] & 0xFF);
-                } else {
-                    // 多轴数据
-                    int[] ints = new int[64]; // 假设最多64个轴
-                    for (int i = 0; i < ints.length && (i * 4 + 3) < param.u.length; i++) {
-                        ints[i] = (param.u[i * 4 + 3] & 0xFF) << 24 | (param.u[i * 4 + 2] & 0xFF) << 16 |
-                                (param.u[i * 4 + 1] & 0xFF) << 8 | (param.u[i * 4] & 0xFF);
-                    }
-                    return ints;
-                }
-            case 4: // real type (only Series 15i)
-                if (paramAxis == 0 || paramAxis == 1) {
-                    // 单个实数数据
-                    REALPRM realParam = new REALPRM();
-                    // 将字节数据复制到REALPRM结构
-                    System.arraycopy(param.u, 0, realParam.getPointer(), 0, 8);
-                    realParam.read();
-                    return realParam;
-                } else {
-                    // 多轴实数数据
-                    REALPRM[] realParams = new REALPRM[32]; // 假设最多32个轴
-                    for (int i = 0; i < realParams.length && (i * 8 + 7) < param.u.length; i++) {
-                        REALPRM rp = new REALPRM();
-                        System.arraycopy(param.u, i * 8, rp.getPointer(), 0, 8);
-                        rp.read();
-                        realParams[i] = rp;
-                    }
-                    return realParams;
+     * @param axis   调用时的轴号，ALL_AXES 时解析为数组
+     * @param length 调用时的数据块长度，决定全部轴时的数组长度
+     */
+    private static void fillParameterInfo(ParameterInfo info, IODBPSD param, short axis, short length) {
+        com.sun.jna.Pointer p = param.getPointer();
+        info.setParamNumber(p.getShort(0) & 0xFFFF); // 转换为无符号整数
+
+        // 解析类型信息：高字节为类型，低字节为轴
+        short typeInfo = p.getShort(2);
+        short paramType = (short) ((typeInfo >> 8) & 0xFF); // 高字节
+        short paramAxis = (short) (typeInfo & 0xFF);       // 低字节
+
+        info.setParamType(paramType);
+        info.setAxis(paramAxis);
+        info.setData(decodeParameterData(p, paramType, axis, length));
+    }
+
+    /**
+     * 参数类型对应的单个值字节数
+     * <p>
+     * 0: bit type, 1: byte type, 2: word type, 3: 2-word type, 4: real type (only Series 15i, REALPRM)
+     */
+    public static int parameterSize(int paramType) {
+        return switch (paramType) {
+            case 0, 1 -> 1;
+            case 2 -> 2;
+            case 4 -> 8;
+            default -> 4;
+        };
+    }
+
+    /**
+     * 直接从 IODBPSD 的本地内存解析参数数据（本机字节序，Windows x86/x64 为小端），不经过 u 字段复制
+     * <p>
+     * 无轴/单轴返回单个值：Byte（位型、字节型）、Short、Integer、Double（实数型，已按小数位换算）；
+     * 全部轴返回长度为 (length - 4) / 单值字节数 的 byte[]、short[]、int[] 或 double[]，
+     * 调用时 length 按实际轴数给出即可得到恰好等长的数组
+     *
+     * @param p      IODBPSD 起始地址
+     * @param type   参数类型（type 高字节）
+     * @param axis   调用时的轴号
+     * @param length 调用时的数据块长度
+     */
+    static Object decodeParameterData(com.sun.jna.Pointer p, int type, short axis, short length) {
+        final int data = 4;
+        int size = parameterSize(type);
+        if (axis != ALL_AXES) {
+            return switch (type) {
+                case 0, 1 -> p.getByte(data);
+                case 2 -> p.getShort(data);
+                case 4 -> p.getInt(data) * Math.pow(10, -p.getInt(data + 4));
+                default -> p.getInt(data);
+            };
+        }
+        int count = Math.max(0, Math.min(FocasBuffers.MAX_AXIS, (length - data) / size));
+        switch (type) {
+            case 0, 1:
+                return p.getByteArray(data, count);
+            case 2:
+                return p.getShortArray(data, count);
+            case 4:
+                double[] reals = new double[count];
+                for (int i = 0; i < count; i++) {
+                    reals[i] = p.getInt(data + 8L * i) * Math.pow(10, -p.getInt(data + 8L * i + 4));
                 }
+                return reals;
             default:
-                return param.u; // 返回原始字节数组
+                return p.getIntArray(data, count);
         }
     }
 
@@ -1182,6 +1101,141 @@ public class FanucReadDevices {
         }
     }
 
+    /**
+     * 一次 cnc_rdparar：读取 start~end 中数据块能容纳的参数，记录布局见 {@link #PARAM_RANGE_LENGTH}
+     * <p>
+     * 成功后 buffer 中为实际读取的首尾参数号和数据长度；last &lt; end 时从 last + 1 继续读取即可。
+     * 范围内没有参数时返回 EW_NUMBER
+     *
+     * @param handle 库句柄（通过 cnc_allclibhndl3 获取）
+     * @param start  起始参数号
+     * @param end    结束参数号（包含）
+     * @param buffer 可复用的数据块
+     * @return 错误代码，0 表示成功
+     */
+    public short readParameterRange(short handle, int start, int end, ParameterRangeBuffer buffer) {
+        if (end < start || start < 0 || end > Short.MAX_VALUE) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        buffer.first.setValue((short) start);
+        buffer.last.setValue((short) end);
+        buffer.length.setValue((short) buffer.data.size());
+        return focasBackend.cnc_rdparar(handle, buffer.first, ALL_AXES, buffer.last, buffer.length, buffer.data);
+    }
+
+    /**
+     * cnc_rdparar 数据块中一条记录的字节数
+     *
+     * @param typeWord 记录的 type 字段
+     * @param maxAxis  最大控制轴数（cnc_sysinfo 的 max_axis）
+     */
+    public static int parameterRecordLength(short typeWord, int maxAxis) {
+        int size = parameterSize((typeWord >> 8) & 0xFF);
+        return 4 + size * ((byte) typeWord == ALL_AXES ? maxAxis : 1);
+    }
+
+    /**
+     * cnc_rdparar 的可复用数据块和输入/输出参数
+     */
+    public static final class ParameterRangeBuffer {
+        final Memory data;
+        final ShortByReference first = new ShortByReference();
+        final ShortByReference last = new ShortByReference();
+        final ShortByReference length = new ShortByReference();
+
+        public ParameterRangeBuffer() {
+            this(PARAM_RANGE_LENGTH);
+        }
+
+        public ParameterRangeBuffer(int size) {
+            this.data = new Memory(Math.min(size, Short.MAX_VALUE));
+        }
+
+        public com.sun.jna.Pointer getData() {
+            return data;
+        }
+
+        /**
+         * 实际读取的第一个参数号
+         */
+        public int getFirstNumber() {
+            return first.getValue();
+        }
+
+        /**
+         * 实际读取的最后一个参数号
+         */
+        public int getLastNumber() {
+            return last.getValue();
+        }
+
+        /**
+         * 实际写入的字节数
+         */
+        public int getLength() {
+            return length.getValue() & 0xFFFF;
+        }
+    }
+
+    /**
+     * 读取CNC系统信息（带错误处理）
+     *
+     * @param handle 库句柄（通过 cnc_allclibhndl3 获取）
+     * @return 包含系列、版本、最大控制轴数和错误代码的结果对象
+     */
+    public SystemInfo readSystemInfoWithError(short handle) {
+        SystemInfo info = new SystemInfo();
+        Memory sysinfo = new Memory(ODBSYS_LENGTH);
+        short result = focasBackend.cnc_sysinfo(handle, sysinfo);
+        info.setErrorCode(result);
+        if (result == FocasErrorCode.EW_OK) {
+            info.setSuccess(true);
+            info.setMaxAxis(sysinfo.getShort(2));
+            info.setCncType(asciiField(sysinfo, 4, 2));
+            info.setMtType(asciiField(sysinfo, 6, 2));
+            info.setSeries(asciiField(sysinfo, 8, 4));
+            info.setVersion(asciiField(sysinfo, 12, 4));
+            String axes = asciiField(sysinfo, 16, 2);
+            info.setAxes(axes.isEmpty() ? 0 : Integer.parseInt(axes));
+        } else {
+            info.setErrorMessage("读取系统信息失败，错误代码: " + result);
+        }
+        return info;
+    }
+
+    private static String asciiField(com.sun.jna.Pointer p, long offset, int length) {
+        return new String(p.getByteArray(offset, length), StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * CNC系统信息结果类
+     */
+    @Setter
+    @Getter
+    public static class SystemInfo {
+        private boolean success;
+        private int maxAxis;      // 最大控制轴数
+        private String cncType;   // CNC类型，如 "30"
+        private String mtType;    // M/T
+        private String series;    // 系列
+        private String version;   // 版本
+        private int axes;         // 当前控制轴数
+        private short errorCode;
+        private String errorMessage;
+
+        @Override
+        public String toString() {
+            if (success) {
+                return "SystemInfo{success=true, cncType=" + cncType + ", mtType=" + mtType +
+                        ", series=" + series + ", version=" + version +
+                        ", maxAxis=" + maxAxis + ", axes=" + axes + "}";
+            } else {
+                return "SystemInfo{success=false, errorCode=" + errorCode +
+                        ", errorMessage='" + errorMessage + "'}";
+            }
+        }
+    }
+
     /**
      * 读取自定义宏变量值
      *
@@ -1195,7 +1249,7 @@ public class FanucReadDevices {
         ODBM macro = new ODBM();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdmacro(handle, number, length, macro);
+        short result = focasBackend.cnc_rdmacro(handle, number, length, macro);
 
         if (result == 0) {
             // 成功：读取结构体数据
@@ -1233,7 +1287,7 @@ public class FanucReadDevices {
             macro = new ODBM();
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.cnc_rdmacro(handle, number, length, macro);
+            short result = focasBackend.cnc_rdmacro(handle, number, length, macro);
 
             MacroVariableInfo info = new MacroVariableInfo();
             info.setErrorCode(result);
@@ -1319,6 +1373,252 @@ public class FanucReadDevices {
         }
     }
 
+    /**
+     * 一次读取连续编号的宏变量，结果写入 values[offset]~values[offset + end - start]
+     * <p>
+     * 空变量（vacant）写入 NaN。超过 {@link #MACRO_RANGE_MAX} 个变量时分段调用 cnc_rdmacror
+     *
+     * @param handle 库句柄（通过 cnc_allclibhndl3 获取）
+     * @param start  起始宏变量号
+     * @param end    结束宏变量号（包含）
+     * @param values 输出数组
+     * @param offset 输出数组起始下标
+     * @return 错误代码，0 表示成功；失败时 values 中已读取的段保持有效
+     */
+    public short readMacroRange(short handle, int start, int end, double[] values, int offset) {
+        if (end < start || values.length - offset < end - start + 1) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        int chunk = Math.min(end - start + 1, MACRO_RANGE_MAX);
+        return readMacroRange(handle, start, end, values, offset, new Memory(IODBMR_HEADER + (long) IODBMR_ENTRY * chunk));
+    }
+
+    /**
+     * 一次读取连续编号的宏变量，使用句柄的可复用缓冲区，不分配内存
+     *
+     * @see #readMacroRange(short, int, int, double[], int)
+     */
+    public short readMacroRange(short handle, int start, int end, double[] values, int offset, FocasBuffers buffers) {
+        if (end < start || values.length - offset < end - start + 1) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        return readMacroRange(handle, start, end, values, offset, buffers.macroRange);
+    }
+
+    private short readMacroRange(short handle, int start, int end, double[] values, int offset, Memory buffer) {
+        for (int from = start; from <= end; from += MACRO_RANGE_MAX) {
+            int to = Math.min(end, from + MACRO_RANGE_MAX - 1);
+            int count = to - from + 1;
+            short result = focasBackend.cnc_rdmacror(handle, (short) from, (short) to,
+                    (short) (IODBMR_HEADER + IODBMR_ENTRY * count), buffer);
+            if (result != FocasErrorCode.EW_OK) {
+                return result;
+            }
+            decodeMacroRange(buffer, count, values, offset + (from - start));
+        }
+        return FocasErrorCode.EW_OK;
+    }
+
+    /**
+     * 读取连续编号的宏变量（带错误处理）
+     *
+     * @param handle 库句柄（通过 cnc_allclibhndl3 获取）
+     * @param start  起始宏变量号
+     * @param end    结束宏变量号（包含）
+     * @return 包含各变量实际值（double[]，空变量为 NaN）和错误代码的结果对象
+     */
+    public MacroRangeInfo readMacroRangeWithError(short handle, int start, int end) {
+        MacroRangeInfo info = new MacroRangeInfo();
+        info.setStartNumber(start);
+        info.setEndNumber(end);
+        if (end < start) {
+            info.setErrorCode(FocasErrorCode.EW_NUMBER);
+            info.setErrorMessage("结束变量号小于起始变量号: " + start + "~" + end);
+            return info;
+        }
+        double[] values = new double[end - start + 1];
+        short result = readMacroRange(handle, start, end, values, 0);
+        info.setErrorCode(result);
+        if (result == FocasErrorCode.EW_OK) {
+            info.setSuccess(true);
+            info.setValues(values);
+        } else {
+            info.setErrorMessage("读取宏变量范围失败，错误代码: " + result);
+        }
+        return info;
+    }
+
+    /**
+     * 解析 IODBMR 的 data 部分
+     */
+    static void decodeMacroRange(com.sun.jna.Pointer buffer, int count, double[] values, int offset) {
+        for (int i = 0; i < count; i++) {
+            long entry = IODBMR_HEADER + (long) IODBMR_ENTRY * i;
+            int mcrVal = buffer.getInt(entry);
+            short decVal = buffer.getShort(entry + 4);
+            values[offset + i] = scaleMacro(mcrVal, decVal);
+        }
+    }
+
+    /**
+     * 实际值 = mcr_val * 10^(-dec_val)，mcr_val=0 且 dec_val=-1 表示空变量
+     */
+    public static double scaleMacro(int mcrVal, short decVal) {
+        if (decVal >= 0 && decVal < NEG_POW10.length) {
+            return mcrVal * NEG_POW10[decVal];
+        }
+        if (decVal == -1 && mcrVal == 0) {
+            return Double.NaN;
+        }
+        return mcrVal * Math.pow(10, -decVal);
+    }
+
+    /**
+     * 连续宏变量读取结果类
+     */
+    @Setter
+    @Getter
+    public static class MacroRangeInfo {
+        private boolean success;
+        private int startNumber;     // 起始变量号
+        private int endNumber;       // 结束变量号
+        private double[] values;     // 实际值，下标 i 对应变量号 startNumber + i，空变量为 NaN
+        private short errorCode;
+        private String errorMessage;
+
+        /**
+         * 按变量号取实际值
+         */
+        public double getValue(int number) {
+            return values[number - startNumber];
+        }
+
+        @Override
+        public String toString() {
+            if (success) {
+                return "MacroRangeInfo{success=true, range=" + startNumber + "~" + endNumber +
+                        ", values=" + Arrays.toString(values) + "}";
+            } else {
+                return "MacroRangeInfo{success=false, errorCode=" + errorCode +
+                        ", errorMessage='" + errorMessage + "'" +
+                        '}';
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 以下方法使用句柄的可复用缓冲区（FocasBuffers），返回错误代码，结果写入 buffers，
+    // 稳定运行时不分配本地内存和 Java 对象，供定时轮询使用
+    // ------------------------------------------------------------------
+
+    /**
+     * 读取CNC的报警状态，结果见 {@link FocasBuffers#getAlarmStatus()}
+     *
+     * @return 错误代码，0 表示成功
+     */
+    public short readAlarmStatus(short handle, FocasBuffers buffers) {
+        short result = focasBackend.cnc_alarm2(handle, buffers.intRef);
+        if (result == FocasErrorCode.EW_OK) {
+            buffers.alarmStatus = buffers.intRef.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * 读取程序块计数，结果见 {@link FocasBuffers#getBlockCount()}
+     *
+     * @return 错误代码，0 表示成功
+     */
+    public short readBlockCount(short handle, FocasBuffers buffers) {
+        short result = focasBackend.cnc_rdblkcount(handle, buffers.intRef);
+        if (result == FocasErrorCode.EW_OK) {
+            buffers.blockCount = buffers.intRef.getValue() & 0xFFFFFFFFL;
+        }
+        return result;
+    }
+
+    /**
+     * 读取当前运行的程序号和主程序号，结果见 {@link FocasBuffers#getProgramNumber()}、{@link FocasBuffers#getMainProgramNumber()}
+     *
+     * @return 错误代码，0 表示成功
+     */
+    public short readProgramNumber(short handle, FocasBuffers buffers) {
+        short result = focasBackend.cnc_rdprgnum(handle, buffers.program);
+        if (result == FocasErrorCode.EW_OK) {
+            com.sun.jna.Pointer p = buffers.program.getPointer();
+            buffers.programNumber = p.getInt(FocasBuffers.ODBPRO_DATA);
+            buffers.mainProgramNumber = p.getInt(FocasBuffers.ODBPRO_MDATA);
+        }
+        return result;
+    }
+
+    /**
+     * 读取正在执行的程序名和程序号，结果见 {@link FocasBuffers#getExecProgramName()}、{@link FocasBuffers#getExecProgramNumber()}
+     *
+     * @return 错误代码，0 表示成功
+     */
+    public short readCurrentExecProgram(short handle, FocasBuffers buffers) {
+        short result = focasBackend.cnc_exeprgname(handle, buffers.execProgram);
+        if (result == FocasErrorCode.EW_OK) {
+            buffers.execProgramNumber = buffers.execProgram.getPointer().getInt(FocasBuffers.ODBEXEPRG_O_NUM);
+            buffers.decodeExecProgramName();
+        }
+        return result;
+    }
+
+    /**
+     * 读取单个宏变量，结果见 {@link FocasBuffers#getMacroValue()}，空变量为 NaN
+     *
+     * @return 错误代码，0 表示成功
+     */
+    public short readMacroVariable(short handle, short number, FocasBuffers buffers) {
+        short result = focasBackend.cnc_rdmacro(handle, number, (short) 10, buffers.macro);
+        if (result == FocasErrorCode.EW_OK) {
+            com.sun.jna.Pointer p = buffers.macro.getPointer();
+            buffers.macroValue = scaleMacro(p.getInt(FocasBuffers.ODBM_MCR_VAL), p.getShort(FocasBuffers.ODBM_DEC_VAL));
+        }
+        return result;
+    }
+
+    /**
+     * 写入单个宏变量，NaN 写为空变量；按能表示的最多小数位（不超过8位）换算为 mcr_val/dec_val
+     *
+     * @return 错误代码，0 表示成功；超出 mcr_val 范围时返回 EW_DATA
+     */
+    public short writeMacroVariable(short handle, short number, double value) {
+        if (Double.isNaN(value)) {
+            return focasBackend.cnc_wrmacro(handle, number, (short) 10, 0, (short) -1);
+        }
+        if (Double.isInfinite(value) || Math.abs(value) > Integer.MAX_VALUE) {
+            return FocasErrorCode.EW_DATA;
+        }
+        short dec = 8;
+        while (dec > 0 && Math.abs(value) * Math.pow(10, dec) > Integer.MAX_VALUE) {
+            dec--;
+        }
+        long mcrVal = Math.round(value * Math.pow(10, dec));
+        while (dec > 0 && mcrVal % 10 == 0) {
+            mcrVal /= 10;
+            dec--;
+        }
+        return focasBackend.cnc_wrmacro(handle, number, (short) 10, (int) mcrVal, dec);
+    }
+
+    /**
+     * 读取参数，结果见 {@link FocasBuffers#getParamValue(int)}，全部轴时个数为 {@link FocasBuffers#getParamCount()}
+     *
+     * @param axis   轴号: 0表示无轴, 1到m表示单轴, ALL_AXES(-1)表示全部轴
+     * @param length 数据块长度: (4+(参数字节大小)*(轴数))，不超过 4+8*MAX_AXIS
+     * @return 错误代码，0 表示成功
+     */
+    public short readParameter(short handle, short number, short axis, short length, FocasBuffers buffers) {
+        short result = focasBackend.cnc_rdparam(handle, number, axis, length, buffers.param);
+        if (result == FocasErrorCode.EW_OK) {
+            buffers.decodeParameter(axis, length);
+        }
+        return result;
+    }
+
     /**
      * 读取当前运行的程序号
      *
@@ -1330,7 +1630,7 @@ public class FanucReadDevices {
         ODBPRO prgnum = new ODBPRO();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_rdprgnum(handle, prgnum);
+        short result = focasBackend.cnc_rdprgnum(handle, prgnum);
 
         if (result == 0) {
             // 成功：读取结构体数据
@@ -1365,7 +1665,7 @@ public class FanucReadDevices {
             prgnum = new ODBPRO();
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.cnc_rdprgnum(handle, prgnum);
+            short result = focasBackend.cnc_rdprgnum(handle, prgnum);
 
             ProgramNumberInfo info = new ProgramNumberInfo();
             info.setErrorCode(result);
@@ -1438,7 +1738,7 @@ public class FanucReadDevices {
         IntByReference alarmRef = new IntByReference();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_alarm2(handle, alarmRef);
+        short result = focasBackend.cnc_alarm2(handle, alarmRef);
 
         if (result == 0) {
             // 成功：获取报警状态
@@ -1466,7 +1766,7 @@ public class FanucReadDevices {
         IntByReference alarmRef = new IntByReference();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_alarm2(handle, alarmRef);
+        short result = focasBackend.cnc_alarm2(handle, alarmRef);
 
         AlarmStatusInfo info = new AlarmStatusInfo();
         info.setErrorCode(result);
@@ -1554,7 +1854,7 @@ public class FanucReadDevices {
         ODBEXEPRG exeprg = new ODBEXEPRG();
 
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_exeprgname(handle, exeprg);
+        short result = focasBackend.cnc_exeprgname(handle, exeprg);
 
         if (result == 0) {
             // 成功：读取结构体数据
@@ -1610,7 +1910,7 @@ public class FanucReadDevices {
             exeprg = new ODBEXEPRG();
 
             // 调用 DLL 函数
-            short result = DLibrary.INSTANCE.cnc_exeprgname(handle, exeprg);
+            short result = focasBackend.cnc_exeprgname(handle, exeprg);
 
             ProgramNameInfo info = new ProgramNameInfo();
             info.setErrorCode(result);
@@ -1666,13 +1966,26 @@ public class FanucReadDevices {
     public static class DownloadInfo {
         private boolean success;
         private int dataLength;  // 下载的数据长度
+        private long totalBytes; // 已被CNC接收的字节数（失败时为失败前已发送的部分）
+        private int calls;       // cnc_download3 调用次数
+        private int bufferRetries; // EW_BUFFER 重试次数
+        private long elapsedNanos; // 发送耗时
         private short errorCode;
         private String errorMessage;
 
+        /**
+         * 平均发送速率（字节/秒）
+         */
+        public double getBytesPerSecond() {
+            return elapsedNanos > 0 ? totalBytes * 1e9 / elapsedNanos : 0;
+        }
+
         @Override
         public String toString() {
             if (success) {
-                return "DownloadInfo{success=true, dataLength=" + dataLength + "}";
+                return "DownloadInfo{success=true, dataLength=" + dataLength +
+                        ", calls=" + calls + ", bufferRetries=" + bufferRetries +
+                        ", bytesPerSecond=" + (long) getBytesPerSecond() + "}";
             } else {
                 return "DownloadInfo{success=false, errorCode=" + errorCode +
                         ", errorMessage='" + errorMessage + "'" +
@@ -1734,6 +2047,19 @@ public class FanucReadDevices {
         }
     }
 
+    /**
+     * 单次 cnc_download3 发送的最大字节数，也是流式下载复用的本地缓冲区大小
+     */
+    public static final int DOWNLOAD_CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * cnc_download3 连续返回 EW_BUFFER（CNC接收缓冲区满）时的最长等待时间，超过后放弃
+     */
+    public static final long DOWNLOAD_BUFFER_TIMEOUT_MILLIS = 30_000;
+
+    private static final long DOWNLOAD_RETRY_MIN_NANOS = 1_000_000L;
+    private static final long DOWNLOAD_RETRY_MAX_NANOS = 100_000_000L;
+
     /**
      * 通知开始上传NC数据（NC程序、刀具偏置等）到数据窗口库内部逻辑
      * （此函数必须在cnc_download3之前执行）
@@ -1744,7 +2070,7 @@ public class FanucReadDevices {
      */
     public DownloadStartInfo startDownload(short handle, short type) {
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_dwnstart3(handle, type);
+        short result = focasBackend.cnc_dwnstart3(handle, type);
 
         if (result == 0) {
             // 成功
@@ -1769,7 +2095,7 @@ public class FanucReadDevices {
      */
     public DownloadStartInfo startDownloadWithError(short handle, short type) {
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_dwnstart3(handle, type);
+        short result = focasBackend.cnc_dwnstart3(handle, type);
 
         DownloadStartInfo info = new DownloadStartInfo();
         info.setErrorCode(result);
@@ -1840,25 +2166,12 @@ public class FanucReadDevices {
      * @return 下载信息，如果失败则返回 null
      */
     public DownloadInfo downloadData(short handle, byte[] data, int length) {
-        // 创建内存缓冲区
-        Memory dataBuffer = new Memory(length);
-        // 将数据复制到缓冲区
-        dataBuffer.write(0, data, 0, Math.min(data.length, length));
-
-        // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_download3(handle, dataBuffer, length);
-
-        if (result == 0) {
-            // 成功
-            DownloadInfo info = new DownloadInfo();
-            info.setSuccess(true);
-            info.setDataLength(length);
-            return info;
-        } else {
-            // 失败
-            System.err.println("下载数据失败，错误代码: " + result);
+        DownloadInfo info = downloadDataWithError(handle, data, length);
+        if (!info.isSuccess()) {
+            System.err.println("下载数据失败，错误代码: " + info.getErrorCode());
             return null;
         }
+        return info;
     }
 
     /**
@@ -1870,20 +2183,12 @@ public class FanucReadDevices {
      * @return 下载信息，如果失败则返回 null
      */
     public DownloadInfo downloadProgram(short handle, String program) {
-        byte[] programBytes;
-        try {
-            // 使用Shift-JIS编码，因为这是Fanuc CNC常用的编码
-            programBytes = program.getBytes("SJIS");
-        } catch (Exception e) {
-            // 如果SJIS不可用，使用UTF-8作为备选
-            programBytes = program.getBytes(StandardCharsets.UTF_8);
+        DownloadInfo info = downloadProgramWithError(handle, program);
+        if (!info.isSuccess()) {
+            System.err.println("下载数据失败，错误代码: " + info.getErrorCode());
+            return null;
         }
-        // 确保数据以NULL结尾
-        byte[] dataWithNullTerminator = new byte[programBytes.length + 1];
-        System.arraycopy(programBytes, 0, dataWithNullTerminator, 0, programBytes.length);
-        dataWithNullTerminator[programBytes.length] = 0; // 添加NULL终止符
-
-        return downloadData(handle, dataWithNullTerminator, dataWithNullTerminator.length);
+        return info;
     }
 
     /**
@@ -1896,53 +2201,350 @@ public class FanucReadDevices {
      * @return 包含下载信息和错误代码的结果对象
      */
     public DownloadInfo downloadDataWithError(short handle, byte[] data, int length) {
-        // 创建内存缓冲区
-        Memory dataBuffer = new Memory(length);
-        // 将数据复制到缓冲区
-        dataBuffer.write(0, data, 0, Math.min(data.length, length));
-
-        // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_download3(handle, dataBuffer, length);
-
-        DownloadInfo info = new DownloadInfo();
-        info.setErrorCode(result);
-
-        if (result == 0) {
-            // 成功
-            info.setSuccess(true);
-            info.setDataLength(length);
-        } else {
-            // 失败
-            info.setSuccess(false);
-            info.setErrorMessage(getDownloadErrorDescription(result));
+        int size = Math.min(data.length, length);
+        ByteBuffer window = ByteBuffer.allocateDirect(Math.max(1, Math.min(size, DOWNLOAD_CHUNK_SIZE)));
+        DownloadSession session = new DownloadSession(handle, window, size, null);
+        for (int offset = 0; offset < size; ) {
+            int count = Math.min(size - offset, window.capacity());
+            window.clear();
+            window.put(data, offset, count);
+            if (!session.send(count)) {
+                break;
+            }
+            offset += count;
         }
-
-        return info;
+        return session.finish();
     }
 
     /**
      * 下载NC程序到CNC（带错误处理）
      * （此函数必须在cnc_dwnstart3之后执行）
+     * <p>
+     * 程序按 Shift-JIS（FANUC CNC 常用编码，不可用时为 UTF-8）分段直接编码到本地缓冲区并发送，
+     * 末尾追加 NULL 终止符，不生成整个程序的字节数组
      *
      * @param handle  库句柄（通过 cnc_allclibhndl3 获取）
      * @param program NC程序内容
-     * @return 包含下载信息和错误代码的结果对象
+     * @return 包含下载信息和错误代码的结果对象，dataLength 含 NULL 终止符
      */
     public DownloadInfo downloadProgramWithError(short handle, String program) {
-        byte[] programBytes;
+        // 短程序不必占用整块缓冲区；SJIS/UTF-8 每个字符最多 3 字节，至少能放下一个字符
+        long size = Math.min(DOWNLOAD_CHUNK_SIZE, program.length() * 3L + 1);
+        return downloadProgramWithError(handle, program, ByteBuffer.allocateDirect((int) Math.max(size, 16)));
+    }
+
+    /**
+     * 下载NC程序到CNC（带错误处理），使用句柄的可复用下载缓冲区
+     *
+     * @see #downloadProgramWithError(short, String)
+     */
+    public DownloadInfo downloadProgramWithError(short handle, String program, FocasBuffers buffers) {
+        return downloadProgramWithError(handle, program, buffers.downloadWindow());
+    }
+
+    private DownloadInfo downloadProgramWithError(short handle, String program, ByteBuffer window) {
+        CharsetEncoder encoder = (Charset.isSupported("SJIS") ? Charset.forName("SJIS") : StandardCharsets.UTF_8)
+                .newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // 按段把字符复制到数组、编码到堆上的数组，再整段复制到直接缓冲区：
+        // 编码器只有在输入输出都是数组时才走快速路径，直接处理 String 或直接缓冲区要慢一个数量级
+        CharBuffer chars = CharBuffer.allocate(Math.min(program.length(), window.capacity() / 2) + 1).flip();
+        ByteBuffer encoded = ByteBuffer.allocate(window.capacity());
+        DownloadSession session = new DownloadSession(handle, window, -1, null);
+        int next = 0;
+        boolean flushed = false;
+        boolean terminated = false;
+        while (!terminated) {
+            encoded.clear();
+            while (!flushed && encoded.hasRemaining()) {
+                if (next < program.length() && chars.remaining() < chars.capacity() / 2) {
+                    chars.compact();
+                    int take = Math.min(chars.remaining(), program.length() - next);
+                    program.getChars(next, next + take, chars.array(), chars.position());
+                    chars.position(chars.position() + take);
+                    next += take;
+                    chars.flip();
+                }
+                boolean endOfInput = next == program.length();
+                if (encoder.encode(chars, encoded, endOfInput).isOverflow()) {
+                    break;
+                }
+                if (endOfInput) {
+                    // 输入已全部编码
+                    flushed = encoder.flush(encoded).isUnderflow();
+                }
+            }
+            if (flushed && encoded.hasRemaining()) {
+                encoded.put((byte) 0); // 添加NULL终止符
+                terminated = true;
+            }
+            int count = encoded.position();
+            if (count == 0) {
+                continue;
+            }
+            window.clear();
+            window.put(encoded.flip());
+            if (!session.send(count)) {
+                break;
+            }
+        }
+        return session.finish();
+    }
+
+    /**
+     * 流式下载：从通道中按 {@link #DOWNLOAD_CHUNK_SIZE} 分段读取数据，经同一块本地缓冲区逐段发送给 CNC
+     * （此函数必须在cnc_dwnstart3之后执行，之后调用cnc_dwnend3）
+     * <p>
+     * 数据原样发送（文件应以 % 结束），不追加 NULL 终止符。通道为 {@link java.nio.channels.FileChannel} 时
+     * 直接读入本地内存，不经过 Java 堆
+     *
+     * @param handle     库句柄（通过 cnc_allclibhndl3 获取）
+     * @param channel    数据来源，由调用方关闭
+     * @param totalBytes 数据总长度，仅用于进度回调，未知时传 -1
+     * @param listener   进度回调，每发送一段调用一次，可为 null
+     * @return 包含已发送字节数、调用次数、EW_BUFFER 重试次数、耗时和错误代码的结果对象
+     */
+    public DownloadInfo downloadStreamWithError(short handle, ReadableByteChannel channel, long totalBytes,
+                                                DownloadProgressListener listener) {
+        return downloadStreamWithError(handle, channel, totalBytes, listener, ByteBuffer.allocateDirect(DOWNLOAD_CHUNK_SIZE));
+    }
+
+    /**
+     * 流式下载，使用句柄的可复用下载缓冲区
+     *
+     * @see #downloadStreamWithError(short, ReadableByteChannel, long, DownloadProgressListener)
+     */
+    public DownloadInfo downloadStreamWithError(short handle, ReadableByteChannel channel, long totalBytes,
+                                                DownloadProgressListener listener, FocasBuffers buffers) {
+        return downloadStreamWithError(handle, channel, totalBytes, listener, buffers.downloadWindow());
+    }
+
+    private DownloadInfo downloadStreamWithError(short handle, ReadableByteChannel channel, long totalBytes,
+                                                 DownloadProgressListener listener, ByteBuffer window) {
+        DownloadSession session = new DownloadSession(handle, window, totalBytes, listener);
         try {
-            // 使用Shift-JIS编码，因为这是Fanuc CNC常用的编码
-            programBytes = program.getBytes("SJIS");
-        } catch (Exception e) {
-            // 如果SJIS不可用，使用UTF-8作为备选
-            programBytes = program.getBytes(StandardCharsets.UTF_8);
+            boolean eof = false;
+            while (!eof) {
+                window.clear();
+                while (window.hasRemaining()) {
+                    if (channel.read(window) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                if (window.position() > 0 && !session.send(window.position())) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            session.fail(FocasErrorCode.EW_UNEXP, "读取下载数据失败: " + e.getMessage());
+        }
+        return session.finish();
+    }
+
+    /**
+     * 流式下载输入流中的数据
+     *
+     * @see #downloadStreamWithError(short, ReadableByteChannel, long, DownloadProgressListener)
+     */
+    public DownloadInfo downloadStreamWithError(short handle, InputStream in, long totalBytes,
+                                                DownloadProgressListener listener) {
+        return downloadStreamWithError(handle, Channels.newChannel(in), totalBytes, listener);
+    }
+
+    /**
+     * 流式下载程序文件
+     *
+     * @see #downloadStreamWithError(short, ReadableByteChannel, long, DownloadProgressListener)
+     */
+    public DownloadInfo downloadFileWithError(short handle, Path file, DownloadProgressListener listener) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return downloadStreamWithError(handle, channel, channel.size(), listener);
+        } catch (IOException e) {
+            DownloadInfo info = new DownloadInfo();
+            info.setErrorCode(FocasErrorCode.EW_UNEXP);
+            info.setErrorMessage("打开程序文件失败: " + e.getMessage());
+            return info;
         }
-        // 确保数据以NULL结尾
-        byte[] dataWithNullTerminator = new byte[programBytes.length + 1];
-        System.arraycopy(programBytes, 0, dataWithNullTerminator, 0, programBytes.length);
-        dataWithNullTerminator[programBytes.length] = 0; // 添加NULL终止符
+    }
+
+    /**
+     * 把NC程序一次编码到本地内存（Shift-JIS，不可用时为 UTF-8，末尾带 NULL 终止符）
+     * <p>
+     * 同一程序下发到多台CNC时只编码一次，结果只读，可被多个线程同时用于
+     * {@link #downloadEncodedWithError(short, EncodedProgram, DownloadProgressListener)}
+     *
+     * @param program NC程序内容
+     * @return 编码后的程序
+     */
+    public static EncodedProgram encodeProgram(String program) {
+        Charset charset = Charset.isSupported("SJIS") ? Charset.forName("SJIS") : StandardCharsets.UTF_8;
+        byte[] bytes = program.getBytes(charset);
+        ByteBuffer data = ByteBuffer.allocateDirect(bytes.length + 1);
+        data.put(bytes).put((byte) 0).flip(); // 添加NULL终止符
+        return new EncodedProgram(data);
+    }
 
-        return downloadDataWithError(handle, dataWithNullTerminator, dataWithNullTerminator.length);
+    /**
+     * 下载已编码的NC程序
+     * （此函数必须在cnc_dwnstart3之后执行，之后调用cnc_dwnend3）
+     * <p>
+     * 按 {@link #DOWNLOAD_CHUNK_SIZE} 分段直接从编码结果所在的本地内存发送，不复制数据
+     *
+     * @param handle   库句柄（通过 cnc_allclibhndl3 获取）
+     * @param program  {@link #encodeProgram(String)} 的结果
+     * @param listener 进度回调，每发送一段调用一次，可为 null
+     * @return 包含下载信息和错误代码的结果对象，dataLength 含 NULL 终止符
+     */
+    public DownloadInfo downloadEncodedWithError(short handle, EncodedProgram program,
+                                                 DownloadProgressListener listener) {
+        int size = program.getLength();
+        DownloadSession session = new DownloadSession(handle, program.pointer, size, listener);
+        for (int offset = 0; offset < size; offset += DOWNLOAD_CHUNK_SIZE) {
+            if (!session.send(offset, Math.min(size - offset, DOWNLOAD_CHUNK_SIZE))) {
+                break;
+            }
+        }
+        return session.finish();
+    }
+
+    /**
+     * 编码后的NC程序，创建后不再修改
+     */
+    public static final class EncodedProgram {
+        private final ByteBuffer data;
+        private final com.sun.jna.Pointer pointer;
+
+        private EncodedProgram(ByteBuffer data) {
+            this.data = data;
+            this.pointer = Native.getDirectBufferPointer(data);
+        }
+
+        /**
+         * 编码后的字节数，含 NULL 终止符
+         */
+        public int getLength() {
+            return data.limit();
+        }
+
+        /**
+         * 编码结果的只读视图
+         */
+        public ByteBuffer asReadOnlyBuffer() {
+            return data.asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * 下载进度回调
+     */
+    @FunctionalInterface
+    public interface DownloadProgressListener {
+
+        /**
+         * @param sentBytes    已被 CNC 接收的字节数
+         * @param totalBytes   总字节数，未知时为 -1
+         * @param elapsedNanos 从开始发送到现在的耗时
+         */
+        void onProgress(long sentBytes, long totalBytes, long elapsedNanos);
+    }
+
+    /**
+     * 一次下载过程：把直接缓冲区中的数据逐段交给 cnc_download3，处理部分接收和 EW_BUFFER 重试
+     * <p>
+     * 使用 ByteBuffer.allocateDirect 而不是 Memory.getByteBuffer：后者每次都要登记到 JNA 全局的弱引用表
+     */
+    private final class DownloadSession {
+        private final short handle;
+        private final com.sun.jna.Pointer buffer;
+        private final long totalBytes;
+        private final DownloadProgressListener listener;
+        private final IntByReference length = new IntByReference();
+        private final long startNanos = System.nanoTime();
+        private final DownloadInfo info = new DownloadInfo();
+        private long sent;
+
+        DownloadSession(short handle, ByteBuffer window, long totalBytes, DownloadProgressListener listener) {
+            this(handle, Native.getDirectBufferPointer(window), totalBytes, listener);
+        }
+
+        DownloadSession(short handle, com.sun.jna.Pointer buffer, long totalBytes, DownloadProgressListener listener) {
+            this.handle = handle;
+            this.buffer = buffer;
+            this.totalBytes = totalBytes;
+            this.listener = listener;
+            info.setSuccess(true);
+        }
+
+        /**
+         * 发送缓冲区开头的 count 个字节，全部被接收后返回 true
+         * <p>
+         * CNC 只接收一部分时继续发送剩余部分；返回 EW_BUFFER 时从 1ms 起指数退避（最长 100ms）重试，
+         * 连续满 {@link #DOWNLOAD_BUFFER_TIMEOUT_MILLIS} 后放弃
+         */
+        boolean send(int count) {
+            return send(0, count);
+        }
+
+        /**
+         * 发送缓冲区中从 from 开始的 count 个字节
+         */
+        boolean send(long from, int count) {
+            int offset = 0;
+            long backoff = DOWNLOAD_RETRY_MIN_NANOS;
+            long busySince = 0;
+            while (offset < count) {
+                length.setValue(count - offset);
+                short result = focasBackend.cnc_download3(handle, length,
+                        from + offset == 0 ? buffer : buffer.share(from + offset));
+                info.setCalls(info.getCalls() + 1);
+                int accepted = result == FocasErrorCode.EW_OK ? length.getValue() : 0;
+                if (result != FocasErrorCode.EW_OK && result != FocasErrorCode.EW_BUFFER) {
+                    fail(result, getDownloadErrorDescription(result));
+                    return false;
+                }
+                if (accepted > 0) {
+                    offset += accepted;
+                    sent += accepted;
+                    backoff = DOWNLOAD_RETRY_MIN_NANOS;
+                    busySince = 0;
+                    continue;
+                }
+                // 缓冲区满（或本次一个字节也没接收）：等待 CNC 处理后重试
+                long now = System.nanoTime();
+                if (busySince == 0) {
+                    busySince = now;
+                } else if (now - busySince > DOWNLOAD_BUFFER_TIMEOUT_MILLIS * 1_000_000L) {
+                    fail(FocasErrorCode.EW_BUFFER, "CNC接收缓冲区持续满超过 " + DOWNLOAD_BUFFER_TIMEOUT_MILLIS + "ms");
+                    return false;
+                }
+                info.setBufferRetries(info.getBufferRetries() + 1);
+                LockSupport.parkNanos(backoff);
+                if (Thread.currentThread().isInterrupted()) {
+                    fail(FocasErrorCode.EW_RESET, "下载被中断");
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, DOWNLOAD_RETRY_MAX_NANOS);
+            }
+            if (listener != null) {
+                listener.onProgress(sent, totalBytes, System.nanoTime() - startNanos);
+            }
+            return true;
+        }
+
+        void fail(short errorCode, String message) {
+            info.setSuccess(false);
+            info.setErrorCode(errorCode);
+            info.setErrorMessage(message);
+        }
+
+        DownloadInfo finish() {
+            info.setTotalBytes(sent);
+            info.setDataLength((int) Math.min(sent, Integer.MAX_VALUE));
+            info.setElapsedNanos(System.nanoTime() - startNanos);
+            return info;
+        }
     }
 
     /**
@@ -1954,7 +2556,7 @@ public class FanucReadDevices {
      */
     public DownloadEndInfo endDownload(short handle) {
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_dwnend3(handle);
+        short result = focasBackend.cnc_dwnend3(handle);
 
         if (result == 0) {
             // 成功
@@ -1977,7 +2579,7 @@ public class FanucReadDevices {
      */
     public DownloadEndInfo endDownloadWithError(short handle) {
         // 调用 DLL 函数
-        short result = DLibrary.INSTANCE.cnc_dwnend3(handle);
+        short result = focasBackend.cnc_dwnend3(handle);
 
         DownloadEndInfo info = new DownloadEndInfo();
         info.setErrorCode(result);
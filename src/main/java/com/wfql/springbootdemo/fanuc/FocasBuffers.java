@@ -0,0 +1,182 @@
+package com.wfql.springbootdemo.fanuc;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一个 FOCAS 句柄专用的可复用缓冲区
+ * <p>
+ * 结构体和 Memory 在创建时一次性分配，之后每次调用复用；结构体关闭自动同步（autoRead/autoWrite），
+ * 结果直接按偏移从本地内存解析到下面的基本类型字段，不经过 JNA 反射，也不创建 *Info 结果对象。
+ * 句柄同一时间只被一个线程借用，因此挂在 {@link com.wfql.springbootdemo.fanuc.pool.FocasConnection} 上，
+ * 不使用 ThreadLocal（虚拟线程模式下线程数量很大）
+ * <p>
+ * 非线程安全，结果字段在下一次调用时被覆盖
+ *
+ * @Package com.wfql.springbootdemo.fanuc
+ * @Author guoqing.ling
+ * @Date 2026/10/17 16:30
+ */
+public final class FocasBuffers {
+
+    /**
+     * 最大轴数（MAX_AXIS）
+     */
+    public static final int MAX_AXIS = 32;
+
+    // ODBM: datano(2) dummy(2) mcr_val(4) dec_val(2)
+    static final int ODBM_MCR_VAL = 4;
+    static final int ODBM_DEC_VAL = 8;
+
+    // ODBPRO: dummy[2](4) data(4) mdata(4)
+    static final int ODBPRO_DATA = 4;
+    static final int ODBPRO_MDATA = 8;
+
+    // ODBEXEPRG: name[36] o_num(4)
+    static final int ODBEXEPRG_NAME_LENGTH = 36;
+    static final int ODBEXEPRG_O_NUM = 36;
+
+    // IODBPSD: datano(2) type(2) u
+    static final int IODBPSD_TYPE = 2;
+    static final int IODBPSD_DATA = 4;
+
+    final FanucReadDevices.ODBM macro = new FanucReadDevices.ODBM();
+    final FanucReadDevices.IODBPSD param = new FanucReadDevices.IODBPSD();
+    final FanucReadDevices.ODBPRO program = new FanucReadDevices.ODBPRO();
+    final FanucReadDevices.ODBEXEPRG execProgram = new FanucReadDevices.ODBEXEPRG();
+    final IntByReference intRef = new IntByReference();
+    final Memory macroRange = new Memory(FanucReadDevices.IODBMR_HEADER
+            + (long) FanucReadDevices.IODBMR_ENTRY * FanucReadDevices.MACRO_RANGE_MAX);
+
+    /**
+     * 宏变量范围读取的输出数组，长度为 {@link FanucReadDevices#MACRO_RANGE_MAX}
+     */
+    @Getter
+    private final double[] macroValues = new double[FanucReadDevices.MACRO_RANGE_MAX];
+
+    @Getter
+    int alarmStatus;
+
+    @Getter
+    long blockCount;
+
+    @Getter
+    int programNumber;
+
+    @Getter
+    int mainProgramNumber;
+
+    @Getter
+    int execProgramNumber;
+
+    /**
+     * 宏变量实际值，空变量为 NaN
+     */
+    @Getter
+    double macroValue;
+
+    /**
+     * 参数类型：0 位型，1 字节型，2 字型，3 双字型，4 实数型
+     */
+    @Getter
+    int paramType;
+
+    /**
+     * paramValues 中的有效个数：单轴/无轴为 1，全部轴为数据块中的轴数
+     */
+    @Getter
+    int paramCount;
+
+    private final double[] paramValues = new double[MAX_AXIS];
+
+    private final byte[] execNameBytes = new byte[ODBEXEPRG_NAME_LENGTH];
+    private int execNameLength = -1;
+    private String execProgramName;
+    private ByteBuffer downloadWindow;
+
+    public FocasBuffers() {
+        // 结果按偏移从内存解析，关闭调用前后的字段同步（反射读写）
+        macro.setAutoSynch(false);
+        param.setAutoSynch(false);
+        program.setAutoSynch(false);
+        execProgram.setAutoSynch(false);
+    }
+
+    /**
+     * 参数值，index 为 0 ~ paramCount-1
+     */
+    public double getParamValue(int index) {
+        return paramValues[index];
+    }
+
+    /**
+     * 程序下载使用的直接缓冲区，首次下载时创建
+     */
+    ByteBuffer downloadWindow() {
+        ByteBuffer window = downloadWindow;
+        if (window == null) {
+            window = ByteBuffer.allocateDirect(FanucReadDevices.DOWNLOAD_CHUNK_SIZE);
+            downloadWindow = window;
+        }
+        return window;
+    }
+
+    /**
+     * 最近一次参数读取的 IODBPSD 本地内存，需要原始记录（如参数快照）时使用
+     */
+    public Pointer getParamData() {
+        return param.getPointer();
+    }
+
+    /**
+     * 正在执行的程序名；与上一次相同时返回同一个 String，不重新创建
+     */
+    public String getExecProgramName() {
+        return execProgramName;
+    }
+
+    void decodeExecProgramName() {
+        Pointer p = execProgram.getPointer();
+        int length = 0;
+        boolean same = true;
+        while (length < ODBEXEPRG_NAME_LENGTH) {
+            byte b = p.getByte(length);
+            if (b == 0) {
+                break;
+            }
+            if (same && (length >= execNameLength || execNameBytes[length] != b)) {
+                same = false;
+            }
+            execNameBytes[length++] = b;
+        }
+        if (!same || length != execNameLength) {
+            execNameLength = length;
+            execProgramName = new String(execNameBytes, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    void decodeParameter(short axis, short length) {
+        Pointer p = param.getPointer();
+        int type = (p.getShort(IODBPSD_TYPE) >> 8) & 0xFF;
+        int size = FanucReadDevices.parameterSize(type);
+        int count = axis == FanucReadDevices.ALL_AXES
+                ? Math.min(MAX_AXIS, Math.max(0, (length - IODBPSD_DATA) / size))
+                : 1;
+        for (int i = 0; i < count; i++) {
+            long offset = IODBPSD_DATA + (long) i * size;
+            paramValues[i] = switch (type) {
+                case 0, 1 -> p.getByte(offset);
+                case 2 -> p.getShort(offset);
+                case 4 -> p.getInt(offset) * Math.pow(10, -p.getInt(offset + 4));
+                default -> p.getInt(offset);
+            };
+        }
+        paramType = type;
+        paramCount = count;
+    }
+}
@@ -0,0 +1,87 @@
+package com.wfql.springbootdemo.fanuc;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FOCAS 函数返回码常量
+ *
+ * @Package com.wfql.springbootdemo.fanuc
+ * @Author guoqing.ling
+ * @Date 2026/10/17 9:52
+ */
+public final class FocasErrorCode {
+
+    public static final short EW_PROTOCOL = -17; // 协议错误
+    public static final short EW_SOCKET = -16;   // 套接字错误（网络中断、CNC断电）
+    public static final short EW_NODLL = -15;    // 找不到对应的DLL
+    public static final short EW_BUS = -11;      // 总线错误
+    public static final short EW_SYSTEM2 = -10;  // 系统错误
+    public static final short EW_HSSB = -9;      // HSSB通讯错误
+    public static final short EW_HANDLE = -8;    // 句柄无效
+    public static final short EW_VERSION = -7;   // CNC/PMC版本不匹配
+    public static final short EW_UNEXP = -6;     // 异常错误
+    public static final short EW_SYSTEM = -5;    // 系统错误
+    public static final short EW_PARITY = -4;    // 共享RAM奇偶校验错误
+    public static final short EW_MMCSYS = -3;    // emm386或mmcsys安装错误
+    public static final short EW_RESET = -2;     // 复位或停止
+    public static final short EW_BUSY = -1;      // 设备忙
+    public static final short EW_OK = 0;         // 成功
+    public static final short EW_FUNC = 1;       // 函数未执行或不可用
+    public static final short EW_LENGTH = 2;     // 数据块长度错误
+    public static final short EW_NUMBER = 3;     // 数据号错误
+    public static final short EW_ATTRIB = 4;     // 数据属性错误
+    public static final short EW_DATA = 5;       // 数据错误
+    public static final short EW_NOOPT = 6;      // 无选项
+    public static final short EW_PROT = 7;       // 写保护
+    public static final short EW_OVRFLOW = 8;    // 内存溢出
+    public static final short EW_PARAM = 9;      // CNC参数错误
+    public static final short EW_BUFFER = 10;    // 缓冲区满/空
+    public static final short EW_PATH = 11;      // 路径号错误
+    public static final short EW_MODE = 12;      // CNC模式错误
+    public static final short EW_REJECT = 13;    // CNC执行被拒绝
+    public static final short EW_DTSRVR = 14;    // 数据服务器错误
+    public static final short EW_ALARM = 15;     // 报警状态
+    public static final short EW_STOP = 16;      // 停止状态
+    public static final short EW_PASSWD = 17;    // 密码保护
+
+    private static final Map<Short, String> NAMES = new HashMap<>();
+
+    static {
+        for (Field field : FocasErrorCode.class.getFields()) {
+            if (field.getType() == short.class && Modifier.isStatic(field.getModifiers())) {
+                try {
+                    NAMES.put(field.getShort(null), field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new ExceptionInInitializerError(e);
+                }
+            }
+        }
+    }
+
+    private FocasErrorCode() {
+    }
+
+    /**
+     * 返回码对应的常量名（如 EW_SOCKET），未知的返回码返回数字
+     *
+     * @param code FOCAS 返回码
+     * @return 常量名
+     */
+    public static String nameOf(short code) {
+        String name = NAMES.get(code);
+        return name != null ? name : Short.toString(code);
+    }
+
+    /**
+     * 是否为连接级错误：出现该类错误后句柄不可再用，需要释放并重新连接
+     *
+     * @param code FOCAS 返回码
+     * @return true 表示句柄已失效
+     */
+    public static boolean isConnectionError(short code) {
+        return code == EW_SOCKET || code == EW_HANDLE || code == EW_PROTOCOL || code == EW_HSSB;
+    }
+}
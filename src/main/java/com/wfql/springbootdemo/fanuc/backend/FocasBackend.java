@@ -0,0 +1,232 @@
+package com.wfql.springbootdemo.fanuc.backend;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.IODBPSD;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBDNCDGN;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBEXEPRG;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBM;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPMCINF;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPRO;
+
+/**
+ * FOCAS 调用后端
+ * <p>
+ * 方法签名与 Fwlib64.dll 导出函数一致，{@link com.wfql.springbootdemo.fanuc.FanucReadDevices.DLibrary} 是其 JNA 实现；
+ * 没有 DLL 的环境（Linux 构建机、压测）可切换为 {@link SimulatedFocasBackend}
+ *
+ * @Package com.wfql.springbootdemo.fanuc.backend
+ * @Author guoqing.ling
+ * @Date 2026/10/17 9:58
+ */
+public interface FocasBackend {
+
+    /**
+     * 分配库句柄并连接到指定IP地址或主机名的CNC
+     *
+     * @param ipaddr   CNC的IP地址或主机名字符串 (例如: "192.168.0.1" 或 "CNC-1.FACTORY")
+     * @param port     FOCAS1/Ethernet 或 FOCAS2/Ethernet (TCP) 功能的端口号 (unsigned short)
+     * @param timeout  超时秒数。如果指定0，则忽略超时处理，库函数将无限等待 (long, Windows上为32位)
+     * @param FlibHndl 输出参数，用于存储库句柄的指针 (unsigned short *)
+     * @return 返回状态码，0表示成功，非0表示失败
+     */
+    short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl);
+
+    /**
+     * 释放库句柄并断开与CNC的连接
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_freelibhndl(short FlibHndl);
+
+    /**
+     * 读取当前选择为主程序的文件信息
+     *
+     * @param FlibHndl  库句柄 (unsigned short)
+     * @param file_path 输出参数，用于存储文件路径的缓冲区指针 (char *)，需要分配244字节
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_pdf_rdmain(short FlibHndl, Memory file_path);
+
+    /**
+     * 读取块计数器的值
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param prog_bc  输出参数，用于存储块计数器值的指针 (long *)，在Windows上long为32位
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdblkcount(short FlibHndl, IntByReference prog_bc);
+
+    /**
+     * 读取正在CNC上执行的NC程序内容
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param length   输入/输出参数，输入时指定要读取的字符数，输出时返回实际读取的字符数 (unsigned short *)
+     * @param blknum   输出参数，用于存储读取的块数 (short *)
+     * @param data     输出参数，用于存储执行中的NC程序的字符串缓冲区 (char *)
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdexecprog(short FlibHndl, ShortByReference length, ShortByReference blknum, Memory data);
+
+    /**
+     * 读取 PMC 数据信息（关于各种 PMC 的属性、PMC 地址的有效范围等）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param adr_type PMC地址类型：0,... 参考 pmc_rdpmcrng 函数表；-1 表示所有地址信息
+     * @param pmcif    输出参数，指向 ODBPMCINF 结构体的指针，用于存储 PMC 数据信息
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short pmc_rdpmcinfo(short FlibHndl, short adr_type, ODBPMCINF pmcif);
+
+    /**
+     * 读取 DNC 下载程序的诊断数据
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param dgndt    输出参数，指向 ODBDNCDGN 结构体的指针，用于返回诊断数据
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rddncdgndt(short FlibHndl, ODBDNCDGN dgndt);
+
+    /**
+     * 读取指定参数号和轴的参数值
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param number   参数号 (short)
+     * @param axis     轴号 (short): 0表示无轴, 1到m表示单轴, ALL_AXES(-1)表示全部轴
+     * @param length   数据块长度 (short): (4+(参数字节大小)*(轴数))
+     * @param param    输出参数，指向IODBPSD结构体的指针，包含参数值
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdparam(short FlibHndl, short number, short axis, short length, IODBPSD param);
+
+    /**
+     * 读取一段连续编号的参数，数据块放不下时只返回前面一部分
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param s_number 输入/输出参数：输入起始参数号，输出实际读取的第一个参数号 (short *)
+     * @param axis     轴号 (short): 0 或 ALL_AXES(-1)，ALL_AXES 时轴型参数返回全部轴
+     * @param e_number 输入/输出参数：输入结束参数号，输出实际读取的最后一个参数号 (short *)
+     * @param length   输入/输出参数：输入数据块长度，输出实际写入的字节数 (short *)
+     * @param param    输出参数，连续存放的 IODBPSD 记录，布局见 {@link com.wfql.springbootdemo.fanuc.FanucReadDevices#PARAM_RANGE_LENGTH}
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdparar(short FlibHndl, ShortByReference s_number, short axis, ShortByReference e_number,
+                      ShortByReference length, Pointer param);
+
+    /**
+     * 读取CNC系统信息（系列、版本、最大控制轴数）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param sysinfo  输出参数，ODBSYS 结构体缓冲区，布局见 {@link com.wfql.springbootdemo.fanuc.FanucReadDevices#ODBSYS_LENGTH}
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_sysinfo(short FlibHndl, Pointer sysinfo);
+
+    /**
+     * 读取指定编号的自定义宏变量值
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param number   宏变量号 (short)
+     * @param length   数据块长度 (short): ODBM结构体大小=10
+     * @param macro    输出参数，指向ODBM结构体的指针，包含宏变量值
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdmacro(short FlibHndl, short number, short length, ODBM macro);
+
+    /**
+     * 写入指定编号的自定义宏变量值，实际值 = mcr_val * 10^(-dec_val)
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param number   宏变量号 (short)
+     * @param length   数据块长度 (short): 固定为10
+     * @param mcr_val  宏变量值的整数部分 (long, Windows上为32位)
+     * @param dec_val  小数位数 (short)
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_wrmacro(short FlibHndl, short number, short length, int mcr_val, short dec_val);
+
+    /**
+     * 读取一段连续编号的自定义宏变量值（一次调用读取 s_number~e_number）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param s_number 起始宏变量号 (short)
+     * @param e_number 结束宏变量号 (short)
+     * @param length   数据块长度 (short): 8 + 8 * 变量个数
+     * @param macror   输出参数，IODBMR 结构体缓冲区，布局见 {@link com.wfql.springbootdemo.fanuc.FanucReadDevices#IODBMR_HEADER}
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdmacror(short FlibHndl, short s_number, short e_number, short length, Pointer macror);
+
+    /**
+     * 读取CNC中当前选中的程序号（模态O号）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param prgnum   输出参数，指向ODBPRO结构体的指针，包含程序号信息
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_rdprgnum(short FlibHndl, ODBPRO prgnum);
+
+    /**
+     * 读取CNC的报警状态
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param alarm    输出参数，指向存储报警状态的变量地址
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_alarm2(short FlibHndl, IntByReference alarm);
+
+    /**
+     * 读取CNC当前执行程序的完整路径名
+     * 当CNC停止时，获取执行程序的名称
+     * 程序名称存储在"exeprg.name"中，最大32字符字符串格式
+     * <p>
+     * O号码程序的情况：
+     * exeprg.name:  'O'和数字以ASCII码形式存储，例如"O123"
+     * exeprg.o_num: O号码以二进制格式存储，例如123
+     * <p>
+     * 非O号码程序的情况：
+     * exeprg.name:  程序名以ASCII码形式存储，例如"ABC"
+     * exeprg.o_num: 0以二进制格式存储
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param exeprg   输出参数，指向ODBEXEPRG结构体的指针，包含当前执行程序信息
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_exeprgname(short FlibHndl, ODBEXEPRG exeprg);
+
+    /**
+     * 通知开始上传NC数据（NC程序、刀具偏置等）到数据窗口库内部逻辑
+     * （此函数必须在cnc_download3之前执行）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param type     数据类型 (0:NC程序, 1:刀具偏置数据, 2:参数, 3:螺距误差补偿数据, 4:自定义宏变量, 5:工件零点偏置数据, 18:旋转台动态夹具偏置)
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_dwnstart3(short FlibHndl, short type);
+
+    /**
+     * 下载NC数据（NC程序、刀具偏置等）到CNC
+     * （此函数必须在cnc_dwnstart3之后执行）
+     * <p>
+     * CNC 一次可能只接收一部分数据（length 返回实际接收的字节数），剩余部分需要再次调用；
+     * CNC 接收缓冲区满时返回 EW_BUFFER，本次数据未被接收，稍后重试
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @param length   输入/输出参数：输入要下载的字节数，输出实际接收的字节数 (long *，Windows上为32位)
+     * @param data     指向要下载的数据缓冲区的指针 (char *)
+     * @return 返回状态码，0(EW_OK)表示成功，10(EW_BUFFER)表示缓冲区满需重试，其他非0表示失败
+     */
+    short cnc_download3(short FlibHndl, IntByReference length, Pointer data);
+
+    /**
+     * 结束NC数据下载过程
+     * （此函数必须在下载完成后执行，用于结束cnc_dwnstart3开启的下载过程）
+     *
+     * @param FlibHndl 库句柄 (unsigned short)
+     * @return 返回状态码，0(EW_OK)表示成功，非0表示失败
+     */
+    short cnc_dwnend3(short FlibHndl);
+}
@@ -0,0 +1,125 @@
+package com.wfql.springbootdemo.fanuc.backend;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.DLibrary;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.IODBPSD;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBDNCDGN;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBEXEPRG;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBM;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPMCINF;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPRO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Fwlib64.dll 的 FOCAS 后端（fanuc.backend=native，默认）
+ * <p>
+ * DLibrary 在首次调用时才加载，未使用 FANUC 采集的环境不会因缺少 DLL 而启动失败
+ *
+ * @Package com.wfql.springbootdemo.fanuc.backend
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:05
+ */
+@Component
+@ConditionalOnProperty(prefix = "fanuc", name = "backend", havingValue = "native", matchIfMissing = true)
+public class NativeFocasBackend implements FocasBackend {
+
+    @Override
+    public short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl) {
+        return DLibrary.INSTANCE.cnc_allclibhndl3(ipaddr, port, timeout, FlibHndl);
+    }
+
+    @Override
+    public short cnc_freelibhndl(short FlibHndl) {
+        return DLibrary.INSTANCE.cnc_freelibhndl(FlibHndl);
+    }
+
+    @Override
+    public short cnc_pdf_rdmain(short FlibHndl, Memory file_path) {
+        return DLibrary.INSTANCE.cnc_pdf_rdmain(FlibHndl, file_path);
+    }
+
+    @Override
+    public short cnc_rdblkcount(short FlibHndl, IntByReference prog_bc) {
+        return DLibrary.INSTANCE.cnc_rdblkcount(FlibHndl, prog_bc);
+    }
+
+    @Override
+    public short cnc_rdexecprog(short FlibHndl, ShortByReference length, ShortByReference blknum, Memory data) {
+        return DLibrary.INSTANCE.cnc_rdexecprog(FlibHndl, length, blknum, data);
+    }
+
+    @Override
+    public short pmc_rdpmcinfo(short FlibHndl, short adr_type, ODBPMCINF pmcif) {
+        return DLibrary.INSTANCE.pmc_rdpmcinfo(FlibHndl, adr_type, pmcif);
+    }
+
+    @Override
+    public short cnc_rddncdgndt(short FlibHndl, ODBDNCDGN dgndt) {
+        return DLibrary.INSTANCE.cnc_rddncdgndt(FlibHndl, dgndt);
+    }
+
+    @Override
+    public short cnc_rdparam(short FlibHndl, short number, short axis, short length, IODBPSD param) {
+        return DLibrary.INSTANCE.cnc_rdparam(FlibHndl, number, axis, length, param);
+    }
+
+    @Override
+    public short cnc_rdparar(short FlibHndl, ShortByReference s_number, short axis, ShortByReference e_number,
+                             ShortByReference length, Pointer param) {
+        return DLibrary.INSTANCE.cnc_rdparar(FlibHndl, s_number, axis, e_number, length, param);
+    }
+
+    @Override
+    public short cnc_sysinfo(short FlibHndl, Pointer sysinfo) {
+        return DLibrary.INSTANCE.cnc_sysinfo(FlibHndl, sysinfo);
+    }
+
+    @Override
+    public short cnc_rdmacro(short FlibHndl, short number, short length, ODBM macro) {
+        return DLibrary.INSTANCE.cnc_rdmacro(FlibHndl, number, length, macro);
+    }
+
+    @Override
+    public short cnc_wrmacro(short FlibHndl, short number, short length, int mcr_val, short dec_val) {
+        return DLibrary.INSTANCE.cnc_wrmacro(FlibHndl, number, length, mcr_val, dec_val);
+    }
+
+    @Override
+    public short cnc_rdmacror(short FlibHndl, short s_number, short e_number, short length, Pointer macror) {
+        return DLibrary.INSTANCE.cnc_rdmacror(FlibHndl, s_number, e_number, length, macror);
+    }
+
+    @Override
+    public short cnc_rdprgnum(short FlibHndl, ODBPRO prgnum) {
+        return DLibrary.INSTANCE.cnc_rdprgnum(FlibHndl, prgnum);
+    }
+
+    @Override
+    public short cnc_alarm2(short FlibHndl, IntByReference alarm) {
+        return DLibrary.INSTANCE.cnc_alarm2(FlibHndl, alarm);
+    }
+
+    @Override
+    public short cnc_exeprgname(short FlibHndl, ODBEXEPRG exeprg) {
+        return DLibrary.INSTANCE.cnc_exeprgname(FlibHndl, exeprg);
+    }
+
+    @Override
+    public short cnc_dwnstart3(short FlibHndl, short type) {
+        return DLibrary.INSTANCE.cnc_dwnstart3(FlibHndl, type);
+    }
+
+    @Override
+    public short cnc_download3(short FlibHndl, IntByReference length, Pointer data) {
+        return DLibrary.INSTANCE.cnc_download3(FlibHndl, length, data);
+    }
+
+    @Override
+    public short cnc_dwnend3(short FlibHndl) {
+        return DLibrary.INSTANCE.cnc_dwnend3(FlibHndl);
+    }
+}
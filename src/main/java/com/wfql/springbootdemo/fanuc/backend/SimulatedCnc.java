@@ -0,0 +1,351 @@
+package com.wfql.springbootdemo.fanuc.backend;
+
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.CncEndpoint;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一台模拟CNC的状态：在线/运行/报警、块计数、宏变量、参数和已下载的程序
+ * <p>
+ * 初始状态由随机种子和地址决定，同一配置下每次启动得到的机床相同；
+ * 测试可以通过 set 方法直接改变状态
+ *
+ * @Package com.wfql.springbootdemo.fanuc.backend
+ * @Author guoqing.ling
+ * @Date 2026/10/17 11:02
+ */
+public class SimulatedCnc {
+
+    /**
+     * 宏变量空值（vacant）的小数位数标记
+     */
+    static final short VACANT_DEC = -1;
+
+    /**
+     * 加工件数宏变量 #3901
+     */
+    static final int PART_COUNT_MACRO = 3901;
+
+    /**
+     * 参数号上限（不含）
+     */
+    public static final int PARAMETER_LIMIT = 30000;
+
+    /**
+     * CNC系列（ODBSYS.series）
+     */
+    static final String SERIES = "G431";
+
+    @Getter
+    private final CncEndpoint endpoint;
+
+    @Getter
+    private final int axisCount;
+
+    /**
+     * CNC软件版本（ODBSYS.version），4 位 ASCII
+     */
+    @Getter
+    private final String version;
+
+    private final int blocksPerSecond;
+    private final int valueSeed;
+
+    @Getter
+    private volatile boolean online;
+
+    @Getter
+    private volatile int alarm;
+
+    private boolean running;
+    private boolean resumeAfterAlarm;
+    private long blockBase;
+    private long runningSinceNanos;
+
+    @Getter
+    private volatile int programNumber;
+
+    @Getter
+    private volatile int mainProgramNumber;
+
+    /**
+     * 宏变量：值为 mcr_val 与 dec_val 打包后的 long（高位 mcr_val，低16位 dec_val）
+     */
+    private final Map<Integer, Long> macros = new ConcurrentHashMap<>();
+
+    /**
+     * 被改写过的参数：键为 参数号 << 8 | 轴号
+     */
+    private final Map<Integer, Integer> parameterOverrides = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> programs = new ConcurrentHashMap<>();
+
+    final AtomicInteger connections = new AtomicInteger();
+
+    private ByteArrayOutputStream download;
+    private short downloadOwner;
+
+    SimulatedCnc(CncEndpoint endpoint, long seed, double offlineRate) {
+        this.endpoint = endpoint;
+        Random random = new Random(seed ^ endpoint.toString().hashCode());
+        this.online = random.nextDouble() >= offlineRate;
+        this.axisCount = 3 + random.nextInt(3);
+        this.blocksPerSecond = 5 + random.nextInt(30);
+        this.valueSeed = random.nextInt(100_000);
+        this.programNumber = 1000 + random.nextInt(8000);
+        this.mainProgramNumber = programNumber;
+        this.running = random.nextInt(10) < 7;
+        this.blockBase = random.nextInt(10_000);
+        this.runningSinceNanos = System.nanoTime();
+        this.version = String.format("%04d", 10 + random.nextInt(30));
+    }
+
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    /**
+     * 设置报警状态位：发生报警时停止运行，报警解除后恢复报警前的运行状态
+     */
+    public synchronized void setAlarm(int alarm) {
+        if (alarm != 0 && this.alarm == 0) {
+            resumeAfterAlarm = running;
+            setRunning(false);
+        } else if (alarm == 0 && this.alarm != 0) {
+            setRunning(resumeAfterAlarm);
+        }
+        this.alarm = alarm;
+    }
+
+    public synchronized void setRunning(boolean running) {
+        if (this.running == running) {
+            return;
+        }
+        blockBase = getBlockCount();
+        runningSinceNanos = System.nanoTime();
+        this.running = running;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 块计数：运行中按每秒固定块数增长
+     */
+    public synchronized long getBlockCount() {
+        if (!running) {
+            return blockBase;
+        }
+        return blockBase + (System.nanoTime() - runningSinceNanos) * blocksPerSecond / 1_000_000_000L;
+    }
+
+    /**
+     * 按 3 位小数写入宏变量
+     */
+    public void setMacro(int number, double value) {
+        macros.put(number, pack(Math.round(value * 1000), (short) 3));
+    }
+
+    /**
+     * 按 cnc_wrmacro 的格式写入宏变量
+     */
+    void writeMacro(int number, int mcrVal, short decVal) {
+        macros.put(number, pack(mcrVal, decVal));
+    }
+
+    /**
+     * 将宏变量置为空（vacant）
+     */
+    public void clearMacro(int number) {
+        macros.put(number, pack(0, VACANT_DEC));
+    }
+
+    /**
+     * 读取宏变量
+     *
+     * @return 打包后的值，高位为 mcr_val，低16位为 dec_val
+     */
+    long readMacro(int number) {
+        if (number == PART_COUNT_MACRO) {
+            return pack(getBlockCount() / 500, (short) 0);
+        }
+        // 未改写过任何变量时不查 Map，避免装箱
+        Long value = macros.isEmpty() ? null : macros.get(number);
+        if (value != null) {
+            return value;
+        }
+        // 公共变量 #100~#199、#500~#999 默认有值，其余为空
+        if ((number >= 100 && number <= 199) || (number >= 500 && number <= 999)) {
+            return pack((valueSeed + number * 7919L) % 1_000_000, (short) 3);
+        }
+        return pack(0, VACANT_DEC);
+    }
+
+    static long pack(long mcrVal, short decVal) {
+        return (mcrVal << 16) | (decVal & 0xFFFF);
+    }
+
+    static int unpackValue(long packed) {
+        return (int) (packed >> 16);
+    }
+
+    static short unpackDec(long packed) {
+        return (short) packed;
+    }
+
+    /**
+     * 参数类型：0 位型，1 字节型，2 字型，3 双字型，4 实数型（REALPRM，值 + 小数位数）
+     * <p>
+     * 与真实CNC的速度类参数一样，14xx 为实数型
+     */
+    public int parameterType(int number) {
+        if (number / 100 == 14) {
+            return 4;
+        }
+        return switch (number % 5) {
+            case 1 -> 0;
+            case 2 -> 1;
+            case 3 -> 2;
+            default -> 3;
+        };
+    }
+
+    /**
+     * 参数号是否存在：真实CNC的参数号不连续，这里个位为 9 的参数号不存在
+     */
+    public boolean parameterExists(int number) {
+        return number >= 0 && number < PARAMETER_LIMIT && number % 10 != 9;
+    }
+
+    /**
+     * 参数是否为轴型参数
+     */
+    public boolean isAxisParameter(int number) {
+        return (number / 10) % 3 == 0;
+    }
+
+    /**
+     * 参数字节大小
+     */
+    public int parameterSize(int number) {
+        return switch (parameterType(number)) {
+            case 0, 1 -> 1;
+            case 2 -> 2;
+            case 4 -> 8;
+            default -> 4;
+        };
+    }
+
+    /**
+     * 实数型参数的小数位数，实际值为 {@link #readParameter} 的值 * 10^-小数位数
+     */
+    public int parameterDecimals(int number) {
+        return parameterType(number) == 4 ? 3 : 0;
+    }
+
+    /**
+     * 读取参数值，axis 为 0（无轴）或 1~axisCount
+     */
+    public int readParameter(int number, int axis) {
+        Integer value = parameterOverrides.isEmpty() ? null : parameterOverrides.get(number << 8 | axis);
+        if (value != null) {
+            return value;
+        }
+        int raw = (number * 31 + axis * 7 + valueSeed) & 0x7FFFFFFF;
+        return switch (parameterType(number)) {
+            case 0, 1 -> (byte) raw;
+            case 2 -> (short) raw;
+            default -> raw % 1_000_000;
+        };
+    }
+
+    public void setParameter(int number, int axis, int value) {
+        parameterOverrides.put(number << 8 | axis, value);
+    }
+
+    /**
+     * 已下载到该CNC的程序号
+     */
+    public Set<Integer> getProgramNumbers() {
+        return programs.keySet();
+    }
+
+    /**
+     * 已下载的程序内容
+     */
+    public String getProgram(int number) {
+        return programs.get(number);
+    }
+
+    synchronized short startDownload(short handle, short type) {
+        if (type < 0 || (type > 5 && type != 18)) {
+            return FocasErrorCode.EW_ATTRIB;
+        }
+        if (download != null) {
+            return FocasErrorCode.EW_BUSY;
+        }
+        if (alarm != 0) {
+            return FocasErrorCode.EW_ALARM;
+        }
+        download = new ByteArrayOutputStream();
+        downloadOwner = handle;
+        return FocasErrorCode.EW_OK;
+    }
+
+    synchronized short appendDownload(short handle, byte[] data) {
+        if (download == null || downloadOwner != handle) {
+            return FocasErrorCode.EW_FUNC;
+        }
+        download.write(data, 0, data.length);
+        return FocasErrorCode.EW_OK;
+    }
+
+    synchronized short endDownload(short handle) {
+        if (download == null || downloadOwner != handle) {
+            return FocasErrorCode.EW_FUNC;
+        }
+        String text = download.toString(StandardCharsets.US_ASCII);
+        download = null;
+        int end = text.indexOf('\0');
+        if (end >= 0) {
+            text = text.substring(0, end);
+        }
+        int number = parseProgramNumber(text);
+        if (number < 0) {
+            return FocasErrorCode.EW_DATA;
+        }
+        programs.put(number, text);
+        return FocasErrorCode.EW_OK;
+    }
+
+    /**
+     * 中断未完成的下载，例如连接断开时
+     */
+    synchronized void abortDownload(short handle) {
+        if (downloadOwner == handle) {
+            download = null;
+        }
+    }
+
+    private static int parseProgramNumber(String text) {
+        int o = text.indexOf('O');
+        if (o < 0) {
+            return -1;
+        }
+        int number = 0;
+        int digits = 0;
+        for (int i = o + 1; i < text.length() && Character.isDigit(text.charAt(i)) && digits < 8; i++, digits++) {
+            number = number * 10 + (text.charAt(i) - '0');
+        }
+        return digits == 0 ? -1 : number;
+    }
+}
@@ -0,0 +1,524 @@
+package com.wfql.springbootdemo.fanuc.backend;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.IODBPSD;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBDNCDGN;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBEXEPRG;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBM;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPMCINF;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPRO;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.CncEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内CNC模拟器（fanuc.backend=simulated）
+ * <p>
+ * 任意 IP:端口 在首次连接时生成一台虚拟机床，可同时模拟上千台；
+ * 每次调用按配置阻塞一段时间模拟网络往返，并按概率返回 EW_SOCKET、EW_HANDLE 等错误，
+ * 用于在没有 Fwlib64.dll 的 Linux 环境下测试和压测采集程序
+ *
+ * @Package com.wfql.springbootdemo.fanuc.backend
+ * @Author guoqing.ling
+ * @Date 2026/10/17 11:20
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "fanuc", name = "backend", havingValue = "simulated")
+public class SimulatedFocasBackend implements FocasBackend {
+
+    /**
+     * pinCarrier 使用的锁对象，放在 ThreadLocal 中避免被逃逸分析消除
+     */
+    private static final ThreadLocal<Object> PIN_LOCK = ThreadLocal.withInitial(Object::new);
+
+    private final FanucProperties.Simulator config;
+    private final Map<CncEndpoint, SimulatedCnc> machines = new ConcurrentHashMap<>();
+    private final Map<Short, SimulatedCnc> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHandle = new AtomicInteger();
+
+    @Autowired
+    public SimulatedFocasBackend(FanucProperties properties) {
+        this(properties.getSimulator());
+    }
+
+    public SimulatedFocasBackend(FanucProperties.Simulator config) {
+        this.config = config;
+        log.info("FOCAS 使用模拟后端，调用延迟 {}，离线比例 {}", config.getLatency(), config.getOfflineRate());
+    }
+
+    /**
+     * 获取（必要时创建）指定地址的模拟机床，用于测试中直接修改机床状态
+     */
+    public SimulatedCnc machine(String ip, int port) {
+        return machine(new CncEndpoint(ip, port));
+    }
+
+    public SimulatedCnc machine(CncEndpoint endpoint) {
+        return machines.computeIfAbsent(endpoint,
+                key -> new SimulatedCnc(key, config.getSeed(), config.getOfflineRate()));
+    }
+
+    public int getMachineCount() {
+        return machines.size();
+    }
+
+    public int getOpenHandleCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl) {
+        SimulatedCnc cnc = machine(ipaddr, port & 0xFFFF);
+        if (!cnc.isOnline()) {
+            long delay = config.getOfflineConnectDelay().toNanos();
+            if (timeout > 0) {
+                delay = Math.min(delay, timeout * 1_000_000_000L);
+            }
+            pause(delay);
+            return FocasErrorCode.EW_SOCKET;
+        }
+        pause(config.getConnectLatency().toNanos());
+        if (cnc.connections.incrementAndGet() > config.getMaxConnectionsPerMachine()) {
+            // CNC侧连接数已满，拒绝新连接
+            cnc.connections.decrementAndGet();
+            return FocasErrorCode.EW_SOCKET;
+        }
+        while (true) {
+            short handle = (short) nextHandle.incrementAndGet();
+            if (handle != 0 && sessions.putIfAbsent(handle, cnc) == null) {
+                FlibHndl.setValue(handle);
+                return FocasErrorCode.EW_OK;
+            }
+        }
+    }
+
+    @Override
+    public short cnc_freelibhndl(short FlibHndl) {
+        SimulatedCnc cnc = sessions.remove(FlibHndl);
+        if (cnc == null) {
+            return FocasErrorCode.EW_HANDLE;
+        }
+        cnc.connections.decrementAndGet();
+        cnc.abortDownload(FlibHndl);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_pdf_rdmain(short FlibHndl, Memory file_path) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        file_path.setString(0, "//CNC_MEM/USER/PATH1/O" + cnc.getMainProgramNumber(), "US-ASCII");
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdblkcount(short FlibHndl, IntByReference prog_bc) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        prog_bc.setValue((int) cnc.getBlockCount());
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdexecprog(short FlibHndl, ShortByReference length, ShortByReference blknum, Memory data) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        int max = Math.min(length.getValue() & 0xFFFF, (int) data.size() - 1);
+        long block = cnc.getBlockCount();
+        StringBuilder program = new StringBuilder();
+        for (long n = block; program.length() < max; n++) {
+            program.append('N').append(n % 100000)
+                    .append(" G01 X").append(n % 500).append(".0 Y").append((n * 3) % 500)
+                    .append(".0 F1200;\n");
+        }
+        program.setLength(max);
+        byte[] bytes = program.toString().getBytes(StandardCharsets.US_ASCII);
+        data.write(0, bytes, 0, bytes.length);
+        data.setByte(bytes.length, (byte) 0);
+        length.setValue((short) bytes.length);
+        blknum.setValue((short) block);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short pmc_rdpmcinfo(short FlibHndl, short adr_type, ODBPMCINF pmcif) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (adr_type < -1 || adr_type > 12) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        pmcif.datano_s = 0;
+        pmcif.datano_e = (short) 9999;
+        pmcif.unit = 1;
+        pmcif.size = 1;
+        pmcif.write();
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rddncdgndt(short FlibHndl, ODBDNCDGN dgndt) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        long block = cnc.getBlockCount();
+        dgndt.ctrl_word = 0;
+        dgndt.can_word = 0;
+        Arrays.fill(dgndt.nc_file, (byte) 0);
+        byte[] name = ("O" + cnc.getProgramNumber()).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(name, 0, dgndt.nc_file, 0, Math.min(name.length, dgndt.nc_file.length - 1));
+        dgndt.read_ptr = (short) (block * 32);
+        dgndt.write_ptr = (short) (block * 32 + 256);
+        dgndt.empty_cnt = 0;
+        dgndt.total_size = (int) (block * 32);
+        dgndt.write();
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdparam(short FlibHndl, short number, short axis, short length, IODBPSD param) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (!cnc.parameterExists(number)) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        boolean axisParam = cnc.isAxisParameter(number);
+        if (axisParam ? (axis == 0 || axis > cnc.getAxisCount() || axis < FanucReadDevices.ALL_AXES)
+                : axis != 0) {
+            return FocasErrorCode.EW_ATTRIB;
+        }
+        int size = cnc.parameterSize(number);
+        int count = axis == FanucReadDevices.ALL_AXES ? cnc.getAxisCount() : 1;
+        if (length < 4 + size * count || 4 + size * count > 4 + param.u.length) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        // 与 DLL 一样直接写结构体内存，调用方 read() 或按偏移解析
+        Pointer p = param.getPointer();
+        p.setShort(0, number);
+        p.setShort(2, (short) (cnc.parameterType(number) << 8 | (axis & 0xFF)));
+        p.setMemory(4, Math.min(length, 4 + param.u.length) - 4, (byte) 0);
+        for (int i = 0; i < count; i++) {
+            int value = cnc.readParameter(number, axis == FanucReadDevices.ALL_AXES ? i + 1 : axis);
+            long offset = 4 + (long) i * size;
+            switch (size) {
+                case 1 -> p.setByte(offset, (byte) value);
+                case 2 -> p.setShort(offset, (short) value);
+                case 8 -> {
+                    p.setInt(offset, value);
+                    p.setInt(offset + 4, cnc.parameterDecimals(number));
+                }
+                default -> p.setInt(offset, value);
+            }
+        }
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdparar(short FlibHndl, ShortByReference s_number, short axis, ShortByReference e_number,
+                             ShortByReference length, Pointer param) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (axis != 0 && axis != FanucReadDevices.ALL_AXES) {
+            return FocasErrorCode.EW_ATTRIB;
+        }
+        int start = s_number.getValue();
+        int end = Math.min(e_number.getValue(), SimulatedCnc.PARAMETER_LIMIT - 1);
+        if (start < 0 || end < start) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        int capacity = length.getValue();
+        int offset = 0;
+        int first = -1;
+        int last = -1;
+        boolean full = false;
+        for (int number = start; number <= end; number++) {
+            if (!cnc.parameterExists(number)) {
+                continue;
+            }
+            boolean axisParam = cnc.isAxisParameter(number);
+            int count = axisParam && axis == FanucReadDevices.ALL_AXES ? cnc.getAxisCount() : 1;
+            int size = cnc.parameterSize(number);
+            if (offset + 4 + size * count > capacity) {
+                full = true;
+                break;
+            }
+            // 轴型参数：ALL_AXES 时低字节为 -1，并带全部轴的值；否则只带第 1 轴
+            int axisByte = axisParam ? (axis == FanucReadDevices.ALL_AXES ? 0xFF : 1) : 0;
+            param.setShort(offset, (short) number);
+            param.setShort(offset + 2, (short) (cnc.parameterType(number) << 8 | axisByte));
+            for (int i = 0; i < count; i++) {
+                int value = cnc.readParameter(number, axisParam ? i + 1 : 0);
+                long at = offset + 4 + (long) i * size;
+                switch (size) {
+                    case 1 -> param.setByte(at, (byte) value);
+                    case 2 -> param.setShort(at, (short) value);
+                    case 8 -> {
+                        param.setInt(at, value);
+                        param.setInt(at + 4, cnc.parameterDecimals(number));
+                    }
+                    default -> param.setInt(at, value);
+                }
+            }
+            offset += 4 + size * count;
+            if (first < 0) {
+                first = number;
+            }
+            last = number;
+        }
+        if (first < 0) {
+            return full ? FocasErrorCode.EW_LENGTH : FocasErrorCode.EW_NUMBER;
+        }
+        s_number.setValue((short) first);
+        e_number.setValue((short) last);
+        length.setValue((short) offset);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_sysinfo(short FlibHndl, Pointer sysinfo) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        byte[] text = (" 0 M" + SimulatedCnc.SERIES + cnc.getVersion()
+                + String.format("%02d", cnc.getAxisCount())).getBytes(StandardCharsets.US_ASCII);
+        sysinfo.setShort(0, (short) 0);
+        sysinfo.setShort(2, (short) cnc.getAxisCount());
+        sysinfo.write(4, text, 0, text.length);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdmacro(short FlibHndl, short number, short length, ODBM macro) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (number < 1) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        if (length < 10) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        long packed = cnc.readMacro(number);
+        Pointer p = macro.getPointer();
+        p.setShort(0, number);
+        p.setShort(2, (short) 0);
+        p.setInt(4, SimulatedCnc.unpackValue(packed));
+        p.setShort(8, SimulatedCnc.unpackDec(packed));
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_wrmacro(short FlibHndl, short number, short length, int mcr_val, short dec_val) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (number < 1) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        if (length != 10) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        cnc.writeMacro(number, mcr_val, dec_val);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdmacror(short FlibHndl, short s_number, short e_number, short length, Pointer macror) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        if (s_number < 1 || e_number < s_number) {
+            return FocasErrorCode.EW_NUMBER;
+        }
+        int count = e_number - s_number + 1;
+        if (length < FanucReadDevices.IODBMR_HEADER + FanucReadDevices.IODBMR_ENTRY * count) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        macror.setShort(0, s_number);
+        macror.setShort(2, (short) 0);
+        macror.setShort(4, e_number);
+        for (int i = 0; i < count; i++) {
+            long packed = cnc.readMacro(s_number + i);
+            long offset = FanucReadDevices.IODBMR_HEADER + (long) FanucReadDevices.IODBMR_ENTRY * i;
+            macror.setInt(offset, SimulatedCnc.unpackValue(packed));
+            macror.setShort(offset + 4, SimulatedCnc.unpackDec(packed));
+        }
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_rdprgnum(short FlibHndl, ODBPRO prgnum) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        Pointer p = prgnum.getPointer();
+        p.setInt(0, 0);
+        p.setInt(4, cnc.getProgramNumber());
+        p.setInt(8, cnc.getMainProgramNumber());
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_alarm2(short FlibHndl, IntByReference alarm) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (config.getAlarmRate() > 0 && random.nextDouble() < config.getAlarmRate()) {
+            // 无报警时随机产生一个报警位，有报警时解除
+            cnc.setAlarm(cnc.getAlarm() == 0 ? 1 << random.nextInt(16) : 0);
+        }
+        alarm.setValue(cnc.getAlarm());
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_exeprgname(short FlibHndl, ODBEXEPRG exeprg) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        int number = cnc.getProgramNumber();
+        Pointer p = exeprg.getPointer();
+        p.setMemory(0, exeprg.name.length, (byte) 0);
+        // 程序名 "O" + 程序号，逐位写入避免拼接字符串
+        p.setByte(0, (byte) 'O');
+        int digits = number == 0 ? 1 : (int) Math.log10(number) + 1;
+        for (int i = digits, n = number; i > 0; i--, n /= 10) {
+            p.setByte(i, (byte) ('0' + n % 10));
+        }
+        p.setInt(exeprg.name.length, number);
+        return FocasErrorCode.EW_OK;
+    }
+
+    @Override
+    public short cnc_dwnstart3(short FlibHndl, short type) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        return cnc.startDownload(FlibHndl, type);
+    }
+
+    @Override
+    public short cnc_download3(short FlibHndl, IntByReference length, Pointer data) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        int requested = length.getValue();
+        if (requested < 0) {
+            return FocasErrorCode.EW_LENGTH;
+        }
+        if (config.getDownloadBufferFullRate() > 0
+                && ThreadLocalRandom.current().nextDouble() < config.getDownloadBufferFullRate()) {
+            length.setValue(0);
+            return FocasErrorCode.EW_BUFFER;
+        }
+        // 与真实CNC一样每次只接收一部分，剩余部分由调用方继续发送
+        int accepted = Math.min(requested, config.getDownloadChunkLimit());
+        rc = cnc.appendDownload(FlibHndl, data.getByteArray(0, accepted));
+        length.setValue(rc == FocasErrorCode.EW_OK ? accepted : 0);
+        return rc;
+    }
+
+    @Override
+    public short cnc_dwnend3(short FlibHndl) {
+        SimulatedCnc cnc = sessions.get(FlibHndl);
+        short rc = enter(FlibHndl, cnc);
+        if (rc != FocasErrorCode.EW_OK) {
+            return rc;
+        }
+        return cnc.endDownload(FlibHndl);
+    }
+
+    /**
+     * 每次调用的公共处理：模拟网络延迟，校验句柄，按概率模拟断线
+     */
+    private short enter(short handle, SimulatedCnc cnc) {
+        long jitter = config.getLatencyJitter().toNanos();
+        pause(config.getLatency().toNanos() + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0));
+        if (cnc == null) {
+            return FocasErrorCode.EW_HANDLE;
+        }
+        if (!cnc.isOnline() || (config.getSocketErrorRate() > 0
+                && ThreadLocalRandom.current().nextDouble() < config.getSocketErrorRate())) {
+            // 断线后句柄失效，后续调用返回 EW_HANDLE
+            cnc_freelibhndl(handle);
+            return FocasErrorCode.EW_SOCKET;
+        }
+        return FocasErrorCode.EW_OK;
+    }
+
+    private void pause(long nanos) {
+        if (config.isPinCarrier()) {
+            // JDK 21 中在 synchronized 块内阻塞会占住载体线程，与 JNA 本地调用的行为一致
+            synchronized (PIN_LOCK.get()) {
+                park(nanos);
+            }
+        } else {
+            park(nanos);
+        }
+    }
+
+    private static void park(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        // parkNanos 可能提前返回，循环直到到达截止时间
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
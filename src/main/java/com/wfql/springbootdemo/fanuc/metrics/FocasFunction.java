@@ -0,0 +1,43 @@
+package com.wfql.springbootdemo.fanuc.metrics;
+
+/**
+ * 被计量的 FOCAS 函数，与 {@link com.wfql.springbootdemo.fanuc.backend.FocasBackend} 的方法一一对应
+ *
+ * @Package com.wfql.springbootdemo.fanuc.metrics
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:40
+ */
+public enum FocasFunction {
+    CNC_ALLCLIBHNDL3("cnc_allclibhndl3"),
+    CNC_FREELIBHNDL("cnc_freelibhndl"),
+    CNC_PDF_RDMAIN("cnc_pdf_rdmain"),
+    CNC_RDBLKCOUNT("cnc_rdblkcount"),
+    CNC_RDEXECPROG("cnc_rdexecprog"),
+    PMC_RDPMCINFO("pmc_rdpmcinfo"),
+    CNC_RDDNCDGNDT("cnc_rddncdgndt"),
+    CNC_RDPARAM("cnc_rdparam"),
+    CNC_RDPARAR("cnc_rdparar"),
+    CNC_SYSINFO("cnc_sysinfo"),
+    CNC_RDMACRO("cnc_rdmacro"),
+    CNC_WRMACRO("cnc_wrmacro"),
+    CNC_RDMACROR("cnc_rdmacror"),
+    CNC_RDPRGNUM("cnc_rdprgnum"),
+    CNC_ALARM2("cnc_alarm2"),
+    CNC_EXEPRGNAME("cnc_exeprgname"),
+    CNC_DWNSTART3("cnc_dwnstart3"),
+    CNC_DOWNLOAD3("cnc_download3"),
+    CNC_DWNEND3("cnc_dwnend3");
+
+    private final String nativeName;
+
+    FocasFunction(String nativeName) {
+        this.nativeName = nativeName;
+    }
+
+    /**
+     * Fwlib64.dll 中的函数名，作为指标的 function 标签
+     */
+    public String nativeName() {
+        return nativeName;
+    }
+}
@@ -0,0 +1,155 @@
+package com.wfql.springbootdemo.fanuc.metrics;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * FOCAS 调用指标
+ * <ul>
+ *     <li>focas.latency{function}：每个函数的耗时直方图（Prometheus 的 _bucket，可用 histogram_quantile 计算分位数）</li>
+ *     <li>focas.calls{function,machine}：每台设备每个函数的调用次数、总耗时与最大耗时</li>
+ *     <li>focas.errors{function,machine,code}：非 EW_OK 返回码的次数，code 为 {@link FocasErrorCode} 中的常量名</li>
+ * </ul>
+ * 库句柄在 cnc_allclibhndl3 成功时与设备绑定、cnc_freelibhndl 时解绑，之后的调用按句柄查找设备；
+ * Timer/Counter 在第一次用到时注册并缓存，调用路径上只有数组下标访问，不再经过注册表查找
+ *
+ * @Package com.wfql.springbootdemo.fanuc.metrics
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:45
+ */
+public class FocasMetrics {
+
+    static final String UNKNOWN_MACHINE = "unknown";
+
+    private static final FocasFunction[] FUNCTIONS = FocasFunction.values();
+
+    private final MeterRegistry registry;
+    private final FanucProperties.Metrics config;
+    /**
+     * IP:端口 -> 设备编号
+     */
+    private final Map<String, String> deviceIds = new ConcurrentHashMap<>();
+    private final Map<String, MachineMeters> machines = new ConcurrentHashMap<>();
+    /**
+     * 库句柄（unsigned short）-> 所属设备
+     */
+    private final AtomicReferenceArray<MachineMeters> handles = new AtomicReferenceArray<>(1 << 16);
+    private final Timer[] latency = new Timer[FUNCTIONS.length];
+    private final MachineMeters unknown;
+
+    public FocasMetrics(MeterRegistry registry, FanucProperties properties) {
+        this.registry = registry;
+        this.config = properties.getMetrics();
+        for (FanucProperties.Device device : properties.getDevices()) {
+            deviceIds.put(device.getIp() + ":" + device.getPort(), device.getId());
+        }
+        for (FocasFunction function : FUNCTIONS) {
+            latency[function.ordinal()] = histogram(Timer.builder("focas.latency"))
+                    .description("FOCAS 函数调用耗时")
+                    .tag("function", function.nativeName())
+                    .register(registry);
+        }
+        this.unknown = machine(UNKNOWN_MACHINE);
+    }
+
+    /**
+     * 记录一次 cnc_allclibhndl3，成功时把返回的句柄绑定到设备
+     */
+    public void recordConnect(String ip, short port, short handle, long nanos, short result) {
+        String address = ip + ":" + Short.toUnsignedInt(port);
+        MachineMeters meters = machine(deviceIds.getOrDefault(address, address));
+        record(meters, FocasFunction.CNC_ALLCLIBHNDL3, nanos, result);
+        if (result == FocasErrorCode.EW_OK) {
+            handles.set(Short.toUnsignedInt(handle), meters);
+        }
+    }
+
+    /**
+     * 记录一次 cnc_freelibhndl，无论结果如何句柄都不再使用，解除绑定
+     */
+    public void recordFree(short handle, long nanos, short result) {
+        int index = Short.toUnsignedInt(handle);
+        record(machineOf(index), FocasFunction.CNC_FREELIBHNDL, nanos, result);
+        handles.set(index, null);
+    }
+
+    /**
+     * 记录一次使用库句柄的调用
+     */
+    public void record(FocasFunction function, short handle, long nanos, short result) {
+        record(machineOf(Short.toUnsignedInt(handle)), function, nanos, result);
+    }
+
+    private void record(MachineMeters meters, FocasFunction function, long nanos, short result) {
+        latency[function.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        meters.calls(function).record(nanos, TimeUnit.NANOSECONDS);
+        if (result != FocasErrorCode.EW_OK) {
+            meters.errors(function, result).increment();
+        }
+    }
+
+    private MachineMeters machineOf(int handle) {
+        MachineMeters meters = handles.get(handle);
+        return meters != null ? meters : unknown;
+    }
+
+    private MachineMeters machine(String machineId) {
+        return machines.computeIfAbsent(machineId, MachineMeters::new);
+    }
+
+    private Timer.Builder histogram(Timer.Builder builder) {
+        return builder.publishPercentileHistogram()
+                .minimumExpectedValue(config.getMinExpected())
+                .maximumExpectedValue(config.getMaxExpected());
+    }
+
+    /**
+     * 一台设备的指标，按函数序号（及返回码）缓存
+     */
+    private final class MachineMeters {
+
+        private final String machineId;
+        private final AtomicReferenceArray<Timer> calls = new AtomicReferenceArray<>(FUNCTIONS.length);
+        private final Map<Integer, Counter> errors = new ConcurrentHashMap<>();
+
+        MachineMeters(String machineId) {
+            this.machineId = machineId;
+        }
+
+        Timer calls(FocasFunction function) {
+            Timer timer = calls.get(function.ordinal());
+            if (timer == null) {
+                Timer.Builder builder = Timer.builder("focas.calls");
+                if (config.isMachineHistogram()) {
+                    builder = histogram(builder);
+                }
+                // 注册表对相同 ID 返回同一个实例，并发创建也不会重复注册
+                timer = builder.description("每台设备的 FOCAS 函数调用")
+                        .tag("function", function.nativeName())
+                        .tag("machine", machineId)
+                        .register(registry);
+                calls.set(function.ordinal(), timer);
+            }
+            return timer;
+        }
+
+        Counter errors(FocasFunction function, short code) {
+            return errors.computeIfAbsent(function.ordinal() << 16 | Short.toUnsignedInt(code),
+                    key -> Counter.builder("focas.errors")
+                            .description("FOCAS 函数返回的错误代码")
+                            .tag("function", function.nativeName())
+                            .tag("machine", machineId)
+                            .tag("code", FocasErrorCode.nameOf(code))
+                            .register(registry));
+        }
+    }
+}
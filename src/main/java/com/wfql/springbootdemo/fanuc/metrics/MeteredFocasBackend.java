@@ -0,0 +1,186 @@
+package com.wfql.springbootdemo.fanuc.metrics;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.IODBPSD;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBDNCDGN;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBEXEPRG;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBM;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPMCINF;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices.ODBPRO;
+import com.wfql.springbootdemo.fanuc.backend.FocasBackend;
+
+/**
+ * 记录每次 FOCAS 调用耗时与返回码的后端包装
+ * <p>
+ * 由 {@link com.wfql.springbootdemo.config.FocasMetricsConfig} 包在实际后端（native/simulated）外面，
+ * 连接池、采集、程序下发等所有经过 FocasBackend 的调用都会被记录
+ *
+ * @Package com.wfql.springbootdemo.fanuc.metrics
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:50
+ */
+public class MeteredFocasBackend implements FocasBackend {
+
+    private final FocasBackend delegate;
+    private final FocasMetrics metrics;
+
+    public MeteredFocasBackend(FocasBackend delegate, FocasMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_allclibhndl3(ipaddr, port, timeout, FlibHndl);
+        metrics.recordConnect(ipaddr, port, FlibHndl.getValue(), System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_freelibhndl(short FlibHndl) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_freelibhndl(FlibHndl);
+        metrics.recordFree(FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_pdf_rdmain(short FlibHndl, Memory file_path) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_pdf_rdmain(FlibHndl, file_path);
+        metrics.record(FocasFunction.CNC_PDF_RDMAIN, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdblkcount(short FlibHndl, IntByReference prog_bc) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdblkcount(FlibHndl, prog_bc);
+        metrics.record(FocasFunction.CNC_RDBLKCOUNT, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdexecprog(short FlibHndl, ShortByReference length, ShortByReference blknum, Memory data) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdexecprog(FlibHndl, length, blknum, data);
+        metrics.record(FocasFunction.CNC_RDEXECPROG, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short pmc_rdpmcinfo(short FlibHndl, short adr_type, ODBPMCINF pmcif) {
+        long start = System.nanoTime();
+        short result = delegate.pmc_rdpmcinfo(FlibHndl, adr_type, pmcif);
+        metrics.record(FocasFunction.PMC_RDPMCINFO, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rddncdgndt(short FlibHndl, ODBDNCDGN dgndt) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rddncdgndt(FlibHndl, dgndt);
+        metrics.record(FocasFunction.CNC_RDDNCDGNDT, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdparam(short FlibHndl, short number, short axis, short length, IODBPSD param) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdparam(FlibHndl, number, axis, length, param);
+        metrics.record(FocasFunction.CNC_RDPARAM, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdparar(short FlibHndl, ShortByReference s_number, short axis, ShortByReference e_number, ShortByReference length, Pointer param) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdparar(FlibHndl, s_number, axis, e_number, length, param);
+        metrics.record(FocasFunction.CNC_RDPARAR, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_sysinfo(short FlibHndl, Pointer sysinfo) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_sysinfo(FlibHndl, sysinfo);
+        metrics.record(FocasFunction.CNC_SYSINFO, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdmacro(short FlibHndl, short number, short length, ODBM macro) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdmacro(FlibHndl, number, length, macro);
+        metrics.record(FocasFunction.CNC_RDMACRO, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_wrmacro(short FlibHndl, short number, short length, int mcr_val, short dec_val) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_wrmacro(FlibHndl, number, length, mcr_val, dec_val);
+        metrics.record(FocasFunction.CNC_WRMACRO, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdmacror(short FlibHndl, short s_number, short e_number, short length, Pointer macror) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdmacror(FlibHndl, s_number, e_number, length, macror);
+        metrics.record(FocasFunction.CNC_RDMACROR, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_rdprgnum(short FlibHndl, ODBPRO prgnum) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_rdprgnum(FlibHndl, prgnum);
+        metrics.record(FocasFunction.CNC_RDPRGNUM, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_alarm2(short FlibHndl, IntByReference alarm) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_alarm2(FlibHndl, alarm);
+        metrics.record(FocasFunction.CNC_ALARM2, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_exeprgname(short FlibHndl, ODBEXEPRG exeprg) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_exeprgname(FlibHndl, exeprg);
+        metrics.record(FocasFunction.CNC_EXEPRGNAME, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_dwnstart3(short FlibHndl, short type) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_dwnstart3(FlibHndl, type);
+        metrics.record(FocasFunction.CNC_DWNSTART3, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_download3(short FlibHndl, IntByReference length, Pointer data) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_download3(FlibHndl, length, data);
+        metrics.record(FocasFunction.CNC_DOWNLOAD3, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+
+    @Override
+    public short cnc_dwnend3(short FlibHndl) {
+        long start = System.nanoTime();
+        short result = delegate.cnc_dwnend3(FlibHndl);
+        metrics.record(FocasFunction.CNC_DWNEND3, FlibHndl, System.nanoTime() - start, result);
+        return result;
+    }
+}
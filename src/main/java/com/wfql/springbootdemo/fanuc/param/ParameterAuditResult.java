@@ -0,0 +1,19 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import lombok.Data;
+
+/**
+ * 一台设备的参数巡检结果
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 19:05
+ */
+@Data
+public class ParameterAuditResult {
+    private String deviceId;
+    private boolean success;
+    private String errorMessage;
+    private long elapsedMillis;   // 读取、比对和保存的总耗时
+    private ParameterDiff diff;
+}
@@ -0,0 +1,30 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 两次快照之间一个参数值的变化
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:35
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParameterChange {
+
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    private int number;     // 参数号
+    private int axis;       // 轴号，无轴参数为 0
+    private Kind kind;
+    private Double before;  // 变化前的值，新增时为 null
+    private Double after;   // 变化后的值，删除时为 null
+}
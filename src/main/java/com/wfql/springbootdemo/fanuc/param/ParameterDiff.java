@@ -0,0 +1,31 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一台设备本次快照与上一次快照的比对结果
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:35
+ */
+@Data
+public class ParameterDiff {
+    private String deviceId;
+    private Long previousTakenAt;   // 上一次快照时间，首次快照为 null
+    private long takenAt;           // 本次快照时间
+    private String previousVersion; // 上一次快照的CNC软件版本
+    private String version;         // 本次快照的CNC软件版本
+    private int parameterCount;     // 本次快照的参数个数
+    private int added;
+    private int removed;
+    private int changed;
+    private List<ParameterChange> changes = new ArrayList<>();
+
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+}
@@ -0,0 +1,131 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import java.util.Arrays;
+
+/**
+ * 参数快照比对
+ * <p>
+ * 两次快照的参数号、类型和轴数相同时（绝大多数情况），值列的布局完全一致，
+ * 直接用 {@link Arrays#mismatch(long[], int, int, long[], int, int)} 在 values 上跳到下一个不同的位置，
+ * 不逐个参数比较；否则按参数号归并比较
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:40
+ */
+public final class ParameterDiffer {
+
+    private ParameterDiffer() {
+    }
+
+    /**
+     * @param previous 上一次快照，为 null 时只记录本次快照信息
+     * @param current  本次快照
+     */
+    public static ParameterDiff diff(ParameterSnapshot previous, ParameterSnapshot current) {
+        ParameterDiff diff = new ParameterDiff();
+        diff.setDeviceId(current.getDeviceId());
+        diff.setTakenAt(current.getTakenAt());
+        diff.setVersion(current.getVersion());
+        diff.setParameterCount(current.size());
+        if (previous == null) {
+            return diff;
+        }
+        diff.setPreviousTakenAt(previous.getTakenAt());
+        diff.setPreviousVersion(previous.getVersion());
+        if (previous.getMaxAxis() == current.getMaxAxis()
+                && Arrays.equals(previous.numbers, current.numbers)
+                && Arrays.equals(previous.types, current.types)) {
+            diffValues(previous, current, diff);
+        } else {
+            mergeDiff(previous, current, diff);
+        }
+        return diff;
+    }
+
+    /**
+     * 布局相同：只比较值列
+     */
+    private static void diffValues(ParameterSnapshot previous, ParameterSnapshot current, ParameterDiff diff) {
+        long[] a = previous.values;
+        long[] b = current.values;
+        int[] offsets = current.offsets;
+        int from = 0;
+        int lastIndex = -1;
+        while (from < b.length) {
+            int m = Arrays.mismatch(a, from, a.length, b, from, b.length);
+            if (m < 0) {
+                break;
+            }
+            int pos = from + m;
+            // offsets 严格递增（每个参数至少一个值），未命中时插入点的前一个即所在参数
+            int index = Arrays.binarySearch(offsets, pos);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            int axisIndex = pos - offsets[index];
+            addChange(diff, current, index, axisIndex, ParameterChange.Kind.CHANGED,
+                    ParameterSnapshot.toDouble(current.types[index], a[pos]), current.getValue(index, axisIndex));
+            if (index != lastIndex) {
+                diff.setChanged(diff.getChanged() + 1);
+                lastIndex = index;
+            }
+            from = pos + 1;
+        }
+    }
+
+    /**
+     * 参数表不同（CNC软件升级、选项变化或轴数变化）：按参数号归并
+     */
+    private static void mergeDiff(ParameterSnapshot previous, ParameterSnapshot current, ParameterDiff diff) {
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            int a = i < previous.size() ? previous.getNumber(i) : Integer.MAX_VALUE;
+            int b = j < current.size() ? current.getNumber(j) : Integer.MAX_VALUE;
+            if (a < b) {
+                for (int k = 0; k < previous.getValueCount(i); k++) {
+                    addChange(diff, previous, i, k, ParameterChange.Kind.REMOVED, previous.getValue(i, k), null);
+                }
+                diff.setRemoved(diff.getRemoved() + 1);
+                i++;
+            } else if (a > b) {
+                for (int k = 0; k < current.getValueCount(j); k++) {
+                    addChange(diff, current, j, k, ParameterChange.Kind.ADDED, null, current.getValue(j, k));
+                }
+                diff.setAdded(diff.getAdded() + 1);
+                j++;
+            } else {
+                boolean changed = false;
+                int count = Math.max(previous.getValueCount(i), current.getValueCount(j));
+                boolean sameType = previous.types[i] == current.types[j];
+                for (int k = 0; k < count; k++) {
+                    boolean hasBefore = k < previous.getValueCount(i);
+                    boolean hasAfter = k < current.getValueCount(j);
+                    if (hasBefore && hasAfter && sameType && previous.getRaw(i, k) == current.getRaw(j, k)) {
+                        continue;
+                    }
+                    Double before = hasBefore ? previous.getValue(i, k) : null;
+                    Double after = hasAfter ? current.getValue(j, k) : null;
+                    if (before != null && before.equals(after)) {
+                        continue;
+                    }
+                    addChange(diff, hasAfter ? current : previous, hasAfter ? j : i, k,
+                            ParameterChange.Kind.CHANGED, before, after);
+                    changed = true;
+                }
+                if (changed) {
+                    diff.setChanged(diff.getChanged() + 1);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static void addChange(ParameterDiff diff, ParameterSnapshot snapshot, int index, int axisIndex,
+                                  ParameterChange.Kind kind, Double before, Double after) {
+        int axis = snapshot.isAxisParameter(index) ? axisIndex + 1 : 0;
+        diff.getChanges().add(new ParameterChange(snapshot.getNumber(index), axis, kind, before, after));
+    }
+}
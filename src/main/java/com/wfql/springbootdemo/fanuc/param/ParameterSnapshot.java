@@ -0,0 +1,279 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import com.sun.jna.Pointer;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 一台CNC在某一时刻的全部参数，按列存放
+ * <p>
+ * numbers（参数号，升序）、types（数据类型，最高位表示轴型参数）、offsets（每个参数在 values 中的起止下标）
+ * 和 values（全部参数值）四个数组，不为每个参数创建对象。值按原始整数保存：
+ * 位型/字节型/字型/双字型为符号扩展后的 int；实数型高 32 位为值、低 32 位为小数位数。
+ * 轴型参数带 maxAxis 个值，第 k 个值对应第 k+1 轴
+ * <p>
+ * 创建后不可修改，通过 {@link Builder} 构建
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:10
+ */
+public final class ParameterSnapshot {
+
+    /**
+     * types 中表示轴型参数的标志位
+     */
+    static final int AXIS_FLAG = 0x80;
+
+    /**
+     * 实数型参数的数据类型
+     */
+    static final int TYPE_REAL = 4;
+
+    @Getter
+    private final String deviceId;
+
+    /**
+     * 快照时间（毫秒时间戳），同时作为快照的编号
+     */
+    @Getter
+    private final long takenAt;
+
+    /**
+     * 最大控制轴数，轴型参数的值个数
+     */
+    @Getter
+    private final int maxAxis;
+
+    /**
+     * CNC系列和版本，版本变化通常意味着参数表也会变化
+     */
+    @Getter
+    private final String series;
+
+    @Getter
+    private final String version;
+
+    final int[] numbers;
+    final byte[] types;
+    final int[] offsets;
+    final long[] values;
+
+    ParameterSnapshot(String deviceId, long takenAt, int maxAxis, String series, String version,
+                      int[] numbers, byte[] types, int[] offsets, long[] values) {
+        this.deviceId = deviceId;
+        this.takenAt = takenAt;
+        this.maxAxis = maxAxis;
+        this.series = series;
+        this.version = version;
+        this.numbers = numbers;
+        this.types = types;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * 参数个数
+     */
+    public int size() {
+        return numbers.length;
+    }
+
+    /**
+     * 值的总个数（轴型参数每轴一个）
+     */
+    public int valueCount() {
+        return values.length;
+    }
+
+    public int getNumber(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * 数据类型：0 位型，1 字节型，2 字型，3 双字型，4 实数型
+     */
+    public int getType(int index) {
+        return types[index] & ~AXIS_FLAG;
+    }
+
+    public boolean isAxisParameter(int index) {
+        return (types[index] & AXIS_FLAG) != 0;
+    }
+
+    /**
+     * 该参数的值个数：无轴参数为 1，轴型参数为 maxAxis
+     */
+    public int getValueCount(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * 原始值，实数型为 值 &lt;&lt; 32 | 小数位数
+     */
+    public long getRaw(int index, int axisIndex) {
+        return values[offsets[index] + axisIndex];
+    }
+
+    /**
+     * 实际值，实数型已按小数位数换算
+     */
+    public double getValue(int index, int axisIndex) {
+        return toDouble(types[index], getRaw(index, axisIndex));
+    }
+
+    /**
+     * 参数号对应的下标，不存在时返回负数
+     */
+    public int indexOf(int number) {
+        return Arrays.binarySearch(numbers, number);
+    }
+
+    static double toDouble(byte type, long raw) {
+        if ((type & ~AXIS_FLAG) == TYPE_REAL) {
+            return (int) (raw >> 32) * Math.pow(10, -(int) raw);
+        }
+        return raw;
+    }
+
+    public static Builder builder(String deviceId, long takenAt, int maxAxis) {
+        return new Builder(deviceId, takenAt, maxAxis);
+    }
+
+    /**
+     * 快照构建器：参数号必须升序追加
+     */
+    public static final class Builder {
+
+        private final String deviceId;
+        private final long takenAt;
+        private final int maxAxis;
+        private String series;
+        private String version;
+
+        private int count;
+        private int valueCount;
+        private int[] numbers = new int[1024];
+        private byte[] types = new byte[1024];
+        private int[] offsets = new int[1025];
+        private long[] values = new long[2048];
+
+        private Builder(String deviceId, long takenAt, int maxAxis) {
+            if (maxAxis < 1 || maxAxis > 0x7F) {
+                throw new IllegalArgumentException("maxAxis 超出范围: " + maxAxis);
+            }
+            this.deviceId = deviceId;
+            this.takenAt = takenAt;
+            this.maxAxis = maxAxis;
+        }
+
+        public Builder system(String series, String version) {
+            this.series = series;
+            this.version = version;
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 解析一次 cnc_rdparar 返回的数据块，布局见 {@link FanucReadDevices#PARAM_RANGE_LENGTH}
+         *
+         * @param data   数据块
+         * @param length 实际写入的字节数
+         * @throws IllegalStateException 记录不完整或参数号不是升序（通常是最大轴数与CNC不一致）
+         */
+        public Builder appendRange(Pointer data, int length) {
+            long offset = 0;
+            while (offset < length) {
+                if (offset + 4 > length) {
+                    throw new IllegalStateException("参数数据块在偏移 " + offset + " 处不完整");
+                }
+                short typeWord = data.getShort(offset + 2);
+                int recordLength = FanucReadDevices.parameterRecordLength(typeWord, maxAxis);
+                if (offset + recordLength > length) {
+                    throw new IllegalStateException("参数 " + (data.getShort(offset) & 0xFFFF)
+                            + " 的记录超出数据块，最大轴数 " + maxAxis + " 可能与CNC不一致");
+                }
+                append(data, offset);
+                offset += recordLength;
+            }
+            return this;
+        }
+
+        /**
+         * 追加一条 IODBPSD 记录（cnc_rdparam 或 cnc_rdparar 的单条结果）
+         *
+         * @param data   数据起始地址
+         * @param offset 记录在 data 中的偏移
+         */
+        public Builder append(Pointer data, long offset) {
+            int number = data.getShort(offset) & 0xFFFF;
+            short typeWord = data.getShort(offset + 2);
+            int type = (typeWord >> 8) & 0xFF;
+            boolean axis = (byte) typeWord == FanucReadDevices.ALL_AXES;
+            int n = axis ? maxAxis : 1;
+            int size = FanucReadDevices.parameterSize(type);
+            long[] v = reserve(number, type, axis, n);
+            int base = valueCount;
+            for (int i = 0; i < n; i++) {
+                long at = offset + 4 + (long) i * size;
+                v[base + i] = switch (type) {
+                    case 0, 1 -> data.getByte(at);
+                    case 2 -> data.getShort(at);
+                    case TYPE_REAL -> (long) data.getInt(at) << 32 | (data.getInt(at + 4) & 0xFFFFFFFFL);
+                    default -> data.getInt(at);
+                };
+            }
+            commit(n);
+            return this;
+        }
+
+        /**
+         * 追加一个参数，values 为原始值（实数型为 值 &lt;&lt; 32 | 小数位数）
+         */
+        public Builder add(int number, int type, boolean axis, long... raw) {
+            int n = axis ? maxAxis : 1;
+            if (raw.length != n) {
+                throw new IllegalArgumentException("参数 " + number + " 应有 " + n + " 个值，实际 " + raw.length);
+            }
+            long[] v = reserve(number, type, axis, n);
+            System.arraycopy(raw, 0, v, valueCount, n);
+            commit(n);
+            return this;
+        }
+
+        private long[] reserve(int number, int type, boolean axis, int n) {
+            if (count > 0 && number <= numbers[count - 1]) {
+                throw new IllegalStateException("参数号不是升序: " + numbers[count - 1] + " -> " + number);
+            }
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, count * 2);
+                types = Arrays.copyOf(types, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            if (valueCount + n > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, valueCount + n));
+            }
+            numbers[count] = number;
+            types[count] = (byte) (type | (axis ? AXIS_FLAG : 0));
+            offsets[count] = valueCount;
+            return values;
+        }
+
+        private void commit(int n) {
+            valueCount += n;
+            count++;
+            offsets[count] = valueCount;
+        }
+
+        public ParameterSnapshot build() {
+            return new ParameterSnapshot(deviceId, takenAt, maxAxis, series, version,
+                    Arrays.copyOf(numbers, count), Arrays.copyOf(types, count),
+                    Arrays.copyOf(offsets, count + 1), Arrays.copyOf(values, valueCount));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import lombok.Getter;
+
+/**
+ * 读取参数快照失败
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:55
+ */
+@Getter
+public class ParameterSnapshotException extends RuntimeException {
+
+    private final String deviceId;
+
+    /**
+     * 失败的 FOCAS 返回码，数据解析失败时为 0
+     */
+    private final short errorCode;
+
+    public ParameterSnapshotException(String deviceId, short errorCode, String message) {
+        super(message);
+        this.deviceId = deviceId;
+        this.errorCode = errorCode;
+    }
+}
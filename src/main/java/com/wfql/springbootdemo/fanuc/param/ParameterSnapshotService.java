@@ -0,0 +1,260 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import com.wfql.springbootdemo.collect.DeviceTaskExecutor;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasBuffers;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 参数快照与比对
+ * <p>
+ * 用 cnc_rdparar 按范围整段读取参数（一次调用读取几百个），控制器不支持时退回逐个 cnc_rdparam；
+ * 快照按列保存为二进制文件，与同一设备的上一次快照比对后只返回变化的参数
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 19:00
+ */
+@Slf4j
+@Service
+public class ParameterSnapshotService {
+
+    private final FanucReadDevices fanucReadDevices;
+    private final FocasConnectionPool pool;
+    private final ParameterSnapshotStore store;
+    private final DeviceTaskExecutor executor;
+    private final FanucProperties properties;
+
+    /**
+     * 读取的参数号范围 {起始号, 结束号}，已排序且不重叠
+     */
+    private final int[][] ranges;
+
+    /**
+     * 不支持 cnc_rdparar 的设备，逐个读取
+     */
+    private final Set<String> singleReadDevices = ConcurrentHashMap.newKeySet();
+
+    public ParameterSnapshotService(FanucReadDevices fanucReadDevices, FocasConnectionPool pool,
+                                    ParameterSnapshotStore store, DeviceTaskExecutor executor,
+                                    FanucProperties properties) {
+        this.fanucReadDevices = fanucReadDevices;
+        this.pool = pool;
+        this.store = store;
+        this.executor = executor;
+        this.properties = properties;
+        this.ranges = parseRanges(properties.getParamSnapshot().getRanges());
+    }
+
+    /**
+     * 读取一台设备的全部参数（不保存）
+     *
+     * @throws ParameterSnapshotException 读取失败
+     * @throws com.wfql.springbootdemo.fanuc.pool.FocasPoolException 连接失败
+     */
+    public ParameterSnapshot takeSnapshot(FanucProperties.Device device) {
+        String deviceId = device.getId();
+        try (FocasConnection connection = pool.borrow(device.getIp(), device.getPort())) {
+            short handle = connection.getHandle();
+            FanucReadDevices.SystemInfo system = fanucReadDevices.readSystemInfoWithError(handle);
+            if (!system.isSuccess()) {
+                connection.check(system.getErrorCode());
+                throw new ParameterSnapshotException(deviceId, system.getErrorCode(), system.getErrorMessage());
+            }
+            ParameterSnapshot.Builder builder = ParameterSnapshot.builder(deviceId, System.currentTimeMillis(),
+                    system.getMaxAxis()).system(system.getSeries(), system.getVersion());
+            try {
+                if (singleReadDevices.contains(deviceId)) {
+                    for (int[] range : ranges) {
+                        readSingle(connection, deviceId, range[0], range[1], builder);
+                    }
+                } else {
+                    readRanges(connection, deviceId, builder);
+                }
+            } catch (IllegalStateException e) {
+                throw new ParameterSnapshotException(deviceId, FocasErrorCode.EW_OK, e.getMessage());
+            }
+            return builder.build();
+        }
+    }
+
+    private void readRanges(FocasConnection connection, String deviceId, ParameterSnapshot.Builder builder) {
+        FanucReadDevices.ParameterRangeBuffer buffer = new FanucReadDevices.ParameterRangeBuffer();
+        for (int[] range : ranges) {
+            int next = range[0];
+            while (next <= range[1]) {
+                short result = connection.check(
+                        fanucReadDevices.readParameterRange(connection.getHandle(), next, range[1], buffer));
+                if (result == FocasErrorCode.EW_NUMBER) {
+                    // 剩余范围内没有参数
+                    break;
+                }
+                if (result == FocasErrorCode.EW_FUNC || result == FocasErrorCode.EW_NOOPT) {
+                    log.info("设备 {} 不支持 cnc_rdparar，改为逐个读取参数", deviceId);
+                    singleReadDevices.add(deviceId);
+                    readSingle(connection, deviceId, next, range[1], builder);
+                    break;
+                }
+                if (result != FocasErrorCode.EW_OK) {
+                    throw new ParameterSnapshotException(deviceId, result,
+                            "读取参数 " + next + "~" + range[1] + " 失败，错误代码: " + result);
+                }
+                builder.appendRange(buffer.getData(), buffer.getLength());
+                if (buffer.getLength() == 0 || buffer.getLastNumber() < next) {
+                    break;
+                }
+                next = buffer.getLastNumber() + 1;
+            }
+        }
+    }
+
+    private void readSingle(FocasConnection connection, String deviceId, int start, int end,
+                            ParameterSnapshot.Builder builder) {
+        short handle = connection.getHandle();
+        FocasBuffers buffers = connection.getBuffers();
+        short allAxesLength = (short) (4 + 8 * FocasBuffers.MAX_AXIS);
+        for (int number = start; number <= end; number++) {
+            short result = connection.check(fanucReadDevices.readParameter(handle, (short) number, (short) 0,
+                    (short) (4 + 8), buffers));
+            if (result == FocasErrorCode.EW_ATTRIB) {
+                result = connection.check(fanucReadDevices.readParameter(handle, (short) number,
+                        FanucReadDevices.ALL_AXES, allAxesLength, buffers));
+            }
+            if (result == FocasErrorCode.EW_NUMBER) {
+                continue;
+            }
+            if (result != FocasErrorCode.EW_OK) {
+                throw new ParameterSnapshotException(deviceId, result,
+                        "读取参数 " + number + " 失败，错误代码: " + result);
+            }
+            builder.append(buffers.getParamData(), 0);
+        }
+    }
+
+    /**
+     * 读取快照，与上一次快照比对后保存
+     */
+    public ParameterDiff audit(FanucProperties.Device device) {
+        ParameterSnapshot current = takeSnapshot(device);
+        ParameterSnapshot previous = store.latest(device.getId()).orElse(null);
+        ParameterDiff diff = ParameterDiffer.diff(previous, current);
+        store.save(current);
+        if (diff.hasChanges()) {
+            log.info("设备 {} 参数变化: 新增 {}，删除 {}，修改 {}", device.getId(),
+                    diff.getAdded(), diff.getRemoved(), diff.getChanged());
+        }
+        return diff;
+    }
+
+    public ParameterDiff audit(String deviceId) {
+        return audit(findDevice(deviceId));
+    }
+
+    /**
+     * 并发巡检全部设备，单台失败不影响其他设备
+     */
+    public List<ParameterAuditResult> auditAll() {
+        List<CompletableFuture<ParameterAuditResult>> futures = new ArrayList<>();
+        for (FanucProperties.Device device : properties.getDevices()) {
+            CompletableFuture<ParameterAuditResult> future = new CompletableFuture<>();
+            futures.add(future);
+            try {
+                executor.execute(device.getId(), () -> future.complete(auditQuietly(device)));
+            } catch (RuntimeException e) {
+                future.complete(failed(device.getId(), 0, e));
+            }
+        }
+        List<ParameterAuditResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<ParameterAuditResult> future : futures) {
+            results.add(future.join());
+        }
+        results.sort(Comparator.comparing(ParameterAuditResult::getDeviceId));
+        return results;
+    }
+
+    private ParameterAuditResult auditQuietly(FanucProperties.Device device) {
+        long start = System.nanoTime();
+        try {
+            ParameterAuditResult result = new ParameterAuditResult();
+            result.setDeviceId(device.getId());
+            result.setDiff(audit(device));
+            result.setSuccess(true);
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            return result;
+        } catch (RuntimeException e) {
+            log.warn("设备 {} 参数巡检失败: {}", device.getId(), e.getMessage());
+            return failed(device.getId(), start, e);
+        }
+    }
+
+    private static ParameterAuditResult failed(String deviceId, long startNanos, RuntimeException e) {
+        ParameterAuditResult result = new ParameterAuditResult();
+        result.setDeviceId(deviceId);
+        result.setErrorMessage(e.getMessage());
+        result.setElapsedMillis(startNanos == 0 ? 0 : (System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * 比对已保存的两次快照
+     */
+    public Optional<ParameterDiff> diff(String deviceId, long fromTakenAt, long toTakenAt) {
+        Optional<ParameterSnapshot> from = store.load(deviceId, fromTakenAt);
+        Optional<ParameterSnapshot> to = store.load(deviceId, toTakenAt);
+        if (from.isEmpty() || to.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(ParameterDiffer.diff(from.get(), to.get()));
+    }
+
+    public List<Long> listSnapshots(String deviceId) {
+        return store.list(deviceId);
+    }
+
+    private FanucProperties.Device findDevice(String deviceId) {
+        for (FanucProperties.Device device : properties.getDevices()) {
+            if (device.getId().equals(deviceId)) {
+                return device;
+            }
+        }
+        throw new IllegalArgumentException("未配置的设备: " + deviceId);
+    }
+
+    static int[][] parseRanges(List<String> specs) {
+        List<int[]> parsed = new ArrayList<>();
+        for (String spec : specs) {
+            String[] parts = spec.trim().split("\\s*-\\s*");
+            try {
+                int start = Integer.parseInt(parts[0]);
+                int end = parts.length > 1 ? Integer.parseInt(parts[1]) : start;
+                if (parts.length > 2 || start < 0 || end < start || end > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("fanuc.param-snapshot.ranges 格式错误: " + spec);
+                }
+                parsed.add(new int[]{start, end});
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("fanuc.param-snapshot.ranges 格式错误: " + spec, e);
+            }
+        }
+        parsed.sort(Comparator.comparingInt(r -> r[0]));
+        for (int i = 1; i < parsed.size(); i++) {
+            if (parsed.get(i)[0] <= parsed.get(i - 1)[1]) {
+                throw new IllegalArgumentException("fanuc.param-snapshot.ranges 范围重叠: "
+                        + parsed.get(i - 1)[0] + "-" + parsed.get(i - 1)[1] + ", " + parsed.get(i)[0] + "-" + parsed.get(i)[1]);
+            }
+        }
+        return parsed.toArray(new int[0][]);
+    }
+}
@@ -0,0 +1,142 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 参数快照文件存储
+ * <p>
+ * 每台设备一个子目录，文件名为快照时间戳（{takenAt}.fps）；先写临时文件再改名，
+ * 写到一半的文件不会被当作最新快照。超过保留个数时删除最旧的
+ *
+ * @Package com.wfql.springbootdemo.fanuc.param
+ * @Author guoqing.ling
+ * @Date 2026/10/17 18:50
+ */
+@Slf4j
+@Component
+public class ParameterSnapshotStore {
+
+    private static final String SUFFIX = ".fps";
+
+    private final Path root;
+    private final int keep;
+
+    public ParameterSnapshotStore(FanucProperties properties) {
+        FanucProperties.ParamSnapshot config = properties.getParamSnapshot();
+        this.root = Paths.get(config.getDir());
+        this.keep = Math.max(1, config.getKeep());
+    }
+
+    public void save(ParameterSnapshot snapshot) {
+        Path dir = deviceDir(snapshot.getDeviceId());
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "snapshot", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                ParameterSnapshotCodec.write(snapshot, out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            Files.move(tmp, dir.resolve(snapshot.getTakenAt() + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存参数快照失败: " + snapshot.getDeviceId(), e);
+        }
+        prune(snapshot.getDeviceId());
+    }
+
+    /**
+     * 设备的快照时间列表，从旧到新
+     */
+    public List<Long> list(String deviceId) {
+        Path dir = deviceDir(deviceId);
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    try {
+                        result.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // 非快照文件
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取参数快照目录失败: " + dir, e);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    public Optional<ParameterSnapshot> load(String deviceId, long takenAt) {
+        Path file = deviceDir(deviceId).resolve(takenAt + SUFFIX);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return Optional.of(ParameterSnapshotCodec.read(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取参数快照失败: " + file, e);
+        }
+    }
+
+    /**
+     * 最新一次快照；文件损坏时跳过，继续找更早的
+     */
+    public Optional<ParameterSnapshot> latest(String deviceId) {
+        List<Long> times = list(deviceId);
+        for (int i = times.size() - 1; i >= 0; i--) {
+            try {
+                return load(deviceId, times.get(i));
+            } catch (UncheckedIOException e) {
+                log.warn("参数快照 {}/{} 无法读取，跳过: {}", deviceId, times.get(i), e.getCause().getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void prune(String deviceId) {
+        List<Long> times = list(deviceId);
+        for (int i = 0; i < times.size() - keep; i++) {
+            try {
+                Files.deleteIfExists(deviceDir(deviceId).resolve(times.get(i) + SUFFIX));
+            } catch (IOException e) {
+                log.warn("删除旧参数快照失败: {}/{}", deviceId, times.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * 设备编号默认为 IP:端口，替换掉文件名中不允许的字符；"."、".." 会指向快照根目录或其上级，直接拒绝
+     *
+     * @throws IllegalArgumentException 设备编号为空或只由 . 组成
+     */
+    private Path deviceDir(String deviceId) {
+        String name = deviceId.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            throw new IllegalArgumentException("非法的设备编号: " + deviceId);
+        }
+        return root.resolve(name);
+    }
+}
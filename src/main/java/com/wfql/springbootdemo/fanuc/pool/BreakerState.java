@@ -0,0 +1,26 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+/**
+ * 单台CNC的熔断状态
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:50
+ */
+public enum BreakerState {
+
+    /**
+     * 正常放行
+     */
+    CLOSED,
+
+    /**
+     * 熔断中，借用直接失败
+     */
+    OPEN,
+
+    /**
+     * 等待时间已到，放行一次探测，其余借用仍直接失败
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,23 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import lombok.Data;
+
+/**
+ * 单台CNC熔断器的状态快照
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:50
+ */
+@Data
+public class BreakerStats {
+    private String endpoint;
+    private BreakerState state;
+    private int consecutiveFailures;  // 连续失败次数
+    private short lastErrorCode;      // 最近一次失败的错误代码
+    private long retryInMillis;       // 距下一次放行探测的时间（毫秒），未熔断时为 0
+    private long openDurationMillis;  // 当前熔断等待时间（毫秒）
+    private long opened;              // 累计熔断次数
+    private long rejected;            // 熔断期间直接拒绝的借用次数
+    private long stateChangedAt;      // 最近一次状态变化的时间（毫秒）
+}
@@ -0,0 +1,138 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 单台CNC的熔断器
+ * <p>
+ * CLOSED 下连续失败达到 failure-threshold 转为 OPEN，借用直接失败，不再占用线程等待 cnc_allclibhndl3 超时；
+ * open-duration 到期后转为 HALF_OPEN，只放行一次探测：成功回到 CLOSED，失败回到 OPEN 且等待时间翻倍（不超过 max-open-duration）
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:50
+ */
+@Slf4j
+final class CircuitBreaker {
+
+    private final CncEndpoint endpoint;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long baseOpenNanos;
+    private final long maxOpenNanos;
+    private final LongSupplier nanoClock;
+
+    private BreakerState state = BreakerState.CLOSED;
+    private int consecutiveFailures;
+    private short lastErrorCode = FocasErrorCode.EW_OK;
+    private long openNanos;
+    private long retryAtNanos;
+    private boolean probing;
+    private long opened;
+    private long rejected;
+    private long stateChangedAt = System.currentTimeMillis();
+
+    /**
+     * @param nanoClock 计时用的单调时钟，生产环境为 System::nanoTime
+     */
+    CircuitBreaker(CncEndpoint endpoint, FanucProperties.Breaker config, LongSupplier nanoClock) {
+        this.endpoint = endpoint;
+        this.nanoClock = nanoClock;
+        this.enabled = config.isEnabled();
+        this.failureThreshold = Math.max(1, config.getFailureThreshold());
+        this.baseOpenNanos = config.getOpenDuration().toNanos();
+        this.maxOpenNanos = Math.max(baseOpenNanos, config.getMaxOpenDuration().toNanos());
+        this.openNanos = baseOpenNanos;
+    }
+
+    /**
+     * 是否放行一次借用；HALF_OPEN 下放行的调用即为探测，之后必须调用 onSuccess、onFailure 或 onAbort 之一
+     */
+    synchronized boolean tryAcquire() {
+        if (!enabled || state == BreakerState.CLOSED) {
+            return true;
+        }
+        if (state == BreakerState.OPEN && nanoClock.getAsLong() - retryAtNanos >= 0) {
+            transition(BreakerState.HALF_OPEN);
+        }
+        if (state == BreakerState.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        if (state != BreakerState.CLOSED) {
+            openNanos = baseOpenNanos;
+            transition(BreakerState.CLOSED);
+            log.info("CNC {} 恢复，熔断关闭", endpoint);
+        }
+    }
+
+    synchronized void onFailure(short errorCode) {
+        consecutiveFailures++;
+        lastErrorCode = errorCode;
+        if (!enabled) {
+            return;
+        }
+        if (state == BreakerState.HALF_OPEN) {
+            probing = false;
+            openNanos = Math.min(openNanos * 2, maxOpenNanos);
+            open();
+        } else if (state == BreakerState.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 放行后因与CNC无关的原因（如等待本地句柄超时）未能执行，探测机会交给下一次借用
+     */
+    synchronized void onAbort() {
+        probing = false;
+    }
+
+    short getLastErrorCode() {
+        return lastErrorCode;
+    }
+
+    synchronized long retryInMillis() {
+        return state == BreakerState.CLOSED ? 0
+                : Math.max(0, TimeUnit.NANOSECONDS.toMillis(retryAtNanos - nanoClock.getAsLong()));
+    }
+
+    private void open() {
+        retryAtNanos = nanoClock.getAsLong() + openNanos;
+        opened++;
+        transition(BreakerState.OPEN);
+        log.warn("CNC {} 连续失败 {} 次（错误代码: {}），熔断 {}s", endpoint, consecutiveFailures, lastErrorCode,
+                TimeUnit.NANOSECONDS.toSeconds(openNanos));
+    }
+
+    private void transition(BreakerState next) {
+        state = next;
+        stateChangedAt = System.currentTimeMillis();
+    }
+
+    synchronized BreakerStats snapshot() {
+        BreakerStats stats = new BreakerStats();
+        stats.setEndpoint(endpoint.toString());
+        stats.setState(state);
+        stats.setConsecutiveFailures(consecutiveFailures);
+        stats.setLastErrorCode(lastErrorCode);
+        stats.setRetryInMillis(retryInMillis());
+        stats.setOpenDurationMillis(TimeUnit.NANOSECONDS.toMillis(openNanos));
+        stats.setOpened(opened);
+        stats.setRejected(rejected);
+        stats.setStateChangedAt(stateChangedAt);
+        return stats;
+    }
+}
@@ -0,0 +1,35 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * CNC 连接地址（IP:端口），作为连接池的键
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:12
+ */
+@Getter
+@EqualsAndHashCode
+public final class CncEndpoint {
+
+    private final String ip;
+    private final int port;
+
+    public CncEndpoint(String ip, int port) {
+        if (ip == null || ip.isBlank()) {
+            throw new IllegalArgumentException("CNC地址不能为空");
+        }
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("CNC端口不合法: " + port);
+        }
+        this.ip = ip;
+        this.port = port;
+    }
+
+    @Override
+    public String toString() {
+        return ip + ":" + port;
+    }
+}
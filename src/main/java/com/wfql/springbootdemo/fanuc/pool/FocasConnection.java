@@ -0,0 +1,143 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import com.wfql.springbootdemo.fanuc.FocasBuffers;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.Getter;
+
+/**
+ * 从连接池借出的 FOCAS 库句柄
+ * <p>
+ * 同一时刻只归一个调用方使用，用完后调用 {@link #close()} 归还；
+ * 调用过程中出现 EW_SOCKET / EW_HANDLE 等错误时应调用 {@link #check(short)} 或 {@link #markBroken()}，
+ * 归还时句柄会被释放而不是放回池中
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:20
+ */
+public final class FocasConnection implements AutoCloseable {
+
+    private final FocasConnectionPool pool;
+
+    @Getter
+    private final CncEndpoint endpoint;
+
+    @Getter
+    private final short handle;
+
+    @Getter
+    private final long createdAt;
+
+    /**
+     * 最近一次归还（或创建）的时间，用于空闲回收和借出前健康检查
+     */
+    volatile long lastUsedAt;
+
+    private volatile boolean broken;
+
+    /**
+     * 使句柄失效的错误代码
+     */
+    private volatile short lastErrorCode = FocasErrorCode.EW_OK;
+
+    private boolean returned;
+
+    /**
+     * 该句柄专用的可复用缓冲区，首次使用时创建，随句柄一起释放
+     */
+    private FocasBuffers buffers;
+
+    FocasConnection(FocasConnectionPool pool, CncEndpoint endpoint, short handle) {
+        this.pool = pool;
+        this.endpoint = endpoint;
+        this.handle = handle;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = this.createdAt;
+    }
+
+    /**
+     * 检查 FOCAS 返回码，连接级错误时将句柄标记为失效
+     *
+     * @param result FOCAS 返回码
+     * @return 原样返回 result，便于链式使用
+     */
+    public short check(short result) {
+        if (FocasErrorCode.isConnectionError(result)) {
+            lastErrorCode = result;
+            broken = true;
+        }
+        return result;
+    }
+
+    /**
+     * 该句柄的可复用缓冲区，仅借用方在借用期间使用
+     */
+    public FocasBuffers getBuffers() {
+        FocasBuffers b = buffers;
+        if (b == null) {
+            b = new FocasBuffers();
+            buffers = b;
+        }
+        return b;
+    }
+
+    /**
+     * 标记句柄失效，归还时直接释放；未给出错误代码时按 EW_SOCKET 计
+     */
+    public void markBroken() {
+        markBroken(FocasErrorCode.EW_SOCKET);
+    }
+
+    /**
+     * 因某次调用失败而标记句柄失效，归还时直接释放
+     * <p>
+     * 记录该调用的实际错误代码；非连接级错误（如 cnc_dwnend3 的逻辑失败）说明CNC仍有应答，归还时不计入熔断
+     *
+     * @param errorCode 导致句柄失效的 FOCAS 返回码
+     */
+    public void markBroken(short errorCode) {
+        if (lastErrorCode == FocasErrorCode.EW_OK) {
+            lastErrorCode = errorCode;
+        }
+        broken = true;
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * 使句柄失效的错误代码，未失效时为 EW_OK
+     */
+    public short getLastErrorCode() {
+        return lastErrorCode;
+    }
+
+    /**
+     * 归还句柄，重复调用无副作用
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (returned) {
+                return;
+            }
+            returned = true;
+        }
+        pool.release(this);
+    }
+
+    /**
+     * 重新借出前复位归还标记
+     */
+    void reuse() {
+        synchronized (this) {
+            returned = false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FocasConnection{endpoint=" + endpoint + ", handle=" + handle + ", broken=" + broken + "}";
+    }
+}
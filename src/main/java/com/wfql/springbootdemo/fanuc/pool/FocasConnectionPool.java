@@ -0,0 +1,341 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.backend.FocasBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 按 CNC（IP:端口）划分的 FOCAS 库句柄连接池
+ * <p>
+ * 每台CNC持有的句柄数受 fanuc.pool.max-per-machine 限制；空闲句柄按后进先出复用，
+ * 空闲超过 validate-after-idle 的句柄借出前用 cnc_alarm2 做健康检查，超过 idle-timeout 的句柄由后台任务释放。
+ * 每台CNC一个 {@link CircuitBreaker}：连续连接失败后借用直接抛出异常，关机的CNC不再让工作线程阻塞在 connect-timeout 上
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:32
+ */
+@Slf4j
+@Component
+public class FocasConnectionPool {
+
+    private final FocasBackend backend;
+    private final FanucProperties.Pool config;
+    private final LongSupplier nanoClock;
+    private final Map<CncEndpoint, KeyedPool> pools = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    @Autowired
+    public FocasConnectionPool(FocasBackend backend, FanucProperties properties) {
+        this(backend, properties, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 熔断器计时用的时钟，测试中替换为可手动推进的时钟
+     */
+    FocasConnectionPool(FocasBackend backend, FanucProperties properties, LongSupplier nanoClock) {
+        this.backend = backend;
+        this.config = properties.getPool();
+        this.nanoClock = nanoClock;
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = config.getEvictionInterval().toMillis();
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fanuc-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 借用指定CNC的句柄
+     *
+     * @param ip   CNC的IP地址
+     * @param port FOCAS端口号
+     * @return 借出的句柄，使用完毕后必须 close 归还
+     * @throws FocasPoolException 等待超时或连接CNC失败
+     */
+    public FocasConnection borrow(String ip, int port) {
+        return borrow(new CncEndpoint(ip, port));
+    }
+
+    /**
+     * 借用指定CNC的句柄
+     *
+     * @param endpoint CNC地址
+     * @return 借出的句柄，使用完毕后必须 close 归还
+     * @throws FocasPoolException 等待超时、连接CNC失败或CNC处于熔断中
+     */
+    public FocasConnection borrow(CncEndpoint endpoint) {
+        if (closed) {
+            throw new IllegalStateException("FOCAS连接池已关闭");
+        }
+        KeyedPool pool = pools.computeIfAbsent(endpoint, KeyedPool::new);
+        if (!pool.breaker.tryAcquire()) {
+            // 返回最近一次失败的错误代码，调用方按连接错误处理
+            throw new FocasPoolException(endpoint, pool.breaker.getLastErrorCode(),
+                    "CNC熔断中: " + endpoint + "，" + pool.breaker.retryInMillis() + "ms 后重试");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!pool.permits.tryAcquire(config.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                pool.borrowTimeouts.increment();
+                pool.breaker.onAbort();
+                throw new FocasPoolException(endpoint, FocasErrorCode.EW_OK,
+                        "等待CNC句柄超时: " + endpoint + "，已借出 " + config.getMaxPerMachine() + " 个");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.breaker.onAbort();
+            throw new FocasPoolException(endpoint, FocasErrorCode.EW_OK, "等待CNC句柄时被中断: " + endpoint);
+        }
+
+        try {
+            FocasConnection connection = takeIdle(pool);
+            if (connection == null) {
+                connection = create(pool);
+            }
+            connection.reuse();
+            pool.recordBorrow(System.nanoTime() - start);
+            return connection;
+        } catch (FocasPoolException e) {
+            // 连接失败已在 create 中计入熔断
+            pool.permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            // 本地异常（如 JNA 调用出错）不计为CNC故障，但要交还 HALF_OPEN 的探测机会
+            pool.permits.release();
+            pool.breaker.onAbort();
+            throw e;
+        }
+    }
+
+    /**
+     * 取出一个可用的空闲句柄，长时间未使用的先做健康检查
+     */
+    private FocasConnection takeIdle(KeyedPool pool) {
+        long validateAfter = config.getValidateAfterIdle().toMillis();
+        FocasConnection connection;
+        while ((connection = pool.idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - connection.lastUsedAt < validateAfter || validate(connection)) {
+                return connection;
+            }
+            pool.validationFailures.increment();
+            destroy(pool, connection);
+        }
+        return null;
+    }
+
+    private boolean validate(FocasConnection connection) {
+        short result = backend.cnc_alarm2(connection.getHandle(), new IntByReference());
+        if (result != FocasErrorCode.EW_OK) {
+            log.warn("CNC句柄健康检查失败: {}, 错误代码: {}", connection, result);
+            return false;
+        }
+        return true;
+    }
+
+    private FocasConnection create(KeyedPool pool) {
+        CncEndpoint endpoint = pool.endpoint;
+        ShortByReference handle = new ShortByReference();
+        short result = backend.cnc_allclibhndl3(endpoint.getIp(), (short) endpoint.getPort(),
+                config.getConnectTimeoutSeconds(), handle);
+        if (result != FocasErrorCode.EW_OK) {
+            pool.connectFailures.increment();
+            pool.breaker.onFailure(result);
+            throw new FocasPoolException(endpoint, result, "连接CNC失败: " + endpoint + "，错误代码: " + result);
+        }
+        pool.alive.incrementAndGet();
+        pool.created.increment();
+        pool.breaker.onSuccess();
+        log.debug("创建CNC句柄: {} -> {}", endpoint, handle.getValue());
+        return new FocasConnection(this, endpoint, handle.getValue());
+    }
+
+    /**
+     * 归还句柄，由 {@link FocasConnection#close()} 调用
+     */
+    void release(FocasConnection connection) {
+        KeyedPool pool = pools.get(connection.getEndpoint());
+        if (pool == null) {
+            // 连接池已关闭并清空
+            freeHandle(connection);
+            return;
+        }
+        if (connection.isBroken() && FocasErrorCode.isConnectionError(connection.getLastErrorCode())) {
+            pool.breaker.onFailure(connection.getLastErrorCode());
+        } else {
+            pool.breaker.onSuccess();
+        }
+        try {
+            if (closed || connection.isBroken() || pool.alive.get() > config.getMaxPerMachine()) {
+                destroy(pool, connection);
+            } else {
+                connection.lastUsedAt = System.currentTimeMillis();
+                pool.idle.offerFirst(connection);
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    private void destroy(KeyedPool pool, FocasConnection connection) {
+        pool.alive.decrementAndGet();
+        pool.destroyed.increment();
+        freeHandle(connection);
+    }
+
+    private void freeHandle(FocasConnection connection) {
+        short result = backend.cnc_freelibhndl(connection.getHandle());
+        if (result != FocasErrorCode.EW_OK) {
+            log.debug("释放CNC句柄失败: {}, 错误代码: {}", connection, result);
+        }
+    }
+
+    /**
+     * 释放空闲超时的句柄
+     */
+    void evictIdle() {
+        long deadline = System.currentTimeMillis() - config.getIdleTimeout().toMillis();
+        for (KeyedPool pool : pools.values()) {
+            Iterator<FocasConnection> it = pool.idle.descendingIterator();
+            while (it.hasNext()) {
+                FocasConnection connection = it.next();
+                // remove 成功才说明没有被并发借走
+                if (connection.lastUsedAt < deadline && pool.idle.remove(connection)) {
+                    log.debug("回收空闲CNC句柄: {}", connection);
+                    destroy(pool, connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * 释放指定CNC的全部空闲句柄，例如CNC重启后
+     *
+     * @param endpoint CNC地址
+     */
+    public void clear(CncEndpoint endpoint) {
+        KeyedPool pool = pools.get(endpoint);
+        if (pool == null) {
+            return;
+        }
+        FocasConnection connection;
+        while ((connection = pool.idle.pollFirst()) != null) {
+            destroy(pool, connection);
+        }
+    }
+
+    /**
+     * 获取各CNC连接池的统计信息
+     *
+     * @return 以 "IP:端口" 为键的统计快照
+     */
+    public Map<String, PoolStats> getStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        for (KeyedPool pool : pools.values()) {
+            stats.put(pool.endpoint.toString(), pool.snapshot());
+        }
+        return stats;
+    }
+
+    /**
+     * 获取各CNC熔断器的状态
+     *
+     * @return 以 "IP:端口" 为键的状态快照
+     */
+    public Map<String, BreakerStats> getBreakers() {
+        Map<String, BreakerStats> stats = new LinkedHashMap<>();
+        for (KeyedPool pool : pools.values()) {
+            stats.put(pool.endpoint.toString(), pool.breaker.snapshot());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (CncEndpoint endpoint : pools.keySet()) {
+            clear(endpoint);
+        }
+    }
+
+    /**
+     * 单台CNC的句柄池
+     */
+    private final class KeyedPool {
+        final CncEndpoint endpoint;
+        final Semaphore permits;
+        final CircuitBreaker breaker;
+        final ConcurrentLinkedDeque<FocasConnection> idle = new ConcurrentLinkedDeque<>();
+        final AtomicInteger alive = new AtomicInteger();
+        final LongAdder created = new LongAdder();
+        final LongAdder destroyed = new LongAdder();
+        final LongAdder borrowCount = new LongAdder();
+        final LongAdder borrowWaitNanos = new LongAdder();
+        final LongAccumulator maxBorrowWaitNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder borrowTimeouts = new LongAdder();
+        final LongAdder connectFailures = new LongAdder();
+        final LongAdder validationFailures = new LongAdder();
+
+        KeyedPool(CncEndpoint endpoint) {
+            this.endpoint = endpoint;
+            this.permits = new Semaphore(config.getMaxPerMachine(), true);
+            this.breaker = new CircuitBreaker(endpoint, config.getBreaker(), nanoClock);
+        }
+
+        void recordBorrow(long waitNanos) {
+            borrowCount.increment();
+            borrowWaitNanos.add(waitNanos);
+            maxBorrowWaitNanos.accumulate(waitNanos);
+        }
+
+        PoolStats snapshot() {
+            PoolStats stats = new PoolStats();
+            long count = borrowCount.sum();
+            stats.setEndpoint(endpoint.toString());
+            stats.setMaxTotal(config.getMaxPerMachine());
+            stats.setActive(config.getMaxPerMachine() - permits.availablePermits());
+            stats.setIdle(idle.size());
+            stats.setCreated(created.sum());
+            stats.setDestroyed(destroyed.sum());
+            stats.setBorrowCount(count);
+            stats.setBorrowTimeouts(borrowTimeouts.sum());
+            stats.setConnectFailures(connectFailures.sum());
+            stats.setValidationFailures(validationFailures.sum());
+            stats.setAvgBorrowWaitMillis(count == 0 ? 0 : borrowWaitNanos.sum() / (double) count / 1_000_000);
+            stats.setMaxBorrowWaitMillis(maxBorrowWaitNanos.get() / 1_000_000.0);
+            stats.setBreakerState(breaker.snapshot().getState());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import lombok.Getter;
+
+/**
+ * 连接池借用句柄失败（等待超时或连接CNC失败）
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:15
+ */
+@Getter
+public class FocasPoolException extends RuntimeException {
+
+    private final CncEndpoint endpoint;
+
+    /**
+     * cnc_allclibhndl3 的返回码，等待超时时为 0
+     */
+    private final short errorCode;
+
+    public FocasPoolException(CncEndpoint endpoint, short errorCode, String message) {
+        super(message);
+        this.endpoint = endpoint;
+        this.errorCode = errorCode;
+    }
+}
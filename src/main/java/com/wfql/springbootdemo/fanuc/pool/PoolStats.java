@@ -0,0 +1,27 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import lombok.Data;
+
+/**
+ * 单台CNC连接池的统计快照
+ *
+ * @Package com.wfql.springbootdemo.fanuc.pool
+ * @Author guoqing.ling
+ * @Date 2026/10/17 10:26
+ */
+@Data
+public class PoolStats {
+    private String endpoint;
+    private int maxTotal;        // 最大句柄数
+    private int active;          // 借出中的句柄数
+    private int idle;            // 空闲句柄数
+    private long created;        // 累计创建句柄数
+    private long destroyed;      // 累计释放句柄数
+    private long borrowCount;    // 累计借用次数
+    private long borrowTimeouts; // 等待超时次数
+    private long connectFailures; // cnc_allclibhndl3 失败次数
+    private long validationFailures; // 健康检查失败次数
+    private double avgBorrowWaitMillis; // 平均借用等待时间（毫秒）
+    private double maxBorrowWaitMillis; // 最大借用等待时间（毫秒）
+    private BreakerState breakerState; // 熔断状态，详见 BreakerStats
+}
@@ -0,0 +1,36 @@
+package com.wfql.springbootdemo.fanuc.program;
+
+import lombok.Data;
+
+/**
+ * 一台设备的程序下发结果
+ *
+ * @Package com.wfql.springbootdemo.fanuc.program
+ * @Author guoqing.ling
+ * @Date 2026/10/17 20:10
+ */
+@Data
+public class ProgramDownloadResult {
+
+    /**
+     * 下发步骤
+     */
+    public enum Stage {
+        SUBMIT,   // 提交任务
+        CONNECT,  // 获取句柄
+        START,    // cnc_dwnstart3
+        DOWNLOAD, // cnc_download3
+        END       // cnc_dwnend3
+    }
+
+    private String deviceId;
+    private boolean success;
+    private Stage failedStage;    // 失败的步骤，成功时为 null
+    private short errorCode;
+    private String errorMessage;
+    private long sentBytes;       // 已被CNC接收的字节数
+    private int calls;            // cnc_download3 调用次数
+    private int bufferRetries;    // EW_BUFFER 重试次数
+    private long waitMillis;      // 从提交到开始执行的等待时间（受并发上限限制）
+    private long elapsedMillis;   // 连接、开始、发送、结束的总耗时
+}
@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.fanuc.program;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次程序批量下发的汇总结果
+ *
+ * @Package com.wfql.springbootdemo.fanuc.program
+ * @Author guoqing.ling
+ * @Date 2026/10/17 20:10
+ */
+@Data
+public class ProgramRolloutReport {
+    private int programBytes;      // 编码后的程序长度（含 NULL 终止符）
+    private int maxConcurrency;
+    private int targets;
+    private int succeeded;
+    private int failed;
+    private long elapsedMillis;    // 整批耗时
+    private long slowestMillis;    // 最慢一台设备的耗时，并发足够时整批耗时应接近该值
+    private List<ProgramDownloadResult> results = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package com.wfql.springbootdemo.fanuc.program;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 程序批量下发请求：deviceIds 和 cell 至少指定一个，两者都指定时取并集
+ *
+ * @Package com.wfql.springbootdemo.fanuc.program
+ * @Author guoqing.ling
+ * @Date 2026/10/17 20:10
+ */
+@Data
+public class ProgramRolloutRequest {
+    private List<String> deviceIds;  // 目标设备编号
+    private String cell;             // 目标单元，下发到该单元的全部设备
+    private String program;          // NC程序内容
+    private Integer maxConcurrency;  // 同时下发的设备数，为空时使用 fanuc.rollout.max-concurrency
+}
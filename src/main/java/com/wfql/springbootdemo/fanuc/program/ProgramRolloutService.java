@@ -0,0 +1,210 @@
+package com.wfql.springbootdemo.fanuc.program;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import com.wfql.springbootdemo.fanuc.pool.FocasPoolException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 把同一个NC程序下发到多台CNC
+ * <p>
+ * 程序只编码一次，编码结果放在只读的本地内存中，各设备的 cnc_download3 直接从中分段发送；
+ * 每台设备的 cnc_dwnstart3 / cnc_download3 / cnc_dwnend3 在独立的虚拟线程中执行，不占用轮询的 fanucThreadPoolExecutor，
+ * 同时执行的设备数只由 maxConcurrency 信号量限制，整批耗时约等于最慢一台设备的耗时
+ *
+ * @Package com.wfql.springbootdemo.fanuc.program
+ * @Author guoqing.ling
+ * @Date 2026/10/17 20:15
+ */
+@Slf4j
+@Service
+public class ProgramRolloutService {
+
+    private final FanucReadDevices fanucReadDevices;
+    private final FocasConnectionPool pool;
+    private final FanucProperties properties;
+    private final SimpleAsyncTaskExecutor executor;
+
+    public ProgramRolloutService(FanucReadDevices fanucReadDevices, FocasConnectionPool pool,
+                                 FanucProperties properties) {
+        this.fanucReadDevices = fanucReadDevices;
+        this.pool = pool;
+        this.properties = properties;
+        this.executor = new SimpleAsyncTaskExecutor("fanuc-rollout-vt-");
+        this.executor.setVirtualThreads(true);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * 下发程序并等待全部设备完成，单台失败不影响其他设备
+     *
+     * @throws IllegalArgumentException 未指定程序或目标设备，设备未配置，或并发上限小于 1
+     */
+    public ProgramRolloutReport rollout(ProgramRolloutRequest request) {
+        if (request.getProgram() == null || request.getProgram().isEmpty()) {
+            throw new IllegalArgumentException("程序内容为空");
+        }
+        List<FanucProperties.Device> targets = resolveTargets(request);
+        int maxConcurrency = request.getMaxConcurrency() != null
+                ? request.getMaxConcurrency() : properties.getRollout().getMaxConcurrency();
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency 必须 >= 1");
+        }
+        FanucReadDevices.EncodedProgram program = FanucReadDevices.encodeProgram(request.getProgram());
+
+        long start = System.nanoTime();
+        Semaphore slots = new Semaphore(maxConcurrency);
+        List<CompletableFuture<ProgramDownloadResult>> futures = new ArrayList<>(targets.size());
+        for (FanucProperties.Device device : targets) {
+            CompletableFuture<ProgramDownloadResult> future = new CompletableFuture<>();
+            futures.add(future);
+            // 在提交前取得许可：同时存在的下发线程不超过 maxConcurrency
+            slots.acquireUninterruptibly();
+            long submittedAt = System.nanoTime();
+            try {
+                executor.execute(() -> {
+                    try {
+                        future.complete(downloadQuietly(device, program, submittedAt));
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                future.complete(failed(device.getId(), ProgramDownloadResult.Stage.SUBMIT,
+                        FocasErrorCode.EW_UNEXP, e.getMessage()));
+            }
+        }
+
+        ProgramRolloutReport report = new ProgramRolloutReport();
+        report.setProgramBytes(program.getLength());
+        report.setMaxConcurrency(maxConcurrency);
+        report.setTargets(targets.size());
+        for (CompletableFuture<ProgramDownloadResult> future : futures) {
+            ProgramDownloadResult result = future.join();
+            report.getResults().add(result);
+            if (result.isSuccess()) {
+                report.setSucceeded(report.getSucceeded() + 1);
+            } else {
+                report.setFailed(report.getFailed() + 1);
+            }
+            report.setSlowestMillis(Math.max(report.getSlowestMillis(), result.getElapsedMillis()));
+        }
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        report.getResults().sort(Comparator.comparing(ProgramDownloadResult::getDeviceId));
+        log.info("程序下发完成: {} 台设备，成功 {}，失败 {}，耗时 {}ms（最慢 {}ms）", report.getTargets(),
+                report.getSucceeded(), report.getFailed(), report.getElapsedMillis(), report.getSlowestMillis());
+        return report;
+    }
+
+    private ProgramDownloadResult downloadQuietly(FanucProperties.Device device,
+                                                  FanucReadDevices.EncodedProgram program, long submittedAt) {
+        long start = System.nanoTime();
+        ProgramDownloadResult result;
+        try {
+            result = download(device, program);
+        } catch (FocasPoolException e) {
+            result = failed(device.getId(), ProgramDownloadResult.Stage.CONNECT, e.getErrorCode(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("设备 {} 程序下发异常", device.getId(), e);
+            result = failed(device.getId(), ProgramDownloadResult.Stage.CONNECT, FocasErrorCode.EW_UNEXP, e.getMessage());
+        }
+        if (!result.isSuccess()) {
+            log.warn("设备 {} 程序下发失败（{}）: {}", device.getId(), result.getFailedStage(), result.getErrorMessage());
+        }
+        result.setWaitMillis((start - submittedAt) / 1_000_000);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private ProgramDownloadResult download(FanucProperties.Device device, FanucReadDevices.EncodedProgram program) {
+        try (FocasConnection connection = pool.borrow(device.getIp(), device.getPort())) {
+            short handle = connection.getHandle();
+            FanucReadDevices.DownloadStartInfo start = fanucReadDevices.startDownloadWithError(handle,
+                    FanucReadDevices.DownloadDataType.NC_PROGRAM);
+            connection.check(start.getErrorCode());
+            if (!start.isSuccess()) {
+                return failed(device.getId(), ProgramDownloadResult.Stage.START,
+                        start.getErrorCode(), start.getErrorMessage());
+            }
+            FanucReadDevices.DownloadInfo info = fanucReadDevices.downloadEncodedWithError(handle, program, null);
+            connection.check(info.getErrorCode());
+            // 发送失败也要结束下载过程，否则CNC保持在下载状态，下次 cnc_dwnstart3 返回 EW_BUSY
+            FanucReadDevices.DownloadEndInfo end = fanucReadDevices.endDownloadWithError(handle);
+            connection.check(end.getErrorCode());
+
+            ProgramDownloadResult result;
+            if (!info.isSuccess()) {
+                result = failed(device.getId(), ProgramDownloadResult.Stage.DOWNLOAD,
+                        info.getErrorCode(), info.getErrorMessage());
+            } else if (!end.isSuccess()) {
+                result = failed(device.getId(), ProgramDownloadResult.Stage.END,
+                        end.getErrorCode(), end.getErrorMessage());
+            } else {
+                result = new ProgramDownloadResult();
+                result.setDeviceId(device.getId());
+                result.setSuccess(true);
+            }
+            result.setSentBytes(info.getTotalBytes());
+            result.setCalls(info.getCalls());
+            result.setBufferRetries(info.getBufferRetries());
+            return result;
+        }
+    }
+
+    private static ProgramDownloadResult failed(String deviceId, ProgramDownloadResult.Stage stage,
+                                                short errorCode, String message) {
+        ProgramDownloadResult result = new ProgramDownloadResult();
+        result.setDeviceId(deviceId);
+        result.setFailedStage(stage);
+        result.setErrorCode(errorCode);
+        result.setErrorMessage(message);
+        return result;
+    }
+
+    private List<FanucProperties.Device> resolveTargets(ProgramRolloutRequest request) {
+        Map<String, FanucProperties.Device> configured = new LinkedHashMap<>();
+        for (FanucProperties.Device device : properties.getDevices()) {
+            configured.put(device.getId(), device);
+        }
+        Map<String, FanucProperties.Device> targets = new LinkedHashMap<>();
+        if (request.getDeviceIds() != null) {
+            for (String deviceId : request.getDeviceIds()) {
+                FanucProperties.Device device = configured.get(deviceId);
+                if (device == null) {
+                    throw new IllegalArgumentException("未配置的设备: " + deviceId);
+                }
+                targets.put(deviceId, device);
+            }
+        }
+        if (request.getCell() != null) {
+            for (FanucProperties.Device device : configured.values()) {
+                if (request.getCell().equals(device.getCell())) {
+                    targets.put(device.getId(), device);
+                }
+            }
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("未指定目标设备");
+        }
+        return new ArrayList<>(targets.values());
+    }
+}
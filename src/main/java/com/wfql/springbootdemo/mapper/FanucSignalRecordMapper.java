@@ -0,0 +1,38 @@
+package com.wfql.springbootdemo.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wfql.springbootdemo.entity.FanucSignalRecord;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+
+/**
+ * @Package com.wfql.springbootdemo.mapper
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:00
+ */
+public interface FanucSignalRecordMapper extends BaseMapper<FanucSignalRecord> {
+
+    /**
+     * 按采集时间顺序逐行读取信号值（每次取回 1000 行），需在事务内遍历并关闭游标
+     *
+     * @param machineId 设备编号，为空时读取全部设备
+     * @param signal    信号名，为空时读取全部信号
+     * @param from      采集时间下限（包含）
+     * @param to        采集时间上限（不包含）
+     */
+    @Select("<script>"
+            + "SELECT ID, MACHINE_ID, SIGNAL, NUM_VALUE, TEXT_VALUE, ERROR_CODE, READ_TIME, CREATE_TIME"
+            + " FROM FANUC_SIGNAL_READING WHERE READ_TIME &gt;= #{from} AND READ_TIME &lt; #{to}"
+            + "<if test='machineId != null'> AND MACHINE_ID = #{machineId}</if>"
+            + "<if test='signal != null'> AND SIGNAL = #{signal}</if>"
+            + " ORDER BY READ_TIME"
+            + "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<FanucSignalRecord> scanByReadTime(@Param("machineId") String machineId, @Param("signal") String signal,
+                                            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,95 @@
+package com.wfql.springbootdemo.opcua;
+
+import com.wfql.springbootdemo.collect.CollectorPipeline;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OPC UA 订阅采集（opcua.enabled=true）
+ * <p>
+ * 每个服务器一个 {@link OpcUaEndpointSession}，采集结果与 FANUC 轮询一样经 {@link CollectorPipeline}
+ * 更新设备状态、过滤后分发给入库、推送等下游
+ *
+ * @Package com.wfql.springbootdemo.opcua
+ * @Author guoqing.ling
+ * @Date 2026/10/18 0:35
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "opcua", name = "enabled", havingValue = "true")
+public class OpcUaCollector {
+
+    private final OpcUaProperties properties;
+
+    private final CollectorPipeline pipeline;
+
+    private final List<OpcUaEndpointSession> sessions = new ArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public OpcUaCollector(OpcUaProperties properties, CollectorPipeline pipeline) {
+        this.properties = properties;
+        this.pipeline = pipeline;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null || properties.getEndpoints().isEmpty()) {
+            log.info("OPC UA 订阅采集未启动，服务器数: {}", properties.getEndpoints().size());
+            return;
+        }
+        // 连接和创建订阅是阻塞调用，线程数按服务器数量给，上限 4；数据通知由 Milo 自身的线程回调
+        AtomicInteger sequence = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.min(4, properties.getEndpoints().size()), r -> {
+            Thread thread = new Thread(r, "opcua-connect-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (OpcUaProperties.Endpoint endpoint : properties.getEndpoints()) {
+            OpcUaEndpointSession session = new OpcUaEndpointSession(endpoint, properties, pipeline, scheduler);
+            sessions.add(session);
+            session.start();
+        }
+        log.info("OPC UA 订阅采集已启动，服务器数: {}", sessions.size());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        for (OpcUaEndpointSession session : sessions) {
+            session.stop();
+        }
+        sessions.clear();
+        scheduler = null;
+    }
+
+    /**
+     * 设备编号对应的服务器会话，未配置或未启动时返回 null
+     */
+    synchronized OpcUaEndpointSession getSession(String machineId) {
+        for (OpcUaEndpointSession session : sessions) {
+            if (session.getMachineId().equals(machineId)) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    public synchronized List<OpcUaStats> getStats() {
+        return sessions.stream().map(OpcUaEndpointSession::getStats).toList();
+    }
+}
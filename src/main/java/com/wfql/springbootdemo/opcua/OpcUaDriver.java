@@ -0,0 +1,237 @@
+package com.wfql.springbootdemo.opcua;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import com.wfql.springbootdemo.driver.DeviceDriver;
+import com.wfql.springbootdemo.driver.DriverException;
+import com.wfql.springbootdemo.driver.DriverSession;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * OPC UA 驱动，复用 {@link OpcUaCollector} 为每个服务器维护的会话
+ * <p>
+ * 标签地址为 opcua:信号名 或 opcua:节点ID（如 opcua:speed、opcua:ns=2;s=Robot1.Speed），输出的信号名与请求一致。
+ * read 一次 Read 服务请求读取全部标签，未配置的节点ID也可以读取；
+ * subscribe 复用采集订阅中已配置的节点，不另建服务器端订阅，会话重连、订阅重建后继续推送
+ *
+ * @Package com.wfql.springbootdemo.opcua
+ * @Author guoqing.ling
+ * @Date 2026/10/18 4:10
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "opcua", name = "enabled", havingValue = "true")
+public class OpcUaDriver implements DeviceDriver {
+
+    public static final String PROTOCOL = "opcua";
+
+    private final OpcUaProperties properties;
+    private final OpcUaCollector collector;
+
+    public OpcUaDriver(OpcUaProperties properties, OpcUaCollector collector) {
+        this.properties = properties;
+        this.collector = collector;
+    }
+
+    @Override
+    public String getProtocol() {
+        return PROTOCOL;
+    }
+
+    @Override
+    public boolean hasMachine(String machineId) {
+        return properties.getEndpoints().stream().anyMatch(e -> e.getId().equals(machineId));
+    }
+
+    @Override
+    public DriverSession open(String machineId) {
+        if (!hasMachine(machineId)) {
+            throw new IllegalArgumentException("未配置的设备: " + machineId);
+        }
+        OpcUaEndpointSession session = collector.getSession(machineId);
+        OpcUaClient client = session != null ? session.getClient() : null;
+        if (client == null) {
+            throw new DriverException(machineId, FocasErrorCode.EW_SOCKET, "OPC UA 会话不可用: " + machineId, null);
+        }
+        return new OpcUaSession(session, client);
+    }
+
+    private final class OpcUaSession implements DriverSession {
+
+        private final OpcUaEndpointSession session;
+        private final OpcUaClient client;
+
+        OpcUaSession(OpcUaEndpointSession session, OpcUaClient client) {
+            this.session = session;
+            this.client = client;
+        }
+
+        @Override
+        public String getMachineId() {
+            return session.getMachineId();
+        }
+
+        @Override
+        public short read(List<TagAddress> tags, long timestamp, List<SignalReading> out) {
+            String machineId = getMachineId();
+            List<String> signals = new ArrayList<>(tags.size());
+            List<ReadValueId> readValueIds = new ArrayList<>(tags.size());
+            for (TagAddress tag : tags) {
+                NodeId nodeId = resolve(tag);
+                if (nodeId == null) {
+                    out.add(SignalReading.error(machineId, tag.getSignal(), FocasErrorCode.EW_NUMBER, timestamp));
+                    continue;
+                }
+                signals.add(tag.getSignal());
+                readValueIds.add(new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE));
+            }
+            if (readValueIds.isEmpty()) {
+                return FocasErrorCode.EW_OK;
+            }
+            DataValue[] results;
+            try {
+                ReadResponse response = await(client.read(0, TimestampsToReturn.Both, readValueIds));
+                results = response.getResults();
+            } catch (Exception e) {
+                log.debug("OPC UA 读取失败: {} {}", machineId, e.getMessage());
+                for (String signal : signals) {
+                    out.add(SignalReading.error(machineId, signal, FocasErrorCode.EW_SOCKET, timestamp));
+                }
+                return FocasErrorCode.EW_SOCKET;
+            }
+            for (int i = 0; i < signals.size(); i++) {
+                out.add(results != null && i < results.length
+                        ? OpcUaEndpointSession.toReading(machineId, signals.get(i), results[i], timestamp)
+                        : SignalReading.error(machineId, signals.get(i), FocasErrorCode.EW_DATA, timestamp));
+            }
+            return FocasErrorCode.EW_OK;
+        }
+
+        /**
+         * 按节点当前值的类型转换后写入，类型不匹配或服务器拒绝时返回 EW_DATA / EW_REJECT
+         */
+        @Override
+        public short write(TagAddress tag, double value) {
+            NodeId nodeId = resolve(tag);
+            if (nodeId == null) {
+                return FocasErrorCode.EW_NUMBER;
+            }
+            try {
+                ReadResponse current = await(client.read(0, TimestampsToReturn.Neither, List.of(
+                        new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE))));
+                Object converted = convert(current.getResults()[0].getValue().getValue(), value);
+                if (converted == null) {
+                    return FocasErrorCode.EW_DATA;
+                }
+                WriteResponse response = await(client.write(List.of(new WriteValue(nodeId, AttributeId.Value.uid(),
+                        null, new DataValue(new Variant(converted), null, null)))));
+                StatusCode status = response.getResults()[0];
+                return status.isGood() ? FocasErrorCode.EW_OK : FocasErrorCode.EW_REJECT;
+            } catch (Exception e) {
+                log.debug("OPC UA 写入失败: {} {} {}", getMachineId(), tag.getSignal(), e.getMessage());
+                return FocasErrorCode.EW_SOCKET;
+            }
+        }
+
+        /**
+         * 只能订阅 opcua.endpoints 中已配置的节点，推送的信号名与请求的标签一致
+         *
+         * @throws IllegalArgumentException 标签对应的节点未配置
+         */
+        @Override
+        public AutoCloseable subscribe(List<TagAddress> tags, Consumer<List<SignalReading>> listener) {
+            Map<String, String> signals = new HashMap<>();
+            for (TagAddress tag : tags) {
+                int index = session.indexOf(tag.getSignal());
+                if (index < 0) {
+                    throw new IllegalArgumentException("节点未在 opcua.endpoints 中配置，无法订阅: " + tag.getSignal());
+                }
+                signals.put(session.signal(index), tag.getSignal());
+            }
+            return session.addListener(readings -> {
+                List<SignalReading> matched = new ArrayList<>();
+                for (SignalReading reading : readings) {
+                    String signal = signals.get(reading.getSignal());
+                    if (signal != null) {
+                        matched.add(rename(reading, signal));
+                    }
+                }
+                if (!matched.isEmpty()) {
+                    listener.accept(matched);
+                }
+            });
+        }
+
+        /**
+         * 会话由采集器持有，这里不需要释放；已建立的订阅不受影响
+         */
+        @Override
+        public void close() {
+        }
+
+        private NodeId resolve(TagAddress tag) {
+            int index = session.indexOf(tag.getSignal());
+            return index >= 0 ? session.nodeId(index) : NodeId.parseOrNull(tag.getSignal());
+        }
+
+        private <T> T await(CompletableFuture<T> future) throws Exception {
+            return future.get(properties.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Object convert(Object current, double value) {
+        if (current instanceof Double || current == null) {
+            return value;
+        }
+        if (current instanceof Float) {
+            return (float) value;
+        }
+        if (current instanceof Boolean) {
+            return value != 0;
+        }
+        if (current instanceof Long) {
+            return (long) value;
+        }
+        if (current instanceof Integer) {
+            return (int) value;
+        }
+        if (current instanceof Short) {
+            return (short) value;
+        }
+        return null;
+    }
+
+    private static SignalReading rename(SignalReading reading, String signal) {
+        if (!reading.isSuccess()) {
+            return SignalReading.error(reading.getMachineId(), signal, reading.getErrorCode(), reading.getTimestamp());
+        }
+        if (reading.getText() != null) {
+            return SignalReading.text(reading.getMachineId(), signal, reading.getText(), reading.getTimestamp());
+        }
+        return SignalReading.of(reading.getMachineId(), signal, reading.getValue(), reading.getTimestamp());
+    }
+}
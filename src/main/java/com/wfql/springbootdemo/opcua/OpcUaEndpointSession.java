@@ -0,0 +1,388 @@
+package com.wfql.springbootdemo.opcua;
+
+import com.wfql.springbootdemo.collect.CollectorPipeline;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
+import org.eclipse.milo.opcua.sdk.client.api.UaSession;
+import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
+import org.eclipse.milo.opcua.sdk.client.api.identity.IdentityProvider;
+import org.eclipse.milo.opcua.sdk.client.api.identity.UsernameProvider;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.util.EndpointUtil;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * 一个 OPC UA 服务器的订阅会话
+ * <p>
+ * 连接后为该服务器创建一个订阅，所有节点作为监控项分批加入（每批 max-items-per-request 个），
+ * 采样和推送由服务器按 sampling-interval / publishing-interval 完成；每次推送的全部变化作为一批交给 {@link CollectorPipeline}。
+ * 会话中断后由 Milo 客户端自动重连并尝试转移原订阅，转移失败（服务器重启等）时重新创建订阅；
+ * 首次连接失败按退避间隔重试。会话状态以 online 信号发布，与 FANUC 采集一致
+ *
+ * @Package com.wfql.springbootdemo.opcua
+ * @Author guoqing.ling
+ * @Date 2026/10/18 0:20
+ */
+@Slf4j
+final class OpcUaEndpointSession implements SessionActivityListener, UaSubscription.NotificationListener {
+
+    private final OpcUaProperties.Endpoint endpoint;
+    private final OpcUaProperties properties;
+    private final CollectorPipeline pipeline;
+    private final ScheduledExecutorService scheduler;
+    private final String machineId;
+    /**
+     * 监控项的 clientHandle 即节点在该数组中的下标
+     */
+    private final OpcUaProperties.Node[] nodes;
+    private final NodeId[] nodeIds;
+    private final long timeoutMillis;
+
+    /**
+     * 驱动订阅（{@link OpcUaDriver}）的监听器，收到与下发给采集管道相同的每批变化
+     */
+    private final List<Consumer<List<SignalReading>>> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder values = new LongAdder();
+    private final LongAdder subscriptionsCreated = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+
+    /**
+     * 以下字段在持有 this 锁时修改
+     */
+    private OpcUaClient client;
+    private long retryDelayMillis;
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile UaSubscription subscription;
+    private volatile int monitoredItems;
+    private volatile int rejectedItems;
+    private volatile String lastError;
+
+    OpcUaEndpointSession(OpcUaProperties.Endpoint endpoint, OpcUaProperties properties, CollectorPipeline pipeline,
+                         ScheduledExecutorService scheduler) {
+        this.endpoint = endpoint;
+        this.properties = properties;
+        this.pipeline = pipeline;
+        this.scheduler = scheduler;
+        this.machineId = endpoint.getId();
+        this.nodes = endpoint.getNodes().toArray(OpcUaProperties.Node[]::new);
+        this.nodeIds = new NodeId[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodeIds[i] = NodeId.parseOrNull(nodes[i].getNodeId());
+            if (nodeIds[i] == null) {
+                throw new IllegalArgumentException("OPC UA 节点ID格式错误: " + machineId + " " + nodes[i].getNodeId());
+            }
+        }
+        this.timeoutMillis = properties.getRequestTimeout().toMillis();
+        this.retryDelayMillis = properties.getReconnectDelay().toMillis();
+    }
+
+    void start() {
+        running = true;
+        scheduler.execute(this::connect);
+    }
+
+    synchronized void stop() {
+        running = false;
+        closeClient();
+    }
+
+    String getMachineId() {
+        return machineId;
+    }
+
+    /**
+     * 会话可用时返回客户端，否则返回 null
+     */
+    OpcUaClient getClient() {
+        OpcUaClient current = client;
+        return connected ? current : null;
+    }
+
+    /**
+     * 按信号名或节点ID查找已配置的节点下标，未配置时返回 -1
+     */
+    int indexOf(String signalOrNodeId) {
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i].getSignal().equals(signalOrNodeId) || nodes[i].getNodeId().equals(signalOrNodeId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    NodeId nodeId(int index) {
+        return nodeIds[index];
+    }
+
+    String signal(int index) {
+        return nodes[index].getSignal();
+    }
+
+    /**
+     * 注册订阅监听器，关闭返回的句柄即取消；会话重连、重建订阅后继续收到通知
+     */
+    AutoCloseable addListener(Consumer<List<SignalReading>> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    OpcUaStats getStats() {
+        OpcUaStats stats = new OpcUaStats();
+        stats.setMachineId(machineId);
+        stats.setUrl(endpoint.getUrl());
+        stats.setConnected(connected);
+        UaSubscription current = subscription;
+        stats.setMonitoredItems(current != null ? monitoredItems : 0);
+        stats.setRejectedItems(rejectedItems);
+        stats.setPublishingInterval(current != null ? current.getRevisedPublishingInterval() : 0);
+        stats.setNotifications(notifications.sum());
+        stats.setValues(values.sum());
+        stats.setSubscriptionsCreated(subscriptionsCreated.sum());
+        stats.setConnectFailures(connectFailures.sum());
+        stats.setLastError(lastError);
+        return stats;
+    }
+
+    private synchronized void connect() {
+        if (!running) {
+            return;
+        }
+        try {
+            client = createClient();
+            client.addSessionActivityListener(this);
+            await(client.connect());
+            subscribe();
+            retryDelayMillis = properties.getReconnectDelay().toMillis();
+            log.info("OPC UA 订阅已建立: {} {}，监控项: {}", machineId, endpoint.getUrl(), monitoredItems);
+        } catch (Exception e) {
+            connectFailures.increment();
+            lastError = describe(e);
+            log.warn("OPC UA 连接失败: {} {}，{} 毫秒后重试: {}", machineId, endpoint.getUrl(), retryDelayMillis, lastError);
+            closeClient();
+            retry(this::connect);
+        }
+    }
+
+    private synchronized void resubscribe() {
+        if (!running || client == null) {
+            return;
+        }
+        try {
+            subscribe();
+            retryDelayMillis = properties.getReconnectDelay().toMillis();
+            log.info("OPC UA 订阅已重建: {}，监控项: {}", machineId, monitoredItems);
+        } catch (Exception e) {
+            lastError = describe(e);
+            log.warn("OPC UA 重建订阅失败: {}，{} 毫秒后重试: {}", machineId, retryDelayMillis, lastError);
+            retry(this::resubscribe);
+        }
+    }
+
+    private void subscribe() throws Exception {
+        subscription = null;
+        Duration publishing = endpoint.getPublishingInterval() != null
+                ? endpoint.getPublishingInterval() : properties.getPublishingInterval();
+        UaSubscription created = await(client.getSubscriptionManager().createSubscription(publishing.toMillis()));
+        subscriptionsCreated.increment();
+        created.addNotificationListener(this);
+        int good = 0;
+        int bad = 0;
+        int batch = Math.max(1, properties.getMaxItemsPerRequest());
+        for (int from = 0; from < nodes.length; from += batch) {
+            int to = Math.min(nodes.length, from + batch);
+            List<MonitoredItemCreateRequest> requests = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                requests.add(createRequest(i));
+            }
+            for (UaMonitoredItem item : await(created.createMonitoredItems(TimestampsToReturn.Both, requests))) {
+                if (item.getStatusCode().isGood()) {
+                    good++;
+                } else {
+                    bad++;
+                    log.warn("OPC UA 节点订阅失败: {} {} {}", machineId, item.getReadValueId().getNodeId().toParseableString(),
+                            item.getStatusCode());
+                }
+            }
+        }
+        monitoredItems = good;
+        rejectedItems = bad;
+        subscription = created;
+    }
+
+    private MonitoredItemCreateRequest createRequest(int index) {
+        Duration sampling = nodes[index].getSamplingInterval() != null
+                ? nodes[index].getSamplingInterval() : properties.getSamplingInterval();
+        ReadValueId readValueId = new ReadValueId(nodeIds[index], AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+        MonitoringParameters parameters = new MonitoringParameters(uint(index), (double) sampling.toMillis(), null,
+                uint(Math.max(1, properties.getQueueSize())), true);
+        return new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+    }
+
+    private OpcUaClient createClient() throws UaException {
+        String host = URI.create(endpoint.getUrl()).getHost();
+        IdentityProvider identity = endpoint.getUsername() != null
+                ? new UsernameProvider(endpoint.getUsername(), endpoint.getPassword())
+                : new AnonymousProvider();
+        // 只使用不加密的端点；服务器返回的端点地址常为主机名，替换为配置中的地址
+        return OpcUaClient.create(endpoint.getUrl(),
+                endpoints -> endpoints.stream()
+                        .filter(e -> SecurityPolicy.None.getUri().equals(e.getSecurityPolicyUri()))
+                        .findFirst()
+                        .map(e -> EndpointUtil.updateUrl(e, host)),
+                builder -> builder.setApplicationName(LocalizedText.english("springbootdemo OPC UA collector"))
+                        .setApplicationUri("urn:wfql:springbootdemo:opcua")
+                        .setIdentityProvider(identity)
+                        .setRequestTimeout(uint(timeoutMillis))
+                        .build());
+    }
+
+    private void closeClient() {
+        OpcUaClient current = client;
+        client = null;
+        subscription = null;
+        connected = false;
+        if (current == null) {
+            return;
+        }
+        current.removeSessionActivityListener(this);
+        try {
+            current.disconnect().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // 连接已不可用
+        }
+    }
+
+    private void retry(Runnable task) {
+        if (!running) {
+            return;
+        }
+        long delay = retryDelayMillis;
+        retryDelayMillis = Math.min(delay * 2, properties.getMaxReconnectDelay().toMillis());
+        try {
+            scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 已停止
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public void onSessionActive(UaSession session) {
+        connected = true;
+        pipeline.publish(List.of(SignalReading.of(machineId, "online", 1, System.currentTimeMillis())));
+    }
+
+    @Override
+    public void onSessionInactive(UaSession session) {
+        connected = false;
+        pipeline.publish(List.of(SignalReading.of(machineId, "online", 0, System.currentTimeMillis())));
+    }
+
+    @Override
+    public void onSubscriptionTransferFailed(UaSubscription failed, StatusCode statusCode) {
+        log.warn("OPC UA 会话恢复后订阅转移失败: {} {}，重新创建订阅", machineId, statusCode);
+        try {
+            scheduler.execute(this::resubscribe);
+        } catch (RejectedExecutionException ignored) {
+            // 已停止
+        }
+    }
+
+    @Override
+    public void onDataChangeNotification(UaSubscription source, List<UaMonitoredItem> items, List<DataValue> dataValues,
+                                         DateTime publishTime) {
+        long now = System.currentTimeMillis();
+        List<SignalReading> readings = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            int index = items.get(i).getClientHandle().intValue();
+            if (index >= 0 && index < nodes.length) {
+                readings.add(toReading(machineId, nodes[index].getSignal(), dataValues.get(i), now));
+            }
+        }
+        notifications.increment();
+        values.add(readings.size());
+        if (readings.isEmpty()) {
+            return;
+        }
+        pipeline.publish(readings);
+        for (Consumer<List<SignalReading>> listener : listeners) {
+            try {
+                listener.accept(readings);
+            } catch (RuntimeException e) {
+                log.warn("OPC UA 订阅监听器异常: {}", machineId, e);
+            }
+        }
+    }
+
+    /**
+     * 数值、布尔转为 value，其他类型转为 text；质量为 Bad 的值记为 EW_DATA
+     */
+    static SignalReading toReading(String machineId, String signal, DataValue dataValue, long now) {
+        long timestamp = dataValue.getSourceTime() != null ? dataValue.getSourceTime().getJavaTime()
+                : dataValue.getServerTime() != null ? dataValue.getServerTime().getJavaTime() : now;
+        StatusCode status = dataValue.getStatusCode();
+        Object value = dataValue.getValue().getValue();
+        if ((status != null && status.isBad()) || value == null) {
+            return SignalReading.error(machineId, signal, FocasErrorCode.EW_DATA, timestamp);
+        }
+        if (value instanceof Number number) {
+            return SignalReading.of(machineId, signal, number.doubleValue(), timestamp);
+        }
+        if (value instanceof Boolean bool) {
+            return SignalReading.of(machineId, signal, bool ? 1 : 0, timestamp);
+        }
+        if (value instanceof LocalizedText text) {
+            return SignalReading.text(machineId, signal, text.getText(), timestamp);
+        }
+        return SignalReading.text(machineId, signal, String.valueOf(value), timestamp);
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.opcua;
+
+import lombok.Data;
+
+/**
+ * 单个 OPC UA 服务器的订阅统计
+ *
+ * @Package com.wfql.springbootdemo.opcua
+ * @Author guoqing.ling
+ * @Date 2026/10/18 0:15
+ */
+@Data
+public class OpcUaStats {
+    private String machineId;           // 设备编号
+    private String url;                 // 服务器地址
+    private boolean connected;          // 会话是否可用
+    private int monitoredItems;         // 创建成功的监控项数
+    private int rejectedItems;          // 服务器拒绝的监控项数（节点不存在等）
+    private double publishingInterval;  // 服务器修正后的推送周期（毫秒）
+    private long notifications;         // 收到的数据变化通知数
+    private long values;                // 通知中的值个数
+    private long subscriptionsCreated;  // 创建订阅的次数（首次连接及会话丢失后重建）
+    private long connectFailures;       // 连接失败次数
+    private String lastError;           // 最近一次错误
+}
@@ -0,0 +1,60 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.TimestampFill;
+import com.wfql.springbootdemo.entity.FanucSignalRecord;
+import com.wfql.springbootdemo.mapper.FanucSignalRecordMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通过 MyBatis-Plus 批量插入到 master 数据源（Oracle）
+ * <p>
+ * BaseMapper.insert(Collection, int) 使用 BATCH 执行器：同一条 INSERT 只预编译一次，
+ * 整批通过 JDBC addBatch/executeBatch 一次发送；外层 TransactionTemplate 保证一批一个事务。
+ * 入库时间在插入前整批填充（{@link TimestampFill#fillInsert(java.util.Collection)}），逐行的 insertFill 不再取时间
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:05
+ */
+@Component
+@ConditionalOnProperty(prefix = "fanuc.persist", name = "enabled", havingValue = "true")
+public class MybatisReadingBatchWriter implements ReadingBatchWriter {
+
+    private final FanucSignalRecordMapper mapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public MybatisReadingBatchWriter(FanucSignalRecordMapper mapper, PlatformTransactionManager transactionManager) {
+        this.mapper = mapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void write(List<SignalReading> batch) {
+        List<FanucSignalRecord> records = new ArrayList<>(batch.size());
+        ZoneId zone = ZoneId.systemDefault();
+        for (SignalReading reading : batch) {
+            FanucSignalRecord record = new FanucSignalRecord();
+            record.setMachineId(reading.getMachineId());
+            record.setSignal(reading.getSignal());
+            if (reading.isSuccess() && reading.getText() == null && !Double.isNaN(reading.getValue())) {
+                record.setNumValue(reading.getValue());
+            }
+            record.setTextValue(reading.getText());
+            record.setErrorCode(reading.getErrorCode());
+            record.setReadTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(reading.getTimestamp()), zone));
+            records.add(record);
+        }
+        TimestampFill.fillInsert(records);
+        transactionTemplate.executeWithoutResult(status -> mapper.insert(records, records.size()));
+    }
+}
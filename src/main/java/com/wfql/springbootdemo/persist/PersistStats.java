@@ -0,0 +1,23 @@
+package com.wfql.springbootdemo.persist;
+
+import lombok.Data;
+
+/**
+ * 入库统计
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:10
+ */
+@Data
+public class PersistStats {
+    private int queueSize;          // 队列中待写入的信号值数
+    private int queueCapacity;
+    private long rowsWritten;       // 已写入的行数
+    private long batches;           // 已提交的批次数
+    private long failedBatches;     // 写入失败（含重试）的次数
+    private long droppedRows;       // 重试耗尽或队列满超时而丢弃的行数
+    private long blockedOffers;     // 采集线程因队列满而等待的次数
+    private double rowsPerSecond;   // 最近的写入速率（行/秒，指数滑动平均）
+    private double avgBatchMillis;  // 平均每批写入耗时（毫秒）
+}
@@ -0,0 +1,22 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+
+import java.util.List;
+
+/**
+ * 把一批信号值写入存储，一批一个事务
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:05
+ */
+@FunctionalInterface
+public interface ReadingBatchWriter {
+
+    /**
+     * @param batch 信号值，调用期间不会被修改
+     * @throws RuntimeException 写入失败，整批回滚
+     */
+    void write(List<SignalReading> batch);
+}
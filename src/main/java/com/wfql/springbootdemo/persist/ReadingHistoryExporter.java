@@ -0,0 +1,78 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.entity.FanucSignalRecord;
+import com.wfql.springbootdemo.mapper.FanucSignalRecordMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * 按时间范围导出已入库的信号值
+ * <p>
+ * 通过 MyBatis 游标逐行读取（每次从数据库取回 1000 行），每行交给调用方后即可回收，
+ * 与 {@link com.wfql.springbootdemo.common.StreamingResponseResult} 配合时内存占用与导出行数无关。
+ * 游标只在事务内有效，遍历在只读事务中完成
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/18 3:10
+ */
+@Component
+public class ReadingHistoryExporter {
+
+    private final FanucSignalRecordMapper mapper;
+    private final TransactionTemplate transactionTemplate;
+    private final FanucProperties properties;
+
+    public ReadingHistoryExporter(FanucSignalRecordMapper mapper, PlatformTransactionManager transactionManager,
+                                  FanucProperties properties) {
+        this.mapper = mapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+    }
+
+    private void validate(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from 必须早于 to");
+        }
+        Duration maxRange = properties.getPersist().getExportMaxRange();
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("时间跨度超过 " + maxRange.toDays() + " 天");
+        }
+    }
+
+    /**
+     * 按采集时间顺序逐行导出
+     *
+     * @param machineId 设备编号，为空时导出全部设备
+     * @param signal    信号名，为空时导出全部信号
+     * @param consumer  逐行处理，在调用线程中执行
+     * @return 导出的行数
+     * @throws IllegalArgumentException 时间范围为空、顺序颠倒或超过 fanuc.persist.export-max-range
+     */
+    public long export(String machineId, String signal, LocalDateTime from, LocalDateTime to,
+                       Consumer<FanucSignalRecord> consumer) {
+        validate(from, to);
+        Long rows = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Cursor<FanucSignalRecord> cursor = mapper.scanByReadTime(machineId, signal, from, to)) {
+                for (FanucSignalRecord record : cursor) {
+                    consumer.accept(record);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("关闭游标失败", e);
+            }
+            return count;
+        });
+        return rows != null ? rows : 0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.ReadingSink;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 采集结果入库（fanuc.persist.mode=queue）
+ * <p>
+ * 采集线程只把信号值放入有界队列；单独的写入线程攒够 batch-size 条或距本批第一条超过 flush-interval 时，
+ * 通过 {@link ReadingBatchWriter} 整批写入（一批一个事务）。
+ * 数据库变慢时队列逐渐填满，采集线程在放入时最多等待 offer-timeout（背压），仍放不进去才丢弃并计数；
+ * 写入失败按 0.5s 起指数退避重试，重试期间不从队列取数，背压同样传到采集线程
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:15
+ */
+@Slf4j
+@Order(100)
+@Component
+@ConditionalOnExpression("${fanuc.persist.enabled:false} and '${fanuc.persist.mode:queue}'.toLowerCase() == 'queue'")
+public class ReadingPersistenceSink implements ReadingSink {
+
+    private static final long RETRY_MIN_MILLIS = 500;
+    private static final long RETRY_MAX_MILLIS = 5_000;
+    private static final long DROP_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 写入速率的指数滑动平均系数
+     */
+    private static final double ALPHA = 0.2;
+
+    private final ReadingBatchWriter writer;
+    private final BlockingQueue<SignalReading> queue;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final int maxRetries;
+
+    private final LongAdder droppedRows = new LongAdder();
+    private final LongAdder blockedOffers = new LongAdder();
+    private volatile long lastDropLogNanos;
+
+    // 以下字段只由写入线程修改
+    private volatile long rowsWritten;
+    private volatile long batches;
+    private volatile long failedBatches;
+    private volatile long totalBatchNanos;
+    private volatile double rowsPerSecond;
+    private long lastFlushNanos;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public ReadingPersistenceSink(ReadingBatchWriter writer, FanucProperties properties) {
+        FanucProperties.Persist config = properties.getPersist();
+        if (config.getBatchSize() < 1 || config.getQueueCapacity() < config.getBatchSize()) {
+            throw new IllegalArgumentException("fanuc.persist.queue-capacity 必须 >= batch-size >= 1");
+        }
+        this.writer = writer;
+        this.queueCapacity = config.getQueueCapacity();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.offerTimeoutNanos = config.getOfferTimeout().toNanos();
+        this.maxRetries = config.getMaxRetries();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        lastFlushNanos = System.nanoTime();
+        thread = new Thread(this::run, "fanuc-persist");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("采集结果入库已启动，批大小: {}，队列容量: {}", batchSize, queueCapacity);
+    }
+
+    /**
+     * 停止接收并写完队列中剩余的数据
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("入库线程未在 30s 内结束，队列中还有 {} 条", queue.size());
+            thread.interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void accept(List<SignalReading> readings) {
+        for (int i = 0; i < readings.size(); i++) {
+            SignalReading reading = readings.get(i);
+            if (queue.offer(reading)) {
+                continue;
+            }
+            blockedOffers.increment();
+            boolean offered;
+            try {
+                offered = queue.offer(reading, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                offered = false;
+            }
+            if (!offered) {
+                drop(readings.size() - i, "入库队列已满");
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        List<SignalReading> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SignalReading first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    SignalReading next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                drop(batch.size() + queue.size(), "入库线程被中断");
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<SignalReading> batch) throws InterruptedException {
+        long backoff = RETRY_MIN_MILLIS;
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                writer.write(batch);
+                long end = System.nanoTime();
+                rowsWritten += batch.size();
+                batches++;
+                totalBatchNanos += end - start;
+                double rate = batch.size() * 1e9 / Math.max(1, end - lastFlushNanos);
+                rowsPerSecond = batches == 1 ? rate : rowsPerSecond + ALPHA * (rate - rowsPerSecond);
+                lastFlushNanos = end;
+                return;
+            } catch (RuntimeException e) {
+                failedBatches++;
+                if (attempt >= maxRetries) {
+                    log.error("写入 {} 条信号值失败，已重试 {} 次，丢弃", batch.size(), attempt, e);
+                    droppedRows.add(batch.size());
+                    return;
+                }
+                log.warn("写入 {} 条信号值失败，{}ms 后重试: {}", batch.size(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, RETRY_MAX_MILLIS);
+            }
+        }
+    }
+
+    private void drop(int count, String reason) {
+        droppedRows.add(count);
+        long now = System.nanoTime();
+        if (now - lastDropLogNanos > DROP_LOG_INTERVAL_NANOS) {
+            lastDropLogNanos = now;
+            log.warn("{}，丢弃 {} 条信号值（累计 {}）", reason, count, droppedRows.sum());
+        }
+    }
+
+    public PersistStats getStats() {
+        PersistStats stats = new PersistStats();
+        long done = batches;
+        stats.setQueueSize(queue.size());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setRowsWritten(rowsWritten);
+        stats.setBatches(done);
+        stats.setFailedBatches(failedBatches);
+        stats.setDroppedRows(droppedRows.sum());
+        stats.setBlockedOffers(blockedOffers.sum());
+        stats.setRowsPerSecond(rowsPerSecond);
+        stats.setAvgBatchMillis(done == 0 ? 0 : totalBatchNanos / (double) done / 1_000_000);
+        return stats;
+    }
+}
@@ -0,0 +1,549 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 信号值的本地预写日志：内存映射的定长段文件，只追加
+ * <p>
+ * 段文件名为 20 位段号（00000000000000000001.seg），记录格式：
+ * <pre>
+ * int   payload 长度（0 表示段内数据结束）
+ * int   payload 的 CRC32
+ * byte  标志（bit0 有文本）
+ * short 错误代码
+ * long  采集时间
+ * double 数值
+ * short+UTF-8 设备编号、信号名、[文本]
+ * </pre>
+ * 写入只是内存复制，不等待磁盘，进程崩溃时已写入的数据仍在页缓存中；{@link #force()} 把当前段刷到磁盘。
+ * 单一消费者通过 {@link #poll(List, int)} 从检查点读取，写入数据库成功后 {@link #commit()} 推进检查点
+ * （checkpoint 文件，先写临时文件再改名），已消费完的段被删除。总大小超过上限时丢弃最旧的段。
+ * <p>
+ * 启动时按检查点恢复，逐条校验 CRC，遇到写了一半的记录即视为段尾
+ * <p>
+ * 线程安全：所有操作在同一把锁内，poll 每次只解码一批，持锁时间很短
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:40
+ */
+@Slf4j
+public final class ReadingSpool implements Closeable {
+
+    static final String SUFFIX = ".seg";
+    static final String CHECKPOINT = "checkpoint";
+
+    private static final int RECORD_HEADER = 8;
+    private static final int CHECKPOINT_MAGIC = 0x46535031;
+    private static final int FLAG_TEXT = 1;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final long maxBytes;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * 已提交的读取位置（检查点）
+     */
+    private long readSegment;
+    private int readOffset;
+
+    /**
+     * 最近一次 poll 读到的位置，commit 后成为检查点
+     */
+    private long pendingSegment;
+    private int pendingOffset;
+    private int pendingRecords;
+
+    private long pendingTotal;
+    private long appendedRecords;
+    private long droppedSegments;
+    private long droppedRecords;
+    private boolean closed;
+
+    /**
+     * 打开（或创建）目录下的日志并按检查点恢复
+     *
+     * @param segmentSize 段文件大小（字节）
+     * @param maxBytes    全部段文件的总大小上限，至少两个段
+     */
+    public ReadingSpool(Path dir, int segmentSize, long maxBytes) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("段文件不能小于 4KB: " + segmentSize);
+        }
+        if (maxBytes < 2L * segmentSize) {
+            throw new IllegalArgumentException("总大小上限至少为两个段: " + maxBytes);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    /**
+     * 追加一批信号值
+     *
+     * @throws UncheckedIOException 创建段文件失败（磁盘满等）
+     */
+    public synchronized void append(List<SignalReading> readings) {
+        ensureOpen();
+        for (int i = 0; i < readings.size(); i++) {
+            int length = encode(readings.get(i));
+            if (length < 0) {
+                log.warn("信号值过长，不写入预写日志: {}", readings.get(i));
+                continue;
+            }
+            Segment active = segments.peekLast();
+            if (active == null || active.end + RECORD_HEADER + length > active.buffer.capacity()) {
+                active = roll();
+            }
+            crc.reset();
+            crc.update(scratch.array(), 0, length);
+            MappedByteBuffer buffer = active.buffer;
+            int at = active.end;
+            // 先写内容再写长度：长度非零即表示记录完整（崩溃后由 CRC 再次确认）
+            buffer.put(at + RECORD_HEADER, scratch.array(), 0, length);
+            buffer.putInt(at + 4, (int) crc.getValue());
+            buffer.putInt(at, length);
+            active.end = at + RECORD_HEADER + length;
+            active.records++;
+            pendingTotal++;
+            appendedRecords++;
+        }
+    }
+
+    /**
+     * 从检查点开始读取最多 max 条到 out；未 commit 时下次 poll 仍从检查点开始
+     *
+     * @return 读取的条数
+     */
+    public synchronized int poll(List<SignalReading> out, int max) {
+        ensureOpen();
+        pendingSegment = readSegment;
+        pendingOffset = readOffset;
+        pendingRecords = 0;
+        Iterator<Segment> it = segments.iterator();
+        Segment segment = null;
+        while (it.hasNext()) {
+            Segment s = it.next();
+            if (s.id >= pendingSegment) {
+                segment = s;
+                break;
+            }
+        }
+        if (segment == null) {
+            return 0;
+        }
+        if (segment.id != pendingSegment) {
+            pendingSegment = segment.id;
+            pendingOffset = 0;
+        }
+        int count = 0;
+        while (count < max) {
+            if (pendingOffset >= segment.end) {
+                if (!it.hasNext()) {
+                    break;
+                }
+                segment = it.next();
+                pendingSegment = segment.id;
+                pendingOffset = 0;
+                continue;
+            }
+            int length = segment.buffer.getInt(pendingOffset);
+            out.add(decode(segment.buffer, pendingOffset + RECORD_HEADER));
+            pendingOffset += RECORD_HEADER + length;
+            count++;
+        }
+        pendingRecords = count;
+        return count;
+    }
+
+    /**
+     * 确认上一次 poll 的数据已写入数据库：推进并保存检查点，删除已消费完的段
+     */
+    public synchronized void commit() {
+        ensureOpen();
+        if (pendingSegment == readSegment && pendingOffset == readOffset) {
+            return;
+        }
+        readSegment = pendingSegment;
+        readOffset = pendingOffset;
+        pendingTotal -= pendingRecords;
+        pendingRecords = 0;
+        while (segments.size() > 1 && segments.peekFirst().id < readSegment) {
+            delete(segments.pollFirst());
+        }
+        saveCheckpoint();
+    }
+
+    /**
+     * 把当前段刷到磁盘
+     */
+    public synchronized void force() {
+        Segment active = segments.peekLast();
+        if (!closed && active != null) {
+            active.buffer.force();
+        }
+    }
+
+    /**
+     * 尚未写入数据库的条数
+     */
+    public synchronized long getPendingRecords() {
+        return pendingTotal;
+    }
+
+    public synchronized SpoolStats getStats() {
+        SpoolStats stats = new SpoolStats();
+        stats.setSegments(segments.size());
+        long diskBytes = 0;
+        long pendingBytes = 0;
+        for (Segment segment : segments) {
+            diskBytes += segment.buffer.capacity();
+            if (segment.id > readSegment) {
+                pendingBytes += segment.end;
+            } else if (segment.id == readSegment) {
+                pendingBytes += segment.end - readOffset;
+            }
+        }
+        stats.setDiskBytes(diskBytes);
+        stats.setMaxBytes(maxBytes);
+        stats.setPendingBytes(pendingBytes);
+        stats.setPendingRecords(pendingTotal);
+        stats.setAppendedRecords(appendedRecords);
+        stats.setDroppedSegments(droppedSegments);
+        stats.setDroppedRecords(droppedRecords);
+        stats.setCheckpointSegment(readSegment);
+        stats.setCheckpointOffset(readOffset);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        force();
+        saveCheckpoint();
+        for (Segment segment : segments) {
+            unmap(segment.buffer);
+        }
+        segments.clear();
+        closed = true;
+    }
+
+    /**
+     * 封存当前段并新建一个段，总大小超限时先丢弃最旧的段
+     */
+    private Segment roll() {
+        Segment last = segments.peekLast();
+        long id = last == null ? Math.max(1, readSegment) : last.id + 1;
+        while (!segments.isEmpty() && (long) (segments.size() + 1) * segmentSize > maxBytes) {
+            dropOldest();
+        }
+        Path path = dir.resolve(fileName(id));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建预写日志段失败: " + path, e);
+        }
+    }
+
+    private void dropOldest() {
+        Segment oldest = segments.pollFirst();
+        int unread = oldest.records;
+        if (oldest.id == readSegment) {
+            unread -= countRecords(oldest, readOffset);
+        } else if (oldest.id < readSegment) {
+            unread = 0;
+        }
+        droppedSegments++;
+        droppedRecords += unread;
+        pendingTotal -= unread;
+        log.warn("预写日志超过 {} 字节，丢弃最旧的段 {}（{} 条未写入数据库）", maxBytes, oldest.id, unread);
+        delete(oldest);
+        if (readSegment <= oldest.id) {
+            readSegment = oldest.id + 1;
+            readOffset = 0;
+            pendingSegment = readSegment;
+            pendingOffset = 0;
+            pendingRecords = 0;
+            saveCheckpoint();
+        }
+    }
+
+    private void recover() throws IOException {
+        loadCheckpoint();
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    try {
+                        ids.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // 非段文件
+                    }
+                }
+            });
+        }
+        ids.sort(null);
+        for (long id : ids) {
+            Path path = dir.resolve(fileName(id));
+            if (id < readSegment) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size < RECORD_HEADER || size > Integer.MAX_VALUE) {
+                    log.warn("预写日志段 {} 大小异常（{}），删除", path, size);
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                Segment segment = new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                scan(segment);
+                segments.addLast(segment);
+                pendingTotal += segment.records;
+            }
+        }
+        Segment first = segments.peekFirst();
+        if (first == null || first.id != readSegment) {
+            // 检查点所在的段已不存在，从下一个段开头读取
+            readSegment = first == null ? readSegment : first.id;
+            readOffset = 0;
+        } else {
+            if (readOffset > first.end) {
+                log.warn("检查点 {}:{} 超出段尾 {}，从段尾继续", readSegment, readOffset, first.end);
+                readOffset = first.end;
+            }
+            pendingTotal -= countRecords(first, readOffset);
+        }
+        pendingSegment = readSegment;
+        pendingOffset = readOffset;
+        if (pendingTotal > 0) {
+            log.info("预写日志恢复: {} 个段，{} 条待写入数据库", segments.size(), pendingTotal);
+        }
+    }
+
+    /**
+     * 逐条校验，确定段内有效数据的结尾
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        int records = 0;
+        while (offset + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER + length > buffer.capacity()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(offset + RECORD_HEADER, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("预写日志段 {} 在偏移 {} 处记录不完整，之后的数据丢弃", segment.id, offset);
+                break;
+            }
+            offset += RECORD_HEADER + length;
+            records++;
+        }
+        segment.end = offset;
+        segment.records = records;
+        if (offset + RECORD_HEADER <= buffer.capacity()) {
+            // 清掉不完整记录的头，继续追加后不会被误认为有效记录
+            buffer.putLong(offset, 0);
+        }
+    }
+
+    private static int countRecords(Segment segment, int until) {
+        int offset = 0;
+        int records = 0;
+        while (offset < until && offset < segment.end) {
+            offset += RECORD_HEADER + segment.buffer.getInt(offset);
+            records++;
+        }
+        return records;
+    }
+
+    private int encode(SignalReading reading) {
+        ByteBuffer out = scratch.clear();
+        byte[] machineId = reading.getMachineId().getBytes(StandardCharsets.UTF_8);
+        byte[] signal = reading.getSignal().getBytes(StandardCharsets.UTF_8);
+        byte[] text = reading.getText() == null ? null : reading.getText().getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 2 + 8 + 8 + 2 + machineId.length + 2 + signal.length + (text == null ? 0 : 2 + text.length);
+        if (length > out.capacity() || length + RECORD_HEADER > segmentSize
+                || machineId.length > 0xFFFF || signal.length > 0xFFFF || (text != null && text.length > 0xFFFF)) {
+            return -1;
+        }
+        out.put((byte) (text == null ? 0 : FLAG_TEXT));
+        out.putShort(reading.getErrorCode());
+        out.putLong(reading.getTimestamp());
+        out.putDouble(reading.getValue());
+        out.putShort((short) machineId.length).put(machineId);
+        out.putShort((short) signal.length).put(signal);
+        if (text != null) {
+            out.putShort((short) text.length).put(text);
+        }
+        return out.position();
+    }
+
+    private static SignalReading decode(ByteBuffer buffer, int offset) {
+        int flags = buffer.get(offset);
+        short errorCode = buffer.getShort(offset + 1);
+        long timestamp = buffer.getLong(offset + 3);
+        double value = buffer.getDouble(offset + 11);
+        int at = offset + 19;
+        int length = buffer.getShort(at) & 0xFFFF;
+        String machineId = readString(buffer, at + 2, length);
+        at += 2 + length;
+        length = buffer.getShort(at) & 0xFFFF;
+        String signal = readString(buffer, at + 2, length);
+        at += 2 + length;
+        if (errorCode != 0) {
+            return SignalReading.error(machineId, signal, errorCode, timestamp);
+        }
+        if ((flags & FLAG_TEXT) != 0) {
+            length = buffer.getShort(at) & 0xFFFF;
+            return SignalReading.text(machineId, signal, readString(buffer, at + 2, length), timestamp);
+        }
+        return SignalReading.of(machineId, signal, value, timestamp);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("检查点文件格式错误");
+            }
+            readSegment = data.readLong();
+            readOffset = data.readInt();
+        } catch (IOException e) {
+            // 检查点损坏时从最早的段重放，数据库中可能出现重复而不是丢失
+            log.warn("预写日志检查点无法读取，从最早的段开始: {}", e.getMessage());
+            readSegment = 0;
+            readOffset = 0;
+        }
+    }
+
+    private void saveCheckpoint() {
+        try {
+            Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp); DataOutputStream data = new DataOutputStream(out)) {
+                data.writeInt(CHECKPOINT_MAGIC);
+                data.writeLong(readSegment);
+                data.writeInt(readOffset);
+            }
+            Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 下次提交时重试；重启后最多重放一批
+            log.warn("保存预写日志检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private void delete(Segment segment) {
+        unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("删除预写日志段失败: {}", segment.path, e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("预写日志已关闭");
+        }
+    }
+
+    static String fileName(long id) {
+        return String.format("%020d", id) + SUFFIX;
+    }
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("无法主动释放内存映射，段文件要等 GC 后才能删除（Windows）: {}", e.getMessage());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * 立即释放内存映射：Windows 下映射中的文件不能删除。调用后不能再访问该缓冲区
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            log.debug("释放内存映射失败: {}", e.getMessage());
+        }
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int end;
+        int records;
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.wfql.springbootdemo.persist;
+
+import lombok.Data;
+
+/**
+ * 预写日志及其回放统计
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:45
+ */
+@Data
+public class SpoolStats {
+    private int segments;            // 段文件个数
+    private long diskBytes;          // 段文件占用的磁盘空间
+    private long maxBytes;           // 磁盘空间上限
+    private long pendingBytes;       // 尚未写入数据库的数据量
+    private long pendingRecords;     // 尚未写入数据库的条数
+    private long appendedRecords;    // 本次启动以来写入日志的条数
+    private long droppedSegments;    // 超过上限而丢弃的段数
+    private long droppedRecords;     // 超过上限而丢弃的未入库条数
+    private long appendFailures;     // 写入日志失败（磁盘满等）的次数
+    private long checkpointSegment;  // 检查点所在段
+    private int checkpointOffset;    // 检查点在段内的偏移
+    private boolean databaseAvailable; // 最近一次写入数据库是否成功
+    private String lastError;        // 最近一次写入数据库失败的原因
+    private long rowsWritten;        // 已写入数据库的行数
+    private long failedBatches;      // 写入数据库失败的次数
+    private double rowsPerSecond;    // 最近的回放速率（行/秒，指数滑动平均）
+}
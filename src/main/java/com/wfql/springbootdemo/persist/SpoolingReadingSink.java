@@ -0,0 +1,190 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.ReadingSink;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 先写本地预写日志、再回放到数据库的入库方式（fanuc.persist.mode=spool）
+ * <p>
+ * 采集线程只把信号值追加到 {@link ReadingSpool}（内存复制，与数据库状态无关）；
+ * 回放线程从检查点按批读取，通过 {@link ReadingBatchWriter} 写入数据库，成功后推进检查点。
+ * 数据库不可用时按 1s 起指数退避（最长 60s）无限重试，期间数据留在磁盘上，总量受 max-size 限制
+ *
+ * @Package com.wfql.springbootdemo.persist
+ * @Author guoqing.ling
+ * @Date 2026/10/17 21:50
+ */
+@Slf4j
+@Order(100)
+@Component
+@ConditionalOnExpression("${fanuc.persist.enabled:false} and '${fanuc.persist.mode:queue}'.toLowerCase() == 'spool'")
+public class SpoolingReadingSink implements ReadingSink {
+
+    private static final long RETRY_MIN_MILLIS = 1_000;
+    private static final long RETRY_MAX_MILLIS = 60_000;
+
+    /**
+     * 回放速率的指数滑动平均系数
+     */
+    private static final double ALPHA = 0.2;
+
+    private final ReadingBatchWriter writer;
+    private final ReadingSpool spool;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long syncIntervalNanos;
+
+    private final LongAdder appendFailures = new LongAdder();
+
+    // 以下字段只由回放线程修改
+    private volatile boolean databaseAvailable = true;
+    private volatile String lastError;
+    private volatile long rowsWritten;
+    private volatile long failedBatches;
+    private volatile double rowsPerSecond;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public SpoolingReadingSink(ReadingBatchWriter writer, FanucProperties properties) throws IOException {
+        FanucProperties.Persist config = properties.getPersist();
+        FanucProperties.Spool spoolConfig = config.getSpool();
+        if (config.getBatchSize() < 1) {
+            throw new IllegalArgumentException("fanuc.persist.batch-size 必须 >= 1");
+        }
+        this.writer = writer;
+        this.spool = new ReadingSpool(Paths.get(spoolConfig.getDir()),
+                Math.toIntExact(spoolConfig.getSegmentSize().toBytes()), spoolConfig.getMaxSize().toBytes());
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalMillis = config.getFlushInterval().toMillis();
+        this.syncIntervalNanos = spoolConfig.getSyncInterval().toNanos();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "fanuc-spool-drain");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("采集结果经预写日志入库，待回放 {} 条", spool.getPendingRecords());
+    }
+
+    /**
+     * 停止回放并关闭日志，未回放的数据留在磁盘上，下次启动继续
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        spool.close();
+    }
+
+    @Override
+    public void accept(List<SignalReading> readings) {
+        try {
+            spool.append(readings);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            appendFailures.increment();
+            log.warn("写入预写日志失败，丢弃 {} 条信号值: {}", readings.size(), e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<SignalReading> batch = new ArrayList<>(batchSize);
+        long backoff = RETRY_MIN_MILLIS;
+        long lastSync = System.nanoTime();
+        long lastFlush = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - lastSync >= syncIntervalNanos) {
+                    spool.force();
+                    lastSync = System.nanoTime();
+                }
+                batch.clear();
+                int count = spool.poll(batch, batchSize);
+                if (count == 0) {
+                    Thread.sleep(flushIntervalMillis);
+                    continue;
+                }
+                try {
+                    writer.write(batch);
+                } catch (RuntimeException e) {
+                    failedBatches++;
+                    lastError = e.getMessage();
+                    if (databaseAvailable) {
+                        log.warn("写入数据库失败，数据保留在预写日志中（待回放 {} 条）: {}",
+                                spool.getPendingRecords(), e.getMessage());
+                    }
+                    databaseAvailable = false;
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, RETRY_MAX_MILLIS);
+                    continue;
+                }
+                spool.commit();
+                if (!databaseAvailable) {
+                    log.info("数据库恢复，开始回放预写日志（待回放 {} 条）", spool.getPendingRecords());
+                }
+                databaseAvailable = true;
+                backoff = RETRY_MIN_MILLIS;
+                long now = System.nanoTime();
+                double rate = count * 1e9 / Math.max(1, now - lastFlush);
+                rowsPerSecond = rowsWritten == 0 ? rate : rowsPerSecond + ALPHA * (rate - rowsPerSecond);
+                rowsWritten += count;
+                lastFlush = now;
+                if (count < batchSize) {
+                    // 已追上采集，等下一批攒够或到期
+                    Thread.sleep(flushIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.error("预写日志回放异常", e);
+                try {
+                    Thread.sleep(RETRY_MIN_MILLIS);
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public SpoolStats getStats() {
+        SpoolStats stats = spool.getStats();
+        stats.setDatabaseAvailable(databaseAvailable);
+        stats.setLastError(lastError);
+        stats.setAppendFailures(appendFailures.sum());
+        stats.setRowsWritten(rowsWritten);
+        stats.setFailedBatches(failedBatches);
+        stats.setRowsPerSecond(rowsPerSecond);
+        return stats;
+    }
+}
@@ -0,0 +1,43 @@
+package com.wfql.springbootdemo.snapshot;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一台设备的快照结果
+ *
+ * @Package com.wfql.springbootdemo.snapshot
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:30
+ */
+@Data
+public class MachineSnapshot {
+    private String machineId;
+    private Status status;
+    private short errorCode;          // 连接级错误码，status 为 FAILED 时有效
+    private String errorMessage;
+    private long elapsedMillis;       // 从提交到完成的耗时，超时的设备为截止时间
+    private List<SignalReading> readings = new ArrayList<>();
+
+    public enum Status {
+        /**
+         * 全部标签读取成功
+         */
+        OK,
+        /**
+         * 部分标签读取失败，成功的值照常返回
+         */
+        PARTIAL,
+        /**
+         * 设备未配置、连接失败或全部标签读取失败
+         */
+        FAILED,
+        /**
+         * 截止时间前未完成，不等待该设备
+         */
+        TIMEOUT
+    }
+}
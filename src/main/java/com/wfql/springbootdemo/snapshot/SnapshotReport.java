@@ -0,0 +1,25 @@
+package com.wfql.springbootdemo.snapshot;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次多设备快照的汇总结果，machines 的顺序与请求一致
+ *
+ * @Package com.wfql.springbootdemo.snapshot
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:30
+ */
+@Data
+public class SnapshotReport {
+    private long timestamp;          // 采集时间戳，所有设备相同
+    private long timeoutMillis;      // 本次使用的截止时间
+    private long elapsedMillis;      // 整批耗时，不超过截止时间
+    private int succeeded;           // OK
+    private int partial;             // PARTIAL
+    private int failed;              // FAILED
+    private int timedOut;            // TIMEOUT
+    private List<MachineSnapshot> machines = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.wfql.springbootdemo.snapshot;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 多设备快照请求：对每台设备读取同一组标签
+ *
+ * @Package com.wfql.springbootdemo.snapshot
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:30
+ */
+@Data
+public class SnapshotRequest {
+    private List<String> machineIds;  // 设备编号
+    private List<String> tags;        // 标签地址，如 fanuc:alarm、fanuc:macro:500
+    private Long timeoutMillis;       // 请求截止时间（毫秒），为空时使用 fanuc.snapshot.timeout
+}
@@ -0,0 +1,247 @@
+package com.wfql.springbootdemo.snapshot;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.DriverRegistry;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 并行读取多台设备的同一组标签，在截止时间内返回
+ * <p>
+ * 每台设备一个虚拟线程，经 {@link DriverRegistry} 读取。快照使用独立的执行器，不占用轮询的 fanucThreadPoolExecutor，
+ * 50 台设备同时发出读取，整批耗时约等于最慢一台设备的耗时且不超过截止时间；
+ * 单台设备同时执行的快照读取数受 fanuc.executor.max-concurrent-per-device 限制。
+ * 截止时间到达时不再等待未完成的设备，这些设备标记为 TIMEOUT，已完成的设备照常返回；
+ * 截止前未拿到设备许可或截止后才开始执行的任务直接放弃，不再借用连接
+ *
+ * @Package com.wfql.springbootdemo.snapshot
+ * @Author guoqing.ling
+ * @Date 2026/10/18 2:35
+ */
+@Slf4j
+@Service
+public class SnapshotService {
+
+    private final DriverRegistry driverRegistry;
+    private final FanucProperties properties;
+    private final SimpleAsyncTaskExecutor executor;
+
+    /**
+     * 设备编号 -> 快照读取许可
+     */
+    private final Map<String, Semaphore> devicePermits = new ConcurrentHashMap<>();
+
+    public SnapshotService(DriverRegistry driverRegistry, FanucProperties properties) {
+        if (properties.getExecutor().getMaxConcurrentPerDevice() < 1) {
+            throw new IllegalArgumentException("fanuc.executor.max-concurrent-per-device must be >= 1");
+        }
+        this.driverRegistry = driverRegistry;
+        this.properties = properties;
+        this.executor = new SimpleAsyncTaskExecutor("fanuc-snapshot-vt-");
+        this.executor.setVirtualThreads(true);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * 读取快照，单台设备失败或超时不影响其他设备
+     *
+     * @throws IllegalArgumentException 未指定设备或标签，设备数超过上限，标签格式错误，或截止时间不合法
+     */
+    public SnapshotReport snapshot(SnapshotRequest request) {
+        return snapshot(request, snapshot -> {
+        });
+    }
+
+    /**
+     * 读取快照，每台设备完成时立即回调，回调顺序为完成顺序，超时的设备在截止时间到达后回调；
+     * 返回的汇总结果中 machines 仍按请求顺序排列
+     *
+     * @param listener 在调用线程中执行
+     * @throws IllegalArgumentException 未指定设备或标签，设备数超过上限，标签格式错误，或截止时间不合法
+     */
+    public SnapshotReport snapshot(SnapshotRequest request, Consumer<MachineSnapshot> listener) {
+        FanucProperties.Snapshot config = properties.getSnapshot();
+        if (request.getMachineIds() == null || request.getMachineIds().isEmpty()) {
+            throw new IllegalArgumentException("未指定设备");
+        }
+        if (request.getTags() == null || request.getTags().isEmpty()) {
+            throw new IllegalArgumentException("未指定标签");
+        }
+        List<String> machineIds = List.copyOf(new LinkedHashSet<>(request.getMachineIds()));
+        if (machineIds.size() > config.getMaxMachines()) {
+            throw new IllegalArgumentException("设备数 " + machineIds.size() + " 超过上限 " + config.getMaxMachines());
+        }
+        Duration timeout = request.getTimeoutMillis() != null
+                ? Duration.ofMillis(request.getTimeoutMillis()) : config.getTimeout();
+        if (timeout.isNegative() || timeout.isZero() || timeout.compareTo(config.getMaxTimeout()) > 0) {
+            throw new IllegalArgumentException("timeoutMillis 必须在 1~" + config.getMaxTimeout().toMillis() + " 之间");
+        }
+        List<TagAddress> tags = TagAddress.parseAll(request.getTags());
+
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        // 截止后完成的任务也会放入队列，随请求一起丢弃
+        BlockingQueue<MachineSnapshot> completed = new LinkedBlockingQueue<>();
+        for (String machineId : machineIds) {
+            if (!isConfigured(machineId, tags)) {
+                completed.add(failed(machineId, FocasErrorCode.EW_UNEXP, "未配置的设备: " + machineId));
+                continue;
+            }
+            Semaphore permits = devicePermits.computeIfAbsent(machineId,
+                    k -> new Semaphore(properties.getExecutor().getMaxConcurrentPerDevice(), true));
+            try {
+                executor.execute(() -> completed.add(readWithPermit(permits, machineId, tags, timestamp, start, deadline)));
+            } catch (RuntimeException e) {
+                completed.add(failed(machineId, FocasErrorCode.EW_UNEXP, e.getMessage()));
+            }
+        }
+
+        Map<String, MachineSnapshot> results = new HashMap<>();
+        while (results.size() < machineIds.size()) {
+            MachineSnapshot snapshot = poll(completed, deadline);
+            if (snapshot == null) {
+                break;
+            }
+            if (results.putIfAbsent(snapshot.getMachineId(), snapshot) == null) {
+                listener.accept(snapshot);
+            }
+        }
+
+        SnapshotReport report = new SnapshotReport();
+        report.setTimestamp(timestamp);
+        report.setTimeoutMillis(timeout.toMillis());
+        for (String machineId : machineIds) {
+            MachineSnapshot snapshot = results.get(machineId);
+            if (snapshot == null) {
+                snapshot = timedOut(machineId, timeout);
+                listener.accept(snapshot);
+            }
+            report.getMachines().add(snapshot);
+            switch (snapshot.getStatus()) {
+                case OK -> report.setSucceeded(report.getSucceeded() + 1);
+                case PARTIAL -> report.setPartial(report.getPartial() + 1);
+                case FAILED -> report.setFailed(report.getFailed() + 1);
+                case TIMEOUT -> report.setTimedOut(report.getTimedOut() + 1);
+            }
+        }
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        if (report.getTimedOut() > 0 || report.getFailed() > 0) {
+            log.info("快照完成: {} 台设备，成功 {}，部分成功 {}，失败 {}，超时 {}，耗时 {}ms", machineIds.size(),
+                    report.getSucceeded(), report.getPartial(), report.getFailed(), report.getTimedOut(),
+                    report.getElapsedMillis());
+        }
+        return report;
+    }
+
+    private static MachineSnapshot poll(BlockingQueue<MachineSnapshot> completed, long deadline) {
+        try {
+            return completed.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 在截止时间内等待设备许可，等不到时不再读取
+     */
+    private MachineSnapshot readWithPermit(Semaphore permits, String machineId, List<TagAddress> tags, long timestamp,
+                                           long submittedAt, long deadline) {
+        try {
+            if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return timedOut(machineId, Duration.ofNanos(deadline - submittedAt));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return timedOut(machineId, Duration.ofNanos(deadline - submittedAt));
+        }
+        try {
+            return readQuietly(machineId, tags, timestamp, submittedAt, deadline);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private MachineSnapshot readQuietly(String machineId, List<TagAddress> tags, long timestamp, long submittedAt,
+                                        long deadline) {
+        if (System.nanoTime() >= deadline) {
+            // 等待许可期间已超过截止时间，结果不会被使用
+            return timedOut(machineId, Duration.ofNanos(deadline - submittedAt));
+        }
+        MachineSnapshot snapshot = new MachineSnapshot();
+        snapshot.setMachineId(machineId);
+        try {
+            short result = driverRegistry.read(machineId, tags, timestamp, snapshot.getReadings());
+            long succeeded = snapshot.getReadings().stream().filter(SignalReading::isSuccess).count();
+            if (succeeded == 0) {
+                snapshot.setStatus(MachineSnapshot.Status.FAILED);
+                snapshot.setErrorCode(result != FocasErrorCode.EW_OK ? result : firstErrorCode(snapshot.getReadings()));
+                snapshot.setErrorMessage(FocasErrorCode.nameOf(snapshot.getErrorCode()));
+            } else {
+                snapshot.setStatus(succeeded == snapshot.getReadings().size()
+                        ? MachineSnapshot.Status.OK : MachineSnapshot.Status.PARTIAL);
+                snapshot.setErrorCode(result);
+            }
+        } catch (RuntimeException e) {
+            log.warn("设备 {} 快照读取异常", machineId, e);
+            snapshot = failed(machineId, FocasErrorCode.EW_UNEXP, e.getMessage());
+        }
+        snapshot.setElapsedMillis((System.nanoTime() - submittedAt) / 1_000_000);
+        return snapshot;
+    }
+
+    private boolean isConfigured(String machineId, List<TagAddress> tags) {
+        for (TagAddress tag : tags) {
+            if (driverRegistry.getProtocols().contains(tag.getProtocol())
+                    && driverRegistry.get(tag.getProtocol()).hasMachine(machineId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static short firstErrorCode(List<SignalReading> readings) {
+        return readings.isEmpty() ? FocasErrorCode.EW_UNEXP : readings.get(0).getErrorCode();
+    }
+
+    private static MachineSnapshot failed(String machineId, short errorCode, String message) {
+        MachineSnapshot snapshot = new MachineSnapshot();
+        snapshot.setMachineId(machineId);
+        snapshot.setStatus(MachineSnapshot.Status.FAILED);
+        snapshot.setErrorCode(errorCode);
+        snapshot.setErrorMessage(message);
+        return snapshot;
+    }
+
+    private static MachineSnapshot timedOut(String machineId, Duration timeout) {
+        MachineSnapshot snapshot = new MachineSnapshot();
+        snapshot.setMachineId(machineId);
+        snapshot.setStatus(MachineSnapshot.Status.TIMEOUT);
+        snapshot.setErrorCode(FocasErrorCode.EW_BUSY);
+        snapshot.setErrorMessage("截止时间 " + timeout.toMillis() + "ms 内未完成");
+        snapshot.setElapsedMillis(timeout.toMillis());
+        return snapshot;
+    }
+}
@@ -0,0 +1,306 @@
+package com.wfql.springbootdemo.stream;
+
+import com.wfql.springbootdemo.collect.MachineState;
+import com.wfql.springbootdemo.collect.MachineStateStore;
+import com.wfql.springbootdemo.collect.ReadingSink;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备状态变化推送（SSE），替代看板定时轮询 REST
+ * <p>
+ * 作为 {@link ReadingSink} 接在变化过滤之后，只记录哪些设备有变化；定时线程每个 frame-interval 把变化的设备
+ * 分发给订阅了它们的客户端，每个客户端一帧只发送一次 {@link MachineStateStore} 中的最新状态，周期内的多次变化自然合并。
+ * 每个订阅者最多一帧在发送中，待发送的只是设备编号集合（不超过设备总数），不会无限缓存；
+ * 一帧超过 send-timeout 仍未发出的订阅者直接断开，由客户端（EventSource）自行重连并重新收到全量状态
+ *
+ * @Package com.wfql.springbootdemo.stream
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:05
+ */
+@Slf4j
+@Order(10)
+@Component
+public class StateStreamHub implements ReadingSink {
+
+    private final MachineStateStore stateStore;
+    private final FanucProperties properties;
+    private final OpcUaProperties opcUaProperties;
+    private final long frameIntervalMillis;
+    private final long sendTimeoutNanos;
+    private final long heartbeatNanos;
+    private final int maxSubscribers;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong frameIds = new AtomicLong();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder machinesSent = new LongAdder();
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder slowConsumersDropped = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService senders;
+
+    public StateStreamHub(MachineStateStore stateStore, FanucProperties properties, OpcUaProperties opcUaProperties) {
+        FanucProperties.Stream config = properties.getStream();
+        if (config.getFrameInterval().toMillis() < 1 || config.getMaxSubscribers() < 1) {
+            throw new IllegalArgumentException("fanuc.stream.frame-interval 必须 >= 1ms，max-subscribers 必须 >= 1");
+        }
+        this.stateStore = stateStore;
+        this.properties = properties;
+        this.opcUaProperties = opcUaProperties;
+        this.frameIntervalMillis = config.getFrameInterval().toMillis();
+        this.sendTimeoutNanos = config.getSendTimeout().toNanos();
+        this.heartbeatNanos = config.getHeartbeat().toNanos();
+        this.maxSubscribers = config.getMaxSubscribers();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        // 发送可能阻塞在慢客户端的写操作上，每帧一个虚拟线程，不占用定时线程
+        senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fanuc-stream-send-", 0).factory());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fanuc-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, frameIntervalMillis, frameIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+        senders = null;
+    }
+
+    @Override
+    public void accept(List<SignalReading> readings) {
+        if (!readings.isEmpty() && !subscribers.isEmpty()) {
+            dirty.add(readings.get(0).getMachineId());
+        }
+    }
+
+    /**
+     * 订阅设备状态变化；machineIds 和 cells 都为空时订阅全部设备，否则取两者的并集
+     *
+     * @throws IllegalArgumentException 设备或单元未配置
+     * @throws IllegalStateException    订阅者已达上限
+     */
+    public SseEmitter subscribe(Collection<String> machineIds, Collection<String> cells) {
+        Set<String> machines = resolve(machineIds, cells);
+        SseEmitter emitter = new SseEmitter(0L);
+        register(emitter, machines);
+        return emitter;
+    }
+
+    /**
+     * 把订阅条件解析为设备编号集合，null 表示全部设备
+     */
+    Set<String> resolve(Collection<String> machineIds, Collection<String> cells) {
+        boolean noMachines = machineIds == null || machineIds.isEmpty();
+        boolean noCells = cells == null || cells.isEmpty();
+        if (noMachines && noCells) {
+            return null;
+        }
+        // 设备编号 -> 单元，FANUC 设备与 OPC UA 服务器都进入同一采集管道
+        Map<String, String> configured = new LinkedHashMap<>();
+        for (FanucProperties.Device device : properties.getDevices()) {
+            configured.put(device.getId(), device.getCell());
+        }
+        for (OpcUaProperties.Endpoint endpoint : opcUaProperties.getEndpoints()) {
+            configured.put(endpoint.getId(), endpoint.getCell());
+        }
+        Set<String> machines = new HashSet<>();
+        if (!noMachines) {
+            for (String machineId : machineIds) {
+                if (!configured.containsKey(machineId)) {
+                    throw new IllegalArgumentException("未配置的设备: " + machineId);
+                }
+                machines.add(machineId);
+            }
+        }
+        if (!noCells) {
+            for (String cell : cells) {
+                boolean found = false;
+                for (Map.Entry<String, String> entry : configured.entrySet()) {
+                    if (cell.equals(entry.getValue())) {
+                        machines.add(entry.getKey());
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    throw new IllegalArgumentException("未配置的单元: " + cell);
+                }
+            }
+        }
+        return machines;
+    }
+
+    void register(SseEmitter emitter, Set<String> machines) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("订阅者已达上限 " + maxSubscribers);
+        }
+        Subscriber subscriber = new Subscriber(emitter, machines);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // 第一帧是订阅范围内的全量状态
+        for (MachineState state : stateStore.getAll()) {
+            if (subscriber.matches(state.getMachineId())) {
+                subscriber.pending.add(state.getMachineId());
+            }
+        }
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * 由定时线程调用：分发变化的设备，为空闲的订阅者提交发送，断开慢消费者
+     */
+    private void flush() {
+        try {
+            List<String> changed = new ArrayList<>(dirty.size());
+            for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+                changed.add(it.next());
+                it.remove();
+            }
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                for (String machineId : changed) {
+                    if (subscriber.matches(machineId)) {
+                        subscriber.pending.add(machineId);
+                    }
+                }
+                if (subscriber.sending) {
+                    if (now - subscriber.sendStartedAt > sendTimeoutNanos) {
+                        dropSlow(subscriber);
+                    }
+                    continue;
+                }
+                if (!subscriber.pending.isEmpty()) {
+                    submit(subscriber, now, false);
+                } else if (now - subscriber.lastSentAt > heartbeatNanos) {
+                    submit(subscriber, now, true);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("状态推送异常", e);
+        }
+    }
+
+    private void submit(Subscriber subscriber, long now, boolean heartbeat) {
+        subscriber.sending = true;
+        subscriber.sendStartedAt = now;
+        senders.execute(() -> {
+            try {
+                if (heartbeat) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    heartbeats.increment();
+                } else {
+                    List<MachineState> states = new ArrayList<>(subscriber.pending.size());
+                    for (Iterator<String> it = subscriber.pending.iterator(); it.hasNext(); ) {
+                        MachineState state = stateStore.get(it.next());
+                        it.remove();
+                        if (state != null) {
+                            states.add(state);
+                        }
+                    }
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(frameIds.incrementAndGet()))
+                            .name("state")
+                            .data(states, MediaType.APPLICATION_JSON));
+                    framesSent.increment();
+                    machinesSent.add(states.size());
+                }
+                subscriber.lastSentAt = System.nanoTime();
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                subscribers.remove(subscriber);
+            } finally {
+                subscriber.sending = false;
+            }
+        });
+    }
+
+    private void dropSlow(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        slowConsumersDropped.increment();
+        log.info("订阅者一帧超过 {}ms 未发出，断开", TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+        // 发送线程可能仍阻塞在写操作上，在另一个虚拟线程中结束连接，不阻塞定时线程
+        senders.execute(() -> subscriber.emitter.completeWithError(new IOException("slow consumer")));
+    }
+
+    public StreamStats getStats() {
+        StreamStats stats = new StreamStats();
+        stats.setSubscribers(subscribers.size());
+        stats.setPendingMachines(dirty.size());
+        stats.setFramesSent(framesSent.sum());
+        stats.setMachinesSent(machinesSent.sum());
+        stats.setHeartbeats(heartbeats.sum());
+        stats.setSlowConsumersDropped(slowConsumersDropped.sum());
+        return stats;
+    }
+
+    /**
+     * 一个 SSE 连接及其待发送的设备
+     */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        /**
+         * 订阅的设备，null 表示全部
+         */
+        final Set<String> machines;
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        volatile boolean sending;
+        volatile long sendStartedAt;
+        volatile long lastSentAt = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, Set<String> machines) {
+            this.emitter = emitter;
+            this.machines = machines;
+        }
+
+        boolean matches(String machineId) {
+            return machines == null || machines.contains(machineId);
+        }
+    }
+}
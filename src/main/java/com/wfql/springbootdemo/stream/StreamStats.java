@@ -0,0 +1,20 @@
+package com.wfql.springbootdemo.stream;
+
+import lombok.Data;
+
+/**
+ * 状态推送统计
+ *
+ * @Package com.wfql.springbootdemo.stream
+ * @Author guoqing.ling
+ * @Date 2026/10/17 23:05
+ */
+@Data
+public class StreamStats {
+    private int subscribers;            // 当前订阅者数
+    private int pendingMachines;        // 等待合并推送的设备数
+    private long framesSent;            // 已发送的状态帧数
+    private long machinesSent;          // 各帧中设备状态的总数
+    private long heartbeats;            // 已发送的心跳数
+    private long slowConsumersDropped;  // 因发送超时被断开的订阅者数
+}
@@ -3,6 +3,7 @@ package com.wfql.springbootdemo.test;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -30,12 +31,24 @@ public class CustomThreadPoolConfig {
         executor.setKeepAliveSeconds(300);
         executor.setThreadFactory(new PredefinedNamedThreadFactory());
         executor.setAwaitTerminationSeconds(300);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy()); // 更改拒绝策略以避免任务丢失
+        // 队列满时拒绝，由提交方计为跳过或失败；不能由调用线程执行，否则轮询定时线程会被阻塞的 FOCAS 调用占住
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.initialize();
         return executor;
     }
 
+    /**
+     * 虚拟线程执行器，fanuc.executor.mode=virtual 时用于设备读取，每个任务一个虚拟线程
+     */
+    @Bean("fanucVirtualThreadExecutor")
+    public SimpleAsyncTaskExecutor fanucVirtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("fanuc-device-vt-");
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+
     /**
      * 自定义ThreadFactory，使用预定义的线程名称
      */
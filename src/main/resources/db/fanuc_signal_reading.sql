@@ -0,0 +1,16 @@
+-- FANUC 信号值（只保存变化的值，见 fanuc.delta），按采集时间分区
+CREATE TABLE FANUC_SIGNAL_READING (
+    ID          NUMBER(19)     NOT NULL,
+    MACHINE_ID  VARCHAR2(64)   NOT NULL,
+    SIGNAL      VARCHAR2(64)   NOT NULL,
+    NUM_VALUE   BINARY_DOUBLE,
+    TEXT_VALUE  VARCHAR2(256),
+    ERROR_CODE  NUMBER(5)      DEFAULT 0 NOT NULL,
+    READ_TIME   TIMESTAMP(3)   NOT NULL,
+    CREATE_TIME TIMESTAMP(3)   DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_FANUC_SIGNAL_READING PRIMARY KEY (ID)
+)
+PARTITION BY RANGE (READ_TIME) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+(PARTITION P0 VALUES LESS THAN (TIMESTAMP '2026-01-01 00:00:00'));
+
+CREATE INDEX IDX_FANUC_SIGNAL_MACHINE_TIME ON FANUC_SIGNAL_READING (MACHINE_ID, SIGNAL, READ_TIME) LOCAL;
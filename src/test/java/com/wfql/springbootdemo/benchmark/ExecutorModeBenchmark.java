@@ -0,0 +1,139 @@
+package com.wfql.springbootdemo.benchmark;
+
+import com.wfql.springbootdemo.collect.DeviceTaskExecutor;
+import com.wfql.springbootdemo.collect.FanucReadPlanCompiler;
+import com.wfql.springbootdemo.collect.FanucSignalReader;
+import com.wfql.springbootdemo.collect.SignalGroup;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.CncEndpoint;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnection;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import com.wfql.springbootdemo.test.CustomThreadPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * platform / virtual 两种执行方式轮询全部设备一轮（每台一次 ALARM 分组读取）的耗时
+ * <p>
+ * 后端为模拟CNC，单次调用延迟 2±1ms；platform 使用 CustomThreadPoolConfig 的生产配置。
+ * pinCarrier=true 时模拟 JNA 本地调用占住载体线程，对应 native 后端的真实情况
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExecutorModeBenchmark"
+ *
+ * @Package com.wfql.springbootdemo.benchmark
+ * @Author guoqing.ling
+ * @Date 2026/10/17 15:45
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ExecutorModeBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public FanucProperties.ExecutorMode mode;
+
+    @Param({"100", "1000"})
+    public int devices;
+
+    @Param({"false", "true"})
+    public boolean pinCarrier;
+
+    private ThreadPoolTaskExecutor platformExecutor;
+    private SimpleAsyncTaskExecutor virtualExecutor;
+    private FocasConnectionPool pool;
+    private FanucSignalReader reader;
+    private DeviceTaskExecutor executor;
+    private List<FanucProperties.Device> deviceList;
+    private List<CncEndpoint> endpoints;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getExecutor().setMode(mode);
+        properties.getPool().setMaxWait(Duration.ofMinutes(1));
+        FanucProperties.Simulator simulator = properties.getSimulator();
+        simulator.setLatency(Duration.ofMillis(2));
+        simulator.setLatencyJitter(Duration.ofMillis(1));
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setAlarmRate(0);
+        simulator.setPinCarrier(pinCarrier);
+
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(properties);
+        CustomThreadPoolConfig config = new CustomThreadPoolConfig();
+        platformExecutor = config.fanucThreadPoolExecutor();
+        virtualExecutor = config.fanucVirtualThreadExecutor();
+        executor = new DeviceTaskExecutor(properties, platformExecutor, virtualExecutor);
+        pool = new FocasConnectionPool(backend, properties);
+        reader = new FanucSignalReader(new FanucReadDevices(backend), new FanucReadPlanCompiler(properties));
+
+        deviceList = new ArrayList<>(devices);
+        endpoints = new ArrayList<>(devices);
+        for (int i = 0; i < devices; i++) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setIp("10.1." + (i / 250) + "." + (i % 250 + 1));
+            deviceList.add(device);
+            endpoints.add(new CncEndpoint(device.getIp(), device.getPort()));
+        }
+        // 预先建立句柄，只测量读取
+        pollAll();
+        failures.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (failures.get() > 0) {
+            throw new IllegalStateException("读取失败次数: " + failures.get());
+        }
+        pool.close();
+        platformExecutor.shutdown();
+        virtualExecutor.close();
+    }
+
+    @Benchmark
+    public void pollAll() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(devices);
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < devices; i++) {
+            FanucProperties.Device device = deviceList.get(i);
+            CncEndpoint endpoint = endpoints.get(i);
+            executor.execute(device.getId(), () -> {
+                List<SignalReading> out = new ArrayList<>(2);
+                try (FocasConnection connection = pool.borrow(endpoint)) {
+                    reader.read(connection, device, SignalGroup.ALARM.tags(device), timestamp, out);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,130 @@
+package com.wfql.springbootdemo.benchmark;
+
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedCnc;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FanucReadDevices 对外方法的基线：参数字节解析、宏变量读取与换算、DNC 诊断字符串提取、程序下载编码
+ * <p>
+ * 模拟后端零延迟，结果只反映 Java/JNA 结构体一侧的开销；吞吐量为 ops/s，
+ * 每次调用分配的字节数见 -prof gc 输出的 gc.alloc.rate.norm。
+ * 采集相关改动前后各跑一次，对比 target/jmh-result.json
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="FocasWrapperBenchmark -prof gc"
+ *
+ * @Package com.wfql.springbootdemo.benchmark
+ * @Author guoqing.ling
+ * @Date 2026/10/17 17:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FocasWrapperBenchmark {
+
+    private static final short MACRO_LENGTH = 10;
+
+    private SimulatedFocasBackend backend;
+    private FanucReadDevices devices;
+    private short handle;
+
+    @Setup
+    public void setUp() {
+        FanucProperties.Simulator simulator = new FanucProperties.Simulator();
+        simulator.setLatency(Duration.ZERO);
+        simulator.setLatencyJitter(Duration.ZERO);
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setAlarmRate(0);
+        // 下载一次调用全部接收，只测量 Java 侧的编码和复制
+        simulator.setDownloadChunkLimit(Integer.MAX_VALUE);
+        backend = new SimulatedFocasBackend(simulator);
+        devices = new FanucReadDevices(backend);
+        ShortByReference ref = new ShortByReference();
+        backend.cnc_allclibhndl3("10.0.0.1", (short) 8193, 10, ref);
+        handle = ref.getValue();
+    }
+
+    @State(Scope.Thread)
+    public static class ParameterCase {
+
+        /**
+         * 模拟器中的参数：1312 字节型、1310 双字型、1323 字型轴参数、1320 双字型轴参数
+         */
+        @Param({"1312", "1310", "1323", "1320"})
+        public short parameter;
+
+        short axis;
+        short length;
+
+        @Setup
+        public void setUp(FocasWrapperBenchmark bench) {
+            SimulatedCnc cnc = bench.backend.machine("10.0.0.1", 8193);
+            boolean axisParam = cnc.isAxisParameter(parameter);
+            axis = axisParam ? FanucReadDevices.ALL_AXES : 0;
+            length = (short) (4 + cnc.parameterSize(parameter) * (axisParam ? 32 : 1));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProgramCase {
+
+        @Param({"1024", "65536"})
+        public int programSize;
+
+        String program;
+
+        @Setup
+        public void setUp() {
+            StringBuilder text = new StringBuilder("%\nO1234\n");
+            for (int n = 1; text.length() < programSize - 8; n++) {
+                text.append('N').append(n).append(" G01 X").append(n % 500).append(".0 F1200;\n");
+            }
+            program = text.append("M30;\n%").toString();
+        }
+    }
+
+    @Benchmark
+    public Object readParameter(ParameterCase c) {
+        return devices.readParameterWithError(handle, c.parameter, c.axis, c.length).getData();
+    }
+
+    @Benchmark
+    public double readMacroVariable() {
+        return devices.readMacroVariableWithError(handle, (short) 500, MACRO_LENGTH).getActualValue();
+    }
+
+    @Benchmark
+    public String readDncDiag() {
+        return devices.readDncDiagWithError(handle).getNcFile();
+    }
+
+    /**
+     * 一次完整下载：cnc_dwnstart3 + 程序编码下载 + cnc_dwnend3
+     */
+    @Benchmark
+    public void downloadProgram(ProgramCase c, Blackhole bh) {
+        devices.startDownloadWithError(handle, FanucReadDevices.DownloadDataType.NC_PROGRAM);
+        bh.consume(devices.downloadProgramWithError(handle, c.program));
+        bh.consume(devices.endDownloadWithError(handle));
+    }
+}
@@ -0,0 +1,130 @@
+package com.wfql.springbootdemo.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.wfql.springbootdemo.config.MybatisplusConfig;
+import com.wfql.springbootdemo.config.TimestampFill;
+import com.wfql.springbootdemo.entity.FanucSignalRecord;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.reflection.MetaObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量插入时每行的时间字段填充开销
+ * <p>
+ * legacyStrictFill：原 insertFill，每行六次 strictInsertFill，各取一次 LocalDateTime.now() 并经 MetaObject 反射查找；
+ * cachedHandlerFill：现 insertFill，按类缓存的 VarHandle，每行最多取一次时间；
+ * batchFill：批量插入路径，先整批填充（一个时间），再逐行经过 insertFill（字段已有值，直接跳过）。
+ * 三者都包含 MyBatis 本来就要为每行创建的 MetaObject，结果为每行耗时
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="InsertFillBenchmark -prof gc"
+ *
+ * @Package com.wfql.springbootdemo.benchmark
+ * @Author guoqing.ling
+ * @Date 2026/10/17 22:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertFillBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private MybatisConfiguration configuration;
+    private MetaObjectHandler legacy;
+    private MetaObjectHandler cached;
+    private List<FanucSignalRecord> records;
+
+    @Setup
+    public void setUp() {
+        configuration = new MybatisConfiguration();
+        // strictInsertFill 依赖 TableInfo 判断字段是否需要填充
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(configuration, ""), FanucSignalRecord.class);
+        legacy = new LegacyHandler();
+        cached = new MybatisplusConfig();
+        records = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            FanucSignalRecord record = new FanucSignalRecord();
+            record.setMachineId("M01");
+            record.setSignal("macro:500");
+            record.setNumValue((double) i);
+            records.add(record);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public LocalDateTime legacyStrictFill() {
+        reset();
+        for (FanucSignalRecord record : records) {
+            legacy.insertFill(configuration.newMetaObject(record));
+        }
+        return records.get(BATCH - 1).getCreateTime();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public LocalDateTime cachedHandlerFill() {
+        reset();
+        for (FanucSignalRecord record : records) {
+            cached.insertFill(configuration.newMetaObject(record));
+        }
+        return records.get(BATCH - 1).getCreateTime();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public LocalDateTime batchFill() {
+        reset();
+        TimestampFill.fillInsert(records);
+        for (FanucSignalRecord record : records) {
+            cached.insertFill(configuration.newMetaObject(record));
+        }
+        return records.get(BATCH - 1).getCreateTime();
+    }
+
+    private void reset() {
+        for (FanucSignalRecord record : records) {
+            record.setCreateTime(null);
+        }
+    }
+
+    /**
+     * 原 MybatisplusConfig.insertFill 的实现
+     */
+    private static final class LegacyHandler implements MetaObjectHandler {
+
+        @Override
+        public void insertFill(MetaObject metaObject) {
+            this.strictInsertFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
+            this.strictInsertFill(metaObject, "createTime", LocalDateTime.class, LocalDateTime.now());
+            this.strictInsertFill(metaObject, "updatetime", LocalDateTime.class, LocalDateTime.now());
+            this.strictInsertFill(metaObject, "createtime", LocalDateTime.class, LocalDateTime.now());
+            this.strictInsertFill(metaObject, "datatime", LocalDateTime.class, LocalDateTime.now());
+            this.strictInsertFill(metaObject, "addtime", LocalDateTime.class, LocalDateTime.now());
+        }
+
+        @Override
+        public void updateFill(MetaObject metaObject) {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.wfql.springbootdemo.benchmark;
+
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasBuffers;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取方法的分配情况：*WithError（每次新建结构体、Memory 和结果对象）与 FocasBuffers 复用缓冲区
+ * <p>
+ * 模拟后端零延迟，只测量 Java 侧开销；配合 -prof gc 查看 gc.alloc.rate.norm（每次调用分配的字节数）
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReadPathBenchmark -prof gc"
+ *
+ * @Package com.wfql.springbootdemo.benchmark
+ * @Author guoqing.ling
+ * @Date 2026/10/17 16:55
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final short MACRO_LENGTH = 10;
+    private static final short PARAM_ALL_AXES_LENGTH = 4 + 4 * 32;
+
+    private FanucReadDevices devices;
+    private FocasBuffers buffers;
+    private short handle;
+
+    @Setup
+    public void setUp() {
+        FanucProperties.Simulator simulator = new FanucProperties.Simulator();
+        simulator.setLatency(Duration.ZERO);
+        simulator.setLatencyJitter(Duration.ZERO);
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setAlarmRate(0);
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(simulator);
+        devices = new FanucReadDevices(backend);
+        buffers = new FocasBuffers();
+        ShortByReference ref = new ShortByReference();
+        backend.cnc_allclibhndl3("10.0.0.1", (short) 8193, 10, ref);
+        handle = ref.getValue();
+    }
+
+    @Benchmark
+    public double macroWithError() {
+        return devices.readMacroVariableWithError(handle, (short) 500, MACRO_LENGTH).getActualValue();
+    }
+
+    @Benchmark
+    public double macroBuffered() {
+        devices.readMacroVariable(handle, (short) 500, buffers);
+        return buffers.getMacroValue();
+    }
+
+    @Benchmark
+    public double macroRangeWithError() {
+        return devices.readMacroRangeWithError(handle, 100, 199).getValue(150);
+    }
+
+    @Benchmark
+    public double macroRangeBuffered() {
+        devices.readMacroRange(handle, 100, 199, buffers.getMacroValues(), 0, buffers);
+        return buffers.getMacroValues()[50];
+    }
+
+    @Benchmark
+    public Object axisParameterWithError() {
+        return devices.readParameterWithError(handle, (short) 1320, FanucReadDevices.ALL_AXES, PARAM_ALL_AXES_LENGTH).getData();
+    }
+
+    @Benchmark
+    public double axisParameterBuffered() {
+        devices.readParameter(handle, (short) 1320, FanucReadDevices.ALL_AXES, PARAM_ALL_AXES_LENGTH, buffers);
+        return buffers.getParamValue(1);
+    }
+
+    /**
+     * PROGRAM 分组：程序号 + 执行程序名 + 块计数
+     */
+    @Benchmark
+    public void programWithError(Blackhole bh) {
+        bh.consume(devices.readProgramNumberWithError(handle).getRunningProgramNumber());
+        bh.consume(devices.readCurrentExecProgramWithError(handle).getProgramName());
+        bh.consume(devices.readBlockCountWithError(handle).getBlockCount());
+        bh.consume(devices.readAlarmStatusWithError(handle).getAlarmStatus());
+    }
+
+    @Benchmark
+    public void programBuffered(Blackhole bh) {
+        devices.readProgramNumber(handle, buffers);
+        bh.consume(buffers.getProgramNumber());
+        devices.readCurrentExecProgram(handle, buffers);
+        bh.consume(buffers.getExecProgramName());
+        devices.readBlockCount(handle, buffers);
+        bh.consume(buffers.getBlockCount());
+        devices.readAlarmStatus(handle, buffers);
+        bh.consume(buffers.getAlarmStatus());
+    }
+}
@@ -0,0 +1,74 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptivePollRateTest {
+
+    @Test
+    void backsOffWhenIdleAndRecoversOnActivity() {
+        FanucProperties.Adaptive config = new FanucProperties.Adaptive();
+        config.setIdleAfter(Duration.ofSeconds(10));
+        config.setMaxIdleFactor(8);
+        AdaptivePollRate rate = new AdaptivePollRate(config);
+
+        long now = 0;
+        for (int i = 0; i <= 10; i++) {
+            rate.update(FocasErrorCode.EW_OK, List.of(blocks(100, now), alarm(0, now)), now);
+            now += 1000;
+        }
+        assertThat(rate.factor()).isEqualTo(2);
+        for (int i = 0; i < 5; i++) {
+            rate.update(FocasErrorCode.EW_OK, List.of(blocks(100, now)), now);
+            now += 1000;
+        }
+        assertThat(rate.factor()).isEqualTo(8);
+        assertThat(rate.snapshot("M01").getState()).isEqualTo(PollRateState.IDLE);
+
+        // 报警变化立即恢复
+        assertThat(rate.update(FocasErrorCode.EW_OK, List.of(alarm(1, now)), now)).isTrue();
+        assertThat(rate.factor()).isEqualTo(1);
+        assertThat(rate.snapshot("M01").getReason()).isEqualTo("报警状态变化");
+    }
+
+    @Test
+    void backsOffExponentiallyOnConnectionErrors() {
+        FanucProperties.Adaptive config = new FanucProperties.Adaptive();
+        config.setMaxErrorFactor(16);
+        AdaptivePollRate rate = new AdaptivePollRate(config);
+
+        for (int i = 0; i < 3; i++) {
+            rate.update(FocasErrorCode.EW_SOCKET, List.of(), i);
+        }
+        assertThat(rate.factor()).isEqualTo(8);
+        rate.update(FocasErrorCode.EW_HANDLE, List.of(), 3);
+        rate.update(FocasErrorCode.EW_SOCKET, List.of(), 4);
+        assertThat(rate.factor()).isEqualTo(16);
+        assertThat(rate.snapshot("M01").getState()).isEqualTo(PollRateState.ERROR);
+        // 非连接级错误不放慢
+        rate.update(FocasErrorCode.EW_BUSY, List.of(), 5);
+        assertThat(rate.factor()).isEqualTo(16);
+
+        assertThat(rate.update(FocasErrorCode.EW_OK, List.of(blocks(1, 6)), 6)).isTrue();
+        assertThat(rate.factor()).isEqualTo(1);
+
+        config.setEnabled(false);
+        AdaptivePollRate disabled = new AdaptivePollRate(config);
+        disabled.update(FocasErrorCode.EW_SOCKET, List.of(), 0);
+        assertThat(disabled.factor()).isEqualTo(1);
+    }
+
+    private static SignalReading blocks(long count, long now) {
+        return SignalReading.of("M01", "blkcount", count, now);
+    }
+
+    private static SignalReading alarm(int status, long now) {
+        return SignalReading.of("M01", "alarm", status, now);
+    }
+}
@@ -0,0 +1,52 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeltaFilterTest {
+
+    @Test
+    void emitsOnlyChangesOutsideDeadband() {
+        FanucProperties properties = new FanucProperties();
+        properties.getDelta().setMacroDeadband(0.5);
+        properties.getDelta().setDeadbands(Map.of("macro:501", 0.0));
+        properties.getDelta().setHeartbeat(Duration.ofSeconds(60));
+        DeltaFilter filter = new DeltaFilter(properties);
+
+        List<SignalReading> first = List.of(
+                SignalReading.of("M01", "alarm", 0, 1000),
+                SignalReading.of("M01", "macro:500", 10.0, 1000),
+                SignalReading.of("M01", "macro:501", 10.0, 1000),
+                SignalReading.text("M01", "exeprg", "O1234", 1000));
+        assertThat(filter.filter(first)).isSameAs(first);
+
+        assertThat(filter.filter(List.of(
+                SignalReading.of("M01", "alarm", 0, 2000),
+                SignalReading.of("M01", "macro:500", 10.4, 2000),
+                SignalReading.of("M01", "macro:501", 10.1, 2000),
+                SignalReading.text("M01", "exeprg", "O1234", 2000))))
+                .extracting(SignalReading::getSignal).containsExactly("macro:501");
+
+        // 与上一次下发值（10.0）比较，漂移累计超过死区后下发
+        assertThat(filter.filter(List.of(SignalReading.of("M01", "macro:500", 10.6, 3000))))
+                .extracting(SignalReading::getValue).containsExactly(10.6);
+        // 错误代码变化、空宏变量（NaN）都算变化
+        assertThat(filter.filter(List.of(SignalReading.error("M01", "alarm", FocasErrorCode.EW_SOCKET, 4000)))).hasSize(1);
+        assertThat(filter.filter(List.of(SignalReading.of("M01", "macro:501", Double.NaN, 4000)))).hasSize(1);
+        assertThat(filter.filter(List.of(SignalReading.of("M01", "macro:501", Double.NaN, 5000)))).isEmpty();
+        // 超过 heartbeat 未变化也下发一次
+        assertThat(filter.filter(List.of(SignalReading.text("M01", "exeprg", "O1234", 61_000)))).hasSize(1);
+        // 其他设备有自己的最近值表
+        assertThat(filter.filter(List.of(SignalReading.of("M02", "alarm", 0, 2000)))).hasSize(1);
+
+        assertThat(filter.getReceived()).isEqualTo(14);
+        assertThat(filter.getSuppressed()).isEqualTo(4);
+    }
+}
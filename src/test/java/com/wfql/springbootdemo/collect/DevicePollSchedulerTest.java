@@ -0,0 +1,258 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.DriverRegistry;
+import com.wfql.springbootdemo.driver.FanucDriver;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DevicePollSchedulerTest {
+
+    private final Queue<SignalReading> received = new ConcurrentLinkedQueue<>();
+    private ThreadPoolTaskExecutor executor;
+    private FocasConnectionPool pool;
+    private DevicePollScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        executor.shutdown();
+        pool.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(FanucProperties.ExecutorMode.class)
+    void pollsAllDevicesThroughSharedExecutor(FanucProperties.ExecutorMode mode) throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getExecutor().setMode(mode);
+        properties.getSimulator().setLatency(Duration.ofMillis(1));
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getSimulator().setAlarmRate(0);
+        properties.getPoll().setAlarmInterval(Duration.ofMillis(20));
+        properties.getPoll().setProgramInterval(Duration.ofMillis(50));
+        properties.getPoll().setMacroInterval(Duration.ofMillis(50));
+        for (int i = 1; i <= 4; i++) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setId("M0" + i);
+            device.setIp("10.0.0." + i);
+            device.setMacros(List.of(500));
+            properties.getDevices().add(device);
+        }
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(properties);
+        backend.machine("10.0.0.4", 8193).setOnline(false);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        pool = new FocasConnectionPool(backend, properties);
+        ReadingSink sink = received::addAll;
+        MachineStateStore stateStore = new MachineStateStore();
+        CollectorPipeline pipeline = new CollectorPipeline(
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(ReadingSink.class),
+                new DeltaFilter(properties), stateStore);
+        scheduler = new DevicePollScheduler(properties, fanucRegistry(properties, backend), pipeline,
+                new DeviceTaskExecutor(properties, executor, virtualExecutor()));
+
+        scheduler.start();
+        Thread.sleep(300);
+
+        PollReport report = scheduler.getReport();
+        // 每台设备 ALARM/PROGRAM/MACRO 三个任务
+        assertThat(report.getTasks()).hasSize(12);
+        assertThat(report.getTasks()).allMatch(s -> s.getCompleted() > 0);
+
+        // online、alarm 等静态信号只下发第一次；停止后等待执行中的任务结束再核对数量
+        scheduler.stop();
+        Thread.sleep(100);
+        report = scheduler.getReport();
+        assertThat(report.getSuppressedReadings()).isPositive();
+        assertThat(received).hasSize((int) (report.getReadings() - report.getSuppressedReadings()));
+        assertThat(received).anyMatch(r -> r.getMachineId().equals("M01") && r.getSignal().equals("macro:500"));
+        assertThat(received).anyMatch(r -> r.getMachineId().equals("M04")
+                && r.getSignal().equals("online") && r.getValue() == 0);
+
+        // 最新值缓存包含未下发的重复值，时间戳为最近一次读取
+        assertThat(stateStore.getAll()).extracting(MachineState::getMachineId)
+                .containsExactly("M01", "M02", "M03", "M04");
+        MachineState m01 = stateStore.get("M01");
+        assertThat(m01.getOnline()).isTrue();
+        assertThat(m01.getAlarm().getValue()).isZero();
+        assertThat(m01.getExecProgram().getText()).isNotBlank();
+        assertThat(m01.getMacros()).containsKey(500);
+        assertThat(m01.getAlarm().getTimestamp()).isGreaterThan(received.stream()
+                .filter(r -> r.getMachineId().equals("M01") && r.getSignal().equals("alarm"))
+                .mapToLong(SignalReading::getTimestamp).max().orElseThrow());
+        assertThat(stateStore.get("M04").getOnline()).isFalse();
+
+        // 离线设备连接失败后间隔放大
+        assertThat(scheduler.getRates()).hasSize(4)
+                .filteredOn(r -> r.getMachineId().equals("M04"))
+                .singleElement()
+                .satisfies(r -> {
+                    assertThat(r.getState()).isEqualTo(PollRateState.ERROR);
+                    assertThat(r.getFactor()).isGreaterThan(1);
+                });
+    }
+
+    @Test
+    void countsRejectedPollsAsSkippedInsteadOfRunningOnTimerThread() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ofMillis(20));
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getSimulator().setAlarmRate(0);
+        properties.getPoll().setAlarmInterval(Duration.ofMillis(5));
+        properties.getPoll().getAdaptive().setEnabled(false);
+        for (int i = 1; i <= 6; i++) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setId("M0" + i);
+            device.setIp("10.0.1." + i);
+            properties.getDevices().add(device);
+        }
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(properties);
+        // 与生产配置一样使用 CallerRunsPolicy，DeviceTaskExecutor 应改为拒绝
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        pool = new FocasConnectionPool(backend, properties);
+        Set<String> pollThreads = ConcurrentHashMap.newKeySet();
+        ReadingSink sink = readings -> pollThreads.add(Thread.currentThread().getName());
+        CollectorPipeline pipeline = new CollectorPipeline(
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(ReadingSink.class),
+                new DeltaFilter(properties), new MachineStateStore());
+        scheduler = new DevicePollScheduler(properties, fanucRegistry(properties, backend), pipeline,
+                new DeviceTaskExecutor(properties, executor, virtualExecutor()));
+
+        scheduler.start();
+        Thread.sleep(300);
+        scheduler.stop();
+
+        assertThat(pollThreads).isNotEmpty().doesNotContain("fanuc-poll-timer");
+        assertThat(scheduler.getReport().getTasks()).anyMatch(s -> s.getSkipped() > 0);
+    }
+
+    @Test
+    void nextPollWaitsUntilPreviousReadingsArePublished() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ZERO);
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getSimulator().setAlarmRate(0);
+        properties.getPoll().setAlarmInterval(Duration.ofMillis(5));
+        properties.getPoll().getAdaptive().setEnabled(false);
+        FanucProperties.Device device = new FanucProperties.Device();
+        device.setId("M01");
+        device.setIp("10.0.3.1");
+        properties.getDevices().add(device);
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(properties);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        pool = new FocasConnectionPool(backend, properties);
+        // 发布较慢时，同一任务的下一轮不能在本轮发布完成前开始
+        AtomicInteger publishing = new AtomicInteger();
+        AtomicInteger maxPublishing = new AtomicInteger();
+        MachineStateStore slowStore = new MachineStateStore() {
+            @Override
+            public void update(List<SignalReading> readings) {
+                boolean alarm = readings.stream().anyMatch(r -> r.getSignal().equals("alarm"));
+                if (alarm) {
+                    maxPublishing.accumulateAndGet(publishing.incrementAndGet(), Math::max);
+                    LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+                    publishing.decrementAndGet();
+                }
+                super.update(readings);
+            }
+        };
+        CollectorPipeline pipeline = new CollectorPipeline(
+                new StaticListableBeanFactory(Map.of()).getBeanProvider(ReadingSink.class),
+                new DeltaFilter(properties), slowStore);
+        scheduler = new DevicePollScheduler(properties, fanucRegistry(properties, backend), pipeline,
+                new DeviceTaskExecutor(properties, executor, virtualExecutor()));
+
+        scheduler.start();
+        Thread.sleep(200);
+        scheduler.stop();
+
+        assertThat(maxPublishing.get()).isEqualTo(1);
+        assertThat(scheduler.getReport().getTasks()).filteredOn(s -> s.getSkipped() > 0).isNotEmpty();
+    }
+
+    @Test
+    void pollsRealTypeParameters() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ZERO);
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getPoll().setParameterInterval(Duration.ofMillis(50));
+        FanucProperties.Device device = new FanucProperties.Device();
+        device.setId("M01");
+        device.setIp("10.0.2.1");
+        // 14xx 为实数型（REALPRM，每个值 8 字节）：1410 轴型，1421 无轴
+        device.setParameters(List.of(1410, 1421));
+        properties.getDevices().add(device);
+        SimulatedFocasBackend backend = new SimulatedFocasBackend(properties);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        pool = new FocasConnectionPool(backend, properties);
+        ReadingSink sink = received::addAll;
+        CollectorPipeline pipeline = new CollectorPipeline(
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(ReadingSink.class),
+                new DeltaFilter(properties), new MachineStateStore());
+        scheduler = new DevicePollScheduler(properties, fanucRegistry(properties, backend), pipeline,
+                new DeviceTaskExecutor(properties, executor, virtualExecutor()));
+
+        scheduler.start();
+        Thread.sleep(200);
+        scheduler.stop();
+
+        var cnc = backend.machine("10.0.2.1", 8193);
+        assertThat(received).filteredOn(r -> r.getSignal().startsWith("param:"))
+                .isNotEmpty().allMatch(SignalReading::isSuccess);
+        assertThat(received).filteredOn(r -> r.getSignal().equals("param:1421")).first()
+                .satisfies(r -> assertThat(r.getValue()).isCloseTo(cnc.readParameter(1421, 0) / 1000.0, within(1e-9)));
+        assertThat(received).filteredOn(r -> r.getSignal().equals("param:1410/axis=2")).first()
+                .satisfies(r -> assertThat(r.getValue()).isCloseTo(cnc.readParameter(1410, 2) / 1000.0, within(1e-9)));
+    }
+
+    private DriverRegistry fanucRegistry(FanucProperties properties, SimulatedFocasBackend backend) {
+        FanucReadDevices readDevices = new FanucReadDevices(backend);
+        return new DriverRegistry(List.of(new FanucDriver(properties, pool,
+                new FanucSignalReader(readDevices, new FanucReadPlanCompiler(properties)), readDevices)));
+    }
+
+    private static SimpleAsyncTaskExecutor virtualExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("test-vt-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
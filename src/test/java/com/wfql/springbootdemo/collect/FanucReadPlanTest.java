@@ -0,0 +1,82 @@
+package com.wfql.springbootdemo.collect;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FanucReadPlanTest {
+
+    private static final Duration CALL = Duration.ofMillis(2);
+    private static final Duration VARIABLE = Duration.ofNanos(200_000);
+
+    @Test
+    void coalescesTagsIntoRanges() {
+        List<String> addresses = new ArrayList<>();
+        IntStream.rangeClosed(500, 520).forEach(n -> addresses.add("fanuc:macro:" + n));
+        addresses.addAll(List.of("fanuc:macro:601", "fanuc:macro:600", "fanuc:macro:600", "fanuc:param:1321",
+                "fanuc:param:1320", "fanuc:alarm", "fanuc:spindle", "fanuc:macro:x"));
+
+        FanucReadPlan plan = FanucReadPlan.compile(TagAddress.parseAll(addresses), CALL, VARIABLE);
+
+        assertThat(plan.isAlarm()).isTrue();
+        assertThat(plan.isProgramNumber() || plan.isExecProgram() || plan.isBlockCount()).isFalse();
+        assertThat(plan.getMacroRanges()).isDeepEqualTo(new int[][]{{500, 520}, {600, 601}});
+        assertThat(plan.getParameters()).containsExactly(1320, 1321);
+        assertThat(plan.getRejected()).containsEntry("spindle", FocasErrorCode.EW_FUNC)
+                .containsEntry("macro:x", FocasErrorCode.EW_NUMBER);
+        // 21 + 2 个宏变量、2 个参数、1 个报警，重复的 600 只读一次
+        assertThat(plan.getNaiveCalls()).isEqualTo(27);
+        assertThat(plan.getNativeCalls()).isEqualTo(5);
+        assertThat(plan.getSavedCalls()).isEqualTo(22);
+    }
+
+    @Test
+    void mergesOnlyWhenGapIsCheaperThanRoundTrip() {
+        // 空隙 8 个变量 1.6ms < 2ms 合并，空隙 10 个变量 2ms 不比一次往返便宜，分开读取
+        assertThat(FanucReadPlan.mergeRanges(new int[]{500, 509, 520}, CALL, VARIABLE))
+                .isDeepEqualTo(new int[][]{{500, 509}, {520, 520}});
+        // 往返更便宜时（如本机仿真）不再多读空隙
+        assertThat(FanucReadPlan.mergeRanges(new int[]{500, 509, 520, 521}, Duration.ofNanos(100_000), VARIABLE))
+                .isDeepEqualTo(new int[][]{{500, 500}, {509, 509}, {520, 521}});
+        // 单个区间不超过 cnc_rdmacror 一次可读的变量数
+        assertThat(FanucReadPlan.mergeRanges(IntStream.rangeClosed(1, 150).toArray(), CALL, VARIABLE))
+                .isDeepEqualTo(new int[][]{{1, 100}, {101, 150}});
+    }
+
+    @Test
+    void readsOnlyRequestedProgramCalls() {
+        FanucReadPlan plan = FanucReadPlan.compile(TagAddress.parseAll(List.of("fanuc:blkcount")), CALL, VARIABLE);
+
+        assertThat(plan.isBlockCount()).isTrue();
+        assertThat(plan.isProgramNumber() || plan.isExecProgram()).isFalse();
+        assertThat(plan.getNativeCalls()).isEqualTo(1);
+        assertThat(plan.getSavedCalls()).isZero();
+
+        plan = FanucReadPlan.compile(TagAddress.parseAll(List.of("fanuc:prgnum", "fanuc:mainprgnum")), CALL, VARIABLE);
+        assertThat(plan.getNativeCalls()).isEqualTo(1);
+        assertThat(plan.getSavedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesPlanPerTagSet() {
+        FanucReadPlanCompiler compiler = new FanucReadPlanCompiler(new FanucProperties());
+        FanucReadPlan plan = compiler.compile(TagAddress.parseAll(List.of("fanuc:macro:500", "fanuc:macro:501")));
+        assertThat(compiler.compile(TagAddress.parseAll(List.of("fanuc:macro:501", "fanuc:macro:500"))))
+                .isSameAs(plan);
+        assertThat(compiler.compile(TagAddress.parseAll(List.of("fanuc:macro:500")))).isNotSameAs(plan);
+        compiler.recordExecution(plan);
+
+        ReadPlanStats stats = compiler.getStats();
+        assertThat(stats.getCompiled()).isEqualTo(2);
+        assertThat(stats.getCacheHits()).isEqualTo(1);
+        assertThat(stats.getSavedCalls()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.wfql.springbootdemo.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingResponseResultTest {
+
+    private static final TypeReference<ResponseResult<List<Map<String, Object>>>> TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesEnvelopeCompatibleWithResponseResult() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseResult.of(objectMapper, writer -> {
+            for (int i = 0; i < 3; i++) {
+                writer.write(Map.of("machineId", "M0" + i));
+            }
+        }).writeTo(out);
+
+        ResponseResult<List<Map<String, Object>>> result = objectMapper.readValue(out.toByteArray(), TYPE);
+        assertThat(result.getCode()).isEqualTo(HttpStatusEnum.SUCCESS.getCode());
+        assertThat(result.getStatus()).isTrue();
+        assertThat(result.getMessage()).isEqualTo(HttpStatusEnum.SUCCESS.getMessage());
+        assertThat(result.getData()).extracting(m -> m.get("machineId")).containsExactly("M00", "M01", "M02");
+    }
+
+    @Test
+    void endsWithFailureWhenProducerThrows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseResult.of(objectMapper, writer -> {
+            writer.write(Map.of("machineId", "M01"));
+            writer.flush();
+            throw new IllegalArgumentException("时间跨度超过 31 天");
+        }).writeTo(out);
+
+        ResponseResult<List<Map<String, Object>>> result = objectMapper.readValue(out.toByteArray(), TYPE);
+        assertThat(result.getCode()).isEqualTo(HttpStatusEnum.ERROR.getCode());
+        assertThat(result.getStatus()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("时间跨度超过 31 天");
+        // 已写出的元素保留
+        assertThat(result.getData()).hasSize(1);
+    }
+
+    @Test
+    void propagatesClientDisconnect() {
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        assertThatThrownBy(() -> StreamingResponseResult.of(objectMapper, writer -> {
+            writer.write(Map.of("machineId", "M01"));
+            writer.flush();
+        }).writeTo(closed)).isInstanceOf(IOException.class).hasMessage("Broken pipe");
+    }
+}
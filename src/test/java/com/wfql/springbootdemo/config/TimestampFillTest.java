@@ -0,0 +1,66 @@
+package com.wfql.springbootdemo.config;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.wfql.springbootdemo.entity.FanucSignalRecord;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimestampFillTest {
+
+    @Test
+    void fillsOnlyAnnotatedNullFieldsWithOneTimestampPerBatch() {
+        Audited kept = new Audited();
+        LocalDateTime earlier = LocalDateTime.of(2026, 1, 1, 0, 0);
+        kept.setCreateTime(earlier);
+        Audited fresh = new Audited();
+
+        TimestampFill.fillInsert(List.of(kept, fresh));
+
+        assertThat(kept.getCreateTime()).isEqualTo(earlier);
+        assertThat(kept.getUpdateTime()).isNotNull().isSameAs(fresh.getUpdateTime());
+        assertThat(fresh.getCreateTime()).isSameAs(fresh.getUpdateTime());
+        // 没有 fill 注解或名称不在列表中的字段不填充
+        assertThat(fresh.getAddtime()).isNull();
+        assertThat(fresh.getDatatime()).isNull();
+        assertThat(TimestampFill.of(FanucSignalRecord.class).hasInsertFill()).isTrue();
+        assertThat(TimestampFill.of(String.class).hasInsertFill()).isFalse();
+    }
+
+    @Test
+    void updateFillsOnlyUpdateFields() {
+        Audited entity = new Audited();
+        TimestampFill.of(Audited.class).fillUpdate(entity);
+        assertThat(entity.getUpdateTime()).isNotNull();
+        assertThat(entity.getCreateTime()).isNull();
+    }
+
+    static class Base {
+        @TableField(fill = FieldFill.INSERT)
+        LocalDateTime createTime;
+
+        LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        void setCreateTime(LocalDateTime createTime) {
+            this.createTime = createTime;
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    static class Audited extends Base {
+        @TableField(fill = FieldFill.INSERT_UPDATE)
+        private LocalDateTime updateTime;
+        private LocalDateTime addtime;
+        @TableField(fill = FieldFill.UPDATE)
+        private LocalDateTime datatime;
+    }
+}
@@ -0,0 +1,181 @@
+package com.wfql.springbootdemo.driver;
+
+import com.sun.jna.Pointer;
+import com.wfql.springbootdemo.collect.FanucReadPlanCompiler;
+import com.wfql.springbootdemo.collect.FanucSignalReader;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanucDriverTest {
+
+    private FanucProperties properties;
+    private SimulatedFocasBackend backend;
+    private FocasConnectionPool pool;
+    private DriverRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ZERO);
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        FanucProperties.Device device = new FanucProperties.Device();
+        device.setId("M01");
+        device.setIp("10.0.2.1");
+        properties.getDevices().add(device);
+        backend = new SimulatedFocasBackend(properties);
+        pool = new FocasConnectionPool(backend, properties);
+        FanucReadDevices readDevices = new FanucReadDevices(backend);
+        FanucSignalReader signalReader = new FanucSignalReader(readDevices, new FanucReadPlanCompiler(properties));
+        registry = new DriverRegistry(List.of(new FanucDriver(properties, pool, signalReader, readDevices)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void parsesTagAddresses() {
+        TagAddress param = TagAddress.parse("fanuc:param:1320/axis=2");
+        assertThat(param.getProtocol()).isEqualTo("fanuc");
+        assertThat(param.getSignal()).isEqualTo("param:1320/axis=2");
+        assertThat(param.getKind()).isEqualTo("param");
+        assertThat(param.getNumber()).isEqualTo(1320);
+        assertThat(param.getAxis()).isEqualTo(2);
+
+        TagAddress alarm = TagAddress.parse("FANUC:alarm");
+        assertThat(alarm).isEqualTo(TagAddress.of("fanuc", "alarm"));
+        assertThat(TagAddress.of("Fanuc", "alarm")).isEqualTo(alarm).hasToString("fanuc:alarm");
+        assertThat(alarm.getNumber()).isEqualTo(-1);
+
+        assertThat(TagAddress.parse("opcua:ns=2;s=Robot1.Speed").getSignal()).isEqualTo("ns=2;s=Robot1.Speed");
+        assertThatThrownBy(() -> TagAddress.parse("macro500")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readsMixedTagsAndWritesMacros() {
+        backend.machine("10.0.2.1", 8193).setMacro(501, 2.5);
+        DeviceDriver driver = registry.get(FanucDriver.PROTOCOL);
+        try (DriverSession session = driver.open("M01")) {
+            assertThat(session.write(TagAddress.parse("fanuc:macro:500"), -12.345)).isEqualTo(FocasErrorCode.EW_OK);
+            assertThat(session.write(TagAddress.parse("fanuc:alarm"), 1)).isEqualTo(FocasErrorCode.EW_FUNC);
+        }
+
+        List<SignalReading> out = new ArrayList<>();
+        short result = registry.read("M01", TagAddress.parseAll(List.of(
+                "fanuc:macro:500", "fanuc:macro:501", "fanuc:param:6000", "fanuc:alarm", "fanuc:blkcount",
+                "fanuc:spindle", "modbus:40001")), 1000L, out);
+
+        assertThat(result).isEqualTo(FocasErrorCode.EW_OK);
+        Map<String, SignalReading> bySignal = out.stream()
+                .collect(Collectors.toMap(SignalReading::getSignal, Function.identity(), (a, b) -> b));
+        assertThat(bySignal.get("macro:500").getValue()).isEqualTo(-12.345);
+        assertThat(bySignal.get("macro:501").getValue()).isEqualTo(2.5);
+        assertThat(bySignal.get("online").getValue()).isEqualTo(1);
+        // 只请求 blkcount 时不再读取 prgnum/exeprg
+        assertThat(bySignal).containsKeys("alarm", "blkcount").doesNotContainKeys("prgnum", "exeprg");
+        assertThat(bySignal.keySet()).anyMatch(s -> s.startsWith("param:6000"));
+        // 不认识的标签和没有驱动的协议都返回 EW_FUNC
+        assertThat(bySignal.get("spindle").getErrorCode()).isEqualTo(FocasErrorCode.EW_FUNC);
+        assertThat(bySignal.get("40001").getErrorCode()).isEqualTo(FocasErrorCode.EW_FUNC);
+
+        assertThatThrownBy(() -> registry.read("M09", List.of(TagAddress.parse("fanuc:alarm")), 1000L, out))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readsOnlyRequestedParameterAxes() {
+        List<SignalReading> out = new ArrayList<>();
+        registry.read("M01", TagAddress.parseAll(List.of(
+                "fanuc:param:6000/axis=2", "fanuc:param:6000/axis=9", "fanuc:param:1330/axis=2",
+                "fanuc:macro:500/axis=1")), 1000L, out);
+
+        Map<String, SignalReading> bySignal = out.stream()
+                .collect(Collectors.toMap(SignalReading::getSignal, Function.identity()));
+        assertThat(bySignal).containsOnlyKeys("param:6000/axis=2", "param:6000/axis=9", "param:1330/axis=2",
+                "macro:500/axis=1");
+        assertThat(bySignal.get("param:6000/axis=2").isSuccess()).isTrue();
+        assertThat(bySignal.get("param:6000/axis=9").getErrorCode()).isEqualTo(FocasErrorCode.EW_NUMBER);
+        // 1330 是无轴参数
+        assertThat(bySignal.get("param:1330/axis=2").getErrorCode()).isEqualTo(FocasErrorCode.EW_ATTRIB);
+        assertThat(bySignal.get("macro:500/axis=1").getErrorCode()).isEqualTo(FocasErrorCode.EW_ATTRIB);
+    }
+
+    @Test
+    void fallsBackToSingleReadsOnlyForRangeWithMissingMacro() {
+        AtomicInteger rangeReads = new AtomicInteger();
+        // 605 号变量不存在：包含它的区间范围读取返回 EW_NUMBER
+        SimulatedFocasBackend missing = new SimulatedFocasBackend(properties) {
+            @Override
+            public short cnc_rdmacror(short handle, short start, short end, short length, Pointer macror) {
+                rangeReads.incrementAndGet();
+                return start <= 605 && 605 <= end
+                        ? FocasErrorCode.EW_NUMBER : super.cnc_rdmacror(handle, start, end, length, macror);
+            }
+        };
+        FocasConnectionPool missingPool = new FocasConnectionPool(missing, properties);
+        try {
+            FanucReadDevices readDevices = new FanucReadDevices(missing);
+            FanucSignalReader signalReader = new FanucSignalReader(readDevices, new FanucReadPlanCompiler(properties));
+            DriverRegistry registry = new DriverRegistry(
+                    List.of(new FanucDriver(properties, missingPool, signalReader, readDevices)));
+            List<TagAddress> tags = TagAddress.parseAll(List.of(
+                    "fanuc:macro:500", "fanuc:macro:501", "fanuc:macro:604", "fanuc:macro:606"));
+
+            for (int i = 0; i < 2; i++) {
+                List<SignalReading> out = new ArrayList<>();
+                registry.read("M01", tags, 1000L, out);
+                assertThat(out).hasSize(4).allMatch(SignalReading::isSuccess);
+            }
+            // 500~501 每次仍按范围读取，设备没有因为 604~606 的 EW_NUMBER 整体改为逐个读取
+            assertThat(rangeReads).hasValue(4);
+        } finally {
+            missingPool.close();
+        }
+    }
+
+    @Test
+    void subscribePollsUntilClosed() throws Exception {
+        properties.getPoll().setSubscribeInterval(Duration.ofMillis(20));
+        backend.machine("10.0.2.1", 8193).setMacro(500, 7);
+        Queue<List<SignalReading>> batches = new ConcurrentLinkedQueue<>();
+        AutoCloseable subscription;
+        try (DriverSession session = registry.get(FanucDriver.PROTOCOL).open("M01")) {
+            subscription = session.subscribe(TagAddress.parseAll(List.of("fanuc:macro:500")), batches::add);
+        }
+        // 会话关闭后订阅继续
+        Thread.sleep(200);
+        subscription.close();
+        Thread.sleep(50);
+        int received = batches.size();
+
+        assertThat(received).isGreaterThan(2);
+        assertThat(batches.peek()).singleElement().satisfies(r -> {
+            assertThat(r.getSignal()).isEqualTo("macro:500");
+            assertThat(r.getValue()).isEqualTo(7);
+        });
+        Thread.sleep(100);
+        assertThat(batches).hasSize(received);
+    }
+}
@@ -0,0 +1,168 @@
+package com.wfql.springbootdemo.fanuc.backend;
+
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasBuffers;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimulatedFocasBackendTest {
+
+    private FanucProperties.Simulator config;
+    private SimulatedFocasBackend backend;
+    private FanucReadDevices devices;
+    private short handle;
+
+    @BeforeEach
+    void setUp() {
+        config = new FanucProperties.Simulator();
+        config.setLatency(Duration.ZERO);
+        config.setLatencyJitter(Duration.ZERO);
+        config.setConnectLatency(Duration.ZERO);
+        config.setAlarmRate(0);
+        backend = new SimulatedFocasBackend(config);
+        devices = new FanucReadDevices(backend);
+        ShortByReference ref = new ShortByReference();
+        assertThat(backend.cnc_allclibhndl3("10.0.0.1", (short) 8193, 10, ref)).isEqualTo(FocasErrorCode.EW_OK);
+        handle = ref.getValue();
+    }
+
+    @Test
+    void readsMacroVariablesThroughStructures() {
+        backend.machine("10.0.0.1", 8193).setMacro(500, 12.345);
+        FanucReadDevices.MacroVariableInfo info = devices.readMacroVariableWithError(handle, (short) 500, (short) 10);
+        assertThat(info.isSuccess()).isTrue();
+        assertThat(info.getActualValue()).isEqualTo(12.345);
+
+        backend.machine("10.0.0.1", 8193).clearMacro(501);
+        assertThat(devices.readMacroVariableWithError(handle, (short) 501, (short) 10).getActualValue()).isNaN();
+    }
+
+    @Test
+    void readsMacroRangeInOneCallPerChunk() {
+        SimulatedCnc cnc = backend.machine("10.0.0.1", 8193);
+        cnc.setMacro(150, -7.5);
+        cnc.clearMacro(151);
+        FanucReadDevices.MacroRangeInfo info = devices.readMacroRangeWithError(handle, 100, 260);
+        assertThat(info.isSuccess()).isTrue();
+        assertThat(info.getValues()).hasSize(161);
+        assertThat(info.getValue(150)).isEqualTo(-7.5);
+        assertThat(info.getValue(151)).isNaN();
+        // 与逐个读取结果一致，包括跨分段（#200 之后）和空变量区域
+        for (int number : new int[]{100, 199, 200, 201, 260}) {
+            double single = devices.readMacroVariableWithError(handle, (short) number, (short) 10).getActualValue();
+            assertThat(Double.compare(info.getValue(number), single)).as("#%d", number).isZero();
+        }
+    }
+
+    @Test
+    void readsAxisParameters() {
+        SimulatedCnc cnc = backend.machine("10.0.0.1", 8193);
+        // 1320：双字型轴参数
+        cnc.setParameter(1320, 2, 123456);
+        FanucReadDevices.ParameterInfo info = devices.readParameterWithError(handle, (short) 1320,
+                FanucReadDevices.ALL_AXES, (short) (4 + 4 * 32));
+        assertThat(info.isSuccess()).isTrue();
+        assertThat(((int[]) info.getData())[1]).isEqualTo(123456);
+
+        // 按实际轴数给出数据块长度时，数组长度与轴数一致
+        int axes = cnc.getAxisCount();
+        FanucReadDevices.ParameterInfo word = devices.readParameterWithError(handle, (short) 1323,
+                FanucReadDevices.ALL_AXES, (short) (4 + 2 * axes));
+        assertThat(word.getData()).isInstanceOf(short[].class);
+        assertThat((short[]) word.getData()).hasSize(axes)
+                .containsExactly(toShorts(cnc, 1323, axes));
+    }
+
+    private static short[] toShorts(SimulatedCnc cnc, int number, int axes) {
+        short[] values = new short[axes];
+        for (int i = 0; i < axes; i++) {
+            values[i] = (short) cnc.readParameter(number, i + 1);
+        }
+        return values;
+    }
+
+    @Test
+    void bufferedReadsMatchStructureReads() {
+        FocasBuffers buffers = new FocasBuffers();
+        backend.machine("10.0.0.1", 8193).setMacro(500, 3.25);
+        assertThat(devices.readMacroVariable(handle, (short) 500, buffers)).isEqualTo(FocasErrorCode.EW_OK);
+        assertThat(buffers.getMacroValue()).isEqualTo(3.25);
+
+        assertThat(devices.readParameter(handle, (short) 1320, FanucReadDevices.ALL_AXES, (short) (4 + 4 * 32), buffers))
+                .isEqualTo(FocasErrorCode.EW_OK);
+        int[] axes = (int[]) devices.readParameterWithError(handle, (short) 1320,
+                FanucReadDevices.ALL_AXES, (short) (4 + 4 * 32)).getData();
+        assertThat(buffers.getParamType()).isEqualTo(3);
+        for (int i = 0; i < backend.machine("10.0.0.1", 8193).getAxisCount(); i++) {
+            assertThat(buffers.getParamValue(i)).isEqualTo(axes[i]);
+        }
+
+        assertThat(devices.readCurrentExecProgram(handle, buffers)).isEqualTo(FocasErrorCode.EW_OK);
+        String name = buffers.getExecProgramName();
+        assertThat(name).isEqualTo(devices.readCurrentExecProgramWithError(handle).getProgramName());
+        devices.readCurrentExecProgram(handle, buffers);
+        // 程序名未变化时复用同一个 String
+        assertThat(buffers.getExecProgramName()).isSameAs(name);
+    }
+
+    @Test
+    void downloadsProgram() {
+        assertThat(devices.startDownloadWithError(handle, FanucReadDevices.DownloadDataType.NC_PROGRAM).isSuccess()).isTrue();
+        assertThat(devices.downloadProgramWithError(handle, "%\nO1234\nG00 X0 Y0;\nM30;\n%").isSuccess()).isTrue();
+        assertThat(devices.endDownloadWithError(handle).isSuccess()).isTrue();
+        assertThat(backend.machine("10.0.0.1", 8193).getProgram(1234)).contains("M30;");
+    }
+
+    @Test
+    void streamsLargeProgramInChunksWithBufferRetries(@TempDir Path dir) throws IOException {
+        StringBuilder text = new StringBuilder("%\nO4321\n");
+        for (int n = 1; text.length() < 1_000_000; n++) {
+            text.append('N').append(n).append(" G01 X").append(n % 500).append(".0 F1200;\n");
+        }
+        String program = text.append("M30;\n%").toString();
+        Path file = Files.writeString(dir.resolve("O4321.nc"), program, StandardCharsets.US_ASCII);
+        config.setDownloadChunkLimit(3000);
+        config.setDownloadBufferFullRate(0.2);
+        AtomicLong progress = new AtomicLong();
+
+        assertThat(devices.startDownloadWithError(handle, FanucReadDevices.DownloadDataType.NC_PROGRAM).isSuccess()).isTrue();
+        FanucReadDevices.DownloadInfo info = devices.downloadFileWithError(handle, file,
+                (sent, total, elapsed) -> {
+                    assertThat(total).isEqualTo(program.length());
+                    assertThat(sent).isGreaterThan(progress.get());
+                    progress.set(sent);
+                });
+        assertThat(devices.endDownloadWithError(handle).isSuccess()).isTrue();
+
+        assertThat(info.isSuccess()).isTrue();
+        assertThat(info.getTotalBytes()).isEqualTo(program.length());
+        assertThat(progress.get()).isEqualTo(program.length());
+        // 每段 16KB 被拆成 3000 字节的多次调用，并有 EW_BUFFER 重试
+        assertThat(info.getCalls()).isGreaterThan(program.length() / 3000);
+        assertThat(info.getBufferRetries()).isPositive();
+        assertThat(backend.machine("10.0.0.1", 8193).getProgram(4321)).isEqualTo(program);
+    }
+
+    @Test
+    void socketErrorInvalidatesHandle() {
+        backend.machine("10.0.0.1", 8193).setOnline(false);
+        assertThat(backend.cnc_alarm2(handle, new IntByReference())).isEqualTo(FocasErrorCode.EW_SOCKET);
+        backend.machine("10.0.0.1", 8193).setOnline(true);
+        assertThat(backend.cnc_alarm2(handle, new IntByReference())).isEqualTo(FocasErrorCode.EW_HANDLE);
+        assertThat(backend.getOpenHandleCount()).isZero();
+    }
+}
@@ -0,0 +1,49 @@
+package com.wfql.springbootdemo.fanuc.metrics;
+
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FocasMetricsTest {
+
+    @Test
+    void recordsCallsPerMachineAndErrorsPerCode() {
+        FanucProperties properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        FanucProperties.Device device = new FanucProperties.Device();
+        device.setId("M01");
+        device.setIp("10.0.0.1");
+        properties.getDevices().add(device);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MeteredFocasBackend backend = new MeteredFocasBackend(
+                new SimulatedFocasBackend(properties), new FocasMetrics(registry, properties));
+
+        ShortByReference handle = new ShortByReference();
+        assertThat(backend.cnc_allclibhndl3("10.0.0.1", (short) 8193, 10, handle)).isEqualTo(FocasErrorCode.EW_OK);
+        for (int i = 0; i < 3; i++) {
+            assertThat(backend.cnc_rdblkcount(handle.getValue(), new IntByReference())).isEqualTo(FocasErrorCode.EW_OK);
+        }
+        backend.cnc_freelibhndl(handle.getValue());
+        // 句柄释放后不再属于 M01
+        assertThat(backend.cnc_rdblkcount(handle.getValue(), new IntByReference())).isEqualTo(FocasErrorCode.EW_HANDLE);
+
+        assertThat(registry.get("focas.calls").tags("function", "cnc_rdblkcount", "machine", "M01").timer().count())
+                .isEqualTo(3);
+        assertThat(registry.get("focas.calls").tags("function", "cnc_allclibhndl3", "machine", "M01").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("focas.latency").tags("function", "cnc_rdblkcount").timer().count()).isEqualTo(4);
+        assertThat(registry.get("focas.errors")
+                .tags("function", "cnc_rdblkcount", "machine", FocasMetrics.UNKNOWN_MACHINE, "code", "EW_HANDLE")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.find("focas.errors").tag("machine", "M01").counters()).isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.wfql.springbootdemo.fanuc.param;
+
+import com.wfql.springbootdemo.collect.DeviceTaskExecutor;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedCnc;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParameterSnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ThreadPoolTaskExecutor executor;
+    private SimpleAsyncTaskExecutor virtualExecutor;
+    private FocasConnectionPool pool;
+    private SimulatedFocasBackend backend;
+    private FanucProperties properties;
+    private ParameterSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ZERO);
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getParamSnapshot().setDir(dir.toString());
+        properties.getParamSnapshot().setRanges(List.of("1000-2999", "6000 - 6100"));
+        for (int i = 1; i <= 3; i++) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setId("M0" + i);
+            device.setIp("10.0.1." + i);
+            properties.getDevices().add(device);
+        }
+        backend = new SimulatedFocasBackend(properties);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        virtualExecutor = new SimpleAsyncTaskExecutor();
+        pool = new FocasConnectionPool(backend, properties);
+        service = new ParameterSnapshotService(new FanucReadDevices(backend), pool,
+                new ParameterSnapshotStore(properties),
+                new DeviceTaskExecutor(properties, executor, virtualExecutor), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        virtualExecutor.close();
+        pool.close();
+    }
+
+    @Test
+    void snapshotMatchesSimulatedParameters() throws IOException {
+        FanucProperties.Device device = properties.getDevices().get(0);
+        SimulatedCnc cnc = backend.machine(device.getIp(), device.getPort());
+        ParameterSnapshot snapshot = service.takeSnapshot(device);
+
+        // 个位为 9 的参数号不存在
+        assertThat(snapshot.size()).isEqualTo(1800 + 91);
+        assertThat(snapshot.getMaxAxis()).isEqualTo(cnc.getAxisCount());
+        assertThat(snapshot.getVersion()).isEqualTo(cnc.getVersion());
+        int index = snapshot.indexOf(1320);
+        assertThat(snapshot.isAxisParameter(index)).isTrue();
+        for (int axis = 1; axis <= cnc.getAxisCount(); axis++) {
+            assertThat(snapshot.getValue(index, axis - 1)).isEqualTo(cnc.readParameter(1320, axis));
+        }
+        assertThat(snapshot.getValue(snapshot.indexOf(1312), 0)).isEqualTo(cnc.readParameter(1312, 0));
+        assertThat(snapshot.indexOf(1319)).isNegative();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParameterSnapshotCodec.write(snapshot, out);
+        ParameterSnapshot decoded = ParameterSnapshotCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(decoded.numbers).isEqualTo(snapshot.numbers);
+        assertThat(decoded.types).isEqualTo(snapshot.types);
+        assertThat(decoded.values).isEqualTo(snapshot.values);
+        assertThat(ParameterDiffer.diff(snapshot, decoded).hasChanges()).isFalse();
+    }
+
+    @Test
+    void auditReportsOnlyChangedParameters() {
+        List<ParameterAuditResult> first = service.auditAll();
+        assertThat(first).hasSize(3).allMatch(ParameterAuditResult::isSuccess);
+        assertThat(first.get(0).getDiff().getPreviousTakenAt()).isNull();
+
+        backend.machine("10.0.1.2", 8193).setParameter(1320, 2, 4242);
+        backend.machine("10.0.1.2", 8193).setParameter(6010, 0, 7);
+        List<ParameterAuditResult> second = service.auditAll();
+
+        assertThat(second.get(0).getDiff().hasChanges()).isFalse();
+        assertThat(second.get(2).getDiff().hasChanges()).isFalse();
+        ParameterDiff diff = second.get(1).getDiff();
+        assertThat(diff.getPreviousTakenAt()).isNotNull();
+        assertThat(diff.getChanged()).isEqualTo(2);
+        assertThat(diff.getChanges())
+                .extracting(ParameterChange::getNumber, ParameterChange::getAxis, ParameterChange::getAfter)
+                .containsExactly(
+                        org.assertj.core.groups.Tuple.tuple(1320, 2, 4242.0),
+                        org.assertj.core.groups.Tuple.tuple(6010, 0, 7.0));
+        assertThat(service.listSnapshots("M02")).hasSize(2);
+    }
+
+    @Test
+    void rejectsDeviceIdsThatLeaveSnapshotDirectory() {
+        ParameterSnapshotStore store = new ParameterSnapshotStore(properties);
+
+        assertThatThrownBy(() -> store.list("..")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.latest(".")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.diff("..", 1, 2)).isInstanceOf(IllegalArgumentException.class);
+        // 路径分隔符被替换，不会越出快照目录
+        assertThat(store.list("../M01")).isEmpty();
+    }
+
+    @Test
+    void diffMergesWhenParameterTableChanges() {
+        ParameterSnapshot before = ParameterSnapshot.builder("M01", 1, 2)
+                .add(100, 3, false, 5)
+                .add(200, 2, true, 1, 2)
+                .build();
+        ParameterSnapshot after = ParameterSnapshot.builder("M01", 2, 2)
+                .add(200, 2, true, 1, 3)
+                .add(300, 1, false, 9)
+                .build();
+
+        ParameterDiff diff = ParameterDiffer.diff(before, after);
+
+        assertThat(diff.getRemoved()).isEqualTo(1);
+        assertThat(diff.getAdded()).isEqualTo(1);
+        assertThat(diff.getChanged()).isEqualTo(1);
+        assertThat(diff.getChanges()).extracting(ParameterChange::getKind).containsExactly(
+                ParameterChange.Kind.REMOVED, ParameterChange.Kind.CHANGED, ParameterChange.Kind.ADDED);
+    }
+}
@@ -0,0 +1,201 @@
+package com.wfql.springbootdemo.fanuc.pool;
+
+import com.sun.jna.ptr.ShortByReference;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class FocasConnectionPoolTest {
+
+    private SimulatedFocasBackend backend;
+    private FocasConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        FanucProperties.Simulator simulator = new FanucProperties.Simulator();
+        simulator.setLatency(Duration.ZERO);
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setAlarmRate(0);
+        backend = new SimulatedFocasBackend(simulator);
+        FanucProperties properties = new FanucProperties();
+        properties.getPool().setMaxPerMachine(2);
+        properties.getPool().setMaxWait(Duration.ofMillis(50));
+        properties.getPool().setValidateAfterIdle(Duration.ZERO);
+        properties.getPool().setIdleTimeout(Duration.ofMinutes(5));
+        properties.getPool().getBreaker().setFailureThreshold(5);
+        pool = new FocasConnectionPool(backend, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void reusesHandleInsteadOfReconnecting() {
+        short first;
+        try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+            first = connection.getHandle();
+        }
+        try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+            assertThat(connection.getHandle()).isEqualTo(first);
+        }
+        assertThat(pool.getStats().get("10.0.0.1:8193").getCreated()).isEqualTo(1);
+        assertThat(pool.getStats().get("10.0.0.1:8193").getBorrowCount()).isEqualTo(2);
+    }
+
+    @Test
+    void boundsHandlesPerMachine() {
+        FocasConnection a = pool.borrow("10.0.0.1", 8193);
+        FocasConnection b = pool.borrow("10.0.0.1", 8193);
+        assertThatThrownBy(() -> pool.borrow("10.0.0.1", 8193)).isInstanceOf(FocasPoolException.class);
+        // 其他CNC不受影响
+        pool.borrow("10.0.0.2", 8193).close();
+        a.close();
+        b.close();
+        assertThat(pool.getStats().get("10.0.0.1:8193").getBorrowTimeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void brokenHandleIsFreedAndUnhealthyIdleHandleIsReplaced() {
+        try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+            connection.check(FocasErrorCode.EW_SOCKET);
+        }
+        assertThat(backend.getOpenHandleCount()).isZero();
+
+        short stale;
+        try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+            stale = connection.getHandle();
+        }
+        backend.cnc_freelibhndl(stale); // 模拟CNC侧句柄失效
+        try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+            assertThat(connection.getHandle()).isNotEqualTo(stale);
+        }
+        assertThat(pool.getStats().get("10.0.0.1:8193").getValidationFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void logicalFailureDiscardsHandleWithoutTrippingBreaker() {
+        for (int i = 0; i < 5; i++) {
+            try (FocasConnection connection = pool.borrow("10.0.0.1", 8193)) {
+                connection.markBroken(FocasErrorCode.EW_DATA);
+                assertThat(connection.getLastErrorCode()).isEqualTo(FocasErrorCode.EW_DATA);
+            }
+        }
+        assertThat(backend.getOpenHandleCount()).isZero();
+        BreakerStats stats = pool.getBreakers().get("10.0.0.1:8193");
+        assertThat(stats.getState()).isEqualTo(BreakerState.CLOSED);
+        assertThat(stats.getConsecutiveFailures()).isZero();
+    }
+
+    @Test
+    void connectFailureReleasesPermit() {
+        backend.machine("10.0.0.1", 8193).setOnline(false);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> pool.borrow("10.0.0.1", 8193))
+                    .isInstanceOf(FocasPoolException.class)
+                    .extracting("errorCode").isEqualTo(FocasErrorCode.EW_SOCKET);
+        }
+        backend.machine("10.0.0.1", 8193).setOnline(true);
+        pool.borrow("10.0.0.1", 8193).close();
+    }
+
+    @Test
+    void breakerFailsFastAndProbesAfterOpenDuration() {
+        FanucProperties.Simulator simulator = new FanucProperties.Simulator();
+        simulator.setLatency(Duration.ZERO);
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setOfflineConnectDelay(Duration.ofMillis(200));
+        SimulatedFocasBackend slow = new SimulatedFocasBackend(simulator);
+        FanucProperties properties = new FanucProperties();
+        properties.getPool().getBreaker().setFailureThreshold(2);
+        properties.getPool().getBreaker().setOpenDuration(Duration.ofMillis(300));
+        AtomicLong clock = new AtomicLong();
+        FocasConnectionPool breakerPool = new FocasConnectionPool(slow, properties, clock::get);
+        slow.machine("10.0.0.9", 8193).setOnline(false);
+        try {
+            for (int i = 0; i < 2; i++) {
+                assertThatThrownBy(() -> breakerPool.borrow("10.0.0.9", 8193)).isInstanceOf(FocasPoolException.class);
+            }
+            BreakerStats stats = breakerPool.getBreakers().get("10.0.0.9:8193");
+            assertThat(stats.getState()).isEqualTo(BreakerState.OPEN);
+
+            // 熔断期间直接失败，不再等待连接超时
+            long start = System.nanoTime();
+            FocasPoolException rejected = catchThrowableOfType(FocasPoolException.class,
+                    () -> breakerPool.borrow("10.0.0.9", 8193));
+            long elapsed = System.nanoTime() - start;
+            assertThat(rejected).isNotNull();
+            assertThat(rejected.getErrorCode()).isEqualTo(FocasErrorCode.EW_SOCKET);
+            assertThat(elapsed).isLessThan(Duration.ofMillis(100).toNanos());
+
+            // 到期后的探测失败，等待时间翻倍
+            clock.addAndGet(Duration.ofMillis(350).toNanos());
+            assertThatThrownBy(() -> breakerPool.borrow("10.0.0.9", 8193)).isInstanceOf(FocasPoolException.class);
+            stats = breakerPool.getBreakers().get("10.0.0.9:8193");
+            assertThat(stats.getState()).isEqualTo(BreakerState.OPEN);
+            assertThat(stats.getOpenDurationMillis()).isEqualTo(600);
+            assertThat(stats.getOpened()).isEqualTo(2);
+            assertThat(stats.getRejected()).isEqualTo(1);
+
+            slow.machine("10.0.0.9", 8193).setOnline(true);
+            clock.addAndGet(Duration.ofMillis(650).toNanos());
+            breakerPool.borrow("10.0.0.9", 8193).close();
+            assertThat(breakerPool.getBreakers().get("10.0.0.9:8193").getState()).isEqualTo(BreakerState.CLOSED);
+            assertThat(breakerPool.getStats().get("10.0.0.9:8193").getConnectFailures()).isEqualTo(3);
+        } finally {
+            breakerPool.close();
+        }
+    }
+
+    @Test
+    void unexpectedErrorDuringProbeReleasesIt() {
+        FanucProperties.Simulator simulator = new FanucProperties.Simulator();
+        simulator.setLatency(Duration.ZERO);
+        simulator.setConnectLatency(Duration.ZERO);
+        simulator.setOfflineConnectDelay(Duration.ZERO);
+        AtomicBoolean nativeError = new AtomicBoolean();
+        SimulatedFocasBackend failing = new SimulatedFocasBackend(simulator) {
+            @Override
+            public short cnc_allclibhndl3(String ipaddr, short port, int timeout, ShortByReference FlibHndl) {
+                if (nativeError.get()) {
+                    throw new IllegalStateException("Invalid memory access");
+                }
+                return super.cnc_allclibhndl3(ipaddr, port, timeout, FlibHndl);
+            }
+        };
+        FanucProperties properties = new FanucProperties();
+        properties.getPool().getBreaker().setFailureThreshold(1);
+        properties.getPool().getBreaker().setOpenDuration(Duration.ofMillis(300));
+        AtomicLong clock = new AtomicLong();
+        FocasConnectionPool breakerPool = new FocasConnectionPool(failing, properties, clock::get);
+        failing.machine("10.0.0.9", 8193).setOnline(false);
+        try {
+            assertThatThrownBy(() -> breakerPool.borrow("10.0.0.9", 8193)).isInstanceOf(FocasPoolException.class);
+            clock.addAndGet(Duration.ofMillis(350).toNanos());
+
+            // 探测时本地调用抛出异常，探测机会应交还给下一次借用
+            nativeError.set(true);
+            assertThatThrownBy(() -> breakerPool.borrow("10.0.0.9", 8193)).isInstanceOf(IllegalStateException.class);
+            assertThat(breakerPool.getBreakers().get("10.0.0.9:8193").getState()).isEqualTo(BreakerState.HALF_OPEN);
+
+            nativeError.set(false);
+            failing.machine("10.0.0.9", 8193).setOnline(true);
+            breakerPool.borrow("10.0.0.9", 8193).close();
+            assertThat(breakerPool.getBreakers().get("10.0.0.9:8193").getState()).isEqualTo(BreakerState.CLOSED);
+        } finally {
+            breakerPool.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.wfql.springbootdemo.fanuc.program;
+
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.fanuc.FanucReadDevices;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import com.wfql.springbootdemo.fanuc.backend.SimulatedFocasBackend;
+import com.wfql.springbootdemo.fanuc.pool.FocasConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProgramRolloutServiceTest {
+
+    private FocasConnectionPool pool;
+    private SimulatedFocasBackend backend;
+    private FanucProperties properties;
+    private ProgramRolloutService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FanucProperties();
+        properties.getSimulator().setLatency(Duration.ofMillis(3));
+        properties.getSimulator().setLatencyJitter(Duration.ZERO);
+        properties.getSimulator().setConnectLatency(Duration.ZERO);
+        properties.getSimulator().setAlarmRate(0);
+        properties.getSimulator().setDownloadChunkLimit(2000);
+        for (int i = 1; i <= 12; i++) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setId(String.format("M%02d", i));
+            device.setIp("10.0.2." + i);
+            device.setCell(i <= 10 ? "A1" : "B1");
+            properties.getDevices().add(device);
+        }
+        backend = new SimulatedFocasBackend(properties);
+        pool = new FocasConnectionPool(backend, properties);
+        service = new ProgramRolloutService(new FanucReadDevices(backend), pool, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        pool.close();
+    }
+
+    @Test
+    void rolloutRunsMachinesInParallelAndReportsEachOne() {
+        StringBuilder text = new StringBuilder("%\nO5678\n");
+        for (int n = 1; text.length() < 20_000; n++) {
+            text.append('N').append(n).append(" G01 X").append(n % 500).append(".0 F1200;\n");
+        }
+        String program = text.append("M30;\n%").toString();
+        backend.machine("10.0.2.3", 8193).setAlarm(1000);
+
+        ProgramRolloutRequest request = new ProgramRolloutRequest();
+        request.setCell("A1");
+        request.setDeviceIds(List.of("M11"));
+        request.setProgram(program);
+        // 使用默认的 fanuc.rollout.max-concurrency（16）
+        ProgramRolloutReport report = service.rollout(request);
+
+        assertThat(report.getTargets()).isEqualTo(11);
+        assertThat(report.getProgramBytes()).isEqualTo(program.length() + 1);
+        assertThat(report.getSucceeded()).isEqualTo(10);
+        assertThat(report.getResults()).extracting(ProgramDownloadResult::getDeviceId)
+                .containsExactly("M01", "M02", "M03", "M04", "M05", "M06", "M07", "M08", "M09", "M10", "M11");
+        ProgramDownloadResult alarmed = report.getResults().get(2);
+        assertThat(alarmed.isSuccess()).isFalse();
+        assertThat(alarmed.getFailedStage()).isEqualTo(ProgramDownloadResult.Stage.START);
+        assertThat(alarmed.getErrorCode()).isEqualTo(FocasErrorCode.EW_ALARM);
+        for (ProgramDownloadResult result : report.getResults()) {
+            if (result.isSuccess()) {
+                assertThat(result.getSentBytes()).isEqualTo(program.length() + 1);
+                String ip = properties.getDevices().get(Integer.parseInt(result.getDeviceId().substring(1)) - 1).getIp();
+                assertThat(backend.machine(ip, 8193).getProgram(5678)).isEqualTo(program);
+            }
+        }
+        // 每台设备十几次调用、每次 3ms；串行时整批耗时为各台之和，3 个线程分四轮跑完 11 台时约为 4/11，
+        // 11 台同时下发时接近十一分之一，留出余量取四分之一
+        assertThat(report.getMaxConcurrency()).isEqualTo(16);
+        long sum = report.getResults().stream().mapToLong(ProgramDownloadResult::getElapsedMillis).sum();
+        assertThat(report.getElapsedMillis()).isLessThan(sum / 4);
+    }
+
+    @Test
+    void rejectsUnknownDevice() {
+        ProgramRolloutRequest request = new ProgramRolloutRequest();
+        request.setDeviceIds(List.of("X99"));
+        request.setProgram("%\nO1\nM30;\n%");
+
+        assertThatThrownBy(() -> service.rollout(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("X99");
+    }
+}
@@ -0,0 +1,286 @@
+package com.wfql.springbootdemo.opcua;
+
+import com.wfql.springbootdemo.collect.CollectorPipeline;
+import com.wfql.springbootdemo.collect.DeltaFilter;
+import com.wfql.springbootdemo.collect.MachineStateStore;
+import com.wfql.springbootdemo.collect.ReadingSink;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import com.wfql.springbootdemo.driver.DriverSession;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.eclipse.milo.opcua.sdk.core.AccessLevel;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.sdk.server.api.ManagedNamespaceWithLifecycle;
+import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig;
+import org.eclipse.milo.opcua.sdk.server.identity.AnonymousIdentityValidator;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaVariableNode;
+import org.eclipse.milo.opcua.sdk.server.util.SubscriptionModel;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.security.DefaultCertificateManager;
+import org.eclipse.milo.opcua.stack.core.security.DefaultTrustListManager;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.server.EndpointConfiguration;
+import org.eclipse.milo.opcua.stack.server.security.DefaultServerCertificateValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 使用 Milo 进程内服务器验证订阅采集与服务器重启后的重新订阅
+ */
+class OpcUaCollectorTest {
+
+    @TempDir
+    Path pki;
+
+    private final BlockingQueue<SignalReading> received = new LinkedBlockingQueue<>();
+    private int port;
+    private TestServer server;
+    private OpcUaProperties properties;
+    private OpcUaCollector collector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = TestServer.start(port, pki.toFile());
+
+        properties = new OpcUaProperties();
+        properties.setPublishingInterval(Duration.ofMillis(50));
+        properties.setSamplingInterval(Duration.ofMillis(20));
+        // 每批两个节点，三个节点分两次请求创建
+        properties.setMaxItemsPerRequest(2);
+        properties.setReconnectDelay(Duration.ofMillis(200));
+        OpcUaProperties.Endpoint endpoint = new OpcUaProperties.Endpoint();
+        endpoint.setId("R01");
+        endpoint.setUrl("opc.tcp://127.0.0.1:" + port + "/test");
+        for (String[] n : new String[][]{{"ns=2;s=Speed", "speed"}, {"ns=2;s=Program", null}, {"ns=2;s=Missing", null}}) {
+            OpcUaProperties.Node node = new OpcUaProperties.Node();
+            node.setNodeId(n[0]);
+            node.setSignal(n[1]);
+            endpoint.getNodes().add(node);
+        }
+        properties.getEndpoints().add(endpoint);
+
+        ReadingSink sink = received::addAll;
+        CollectorPipeline pipeline = new CollectorPipeline(
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(ReadingSink.class),
+                new DeltaFilter(new FanucProperties()), new MachineStateStore());
+        collector = new OpcUaCollector(properties, pipeline);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (collector != null) {
+            collector.stop();
+        }
+        server.stop();
+    }
+
+    @Test
+    void subscribesAndResubscribesAfterServerRestart() throws Exception {
+        collector.start();
+
+        awaitReading(r -> r.getSignal().equals("online") && r.getValue() == 1);
+        awaitReading(r -> r.getSignal().equals("speed") && r.getValue() == 0);
+        awaitReading(r -> r.getSignal().equals("opcua:ns=2;s=Program") && "O1000".equals(r.getText()));
+        // 第二批监控项可能在第一批的数据到达之后才创建完成
+        OpcUaStats stats = awaitStats(s -> s.getMonitoredItems() == 2);
+        assertThat(stats.getRejectedItems()).isEqualTo(1);
+
+        server.speed.setValue(new DataValue(new Variant(12.5)));
+        awaitReading(r -> r.getSignal().equals("speed") && r.getValue() == 12.5);
+
+        // 服务器重启后原订阅不存在，转移失败后重新创建
+        server.stop();
+        awaitReading(r -> r.getSignal().equals("online") && r.getValue() == 0);
+        server = TestServer.start(port, pki.toFile());
+        awaitReading(r -> r.getSignal().equals("online") && r.getValue() == 1);
+        server.speed.setValue(new DataValue(new Variant(30.0)));
+        awaitReading(r -> r.getSignal().equals("speed") && r.getValue() == 30);
+        assertThat(awaitStats(s -> s.getMonitoredItems() == 2).getSubscriptionsCreated()).isEqualTo(2);
+    }
+
+    @Test
+    void driverReadsWritesAndSubscribesThroughCollectorSession() throws Exception {
+        collector.start();
+        awaitReading(r -> r.getSignal().equals("online") && r.getValue() == 1);
+        OpcUaDriver driver = new OpcUaDriver(properties, collector);
+        assertThat(driver.hasMachine("R01")).isTrue();
+
+        BlockingQueue<SignalReading> subscribed = new LinkedBlockingQueue<>();
+        try (DriverSession session = driver.open("R01")) {
+            assertThat(session.write(TagAddress.parse("opcua:speed"), 42)).isEqualTo(FocasErrorCode.EW_OK);
+
+            List<SignalReading> out = new ArrayList<>();
+            short result = session.read(TagAddress.parseAll(List.of("opcua:speed", "opcua:ns=2;s=Program",
+                    "opcua:ns=2;s=Missing", "opcua:bogus")), 1000L, out);
+            assertThat(result).isEqualTo(FocasErrorCode.EW_OK);
+            Map<String, SignalReading> bySignal = out.stream()
+                    .collect(Collectors.toMap(SignalReading::getSignal, Function.identity()));
+            assertThat(bySignal.get("speed").getValue()).isEqualTo(42);
+            assertThat(bySignal.get("ns=2;s=Program").getText()).isEqualTo("O1000");
+            assertThat(bySignal.get("ns=2;s=Missing").getErrorCode()).isEqualTo(FocasErrorCode.EW_DATA);
+            assertThat(bySignal.get("bogus").getErrorCode()).isEqualTo(FocasErrorCode.EW_NUMBER);
+
+            try (AutoCloseable ignored = session.subscribe(
+                    TagAddress.parseAll(List.of("opcua:ns=2;s=Speed")), subscribed::addAll)) {
+                server.speed.setValue(new DataValue(new Variant(7.5)));
+                SignalReading reading;
+                do {
+                    reading = subscribed.poll(10, TimeUnit.SECONDS);
+                } while (reading != null && reading.getValue() != 7.5);
+                assertThat(reading).isNotNull();
+                assertThat(reading.getSignal()).isEqualTo("ns=2;s=Speed");
+            }
+            assertThatThrownBy(() -> session.subscribe(TagAddress.parseAll(List.of("opcua:ns=2;s=Other")), r -> {
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> driver.open("R09")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void awaitReading(Predicate<SignalReading> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            SignalReading reading = received.poll(100, TimeUnit.MILLISECONDS);
+            if (reading != null && condition.test(reading)) {
+                return;
+            }
+        }
+        throw new AssertionError("等待采集结果超时");
+    }
+
+    private OpcUaStats awaitStats(Predicate<OpcUaStats> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        OpcUaStats stats = collector.getStats().get(0);
+        while (!condition.test(stats) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            stats = collector.getStats().get(0);
+        }
+        return stats;
+    }
+
+    /**
+     * 只提供 None 安全策略端点的最小服务器，命名空间 2 下有 Speed（Double）与 Program（String）两个变量
+     */
+    private static final class TestServer {
+        final OpcUaServer server;
+        UaVariableNode speed;
+
+        private TestServer(OpcUaServer server) {
+            this.server = server;
+        }
+
+        static TestServer start(int port, File pki) throws Exception {
+            DefaultTrustListManager trustList = new DefaultTrustListManager(pki);
+            EndpointConfiguration endpoint = new EndpointConfiguration.Builder()
+                    .setBindAddress("127.0.0.1")
+                    .setHostname("127.0.0.1")
+                    .setBindPort(port)
+                    .setPath("/test")
+                    .setSecurityPolicy(SecurityPolicy.None)
+                    .setSecurityMode(MessageSecurityMode.None)
+                    .addTokenPolicy(OpcUaServerConfig.USER_TOKEN_POLICY_ANONYMOUS)
+                    .build();
+            OpcUaServerConfig config = OpcUaServerConfig.builder()
+                    .setApplicationUri("urn:wfql:springbootdemo:test-server")
+                    .setApplicationName(LocalizedText.english("test server"))
+                    .setProductUri("urn:wfql:springbootdemo:test-server")
+                    .setEndpoints(Set.of(endpoint))
+                    .setCertificateManager(new DefaultCertificateManager())
+                    .setTrustListManager(trustList)
+                    .setCertificateValidator(new DefaultServerCertificateValidator(trustList))
+                    .setIdentityValidator(AnonymousIdentityValidator.INSTANCE)
+                    .build();
+            TestServer testServer = new TestServer(new OpcUaServer(config));
+            TestNamespace namespace = new TestNamespace(testServer);
+            namespace.startup();
+            testServer.server.startup().get(10, TimeUnit.SECONDS);
+            return testServer;
+        }
+
+        void stop() throws Exception {
+            server.shutdown().get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class TestNamespace extends ManagedNamespaceWithLifecycle {
+
+        private final SubscriptionModel subscriptionModel;
+
+        TestNamespace(TestServer testServer) {
+            super(testServer.server, "urn:wfql:springbootdemo:test");
+            subscriptionModel = new SubscriptionModel(testServer.server, this);
+            getLifecycleManager().addLifecycle(subscriptionModel);
+            getLifecycleManager().addStartupTask(() -> {
+                testServer.speed = variable("Speed", Identifiers.Double, 0.0);
+                variable("Program", Identifiers.String, "O1000");
+            });
+        }
+
+        private UaVariableNode variable(String name, NodeId dataType, Object value) {
+            UaVariableNode node = new UaVariableNode.UaVariableNodeBuilder(getNodeContext())
+                    .setNodeId(newNodeId(name))
+                    .setAccessLevel(AccessLevel.READ_WRITE)
+                    .setUserAccessLevel(AccessLevel.READ_WRITE)
+                    .setBrowseName(newQualifiedName(name))
+                    .setDisplayName(LocalizedText.english(name))
+                    .setDataType(dataType)
+                    .setTypeDefinition(Identifiers.BaseDataVariableType)
+                    .build();
+            node.setValue(new DataValue(new Variant(value)));
+            getNodeManager().addNode(node);
+            return node;
+        }
+
+        @Override
+        public void onDataItemsCreated(List<DataItem> dataItems) {
+            subscriptionModel.onDataItemsCreated(dataItems);
+        }
+
+        @Override
+        public void onDataItemsModified(List<DataItem> dataItems) {
+            subscriptionModel.onDataItemsModified(dataItems);
+        }
+
+        @Override
+        public void onDataItemsDeleted(List<DataItem> dataItems) {
+            subscriptionModel.onDataItemsDeleted(dataItems);
+        }
+
+        @Override
+        public void onMonitoringModeChanged(List<MonitoredItem> monitoredItems) {
+            subscriptionModel.onMonitoringModeChanged(monitoredItems);
+        }
+    }
+}
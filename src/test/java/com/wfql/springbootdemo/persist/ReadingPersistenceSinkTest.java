@@ -0,0 +1,94 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingPersistenceSinkTest {
+
+    private ReadingPersistenceSink sink;
+
+    @AfterEach
+    void tearDown() {
+        sink.stop();
+    }
+
+    @Test
+    void flushesBySizeAndTimeAndRetriesFailedBatch() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getPersist().setBatchSize(1000);
+        properties.getPersist().setFlushInterval(Duration.ofMillis(100));
+        Queue<Integer> batches = new ConcurrentLinkedQueue<>();
+        AtomicInteger calls = new AtomicInteger();
+        sink = new ReadingPersistenceSink(batch -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("ORA-03113");
+            }
+            batches.add(batch.size());
+        }, properties);
+        sink.start();
+
+        sink.accept(readings("M01", 2500));
+        Thread.sleep(1200);
+
+        // 两个满批 + 一个超时刷出的 500 条；第二批失败后重试成功
+        assertThat(batches).containsExactly(1000, 1000, 500);
+        PersistStats stats = sink.getStats();
+        assertThat(stats.getRowsWritten()).isEqualTo(2500);
+        assertThat(stats.getFailedBatches()).isEqualTo(1);
+        assertThat(stats.getDroppedRows()).isZero();
+        assertThat(stats.getRowsPerSecond()).isPositive();
+    }
+
+    @Test
+    void blocksThenDropsWhenWriterLags() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getPersist().setQueueCapacity(10);
+        properties.getPersist().setBatchSize(5);
+        properties.getPersist().setFlushInterval(Duration.ofMillis(10));
+        properties.getPersist().setOfferTimeout(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        sink = new ReadingPersistenceSink(batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, properties);
+        sink.start();
+
+        long start = System.nanoTime();
+        sink.accept(readings("M01", 30));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // 写入线程卡住：最多一批 5 条在写、队列 10 条，其余等待 offer-timeout 后丢弃
+        assertThat(waited).isGreaterThanOrEqualTo(50);
+        PersistStats stats = sink.getStats();
+        assertThat(stats.getBlockedOffers()).isPositive();
+        assertThat(stats.getDroppedRows()).isGreaterThanOrEqualTo(15);
+
+        sink.stop();
+        assertThat(sink.getStats().getRowsWritten()).isEqualTo(30 - stats.getDroppedRows());
+    }
+
+    private static List<SignalReading> readings(String machineId, int count) {
+        List<SignalReading> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(SignalReading.of(machineId, "macro:" + (500 + i % 20), i, 1000 + i));
+        }
+        return list;
+    }
+}
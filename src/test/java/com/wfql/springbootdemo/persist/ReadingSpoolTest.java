@@ -0,0 +1,151 @@
+package com.wfql.springbootdemo.persist;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesFromCheckpointAfterRestart() throws IOException {
+        ReadingSpool spool = new ReadingSpool(dir, 4096, 1 << 20);
+        spool.append(readings(0, 300));
+        assertThat(segmentFiles()).hasSizeGreaterThan(2);
+
+        List<SignalReading> out = new ArrayList<>();
+        assertThat(spool.poll(out, 100)).isEqualTo(100);
+        spool.commit();
+        // 未提交的一批在重启后重新读取
+        out.clear();
+        spool.poll(out, 50);
+        spool.close();
+
+        ReadingSpool reopened = new ReadingSpool(dir, 4096, 1 << 20);
+        assertThat(reopened.getPendingRecords()).isEqualTo(200);
+        reopened.append(readings(300, 10));
+        out.clear();
+        while (reopened.poll(out, 64) > 0) {
+            reopened.commit();
+        }
+        assertThat(out).hasSize(210);
+        assertThat(out.get(0).getTimestamp()).isEqualTo(1100);
+        assertThat(out.get(209).getTimestamp()).isEqualTo(1309);
+        assertThat(out.get(0).getText()).isEqualTo("O100");
+        assertThat(out.get(1).getErrorCode()).isEqualTo((short) -16);
+        assertThat(out.get(2).getValue()).isEqualTo(102);
+        assertThat(reopened.getPendingRecords()).isZero();
+        // 已消费的段被删除，只留当前段
+        assertThat(segmentFiles()).hasSize(1);
+        reopened.close();
+    }
+
+    @Test
+    void ignoresTornTailAndDropsOldestOverCap() throws IOException {
+        ReadingSpool spool = new ReadingSpool(dir, 4096, 1 << 20);
+        spool.append(readings(0, 20));
+        long end = spool.getStats().getPendingBytes();
+        spool.close();
+        // 模拟写到一半时崩溃：段尾之后是长度非零、CRC 不符的记录
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 9, 9, 9}), end);
+        }
+
+        ReadingSpool reopened = new ReadingSpool(dir, 4096, 3 * 4096);
+        assertThat(reopened.getPendingRecords()).isEqualTo(20);
+        // 上限三个段：继续写入时丢弃最旧的段
+        reopened.append(readings(20, 400));
+        SpoolStats stats = reopened.getStats();
+        assertThat(stats.getSegments()).isLessThanOrEqualTo(3);
+        assertThat(stats.getDroppedSegments()).isPositive();
+        assertThat(stats.getPendingRecords() + stats.getDroppedRecords()).isEqualTo(420);
+
+        List<SignalReading> out = new ArrayList<>();
+        reopened.poll(out, 1000);
+        assertThat(out).hasSize((int) stats.getPendingRecords());
+        assertThat(out.get(out.size() - 1).getTimestamp()).isEqualTo(1419);
+        reopened.close();
+    }
+
+    @Test
+    void sinkReplaysAfterDatabaseOutage() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getPersist().setBatchSize(100);
+        properties.getPersist().setFlushInterval(Duration.ofMillis(20));
+        properties.getPersist().getSpool().setDir(dir.toString());
+        properties.getPersist().getSpool().setSegmentSize(DataSize.ofKilobytes(8));
+        AtomicBoolean databaseUp = new AtomicBoolean(false);
+        Queue<SignalReading> written = new ConcurrentLinkedQueue<>();
+        SpoolingReadingSink sink = null;
+        try {
+            sink = new SpoolingReadingSink(batch -> {
+                if (!databaseUp.get()) {
+                    throw new IllegalStateException("ORA-12541: TNS:no listener");
+                }
+                written.addAll(batch);
+            }, properties);
+            sink.start();
+
+            sink.accept(readings(0, 250));
+            Thread.sleep(200);
+            SpoolStats down = sink.getStats();
+            assertThat(down.isDatabaseAvailable()).isFalse();
+            assertThat(down.getPendingRecords()).isEqualTo(250);
+            assertThat(written).isEmpty();
+
+            databaseUp.set(true);
+            // 第一次重试在 1s 后
+            long deadline = System.currentTimeMillis() + 5000;
+            while (written.size() < 250 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(written).extracting(SignalReading::getTimestamp).doesNotHaveDuplicates().hasSize(250);
+            assertThat(sink.getStats().isDatabaseAvailable()).isTrue();
+            assertThat(sink.getStats().getPendingRecords()).isZero();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } finally {
+            if (sink != null) {
+                sink.stop();
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(ReadingSpool.SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static List<SignalReading> readings(int from, int count) {
+        List<SignalReading> list = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            list.add(switch (i % 3) {
+                case 1 -> SignalReading.text("M01", "exeprg", "O" + i, 1000 + i);
+                case 2 -> SignalReading.error("M01", "alarm", (short) -16, 1000 + i);
+                default -> SignalReading.of("M01", "macro:500", i, 1000 + i);
+            });
+        }
+        return list;
+    }
+}
@@ -0,0 +1,175 @@
+package com.wfql.springbootdemo.snapshot;
+
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.driver.DeviceDriver;
+import com.wfql.springbootdemo.driver.DriverException;
+import com.wfql.springbootdemo.driver.DriverRegistry;
+import com.wfql.springbootdemo.driver.DriverSession;
+import com.wfql.springbootdemo.driver.TagAddress;
+import com.wfql.springbootdemo.fanuc.FocasErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotServiceTest {
+
+    private SnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SnapshotService(new DriverRegistry(List.of(new TestDriver())), new FanucProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void returnsPartialResultsAtDeadline() {
+        SnapshotRequest request = new SnapshotRequest();
+        request.setMachineIds(List.of("M01", "SLOW", "M02", "DOWN", "M09", "M01"));
+        request.setTags(List.of("test:speed", "test:bad"));
+        request.setTimeoutMillis(300L);
+
+        long start = System.nanoTime();
+        List<String> completionOrder = new ArrayList<>();
+        SnapshotReport report = service.snapshot(request, snapshot -> completionOrder.add(snapshot.getMachineId()));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 不等待 SLOW 读完
+        assertThat(elapsedMillis).isLessThan(1500);
+        assertThat(report.getMachines()).extracting(MachineSnapshot::getMachineId)
+                .containsExactly("M01", "SLOW", "M02", "DOWN", "M09");
+        // 回调按完成顺序，超时的设备最后
+        assertThat(completionOrder).hasSize(5).last().isEqualTo("SLOW");
+        Map<String, MachineSnapshot> byId = report.getMachines().stream()
+                .collect(Collectors.toMap(MachineSnapshot::getMachineId, Function.identity()));
+        assertThat(byId.get("M01").getStatus()).isEqualTo(MachineSnapshot.Status.PARTIAL);
+        assertThat(byId.get("M01").getReadings()).extracting(SignalReading::getValue).contains(1.0);
+        assertThat(byId.get("SLOW").getStatus()).isEqualTo(MachineSnapshot.Status.TIMEOUT);
+        assertThat(byId.get("DOWN").getStatus()).isEqualTo(MachineSnapshot.Status.FAILED);
+        assertThat(byId.get("DOWN").getErrorCode()).isEqualTo(FocasErrorCode.EW_SOCKET);
+        assertThat(byId.get("M09").getStatus()).isEqualTo(MachineSnapshot.Status.FAILED);
+        assertThat(byId.get("M09").getErrorMessage()).contains("未配置");
+        assertThat(report.getPartial()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getTimedOut()).isEqualTo(1);
+
+        request.setTags(List.of("test:speed"));
+        request.setMachineIds(List.of("M01"));
+        assertThat(service.snapshot(request).getMachines().get(0).getStatus()).isEqualTo(MachineSnapshot.Status.OK);
+        request.setTimeoutMillis(60_000L);
+        assertThatThrownBy(() -> service.snapshot(request)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readsAllMachinesConcurrentlyInsteadOfThroughPollingPool() {
+        SnapshotRequest request = new SnapshotRequest();
+        request.setMachineIds(IntStream.rangeClosed(1, 50).mapToObj(i -> "LAG" + i).toList());
+        request.setTags(List.of("test:speed"));
+        request.setTimeoutMillis(3000L);
+
+        long start = System.nanoTime();
+        SnapshotReport report = service.snapshot(request);
+
+        // 每台 200ms，按轮询线程池（3 个线程）执行需要 3 秒以上
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1500);
+        assertThat(report.getSucceeded()).isEqualTo(50);
+    }
+
+    @Test
+    void skipsMachinesThatCannotStartBeforeDeadline() throws InterruptedException {
+        FanucProperties properties = new FanucProperties();
+        properties.getExecutor().setMaxConcurrentPerDevice(1);
+        TestDriver driver = new TestDriver();
+        SnapshotService service = new SnapshotService(new DriverRegistry(List.of(driver)), properties);
+        try {
+            SnapshotRequest request = new SnapshotRequest();
+            request.setMachineIds(List.of("SLOW"));
+            request.setTags(List.of("test:speed"));
+            request.setTimeoutMillis(100L);
+
+            assertThat(service.snapshot(request).getTimedOut()).isEqualTo(1);
+            // 第一次读取仍占着 SLOW 的许可，第二次在截止前拿不到许可，不再读取
+            assertThat(service.snapshot(request).getTimedOut()).isEqualTo(1);
+            Thread.sleep(200);
+            assertThat(driver.slowReads).hasValue(1);
+        } finally {
+            service.close();
+        }
+    }
+
+    /**
+     * speed 读取成功，其他标签返回 EW_FUNC；SLOW 读取耗时 3 秒，LAG* 读取耗时 200ms，DOWN 连接失败
+     */
+    private static final class TestDriver implements DeviceDriver {
+
+        private static final Set<String> MACHINES = Set.of("M01", "M02", "SLOW", "DOWN");
+
+        private final AtomicInteger slowReads = new AtomicInteger();
+
+        @Override
+        public String getProtocol() {
+            return "test";
+        }
+
+        @Override
+        public boolean hasMachine(String machineId) {
+            return MACHINES.contains(machineId) || machineId.startsWith("LAG");
+        }
+
+        @Override
+        public DriverSession open(String machineId) {
+            if (machineId.equals("DOWN")) {
+                throw new DriverException(machineId, FocasErrorCode.EW_SOCKET, "连接失败", null);
+            }
+            return new DriverSession() {
+                @Override
+                public String getMachineId() {
+                    return machineId;
+                }
+
+                @Override
+                public short read(List<TagAddress> tags, long timestamp, List<SignalReading> out) {
+                    if (machineId.equals("SLOW")) {
+                        slowReads.incrementAndGet();
+                    }
+                    try {
+                        Thread.sleep(machineId.equals("SLOW") ? 3000 : machineId.startsWith("LAG") ? 200 : 0);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (TagAddress tag : tags) {
+                        out.add(tag.getKind().equals("speed")
+                                ? SignalReading.of(machineId, tag.getSignal(), 1, timestamp)
+                                : SignalReading.error(machineId, tag.getSignal(), FocasErrorCode.EW_FUNC, timestamp));
+                    }
+                    return FocasErrorCode.EW_OK;
+                }
+
+                @Override
+                public short write(TagAddress tag, double value) {
+                    return FocasErrorCode.EW_FUNC;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
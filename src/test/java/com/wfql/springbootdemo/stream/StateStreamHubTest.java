@@ -0,0 +1,140 @@
+package com.wfql.springbootdemo.stream;
+
+import com.wfql.springbootdemo.collect.MachineState;
+import com.wfql.springbootdemo.collect.MachineStateStore;
+import com.wfql.springbootdemo.collect.SignalReading;
+import com.wfql.springbootdemo.config.FanucProperties;
+import com.wfql.springbootdemo.config.OpcUaProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StateStreamHubTest {
+
+    private final MachineStateStore store = new MachineStateStore();
+    private StateStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        FanucProperties properties = new FanucProperties();
+        properties.getStream().setFrameInterval(Duration.ofMillis(50));
+        properties.getStream().setSendTimeout(Duration.ofMillis(200));
+        for (String[] d : new String[][]{{"M01", "A"}, {"M02", "A"}, {"M03", "B"}}) {
+            FanucProperties.Device device = new FanucProperties.Device();
+            device.setId(d[0]);
+            device.setCell(d[1]);
+            properties.getDevices().add(device);
+            publish(d[0], 0);
+        }
+        OpcUaProperties opcUaProperties = new OpcUaProperties();
+        OpcUaProperties.Endpoint endpoint = new OpcUaProperties.Endpoint();
+        endpoint.setId("R01");
+        endpoint.setCell("B");
+        opcUaProperties.getEndpoints().add(endpoint);
+        hub = new StateStreamHub(store, properties, opcUaProperties);
+        hub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    void coalescesChangesPerFrameAndAppliesFilter() throws Exception {
+        CapturingEmitter emitter = new CapturingEmitter();
+        hub.register(emitter, hub.resolve(null, List.of("A")));
+
+        assertThat(emitter.nextFrame()).extracting(MachineState::getMachineId)
+                .containsExactlyInAnyOrder("M01", "M02");
+
+        for (int i = 1; i <= 20; i++) {
+            publish("M01", i);
+            publish("M03", i);
+        }
+        Thread.sleep(200);
+        List<List<MachineState>> frames = new ArrayList<>();
+        emitter.frames.drainTo(frames);
+        // 20 次变化合并为一帧（最多因跨周期分成两帧），不包含订阅范围外的 M03
+        assertThat(frames).isNotEmpty().hasSizeLessThanOrEqualTo(2);
+        assertThat(frames).flatMap(f -> f).extracting(MachineState::getMachineId).containsOnly("M01");
+        assertThat(frames.get(frames.size() - 1).get(0).getBlockCount().getValue()).isEqualTo(20);
+
+        assertThatThrownBy(() -> hub.resolve(List.of("M09"), null)).isInstanceOf(IllegalArgumentException.class);
+        // OPC UA 服务器与 FANUC 设备一样可按编号、单元订阅
+        assertThat(hub.resolve(List.of("R01"), null)).containsExactly("R01");
+        assertThat(hub.resolve(null, List.of("B"))).containsExactlyInAnyOrder("M03", "R01");
+    }
+
+    @Test
+    void dropsSlowConsumer() throws Exception {
+        CapturingEmitter slow = new CapturingEmitter();
+        slow.block = new CountDownLatch(1);
+        CapturingEmitter fast = new CapturingEmitter();
+        hub.register(slow, null);
+        hub.register(fast, null);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (hub.getStats().getSlowConsumersDropped() == 0 && System.currentTimeMillis() < deadline) {
+            publish("M02", System.currentTimeMillis());
+            Thread.sleep(20);
+        }
+        slow.block.countDown();
+
+        StreamStats stats = hub.getStats();
+        assertThat(stats.getSlowConsumersDropped()).isEqualTo(1);
+        assertThat(stats.getSubscribers()).isEqualTo(1);
+        assertThat(fast.frames.size()).isGreaterThan(1);
+    }
+
+    private void publish(String machineId, long blockCount) {
+        List<SignalReading> readings = List.of(SignalReading.of(machineId, "blkcount", blockCount, 1000 + blockCount));
+        store.update(readings);
+        if (hub != null) {
+            hub.accept(readings);
+        }
+    }
+
+    /**
+     * 记录发送的状态帧；设置 block 时模拟写不出去的慢客户端
+     */
+    private static final class CapturingEmitter extends SseEmitter {
+        final BlockingQueue<List<MachineState>> frames = new LinkedBlockingQueue<>();
+        volatile CountDownLatch block;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) {
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof List<?> list) {
+                    frames.add((List<MachineState>) list);
+                }
+            }
+        }
+
+        List<MachineState> nextFrame() throws InterruptedException {
+            List<MachineState> frame = frames.poll(2, TimeUnit.SECONDS);
+            assertThat(frame).as("等待状态帧超时").isNotNull();
+            return frame;
+        }
+    }
+}